@@ -0,0 +1,18 @@
+package GameHandlers.Actors;
+
+//Anything that runs on the ActorRuntime: it only ever does work when it is handed a message
+
+/*
+* How it works:
+* The runtime never runs two receive() calls for the same actor at once, and each call happens-after the previous
+* one, so an actor's own fields need no locking as long as only its receive() touches them.
+* receive() must not block: anything long (a battle waiting for the player's input) is handed to another thread.
+*/
+
+public interface Actor {
+    /**
+     * Handles one message
+     * @param message The message, in the order it was sent
+     */
+    void receive(ActorMessage message);
+}
@@ -0,0 +1,86 @@
+package GameHandlers.Actors;
+
+//Messages that actors send each other
+
+//Messages:
+// - START:  the game has started, the actor introduces itself
+// - STOP:  the game is over, the actor says goodbye (it gets no more mail after this)
+// - BATTLE_STARTED / BATTLE_ENDED:  the receiver has been pulled into / let out of a battle
+// - StepTick(kind, step):  one half of a game step, PLAYER (the player moves) or ENEMY (enemies move)
+// - Freeze(turns):  the receiver can't move until it is sent THAW (sent after the player flees)
+// - THAW:  a freeze is over (sent by the freeze's timer on the game's TimingWheel)
+
+/*
+* How it works:
+* Messages are immutable, so one instance can be sent to any number of actors. The messages without data are
+* shared constants; StepTick and Freeze carry their values in final fields.
+*/
+
+public abstract class ActorMessage {
+    public static final ActorMessage START = new Signal("Start");
+    public static final ActorMessage STOP = new Signal("Stop");
+    public static final ActorMessage BATTLE_STARTED = new Signal("BattleStarted");
+    public static final ActorMessage BATTLE_ENDED = new Signal("BattleEnded");
+    public static final ActorMessage THAW = new Signal("Thaw");
+
+    private ActorMessage() {
+    }
+
+    /**
+     * A message without any data
+     */
+    private static final class Signal extends ActorMessage {
+        private final String name;
+
+        private Signal(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    /**
+     * One half of a game step
+     */
+    public static final class StepTick extends ActorMessage {
+        public static final int PLAYER = 1; // The player takes their step
+        public static final int ENEMY = 2;  // CharacterEnemies take their turn
+
+        private final int kind;
+        private final int step;
+
+        public StepTick(int kind, int step) {
+            this.kind = kind;
+            this.step = step;
+        }
+
+        public int getKind() { return kind; }
+        public int getStep() { return step; }
+
+        @Override
+        public String toString() {
+            return "StepTick(" + (kind == PLAYER ? "player" : "enemy") + ", " + step + ")";
+        }
+    }
+
+    /**
+     * Tells an enemy it can't move for a number of turns. The number is for reporting, the THAW ends the freeze.
+     */
+    public static final class Freeze extends ActorMessage {
+        private final int turns;
+
+        public Freeze(int turns) {
+            this.turns = turns;
+        }
+
+        public int getTurns() { return turns; }
+
+        @Override
+        public String toString() {
+            return "Freeze(" + turns + ")";
+        }
+    }
+}
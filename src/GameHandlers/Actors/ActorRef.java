@@ -0,0 +1,106 @@
+package GameHandlers.Actors;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+//The handle used to send messages to an actor on the ActorRuntime
+
+//Methods List:
+// - tell(ActorMessage message):  sends a message, waiting for room if the mailbox is full
+// - offer(ActorMessage message):  sends a message only if there is room right now
+// - runBatch(int maxMessages):  [runtime] hands up to maxMessages messages to the actor
+
+//Getters:
+// - getName():
+// - getActor():
+// - getMailbox():
+
+/*
+* How it works:
+* Sending puts the message in the actor's mailbox and, if the actor wasn't already waiting to run, puts it on the
+* runtime's run queue. The scheduled flag makes sure an actor is on the queue at most once, so only one worker
+* ever runs it at a time. An actor with an empty mailbox is on no queue and costs nothing.
+*/
+
+public final class ActorRef {
+    private final String name;
+    private final Actor actor;
+    private final Mailbox mailbox;
+    private final ActorRuntime runtime;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    ActorRef(String name, Actor actor, int capacity, ActorRuntime runtime) {
+        this.name = name;
+        this.actor = actor;
+        this.mailbox = new Mailbox(capacity);
+        this.runtime = runtime;
+    }
+
+    public String getName() { return name; }
+    public Actor getActor() { return actor; }
+    public Mailbox getMailbox() { return mailbox; }
+
+    /**
+     * Sends a message. If the mailbox is full the sender waits for the actor to catch up (back-pressure).
+     * @return true if the message was delivered, false if the runtime has been shut down
+     */
+    public boolean tell(ActorMessage message) {
+        while (!mailbox.offer(message)) {
+            if (runtime.isShutdown()) {
+                return false;
+            }
+            LockSupport.parkNanos(50_000);
+        }
+        schedule();
+        return true;
+    }
+
+    /**
+     * Sends a message only if there is room right now
+     * @return true if the message was delivered
+     */
+    public boolean offer(ActorMessage message) {
+        if (!mailbox.offer(message)) {
+            return false;
+        }
+        schedule();
+        return true;
+    }
+
+    /**
+     * Hands up to maxMessages messages to the actor. Called by one runtime worker at a time.
+     * @return true if messages are still waiting (the actor stays scheduled)
+     */
+    boolean runBatch(int maxMessages) {
+        for (int i = 0; i < maxMessages; i++) {
+            ActorMessage message = mailbox.poll();
+            if (message == null) {
+                break;
+            }
+            try {
+                actor.receive(message);
+            } catch (RuntimeException e) {
+                System.err.println("Actor " + name + " failed on " + message + ": " + e);
+            }
+        }
+        if (!mailbox.isEmpty()) {
+            return true;
+        }
+        scheduled.set(false);
+        // A message may have arrived between the last poll and clearing the flag; reclaim it if nobody else did
+        return !mailbox.isEmpty() && scheduled.compareAndSet(false, true);
+    }
+
+    // ===== Helper Methods =====
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            runtime.enqueue(this);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ActorRef(" + name + ")";
+    }
+}
@@ -0,0 +1,140 @@
+package GameHandlers.Actors;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+
+//Runs every actor of the game on a small, shared pool of worker threads
+
+//Methods List:
+// - spawn(Actor actor, String name, int mailboxCapacity):  adds an actor and returns the ref used to send to it
+// - start():  starts the worker threads
+// - broadcast(ActorMessage message):  sends a message to every actor
+// - shutdown(long timeoutMillis):  sends STOP to everyone, lets the mail drain, then stops the workers
+// - enqueue(ActorRef ref):  [package] puts an actor with new mail on the run queue
+
+//Getters:
+// - getWorkerCount():
+// - getActorCount():
+// - isShutdown():
+
+/*
+* How it works:
+* Actors with mail waiting sit on one run queue. Each worker takes the next actor, hands it up to BATCH_SIZE
+* messages, and puts it back at the end of the queue if it still has mail, so a busy actor can't starve the others.
+* Workers with nothing to do block on the queue, so when nobody has mail the whole runtime uses no CPU.
+* The number of threads no longer depends on the number of actors: a thousand enemies share the same workers.
+*/
+
+public class ActorRuntime {
+    private static final int BATCH_SIZE = 16;
+
+    private final LinkedBlockingQueue<ActorRef> runQueue = new LinkedBlockingQueue<>();
+    private final List<ActorRef> actors = new CopyOnWriteArrayList<>();
+    private final Thread[] workers;
+    private volatile boolean shutdown;
+
+    /**
+     * Creates a runtime
+     * @param workerCount Number of worker threads
+     * @param namePrefix Prefix for the worker thread names
+     */
+    public ActorRuntime(int workerCount, String namePrefix) {
+        this.workers = new Thread[Math.max(1, workerCount)];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Thread(this::workLoop, namePrefix + "-" + i);
+        }
+    }
+
+    public int getWorkerCount() { return workers.length; }
+    public int getActorCount() { return actors.size(); }
+    public boolean isShutdown() { return shutdown; }
+
+    /**
+     * Adds an actor. It can be sent messages right away; they are handled once the runtime is started.
+     * @param actor The actor
+     * @param name Name used in error messages
+     * @param mailboxCapacity How many messages can wait for it before senders have to wait
+     * @return The ref used to send messages to the actor
+     */
+    public ActorRef spawn(Actor actor, String name, int mailboxCapacity) {
+        ActorRef ref = new ActorRef(name, actor, mailboxCapacity, this);
+        actors.add(ref);
+        return ref;
+    }
+
+    /**
+     * Starts the worker threads
+     */
+    public void start() {
+        for (Thread worker : workers) {
+            worker.start();
+        }
+    }
+
+    /**
+     * Sends a message to every actor
+     */
+    public void broadcast(ActorMessage message) {
+        for (ActorRef ref : actors) {
+            ref.tell(message);
+        }
+    }
+
+    /**
+     * Sends STOP to every actor, waits for all mail to be handled, then stops and joins the workers
+     * @param timeoutMillis How long to wait for the mail to drain and the workers to finish
+     */
+    public void shutdown(long timeoutMillis) throws InterruptedException {
+        if (shutdown) {
+            return;
+        }
+        broadcast(ActorMessage.STOP);
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (hasMail() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        shutdown = true;
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        for (Thread worker : workers) {
+            worker.join(Math.max(1, deadline - System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * Puts an actor that has new mail on the run queue
+     */
+    void enqueue(ActorRef ref) {
+        runQueue.add(ref);
+    }
+
+    // ===== Helper Methods =====
+
+    private void workLoop() {
+        try {
+            while (!shutdown) {
+                ActorRef ref = runQueue.take();
+                if (ref.runBatch(BATCH_SIZE)) {
+                    runQueue.add(ref); // Still has mail, go to the back of the line
+                }
+            }
+        } catch (InterruptedException e) {
+            // Shut down
+        }
+    }
+
+    private boolean hasMail() {
+        if (!runQueue.isEmpty()) {
+            return true;
+        }
+        for (ActorRef ref : actors) {
+            if (!ref.getMailbox().isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,93 @@
+package GameHandlers.Actors;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+//Bounded multi-producer, single-consumer queue of messages for one actor
+
+//Methods List:
+// - offer(ActorMessage message):  adds a message, returns false if the mailbox is full (any thread)
+// - poll():  takes the oldest message, or null if there is none (the actor's current runner only)
+// - isEmpty():
+
+//Getters:
+// - getCapacity():
+
+/*
+* How it works:
+* A fixed array of slots, each with its own sequence number. A sender claims the next slot by moving the shared
+* tail forward with compare-and-set, writes the message, and then bumps the slot's sequence to say it is ready.
+* The single reader only looks at the slot's sequence, so senders never block each other or the reader, and
+* no lock is ever taken. When every slot is taken the mailbox is full and offer() returns false straight away.
+*/
+
+public class Mailbox {
+    private final ActorMessage[] slots;
+    private final AtomicLongArray sequences; // Slot i is free for tail t when its sequence is t, ready for head h at h + 1
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private long head; // Only read and written by whoever is running the actor
+
+    /**
+     * Creates a mailbox
+     * @param capacity Number of messages it can hold, rounded up to a power of two
+     */
+    public Mailbox(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new ActorMessage[size];
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    /**
+     * Adds a message. Safe to call from any thread.
+     * @return true if it was added, false if the mailbox is full
+     */
+    public boolean offer(ActorMessage message) {
+        while (true) {
+            long position = tail.get();
+            int slot = (int) (position & mask);
+            long sequence = sequences.get(slot);
+            if (sequence == position) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots[slot] = message;
+                    sequences.set(slot, position + 1); // Publishes the message to the reader
+                    return true;
+                }
+            } else if (sequence < position) {
+                return false; // The reader hasn't freed this slot yet: full
+            }
+            // Another sender claimed this position first, try the next one
+        }
+    }
+
+    /**
+     * Takes the oldest message. Only the thread currently running the actor may call this.
+     * @return The message, or null if the mailbox is empty
+     */
+    public ActorMessage poll() {
+        int slot = (int) (head & mask);
+        if (sequences.get(slot) != head + 1) {
+            return null;
+        }
+        ActorMessage message = slots[slot];
+        slots[slot] = null;
+        sequences.set(slot, head + slots.length); // Free for the sender that wraps around to it
+        head++;
+        return message;
+    }
+
+    /**
+     * Checks if there is a message ready to be taken
+     */
+    public boolean isEmpty() {
+        return sequences.get((int) (head & mask)) != head + 1;
+    }
+}
@@ -0,0 +1,197 @@
+package GameHandlers.Actors;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+//Compares how long it takes for every subscriber to see a step tick: actor mailboxes against a monitor with notifyAll()
+
+//Methods List:
+// - main(String[] args):  ticks, max monitor threads, subscriber counts...
+// - runMailboxes(int subscribers, int workers, int ticks):
+// - runMonitor(int subscribers, int threads, int ticks):
+// - publishAndWait(int subscribers, Runnable publish):  publishes one tick and waits until every subscriber has seen it
+// - report(String name, int subscribers, int threads, long[] latencies):
+
+/*
+* How it works:
+* Each run has N subscribers and the producer publishes one tick, starts a clock, and waits until the last
+* subscriber has seen it; that time is one latency sample.
+* - Monitor: the old counter + stepLock.notifyAll() pattern. Subscribers are spread over one thread each until the
+*   thread limit, then each thread carries several, and every thread re-checks the counter under the one lock.
+* - Mailbox: how the game sends ticks now. Every subscriber is an Actor on an ActorRuntime with the game's worker
+*   count and a CharacterEnemy's mailbox capacity, and the tick is one StepTick told to each of them, the way
+*   GameManager sends its player and enemy ticks.
+* Prints the median and 99th percentile per run, in microseconds.
+*/
+
+public class TickDeliveryBenchmark {
+    private static final int WORKERS = 2;           // GameManager's actor workers
+    private static final int MAILBOX_CAPACITY = 32; // A CharacterEnemy's mailbox
+
+    private final AtomicInteger remaining = new AtomicInteger();
+    private volatile Thread producer;
+    private volatile long lastSeenAt;
+    private long[] latencies;
+    private int sample;
+
+    public static void main(String[] args) throws InterruptedException {
+        int ticks = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int[] counts = {100, 10_000, 100_000};
+        if (args.length > 2) {
+            counts = new int[args.length - 2];
+            for (int i = 2; i < args.length; i++) {
+                counts[i - 2] = Integer.parseInt(args[i]);
+            }
+        }
+
+        System.out.println("Tick notification latency (time until every subscriber has seen a tick), "
+            + ticks + " ticks, " + Runtime.getRuntime().availableProcessors() + " cpu(s)");
+        for (int subscribers : counts) {
+            new TickDeliveryBenchmark().runMonitor(subscribers, Math.min(subscribers, maxThreads), ticks);
+            new TickDeliveryBenchmark().runMailboxes(subscribers, WORKERS, ticks);
+        }
+    }
+
+    /**
+     * Runs the mailbox version: one actor per subscriber, each told every tick
+     */
+    public void runMailboxes(int subscribers, int workers, int ticks) throws InterruptedException {
+        ActorRuntime runtime = new ActorRuntime(workers, "bench-actor");
+        ActorRef[] refs = new ActorRef[subscribers];
+        for (int i = 0; i < subscribers; i++) {
+            int[] lastSeen = new int[1];
+            refs[i] = runtime.spawn(message -> {
+                if (message instanceof ActorMessage.StepTick) {
+                    lastSeen[0] = ((ActorMessage.StepTick) message).getStep();
+                    seen(1);
+                }
+            }, "subscriber-" + i, MAILBOX_CAPACITY);
+        }
+        runtime.start();
+
+        int[] step = new int[1];
+        runTicks(new Thread[0], ticks, subscribers, () -> {
+            ActorMessage tick = new ActorMessage.StepTick(ActorMessage.StepTick.ENEMY, ++step[0]);
+            for (ActorRef ref : refs) {
+                ref.tell(tick);
+            }
+        });
+        runtime.shutdown(2000);
+        report("Mailbox", subscribers, workers, latencies);
+    }
+
+    /**
+     * Runs the monitor version: every worker waits on one lock for a counter to change, like the old stepLock
+     */
+    public void runMonitor(int subscribers, int threads, int ticks) throws InterruptedException {
+        Object lock = new Object();
+        AtomicInteger counter = new AtomicInteger();
+        boolean[] stopped = new boolean[1];
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int share = shareOf(subscribers, threads, t);
+            int[] lastSeen = new int[share];
+            workers[t] = new Thread(() -> {
+                int seenCount = 0;
+                try {
+                    while (true) {
+                        synchronized(lock) {
+                            while (counter.get() <= seenCount && !stopped[0]) {
+                                lock.wait();
+                            }
+                            if (stopped[0]) {
+                                return;
+                            }
+                            seenCount = counter.get();
+                        }
+                        for (int i = 0; i < share; i++) {
+                            lastSeen[i] = seenCount;
+                        }
+                        seen(share);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "monitor-worker-" + t);
+        }
+
+        runTicks(workers, ticks, subscribers, () -> {
+            synchronized(lock) {
+                counter.incrementAndGet();
+                lock.notifyAll();
+            }
+        });
+        synchronized(lock) {
+            stopped[0] = true;
+            lock.notifyAll();
+        }
+        joinAll(workers);
+        report("Monitor", subscribers, threads, latencies);
+    }
+
+    // ===== Helper Methods =====
+
+    private void runTicks(Thread[] workers, int ticks, int subscribers, Runnable publish) throws InterruptedException {
+        producer = Thread.currentThread();
+        latencies = new long[ticks];
+        sample = 0;
+        for (Thread worker : workers) {
+            worker.setDaemon(true);
+            worker.start();
+        }
+        Thread.sleep(200); // Let the workers reach their first wait
+
+        // A few untimed ticks to warm up, then the measured ones
+        for (int i = 0; i < 5; i++) {
+            publishAndWait(subscribers, publish);
+        }
+        for (int i = 0; i < ticks; i++) {
+            latencies[sample++] = publishAndWait(subscribers, publish);
+        }
+    }
+
+    /**
+     * Publishes one tick and waits until every subscriber has seen it
+     * @return Nanoseconds from publish until the last subscriber saw the tick
+     */
+    private long publishAndWait(int subscribers, Runnable publish) {
+        remaining.set(subscribers);
+        long start = System.nanoTime();
+        publish.run();
+        while (remaining.get() > 0) {
+            LockSupport.parkNanos(10_000);
+        }
+        return lastSeenAt - start;
+    }
+
+    /**
+     * Called after subscribers have seen the current tick
+     */
+    private void seen(int count) {
+        if (remaining.addAndGet(-count) == 0) {
+            lastSeenAt = System.nanoTime();
+            LockSupport.unpark(producer);
+        }
+    }
+
+    private static int shareOf(int subscribers, int threads, int index) {
+        return subscribers / threads + (index < subscribers % threads ? 1 : 0);
+    }
+
+    private static void joinAll(Thread[] workers) throws InterruptedException {
+        for (Thread worker : workers) {
+            worker.join(2000);
+        }
+    }
+
+    private static void report(String name, int subscribers, int threads, long[] latencies) {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        long median = sorted[sorted.length / 2];
+        long p99 = sorted[Math.min(sorted.length - 1, (int) (sorted.length * 0.99))];
+        System.out.printf("%-9s %,8d subscribers on %,5d threads: median %,10.1f us   p99 %,10.1f us%n",
+            name, subscribers, threads, median / 1000.0, p99 / 1000.0);
+    }
+}
@@ -1,27 +1,54 @@
 package GameHandlers;
 
+import GameHandlers.Actors.ActorMessage;
 import GameHandlers.EventHandling.EnemyEncounter;
+import Game_Characters.CharacterEnemy;
 import Game_Characters.Enemy;
 import Game_Characters.Player;
 import Game_Characters.PlayerInput.AttackInteraction;
+import java.util.ArrayList;
+import java.util.List;
 
 //Battle manager to handle battles between player and enemies
 
 //Methods List:
 // - startBattle(Player player, EnemyEncounter enemyEncounter):  
 // - startBattle(Player player, Enemy enemy):
-// - startBattle(Player player, List<Enemy> enemies):
+// - startBattle(Player player, List<Enemy> enemies):  runs the battle as a BattleSession and merges its result
+//   (publishes ENCOUNTER_STARTED once the session is open)
 // - conductBattle(Player player, List<Enemy> enemies):  
+// - reserveBattle():  claims the battle system and enters the BATTLE phase, called while holding the step lock
+// - releaseBattle():  makes sure the battle system is given back once a handed-off event has finished
+// - runAfterBattle(Runnable action):  queues work that has to wait until the open battle has been merged
+// - openSession(Player player, List<Enemy> enemies):  takes the player and the enemies out of the world
+// - mergeSession(BattleSession session):  puts the battle's result back into the world in one step
+//   Enemies spawned for a battle are on the game's StateSync while it lasts, the defeated leave it at the merge
+//   Only the player and the enemies in a battle are sent BATTLE_STARTED / BATTLE_ENDED, everyone else keeps going
+
+//Getters:
+// - getSession():  the battle running right now, or null
 
 /*
 * How it works:
 * The BattleManager class manages battles between the player and enemies. It provides methods to start battles
 * with single enemies, multiple enemies, or enemy encounters. The battle logic is conducted using the
 * AttackInteraction system, allowing the player to choose actions during combat.
+* A battle runs as a BattleSession: only the player and the enemies fighting hold back their turns, the rest of
+* the world is left alone, and the battle runs without the step lock so the world clock (see GameManager) can
+* keep ticking. The result is merged back under the step lock, with these rules for hunters, CharacterEnemies
+* that reached the battle step while the battle ran:
+* - the player won:  the hunters have been waiting for them, the next encounter check meets them one by one
+* - the player fled:  the flee escapes the hunters too, they are stunned like the enemy the player ran from
+* - the player fell:  nothing more to settle
+* Only one battle can be open at a time (the player can't be in two); an event the player reaches during a
+* battle waits for the merge with runAfterBattle().
 */
 
 public class BattleManager {
     private final GameManager gameManager;
+    private boolean reserved;                                     // Guarded by the step lock
+    private volatile BattleSession session;                       // Written under the step lock
+    private final List<Runnable> afterBattle = new ArrayList<>(); // Guarded by the step lock
     
     /**
      * Creates a new BattleManager
@@ -30,6 +57,52 @@ public class BattleManager {
     public BattleManager(GameManager gameManager) {
         this.gameManager = gameManager;
     }
+
+    public BattleSession getSession() {
+        return session;
+    }
+    
+    /**
+     * Claims the battle system for a battle that is about to be run outside the step lock.
+     * Must be called while holding the step lock, so the battle is visible (and the player holds back their
+     * steps) before the lock is released.
+     * @return false if another battle already holds the battle system
+     */
+    public boolean reserveBattle() {
+        if (reserved) {
+            return false;
+        }
+        reserved = true;
+        gameManager.getPhases().enter(GamePhase.BATTLE);
+        gameManager.getPlayer().getActorRef().tell(ActorMessage.BATTLE_STARTED);
+        return true;
+    }
+    
+    /**
+     * Gives the battle system back after a handed-off event has finished, in case the event
+     * did not start a battle or ended abnormally. Leaving the BATTLE phase wakes anyone waiting for the battle to end.
+     */
+    public void releaseBattle() {
+        synchronized(gameManager.getStepLock()) {
+            BattleSession open = session;
+            if (open != null) {
+                mergeSession(open); // The battle ended abnormally, settle what it left behind
+            } else if (reserved) {
+                reserved = false; // startBattle() didn't get to it
+                gameManager.getPlayer().getActorRef().tell(ActorMessage.BATTLE_ENDED);
+                leaveBattlePhase();
+                runQueuedActions();
+            }
+        }
+    }
+
+    /**
+     * Queues work that has to wait until the open battle has been merged. Must be called while holding the step lock.
+     * @param action Runs right after the merge, still under the step lock; it must not block
+     */
+    public void runAfterBattle(Runnable action) {
+        afterBattle.add(action);
+    }
     
     /**
      * Starts a battle with an enemy from an encounter
@@ -58,21 +131,97 @@ public class BattleManager {
      * @param enemies The list of enemies to fight
      */
     public void startBattle(Player player, java.util.List<Enemy> enemies) {
-        // Pause the game for battle
-        gameManager.setBattleInProgress(true);
+        // The caller has reserved the battle system, only the fighters are taken out of the world
+        BattleSession battle = openSession(player, enemies);
+        gameManager.getEvents().publish(GameEvent.encounterStarted(describeEnemies(enemies), enemies.size(),
+            battle.getStep()));
         
         System.out.println("\n>>> BATTLE BEGINS!");
-        conductBattle(player, enemies);
-        System.out.println(">>> BATTLE ENDS!\n");
-        
-        // Resume the game after battle
-        gameManager.setBattleInProgress(false);
-        
-        // Notify the game loop to continue
+        try {
+            conductBattle(player, enemies);
+        } finally {
+            System.out.println(">>> BATTLE ENDS!\n");
+            if (battle.getWorldTicks() > 0) {
+                System.out.println(">>> The world moved on " + battle.getWorldTicks() + " turns while you fought.");
+            }
+
+            // Resume the game after battle (a flee has already moved the phase on to FLED)
+            synchronized(gameManager.getStepLock()) {
+                mergeSession(battle);
+            }
+        }
+    }
+
+    /**
+     * Opens the session for a battle: the enemies in it hold back their turns until it is merged
+     * @param player The player character
+     * @param enemies The enemies being fought
+     * @return The open session
+     */
+    private BattleSession openSession(Player player, List<Enemy> enemies) {
         synchronized(gameManager.getStepLock()) {
-            gameManager.getStepLock().notifyAll();
+            if (!reserved) {
+                reserveBattle(); // Called without going through a reservation
+            }
+            BattleSession battle = new BattleSession(player, player.getStep(), enemies);
+            battle.notePresent(gameManager.getEnemyRegistry());
+            for (Enemy enemy : enemies) {
+                if (enemy instanceof CharacterEnemy) {
+                    ((CharacterEnemy) enemy).getActorRef().tell(ActorMessage.BATTLE_STARTED);
+                } else {
+                    gameManager.getStateSync().track(enemy); // Spawned for this battle, synced while it lasts
+                }
+            }
+            session = battle;
+            gameManager.getWorld().setOpenBattle(battle);
+            return battle;
         }
     }
+
+    /**
+     * Puts a finished battle's result back into the world in one step. Must be called while holding the step lock,
+     * so no world tick or encounter check sees half of it.
+     * @param battle The session to merge
+     */
+    private void mergeSession(BattleSession battle) {
+        EnemyRegistry registry = gameManager.getEnemyRegistry();
+        battle.noteArrivals(registry); // Anyone who got there on the last world tick
+
+        // The defeated leave the world, the survivors get their turns back
+        for (Enemy enemy : battle.getEnemies()) {
+            if (enemy instanceof CharacterEnemy) {
+                CharacterEnemy fighter = (CharacterEnemy) enemy;
+                if (!fighter.getAlive()) {
+                    registry.remove(fighter);
+                    gameManager.getStateSync().untrack(fighter);
+                }
+                fighter.getActorRef().tell(ActorMessage.BATTLE_ENDED);
+            } else {
+                gameManager.getStateSync().untrack(enemy);
+            }
+        }
+
+        // Hunters that came to the battle step while it ran
+        boolean fled = battle.isUndecided();
+        for (CharacterEnemy hunter : battle.getHunters()) {
+            if (!hunter.getAlive() || hunter.getCurrentStep() != battle.getStep()) {
+                continue; // Gone again before the battle ended
+            }
+            if (fled) {
+                System.out.println(">>> " + hunter.getName() + " loses you in the confusion!");
+                hunter.freezeAfterFlee();
+            } else if (gameManager.getPlayer().getAlive()) {
+                System.out.println(">>> " + hunter.getName() + " has been waiting for you at step " + battle.getStep() + "!");
+            }
+        }
+
+        session = null;
+        reserved = false;
+        gameManager.getWorld().setOpenBattle(null);
+        gameManager.getPlayer().getActorRef().tell(ActorMessage.BATTLE_ENDED);
+        leaveBattlePhase();
+        runQueuedActions();
+    }
     
     /**
      * Conducts the battle using the AttackInteraction system
@@ -94,8 +243,39 @@ public class BattleManager {
         
         // Create battle interaction with all enemies
         AttackInteraction battleInteraction = new AttackInteraction(player, enemies);
+        if (gameManager.getInputHandler().getAutopilot() != null) {
+            battleInteraction.setVictoryPause(0); // Nobody is reading along
+        }
         
         // Let the input handler manage the battle interaction
         gameManager.getInputHandler().handleBattleInteraction(battleInteraction);
     }
+
+    // ===== Helper Methods =====
+
+    /**
+     * Leaves the BATTLE phase (a flee has already left it for FLED) and publishes the merged world.
+     * The transition wakes the game loop.
+     */
+    private void leaveBattlePhase() {
+        if (!gameManager.getPhases().transition(GamePhase.BATTLE, GamePhase.IDLE)) {
+            gameManager.getWorld().publish(gameManager.getPhases().get()); // No phase change published it
+        }
+    }
+
+    /**
+     * Names an encounter for its ENCOUNTER_STARTED event without walking a big one
+     */
+    private static String describeEnemies(List<Enemy> enemies) {
+        String first = enemies.get(0).getName();
+        return enemies.size() == 1 ? first : first + " and " + (enemies.size() - 1) + " more";
+    }
+
+    private void runQueuedActions() {
+        List<Runnable> actions = new ArrayList<>(afterBattle);
+        afterBattle.clear();
+        for (Runnable action : actions) {
+            action.run();
+        }
+    }
 }
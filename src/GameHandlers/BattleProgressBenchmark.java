@@ -0,0 +1,185 @@
+package GameHandlers;
+
+import Game_Characters.CharacterEnemy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+//Shows that the rest of the world keeps moving (or parks for free) while a battle waits on the player's input
+
+//Methods List:
+// - main(String[] args):  world tick millis, seconds to wait in the battle
+// - run(long waitMillis):  walks a real game into its first battle, then measures while the battle waits
+// - walkToBattle(GameManager game, PipedOutputStream keys):  presses Enter until a battle is open
+// - cpuNanos(ThreadMXBean threads):  CPU time used by every live thread so far
+// - atBattleStep(GameManager game, BattleSession battle):  living CharacterEnemies standing on the battle step
+// - enemySteps(GameManager game):  each CharacterEnemy's step
+
+/*
+* How it works:
+* A whole GameManager runs on its own thread with System.in replaced by a pipe, so the benchmark is the player:
+* it presses Enter until the first encounter (step 2) opens a BattleSession, then stops typing. The battle is
+* then blocked on input, on the executor, outside the step lock. From the moment the session opens until a few
+* seconds into the wait the benchmark counts:
+* - world ticks: enemy turns the world clock gave everyone outside the battle, and the global step
+* - enemy steps: how far the CharacterEnemies walked meanwhile. They hunt the player, so they walk until they
+*   reach the battle step and then wait there for the merge (the hunters)
+* - CPU: the CPU time every thread in the process used, so idle actors and the parked game thread show up as ~0
+* Run with a tick of 0 for the default game, where the world waits for the player: nothing may advance, and the
+* CPU used while waiting should be close to nothing. With a tick of N ms the world keeps its own pace.
+* Game output goes to a stream that throws it away; the benchmark exits once it has printed its numbers.
+*/
+
+public class BattleProgressBenchmark {
+    private static final PrintStream DISCARD = new PrintStream(OutputStream.nullOutputStream());
+    private static final long KEY_GAP_MILLIS = 100;
+    private static final long WALK_TIMEOUT_MILLIS = 30_000;
+
+    private final PrintStream out;
+
+    private BattleProgressBenchmark(PrintStream out) {
+        this.out = out;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int tickMillis = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        // Read by GameManager when it is first loaded, so these have to be set before it is touched
+        System.setProperty("world.tickMillis", Integer.toString(tickMillis));
+        System.clearProperty("autopilot");
+
+        PrintStream console = System.out;
+        console.println("World progress while a battle waits for input, world tick " + tickMillis + "ms, "
+            + seconds + "s wait, " + Runtime.getRuntime().availableProcessors() + " cpu(s)");
+        new BattleProgressBenchmark(console).run(seconds * 1000L);
+        System.exit(0); // The game is left in the middle of its battle
+    }
+
+    /**
+     * Walks a game into its first battle and measures what the world does while the battle waits on input
+     * @param waitMillis How long to leave the battle waiting
+     */
+    public void run(long waitMillis) throws Exception {
+        PipedOutputStream keys = new PipedOutputStream();
+        InputStream stdin = System.in;
+        System.setIn(new PipedInputStream(keys, 1024));
+        System.setOut(DISCARD);
+        GameManager game;
+        try {
+            game = new GameManager(); // Its Scanner reads the pipe
+        } finally {
+            System.setIn(stdin);
+        }
+        Thread gameThread = new Thread(game::start, "Game");
+        gameThread.setDaemon(true);
+        gameThread.start();
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        BattleSession battle = walkToBattle(game, keys);
+        if (battle == null) {
+            out.println("No battle opened within " + WALK_TIMEOUT_MILLIS / 1000 + "s");
+            return;
+        }
+        Map<CharacterEnemy, Integer> stepsBefore = enemySteps(game);
+        int worldTicksBefore = battle.getWorldTicks();
+        int globalBefore = game.getGlobalStepCounter().get();
+        long cpuBefore = cpuNanos(threads);
+        long start = System.nanoTime();
+
+        // The battle prints its menu and blocks on the pipe
+        long deadline = System.currentTimeMillis() + WALK_TIMEOUT_MILLIS;
+        while (!game.getInputHandler().isWaitingForInput() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        Thread.sleep(waitMillis);
+
+        long cpu = cpuNanos(threads) - cpuBefore;
+        long wall = System.nanoTime() - start;
+        int worldTicks = battle.getWorldTicks() - worldTicksBefore;
+        int globalSteps = game.getGlobalStepCounter().get() - globalBefore;
+        int walked = 0;
+        int moving = 0;
+        for (Map.Entry<CharacterEnemy, Integer> entry : enemySteps(game).entrySet()) {
+            Integer before = stepsBefore.get(entry.getKey());
+            int moved = before == null ? 0 : Math.abs(entry.getValue() - before);
+            walked += moved;
+            if (moved > 0) {
+                moving++;
+            }
+        }
+        boolean stillWaiting = game.getBattleManager().getSession() == battle && game.isBattleInProgress();
+
+        out.printf("Battle at step %d with %d enemies, still waiting on input: %b%n",
+            battle.getStep(), battle.getEnemies().size(), stillWaiting);
+        out.printf("  world ticks:  %,d in %.1fs (%.1f/s), global step %+d%n",
+            worldTicks, wall / 1e9, worldTicks / (wall / 1e9), globalSteps);
+        out.printf("  enemy steps:  %,d, by %d of %d CharacterEnemies (%d awake, %d at the battle step)%n",
+            walked, moving, stepsBefore.size(), game.getInterest().getActiveCount(), atBattleStep(game, battle));
+        out.printf("  cpu used:     %.1f ms (%.2f%% of one cpu), %s per world tick%n",
+            cpu / 1e6, 100.0 * cpu / wall, worldTicks > 0 ? String.format("%.1f us", cpu / 1e3 / worldTicks) : "-");
+    }
+
+    // ===== Helper Methods =====
+
+    /**
+     * Presses Enter whenever the game waits to advance, until a battle is open
+     * @return The open battle, or null if none opened in time
+     */
+    private BattleSession walkToBattle(GameManager game, PipedOutputStream keys) throws IOException, InterruptedException {
+        byte[] enter = "\n".getBytes(StandardCharsets.UTF_8);
+        long deadline = System.currentTimeMillis() + WALK_TIMEOUT_MILLIS;
+        long nextKey = 0;
+        while (System.currentTimeMillis() < deadline) {
+            BattleSession battle = game.getBattleManager().getSession();
+            if (battle != null) {
+                return battle;
+            }
+            long now = System.currentTimeMillis();
+            if (now >= nextKey && game.getInputHandler().isWaitingForInput() && game.getPhases().is(GamePhase.IDLE)) {
+                keys.write(enter);
+                keys.flush();
+                nextKey = now + KEY_GAP_MILLIS; // One Enter per prompt
+            }
+            Thread.sleep(1); // Polls tightly so the enemies' first moves in the battle are seen
+        }
+        return null;
+    }
+
+    private static long cpuNanos(ThreadMXBean threads) {
+        long total = 0;
+        for (long id : threads.getAllThreadIds()) {
+            long time = threads.getThreadCpuTime(id);
+            if (time > 0) {
+                total += time;
+            }
+        }
+        return total;
+    }
+
+    private static int atBattleStep(GameManager game, BattleSession battle) {
+        int count = 0;
+        for (CharacterEnemy enemy : game.getEnemyRegistry()) {
+            if (enemy.getAlive() && enemy.getStep() == battle.getStep()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static Map<CharacterEnemy, Integer> enemySteps(GameManager game) {
+        Map<CharacterEnemy, Integer> steps = new HashMap<>();
+        for (CharacterEnemy enemy : game.getEnemyRegistry()) {
+            steps.put(enemy, enemy.getStep());
+        }
+        return steps;
+    }
+}
@@ -0,0 +1,132 @@
+package GameHandlers;
+
+import Game_Characters.CharacterEnemy;
+import Game_Characters.Enemy;
+import Game_Characters.Player;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+//One battle running on its own: the player and the enemies in it are taken out of the world until its result is merged back
+
+//Methods List:
+// - isParticipant(CharacterEnemy enemy):  checks if an enemy is fighting in this battle
+// - notePresent(Iterable<CharacterEnemy> enemies):  remembers who was already at the battle step when it started
+// - noteArrivals(Iterable<CharacterEnemy> enemies):  records hunters that reached the battle step while it runs
+// - worldTicked():  counts a turn the rest of the world took during the battle
+// - isUndecided():  the player is alive and an enemy is still standing (the player fled)
+
+//Getters:
+// - getStep():  the step the battle is fought on
+// - getEnemies():  the enemies in the battle
+// - getHunters():  CharacterEnemies that arrived at the battle step during the battle, in order of arrival
+// - getWorldTicks():  turns the rest of the world took while the battle ran
+
+/*
+* How it works:
+* The BattleManager opens a session when a battle starts. Only the session's participants stop taking turns
+* (they are sent BATTLE_STARTED), every other CharacterEnemy keeps getting its ticks and the StepManager keeps
+* announcing encounters, and a published world shows the participants as they were when the battle started.
+* Nothing but the battle touches the participants, so the battle needs no lock. When it ends the BattleManager
+* merges the session under the step lock in one go: the defeated leave the registry, the participants get
+* their turns back and the hunters that came to the battle step are dealt with (see BattleManager).
+* Written under the step lock, read by the battle thread and the world clock.
+*/
+
+public final class BattleSession {
+    private final Player player;
+    private final int step;
+    private final List<Enemy> enemies;
+    private final Set<CharacterEnemy> participants = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<CharacterEnemy> seen = Collections.newSetFromMap(new IdentityHashMap<>()); // Guarded by the step lock
+    private final List<CharacterEnemy> hunters = new ArrayList<>(); // Guarded by the step lock
+    private volatile int worldTicks;
+
+    /**
+     * Opens a session
+     * @param player The player fighting the battle
+     * @param step The step the battle is fought on
+     * @param enemies The enemies in the battle (CharacterEnemies among them become participants)
+     */
+    BattleSession(Player player, int step, List<Enemy> enemies) {
+        this.player = player;
+        this.step = step;
+        this.enemies = List.copyOf(enemies);
+        for (Enemy enemy : enemies) {
+            if (enemy instanceof CharacterEnemy) {
+                participants.add((CharacterEnemy) enemy);
+            }
+        }
+    }
+
+    public int getStep() { return step; }
+    public List<Enemy> getEnemies() { return enemies; }
+    public List<CharacterEnemy> getHunters() { return hunters; }
+    public int getWorldTicks() { return worldTicks; }
+
+    /**
+     * Checks if an enemy is fighting in this battle
+     */
+    public boolean isParticipant(CharacterEnemy enemy) {
+        return participants.contains(enemy);
+    }
+
+    /**
+     * Remembers the enemies already waiting at the battle step when it started. They are no hunters:
+     * the encounter check after the battle meets them as it always did.
+     * Must be called under the step lock.
+     * @param enemies The enemies to look at (normally the whole registry)
+     */
+    void notePresent(Iterable<CharacterEnemy> enemies) {
+        for (CharacterEnemy enemy : enemies) {
+            if (isAtBattleStep(enemy)) {
+                seen.add(enemy);
+            }
+        }
+    }
+
+    /**
+     * Records every live CharacterEnemy that has reached the battle step since the battle started and isn't
+     * fighting in it. Must be called under the step lock.
+     * @param enemies The enemies to look at (normally the whole registry)
+     */
+    void noteArrivals(Iterable<CharacterEnemy> enemies) {
+        for (CharacterEnemy enemy : enemies) {
+            if (isAtBattleStep(enemy) && !participants.contains(enemy) && seen.add(enemy)) {
+                hunters.add(enemy);
+                System.out.println(">>> " + enemy.getName() + " arrives at step " + step +
+                                   ", but the battle is already under way!");
+            }
+        }
+    }
+
+    /**
+     * Counts one turn the rest of the world took during the battle
+     */
+    void worldTicked() {
+        worldTicks++; // Only the world clock writes, under the step lock
+    }
+
+    /**
+     * Checks if the battle ended with the player alive and an enemy still standing, i.e. the player fled
+     */
+    public boolean isUndecided() {
+        if (!player.getAlive()) {
+            return false;
+        }
+        for (Enemy enemy : enemies) {
+            if (enemy.getAlive()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // ===== Helper Methods =====
+
+    private boolean isAtBattleStep(CharacterEnemy enemy) {
+        return enemy.getAlive() && !enemy.isDormant() && enemy.getCurrentStep() == step;
+    }
+}
@@ -0,0 +1,318 @@
+package GameHandlers;
+
+import Game_Characters.CharacterEnemy;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+//Holds every registered CharacterEnemy under an integer handle
+
+//Methods List:
+// - register(CharacterEnemy enemy):  adds an enemy and returns its handle
+// - remove(CharacterEnemy enemy):  tombstones the enemy's slot and frees its handle for the next register()
+// - remove(int handle):
+// - get(int handle):  gets the enemy for a handle, or null if it was removed
+// - findFirstLive(Class<T> type):  gets the first registered, living enemy of a type
+// - size():  number of registered (not removed) enemies
+// - isEmpty():
+// - iterator():  weakly consistent iteration over registered enemies
+
+//Getters:
+// - getSlotCount():  slots iteration walks, the most enemies ever registered at once
+
+//Inner Classes:
+// - TypeIndex:  the enemies registered for one type, in registration order
+// - Entries:  one list of a TypeIndex's enemies, replaced whole when it is compacted
+// - RegistryIterator:
+
+/*
+* How it works:
+* Enemies are stored in fixed-size segments of slots. A handle is the slot's index and doesn't change while the
+* enemy is registered, so it can be stored on the enemy and passed around. Removing an enemy just clears its slot
+* (a tombstone), which is O(1) and never shifts anyone else, and puts the handle on a free list: the next
+* register() fills that slot instead of a new one, so with enemies coming and going the slots (and everything that
+* walks them) follow the most enemies registered at once, not every enemy there ever was. A removed enemy's own
+* handle is set back to -1. Growing only appends a segment, so existing slots never move.
+* Writers (register/remove) are serialized on the registry. Readers take no lock: slots are read through
+* AtomicReferenceArray, so an iterator sees every enemy that was present when it started and not removed
+* before it got there. Removing or adding enemies while iterating is safe and never throws.
+* Each type (and its superclasses up to CharacterEnemy) keeps a TypeIndex of its enemies. "Find the live Wizard"
+* reads that list from a hint that skips past removed ones at the front, instead of scanning every enemy. The index
+* holds the enemies themselves rather than handles, so a reused handle can't be mistaken for an old entry, and
+* once more than half of a type's entries are removed ones the list is copied without them.
+*/
+
+public class EnemyRegistry implements Iterable<CharacterEnemy> {
+    private static final int SEGMENT_BITS = 10;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+    private static final int MIN_COMPACT = 16; // Type entries removed before a TypeIndex is worth copying
+
+    @SuppressWarnings("unchecked")
+    private volatile AtomicReferenceArray<CharacterEnemy>[] segments = (AtomicReferenceArray<CharacterEnemy>[]) new AtomicReferenceArray<?>[0];
+    private volatile int highWater;  // Handles below this have been issued
+    private volatile int liveCount;
+    private int[] freeHandles = new int[16]; // Removed handles, reused most recent first; guarded by this
+    private int freeCount;
+    private final ConcurrentHashMap<Class<?>, TypeIndex> typeIndexes = new ConcurrentHashMap<>();
+
+    /**
+     * Registers an enemy and stores its handle on it. A handle freed by a removal is reused first.
+     * @param enemy The enemy to register
+     * @return The enemy's handle
+     */
+    public synchronized int register(CharacterEnemy enemy) {
+        if (freeCount > 0) {
+            int handle = freeHandles[--freeCount];
+            store(handle, enemy);
+            return handle;
+        }
+        int handle = highWater;
+        int segment = handle >>> SEGMENT_BITS;
+        if (segment == segments.length) {
+            AtomicReferenceArray<CharacterEnemy>[] grown = Arrays.copyOf(segments, segment + 1);
+            grown[segment] = new AtomicReferenceArray<>(SEGMENT_SIZE);
+            segments = grown;
+        }
+        store(handle, enemy);
+        highWater = handle + 1; // Publish last, so readers never see a handle before its slot
+        return handle;
+    }
+
+    /**
+     * Removes an enemy from the registry
+     * @param enemy The enemy to remove
+     * @return true if the enemy was registered here and has now been removed
+     */
+    public boolean remove(CharacterEnemy enemy) {
+        int handle = enemy.getRegistryHandle();
+        return handle >= 0 && get(handle) == enemy && remove(handle);
+    }
+
+    /**
+     * Removes the enemy with the given handle, leaving a tombstone in its slot until the handle is reused
+     * @param handle The enemy's handle
+     * @return true if an enemy was removed
+     */
+    public synchronized boolean remove(int handle) {
+        if (handle < 0 || handle >= highWater) {
+            return false;
+        }
+        AtomicReferenceArray<CharacterEnemy> segment = segments[handle >>> SEGMENT_BITS];
+        CharacterEnemy enemy = segment.getAndSet(handle & SEGMENT_MASK, null);
+        if (enemy == null) {
+            return false; // Already removed
+        }
+        enemy.setRegistryHandle(-1);
+        liveCount--;
+        if (freeCount == freeHandles.length) {
+            freeHandles = Arrays.copyOf(freeHandles, freeCount * 2);
+        }
+        freeHandles[freeCount++] = handle;
+        for (Class<?> type = enemy.getClass(); type != CharacterEnemy.class && type != null; type = type.getSuperclass()) {
+            TypeIndex index = typeIndexes.get(type);
+            if (index != null) {
+                index.removed();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the enemy registered under a handle
+     * @param handle The enemy's handle
+     * @return The enemy, or null if the handle was never issued or the enemy was removed
+     */
+    public CharacterEnemy get(int handle) {
+        if (handle < 0 || handle >= highWater) {
+            return null;
+        }
+        return segments[handle >>> SEGMENT_BITS].get(handle & SEGMENT_MASK);
+    }
+
+    /**
+     * Gets the earliest registered enemy of a type that is still registered and alive
+     * @param type The enemy type (subclasses are included)
+     * @return The enemy, or null if there is none
+     */
+    public <T extends CharacterEnemy> T findFirstLive(Class<T> type) {
+        TypeIndex index = typeIndexes.get(type);
+        if (index == null) {
+            return null;
+        }
+        return type.cast(index.findFirstLive());
+    }
+
+    /**
+     * Gets the number of registered enemies (removed ones are not counted)
+     */
+    public int size() {
+        return liveCount;
+    }
+
+    public boolean isEmpty() {
+        return liveCount == 0;
+    }
+
+    /**
+     * Gets the number of slots iteration walks: the most enemies that have been registered at once
+     */
+    public int getSlotCount() {
+        return highWater;
+    }
+
+    /**
+     * Iterates over registered enemies in handle order. Weakly consistent: never throws on concurrent changes,
+     * skips enemies removed before they are reached, and may or may not include enemies registered after it started.
+     */
+    @Override
+    public Iterator<CharacterEnemy> iterator() {
+        return new RegistryIterator();
+    }
+
+    // ===== Helper Methods =====
+
+    /**
+     * Puts an enemy in a free slot and adds it to its types' indexes. Called under the registry lock.
+     */
+    private void store(int handle, CharacterEnemy enemy) {
+        segments[handle >>> SEGMENT_BITS].set(handle & SEGMENT_MASK, enemy);
+        enemy.setRegistryHandle(handle);
+        for (Class<?> type = enemy.getClass(); type != CharacterEnemy.class && type != null; type = type.getSuperclass()) {
+            typeIndexes.computeIfAbsent(type, t -> new TypeIndex()).add(enemy);
+        }
+        liveCount++;
+    }
+
+    /**
+     * Checks if an enemy is registered here right now
+     */
+    private boolean isRegistered(CharacterEnemy enemy) {
+        int handle = enemy.getRegistryHandle();
+        return handle >= 0 && get(handle) == enemy;
+    }
+
+    // ===== Inner Classes =====
+
+    /**
+     * The enemies registered for one type, in registration order. Changed under the registry lock, read without it.
+     * The entries live in an Entries object that is only appended to; compacting replaces the whole object, so a
+     * reader works on one consistent list (and its own scan hint) however the index changes meanwhile.
+     */
+    private class TypeIndex {
+        private volatile Entries entries = new Entries(new CharacterEnemy[4], 0);
+        private int removedCount; // Entries of enemies removed since the last compaction; guarded by the registry
+
+        void add(CharacterEnemy enemy) {
+            Entries current = entries;
+            if (current.size == current.items.length) {
+                Entries grown = new Entries(Arrays.copyOf(current.items, current.items.length * 2), current.size);
+                grown.firstCandidate = current.firstCandidate;
+                current = grown;
+            }
+            current.items[current.size] = enemy;
+            entries = current;
+            current.size = current.size + 1; // Publish the new entry after the array that holds it
+        }
+
+        /**
+         * Counts a removed entry and copies the list without the removed ones once they are more than half of it
+         */
+        void removed() {
+            removedCount++;
+            Entries current = entries;
+            if (removedCount < MIN_COMPACT || removedCount * 2 <= current.size) {
+                return;
+            }
+            CharacterEnemy[] kept = new CharacterEnemy[Math.max(4, Integer.highestOneBit(Math.max(1, current.size - removedCount)) << 1)];
+            int count = 0;
+            for (int i = 0; i < current.size; i++) {
+                CharacterEnemy enemy = current.items[i];
+                if (isRegistered(enemy)) {
+                    kept[count++] = enemy;
+                }
+            }
+            entries = new Entries(kept, count);
+            removedCount = 0;
+        }
+
+        CharacterEnemy findFirstLive() {
+            Entries current = entries;
+            int count = current.size;
+            CharacterEnemy[] items = current.items;
+            int start = current.firstCandidate;
+            boolean onlyRemoved = true;
+            for (int i = start; i < count; i++) {
+                CharacterEnemy enemy = items[i];
+                if (!isRegistered(enemy)) {
+                    if (onlyRemoved) {
+                        start = i + 1; // Registering it again adds a new entry, so this one can be skipped for good
+                    }
+                    continue;
+                }
+                onlyRemoved = false;
+                if (enemy.getAlive()) {
+                    current.advanceHint(start);
+                    return enemy;
+                }
+            }
+            current.advanceHint(start);
+            return null;
+        }
+    }
+
+    /**
+     * One list of a TypeIndex's entries and the hint past the removed ones at its front
+     */
+    private static final class Entries {
+        final CharacterEnemy[] items;
+        volatile int size;
+        volatile int firstCandidate; // Every entry before this is a removed enemy
+
+        Entries(CharacterEnemy[] items, int size) {
+            this.items = items;
+            this.size = size;
+        }
+
+        void advanceHint(int start) {
+            // Racing readers may write an older value, which only costs a rescan
+            if (start > firstCandidate) {
+                firstCandidate = start;
+            }
+        }
+    }
+
+    private class RegistryIterator implements Iterator<CharacterEnemy> {
+        private final int end = highWater;
+        private int cursor;
+        private CharacterEnemy next;
+
+        RegistryIterator() {
+            advance();
+        }
+
+        private void advance() {
+            next = null;
+            while (cursor < end && next == null) {
+                next = get(cursor++);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public CharacterEnemy next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            CharacterEnemy current = next;
+            advance();
+            return current;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package GameHandlers.EventHandling;
+
+import Game_Characters.EnemyArchetype;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+//A list of enemy encounters written by a designer, compiled once into a flat int program
+
+//Methods List:
+// - compile(String source):  parses and compiles a script
+// - load(Path file):  reads and compiles a script file
+// - firstStep(int record) / lastStep(int record) / every(int record) / chance(int record) / maxSpawns(int record):
+// - enemyCount(int record) / enemyOffset(int record):  where a record's archetype ids are in the program
+
+//Getters:
+// - getEncounterCount():
+// - getProgram():  [package] the compiled program, read by the EncounterTimeline
+
+/*
+* Script format, one encounter per line ('#' starts a comment):
+*     <steps>: <enemies> [chance <percent>%] [every <steps>] [max <times>]
+*   steps    one step (7) or a range (20-60)
+*   enemies  comma separated enemy types, each with an optional count: "slime x2, tickibird"
+*   chance   percent chance that the encounter appears when its step comes up (default 100%)
+*   every    steps between appearances inside a range (default 1; a single step appears once)
+*   max      the most times the encounter can appear (default: no limit)
+*
+* How it works:
+* Parsing happens once. Each line becomes one record in an int array, so the game never touches a String
+* (or the EnemyFactory's type name switches) after loading:
+*     [FIRST, LAST, EVERY, CHANCE, MAX, COUNT, archetype id x COUNT]
+* Enemy types are looked up in EnemyArchetype when the script is compiled and stored as archetype ids.
+* A bad line fails the whole compile with its line number, so a broken script never half-loads.
+*/
+
+public final class EncounterScript {
+    static final int FIRST = 0;
+    static final int LAST = 1;
+    static final int EVERY = 2;   // 0 = appears once
+    static final int CHANCE = 3;  // Percent
+    static final int MAX = 4;     // 0 = no limit
+    static final int COUNT = 5;
+    static final int ENEMIES = 6; // First archetype id
+    private static final int MAX_ENEMIES = 16; // Per encounter, a battle menu lists every enemy
+
+    private final int[] program;
+    private final int[] recordStart; // Index of each record in the program
+
+    private EncounterScript(int[] program, int[] recordStart) {
+        this.program = program;
+        this.recordStart = recordStart;
+    }
+
+    public int getEncounterCount() { return recordStart.length; }
+    int[] getProgram() { return program; }
+
+    /**
+     * Reads and compiles a script file
+     * @param file The script
+     * @return The compiled script
+     * @throws IOException If the file can't be read
+     * @throws IllegalArgumentException If a line is not valid
+     */
+    public static EncounterScript load(Path file) throws IOException {
+        return compile(Files.readString(file));
+    }
+
+    /**
+     * Parses and compiles a script
+     * @param source The script text
+     * @return The compiled script
+     * @throws IllegalArgumentException If a line is not valid (the message has the line number)
+     */
+    public static EncounterScript compile(String source) {
+        List<int[]> records = new ArrayList<>();
+        int length = 0;
+        String[] lines = source.split("\r?\n");
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i];
+            int comment = line.indexOf('#');
+            if (comment >= 0) {
+                line = line.substring(0, comment);
+            }
+            line = line.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            try {
+                int[] record = compileLine(line);
+                records.add(record);
+                length += record.length;
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Encounter script line " + (i + 1) + ": " + e.getMessage(), e);
+            }
+        }
+
+        // Flatten into one program
+        int[] program = new int[length];
+        int[] recordStart = new int[records.size()];
+        int pc = 0;
+        for (int r = 0; r < records.size(); r++) {
+            int[] record = records.get(r);
+            recordStart[r] = pc;
+            System.arraycopy(record, 0, program, pc, record.length);
+            pc += record.length;
+        }
+        return new EncounterScript(program, recordStart);
+    }
+
+    // ===== Record Access =====
+
+    public int firstStep(int record) { return program[recordStart[record] + FIRST]; }
+    public int lastStep(int record) { return program[recordStart[record] + LAST]; }
+    public int every(int record) { return program[recordStart[record] + EVERY]; }
+    public int chance(int record) { return program[recordStart[record] + CHANCE]; }
+    public int maxSpawns(int record) { return program[recordStart[record] + MAX]; }
+    public int enemyCount(int record) { return program[recordStart[record] + COUNT]; }
+    public int enemyOffset(int record) { return recordStart[record] + ENEMIES; }
+
+    // ===== Helper Methods =====
+
+    /**
+     * Compiles one non-empty line into a record
+     */
+    private static int[] compileLine(String line) {
+        int colon = line.indexOf(':');
+        if (colon < 0) {
+            throw new IllegalArgumentException("expected '<steps>: <enemies>', got '" + line + "'");
+        }
+
+        // Steps
+        String steps = line.substring(0, colon).trim();
+        int dash = steps.indexOf('-', 1);
+        int first = parseNumber(dash < 0 ? steps : steps.substring(0, dash), "step");
+        int last = dash < 0 ? first : parseNumber(steps.substring(dash + 1), "step");
+        if (first < 1 || last < first) {
+            throw new IllegalArgumentException("bad step range '" + steps + "'");
+        }
+        int every = dash < 0 ? 0 : 1;
+        int chance = 100;
+        int max = 0;
+
+        // Options come after the enemy list; find where the first one starts
+        String rest = line.substring(colon + 1).trim();
+        String[] words = rest.split("\\s+");
+        int optionsAt = words.length;
+        for (int w = 0; w < words.length; w++) {
+            String word = words[w].toLowerCase();
+            if (word.equals("chance") || word.equals("every") || word.equals("max")) {
+                optionsAt = w;
+                break;
+            }
+        }
+        for (int w = optionsAt; w < words.length; w += 2) {
+            if (w + 1 >= words.length) {
+                throw new IllegalArgumentException("'" + words[w] + "' needs a value");
+            }
+            String option = words[w].toLowerCase();
+            String value = words[w + 1];
+            if (option.equals("chance")) {
+                chance = parseNumber(value.endsWith("%") ? value.substring(0, value.length() - 1) : value, "chance");
+                if (chance < 0 || chance > 100) {
+                    throw new IllegalArgumentException("chance must be 0-100%, got " + value);
+                }
+            } else if (option.equals("every")) {
+                if (dash < 0) {
+                    throw new IllegalArgumentException("'every' needs a step range");
+                }
+                every = parseNumber(value, "every");
+                if (every < 1) {
+                    throw new IllegalArgumentException("'every' must be at least 1");
+                }
+            } else if (option.equals("max")) {
+                max = parseNumber(value, "max");
+                if (max < 1) {
+                    throw new IllegalArgumentException("'max' must be at least 1");
+                }
+            } else {
+                throw new IllegalArgumentException("unknown option '" + words[w] + "'");
+            }
+        }
+
+        // Enemies
+        String enemies = String.join(" ", Arrays.copyOfRange(words, 0, optionsAt));
+        if (enemies.isEmpty()) {
+            throw new IllegalArgumentException("no enemies listed");
+        }
+        int[] ids = new int[MAX_ENEMIES];
+        int count = 0;
+        for (String entry : enemies.split(",")) {
+            String[] parts = entry.trim().split("\\s+");
+            EnemyArchetype archetype = EnemyArchetype.byKey(parts[0]);
+            if (archetype == null) {
+                throw new IllegalArgumentException("unknown enemy type '" + parts[0] + "'");
+            }
+            int times = 1;
+            if (parts.length == 2 && parts[1].toLowerCase().startsWith("x")) {
+                times = parseNumber(parts[1].substring(1), "enemy count");
+            } else if (parts.length != 1) {
+                throw new IllegalArgumentException("expected '<enemy> [x<count>]', got '" + entry.trim() + "'");
+            }
+            if (times < 1 || count + times > MAX_ENEMIES) {
+                throw new IllegalArgumentException("an encounter has 1 to " + MAX_ENEMIES + " enemies");
+            }
+            for (int t = 0; t < times; t++) {
+                ids[count++] = archetype.getId();
+            }
+        }
+
+        int[] record = new int[ENEMIES + count];
+        record[FIRST] = first;
+        record[LAST] = last;
+        record[EVERY] = every;
+        record[CHANCE] = chance;
+        record[MAX] = max;
+        record[COUNT] = count;
+        System.arraycopy(ids, 0, record, ENEMIES, count);
+        return record;
+    }
+
+    private static int parseNumber(String text, String what) {
+        try {
+            return Integer.parseInt(text.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("bad " + what + " '" + text.trim() + "'");
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package GameHandlers.EventHandling;
+
+import java.util.Random;
+
+//Runs a compiled EncounterScript: hands out the encounters that come up as the global step moves on
+
+//Methods List:
+// - poll(int step):  the next encounter that comes up on or before a step, or null
+// - nextStepAfter(int step):  the next step an encounter may come up on
+
+//Getters:
+// - getPendingCount():  encounter appearances still waiting on the timeline
+
+/*
+* How it works:
+* Every record's next appearance is a long (step << 32 | record) in a binary heap kept in a long array, so finding
+* what is due is a look at the top and nothing is scanned or allocated on steps where nothing comes up.
+* When an appearance is taken off the heap its chance is rolled, then the record's next appearance (step + every,
+* if still inside the range and under its max) goes back on. Only an encounter that actually appears builds enemies,
+* through the EnemyFactory by archetype id.
+* Used by the StepManager under the step lock.
+*/
+
+public class EncounterTimeline {
+    private final EncounterScript script;
+    private final int[] program;
+    private final EnemyFactory factory;
+    private final Random random;
+    private final long[] heap;
+    private final int[] spawned; // Appearances so far, per record
+    private int size;
+
+    /**
+     * Creates a timeline with every record waiting for its first step
+     * @param script The compiled script
+     * @param factory Builds the enemies of an encounter that appears
+     * @param random Rolls the chance of encounters that don't always appear
+     */
+    public EncounterTimeline(EncounterScript script, EnemyFactory factory, Random random) {
+        this.script = script;
+        this.program = script.getProgram();
+        this.factory = factory;
+        this.random = random;
+        int records = script.getEncounterCount();
+        this.heap = new long[records];
+        this.spawned = new int[records];
+        for (int r = 0; r < records; r++) {
+            heap[size++] = key(script.firstStep(r), r);
+        }
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    public int getPendingCount() { return size; }
+
+    /**
+     * Takes the next encounter that comes up on or before a step. Call until it returns null.
+     * @param step The current global step
+     * @return The encounter, or null if nothing else comes up by this step
+     */
+    public EnemyEncounter poll(int step) {
+        while (size > 0 && (int) (heap[0] >>> 32) <= step) {
+            long top = heap[0];
+            int at = (int) (top >>> 32);
+            int record = (int) top;
+
+            int chance = script.chance(record);
+            boolean appears = chance >= 100 || random.nextInt(100) < chance;
+            if (appears) {
+                spawned[record]++;
+            }
+
+            // Put the record's next appearance back, or drop it if it is done
+            int every = script.every(record);
+            int max = script.maxSpawns(record);
+            int next = at + every;
+            if (every > 0 && next <= script.lastStep(record) && (max == 0 || spawned[record] < max)) {
+                heap[0] = key(next, record);
+            } else {
+                heap[0] = heap[--size];
+            }
+            siftDown(0);
+
+            if (appears) {
+                return factory.createEncounter(program, script.enemyOffset(record), script.enemyCount(record));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds the next step after the given one that an encounter may come up on
+     * (a chance encounter counts, it might appear)
+     * @param step The current global step
+     * @return The step, or Integer.MAX_VALUE if nothing is left on the timeline
+     */
+    public int nextStepAfter(int step) {
+        if (size == 0) {
+            return Integer.MAX_VALUE;
+        }
+        int next = (int) (heap[0] >>> 32);
+        // Appearances on this step that haven't been polled yet don't count as "after"
+        return next > step ? next : step + 1;
+    }
+
+    // ===== Helper Methods =====
+
+    private static long key(int step, int record) {
+        return ((long) step << 32) | record;
+    }
+
+    private void siftDown(int i) {
+        long value = heap[i];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (heap[child] >= value) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        if (i < size) {
+            heap[i] = value;
+        }
+    }
+}
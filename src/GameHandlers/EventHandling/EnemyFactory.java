@@ -3,7 +3,10 @@ package GameHandlers.EventHandling;
 import Game_Characters.Enemies.Slime;
 import Game_Characters.Enemies.TickiBird;
 import Game_Characters.Enemy;
+import Game_Characters.EnemyArchetype;
 import Game_Characters.Player;
+import Game_Characters.Thief;
+import Game_Characters.Wizard;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -16,17 +19,21 @@ import java.util.Map;
 // - createEncounter(String enemyType):  creates a new EnemyEncounter for the specified enemy type
 // - createEncounter(String... enemyTypes):   creates a new EnemyEncounter with multiple enemies
 // - createNewEnemyWithId(String enemyType, int id):   creates a new enemy instance with a specific ID number
+// - createEnemy(EnemyArchetype archetype, int id):  creates a new enemy of any archetype (used to materialize stored enemies)
+// - createEncounter(int[] archetypeIds, int offset, int count):  builds an encounter from archetype ids (used by compiled encounter scripts)
 
 /*
 * How it works:
 * The EnemyFactory class maintains a collection of enemy prefabs that can be reused for single encounters
 * to save memory. For multiple enemy encounters, it creates new instances of enemies to ensure each has
-* independent state. The factory provides methods to create EnemyEncounter objects based on enemy type names.
+* independent state. The factory provides methods to create EnemyEncounter objects based on enemy type names,
+* or, for compiled encounter scripts, from archetype ids without looking at a String.
 */
 
 public class EnemyFactory {
     private Player player;
     private Map<String, Enemy> enemyPrefabs;
+    private Enemy[] prefabsById; // The same prefabs, indexed by archetype id
     private int nextEnemyId = 1;
     
     public EnemyFactory(Player player) {
@@ -43,6 +50,10 @@ public class EnemyFactory {
         enemyPrefabs.put("slime", new Slime(player, nextEnemyId++));
         enemyPrefabs.put("tickibird", new TickiBird(player));
         
+        prefabsById = new Enemy[EnemyArchetype.count()];
+        for (Enemy prefab : enemyPrefabs.values()) {
+            prefabsById[prefab.getArchetype().getId()] = prefab;
+        }
     }
     /**
      * Gets an enemy instance by type name.
@@ -101,6 +112,29 @@ public class EnemyFactory {
         return new EnemyEncounter(enemies);
     }
     
+    /**
+     * Builds an encounter from archetype ids, the way createEncounter does from type names:
+     * a single enemy with a prefab reuses the prefab, otherwise every enemy is a new instance numbered by position.
+     *
+     * @param archetypeIds Array holding the archetype ids (a compiled encounter script's program)
+     * @param offset Index of the first id
+     * @param count Number of enemies
+     * @return EnemyEncounter instance with the enemies
+     */
+    public EnemyEncounter createEncounter(int[] archetypeIds, int offset, int count) {
+        if (count == 1) {
+            Enemy prefab = prefabsById[archetypeIds[offset]];
+            if (prefab != null) {
+                return new EnemyEncounter(prefab);
+            }
+        }
+        Enemy[] enemies = new Enemy[count];
+        for (int i = 0; i < count; i++) {
+            enemies[i] = createEnemy(EnemyArchetype.byId(archetypeIds[offset + i]), i + 1);
+        }
+        return new EnemyEncounter(enemies);
+    }
+
     /**
      * Creates a new enemy instance with a specific ID number.
      * 
@@ -120,4 +154,25 @@ public class EnemyFactory {
                 return null;
         }
     }
+
+    /**
+     * Creates a new enemy of any archetype. Thieves and Wizards created here have no GameManager,
+     * so they only take part in battles and never start walking on their own.
+     *
+     * @param archetype The kind of enemy to create
+     * @param id The ID number to assign to this enemy
+     * @return A new enemy instance
+     */
+    public Enemy createEnemy(EnemyArchetype archetype, int id) {
+        if (archetype == EnemyArchetype.SLIME) {
+            return new Slime(player, id);
+        } else if (archetype == EnemyArchetype.TICKIBIRD) {
+            return new TickiBird(player);
+        } else if (archetype == EnemyArchetype.THIEF) {
+            return new Thief(player);
+        } else if (archetype == EnemyArchetype.WIZARD) {
+            return new Wizard(player);
+        }
+        throw new IllegalArgumentException("Unknown enemy archetype " + archetype);
+    }
 }
@@ -0,0 +1,187 @@
+package GameHandlers;
+
+//One thing that happened in a game, as it is sent to the subscribers of the GameEventStream
+
+//Methods List (factories, one per Kind):
+// - stepAdvanced(int step):
+// - enemyMoved(String enemy, int step):
+// - encounterStarted(String enemies, int count, int step):
+// - optionChosen(String menu, int index, String option):
+// - damage(String target, int amount):
+// - loot(String item, int count, int gold):
+// - levelUp(String character, int level):
+// - gameOver(boolean survived, int level, int gold):
+// - dropped(int count):  [package] what a subscriber whose buffer overflowed gets instead of the lost events
+
+//Getters:
+// - getKind():
+// - getSubject():  who or what the event is about (an enemy, a menu, an item), or null
+// - getAmount():  the event's main number (a step, damage, gold, a level, an option index)
+// - getCount():  how many (enemies in an encounter, items of a loot drop, events lost), 1 by default
+// - getDetail():  extra text (the option picked, how the game ended), or null
+// - getConflationKey():  non-null if a newer event with the same key makes this one worthless
+
+/*
+* How it works:
+* Events are small immutable objects with one layout for every kind, so a subscriber can switch on getKind() and
+* read the fields it needs. Some kinds describe where something is now rather than something that happened
+* (the step counter, an enemy's position). Only the newest of those matters, so they carry a conflation key:
+* while an event waits in a slow subscriber's buffer, a newer one with the same key replaces it in place.
+*/
+
+public final class GameEvent {
+    public enum Kind {
+        STEP_ADVANCED(true),
+        ENEMY_MOVED(true),
+        ENCOUNTER_STARTED(false),
+        OPTION_CHOSEN(false),
+        DAMAGE(false),
+        LOOT(false),
+        LEVEL_UP(false),
+        GAME_OVER(false),
+        DROPPED(false);
+
+        private final boolean conflates;
+
+        Kind(boolean conflates) {
+            this.conflates = conflates;
+        }
+
+        /**
+         * Checks if only the newest event of this kind (per subject) is worth delivering
+         */
+        public boolean conflates() {
+            return conflates;
+        }
+    }
+
+    private final Kind kind;
+    private final String subject;
+    private final int amount;
+    private final int count;
+    private final String detail;
+    private final String conflationKey;
+
+    private GameEvent(Kind kind, String subject, int amount, int count, String detail) {
+        this.kind = kind;
+        this.subject = subject;
+        this.amount = amount;
+        this.count = count;
+        this.detail = detail;
+        this.conflationKey = kind.conflates() ? (subject == null ? kind.name() : kind.name() + '|' + subject) : null;
+    }
+
+    /**
+     * The global step counter moved on
+     * @param step The new global step
+     */
+    public static GameEvent stepAdvanced(int step) {
+        return new GameEvent(Kind.STEP_ADVANCED, null, step, 1, null);
+    }
+
+    /**
+     * An enemy on the map ended its turn somewhere else
+     * @param enemy The enemy's name
+     * @param step The step it is on now
+     */
+    public static GameEvent enemyMoved(String enemy, int step) {
+        return new GameEvent(Kind.ENEMY_MOVED, enemy, step, 1, null);
+    }
+
+    /**
+     * A battle started
+     * @param enemies The enemies' names
+     * @param count How many enemies there are
+     * @param step The step the battle is fought on
+     */
+    public static GameEvent encounterStarted(String enemies, int count, int step) {
+        return new GameEvent(Kind.ENCOUNTER_STARTED, enemies, step, count, null);
+    }
+
+    /**
+     * The player (or the autopilot, or a remote player) picked an option
+     * @param menu The menu's title
+     * @param index The option's index
+     * @param option The option's text
+     */
+    public static GameEvent optionChosen(String menu, int index, String option) {
+        return new GameEvent(Kind.OPTION_CHOSEN, menu, index, 1, option);
+    }
+
+    /**
+     * Someone took damage
+     * @param target Who was hit
+     * @param amount The damage
+     */
+    public static GameEvent damage(String target, int amount) {
+        return new GameEvent(Kind.DAMAGE, target, amount, 1, null);
+    }
+
+    /**
+     * The player collected loot
+     * @param item The item
+     * @param count How many of it
+     * @param gold What they are worth together
+     */
+    public static GameEvent loot(String item, int count, int gold) {
+        return new GameEvent(Kind.LOOT, item, gold, count, null);
+    }
+
+    /**
+     * A character reached a new level
+     * @param character Who
+     * @param level The new level
+     */
+    public static GameEvent levelUp(String character, int level) {
+        return new GameEvent(Kind.LEVEL_UP, character, level, 1, null);
+    }
+
+    /**
+     * The game ended; the last event of a stream
+     * @param survived Whether the Knight was alive at the end
+     * @param level The Knight's level
+     * @param gold The Knight's gold
+     */
+    public static GameEvent gameOver(boolean survived, int level, int gold) {
+        return new GameEvent(Kind.GAME_OVER, null, gold, level, survived ? "survived" : "fell");
+    }
+
+    /**
+     * Events a subscriber lost because it fell too far behind
+     * @param count How many were lost
+     */
+    static GameEvent dropped(int count) {
+        return new GameEvent(Kind.DROPPED, null, 0, count, null);
+    }
+
+    public Kind getKind() { return kind; }
+    public String getSubject() { return subject; }
+    public int getAmount() { return amount; }
+    public int getCount() { return count; }
+    public String getDetail() { return detail; }
+    public String getConflationKey() { return conflationKey; }
+
+    @Override
+    public String toString() {
+        switch (kind) {
+            case STEP_ADVANCED:
+                return "STEP_ADVANCED " + amount;
+            case ENEMY_MOVED:
+                return "ENEMY_MOVED " + subject + " -> " + amount;
+            case ENCOUNTER_STARTED:
+                return "ENCOUNTER_STARTED " + subject + " (" + count + ") at " + amount;
+            case OPTION_CHOSEN:
+                return "OPTION_CHOSEN " + subject + ": " + amount + " " + detail;
+            case DAMAGE:
+                return "DAMAGE " + subject + " " + amount;
+            case LOOT:
+                return "LOOT " + count + "x " + subject + " (" + amount + " gold)";
+            case LEVEL_UP:
+                return "LEVEL_UP " + subject + " " + amount;
+            case GAME_OVER:
+                return "GAME_OVER " + detail + " level " + count + ", " + amount + " gold";
+            default:
+                return "DROPPED " + count;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package GameHandlers;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+//A GameEventStream subscriber that writes every event it gets to a file, one line each (-Devents.log=<file>)
+
+//Methods List:
+// - open(Path file):  [static] creates the file (replacing an old one) and a logger writing to it
+// - awaitDone(long millis):  waits for the stream to complete and the file to be closed
+// - onSubscribe / onNext / onError / onComplete:  the Flow.Subscriber side
+
+/*
+* How it works:
+* The logger asks for BATCH events at a time and asks for the next batch once it has written half of them, so
+* the stream always has demand to deliver against while the file is written. Writing is buffered; the file is
+* closed when the stream completes (or fails), which is what awaitDone() waits for at the end of the game.
+* A logger that can't write cancels its subscription; the game doesn't notice.
+*/
+
+public final class GameEventLogger implements Flow.Subscriber<GameEvent> {
+    private static final int BATCH = 64;
+
+    private final BufferedWriter out;
+    private final CountDownLatch done = new CountDownLatch(1);
+    private Flow.Subscription subscription;
+    private int received; // Events written since the last request
+
+    private GameEventLogger(BufferedWriter out) {
+        this.out = out;
+    }
+
+    /**
+     * Creates the log file and a logger writing to it
+     * @param file The log file; an existing one is replaced
+     */
+    public static GameEventLogger open(Path file) throws IOException {
+        return new GameEventLogger(Files.newBufferedWriter(file, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Waits for the stream to complete and the file to be closed
+     * @param millis How long to wait at most
+     * @return True if the file is closed
+     */
+    public boolean awaitDone(long millis) throws InterruptedException {
+        return done.await(millis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(BATCH);
+    }
+
+    @Override
+    public void onNext(GameEvent event) {
+        try {
+            out.write(event.toString());
+            out.newLine();
+        } catch (IOException e) {
+            subscription.cancel();
+            close();
+            return;
+        }
+        if (++received == BATCH / 2) {
+            received = 0;
+            subscription.request(BATCH / 2);
+        }
+    }
+
+    @Override
+    public void onError(Throwable error) {
+        close();
+    }
+
+    @Override
+    public void onComplete() {
+        close();
+    }
+
+    // ===== Helper Methods =====
+
+    private void close() {
+        try {
+            out.close();
+        } catch (IOException e) {
+            // Nothing left to write it to
+        } finally {
+            done.countDown();
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package GameHandlers;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//Publishes a game's GameEvents to any number of subscribers (spectators, loggers, dashboards) without slowing the game
+
+//Methods List:
+// - subscribe(Flow.Subscriber<? super GameEvent> subscriber):  adds a subscriber with its own bounded buffer
+// - publish(GameEvent event):  hands an event to every subscriber; never blocks and costs nothing without subscribers
+// - close():  delivers what is buffered, then completes every subscriber
+// - dispatch():  [delivery thread] fans the published events out into the subscribers' buffers
+
+//Getters:
+// - getSubscriberCount():
+
+//Inner Classes:
+// - EventSubscription:  one subscriber's buffer, demand and delivery
+// - Pending:  a buffered event; conflation swaps the event inside it
+
+/*
+* How it works:
+* publish() is called from the game thread, the actors and battles, so it only puts the event on a lock-free
+* queue and makes sure a dispatch task is scheduled: the caller never waits for a subscriber and never pays
+* per subscriber. The dispatch task runs on the stream's delivery threads, copies every event waiting into every
+* subscriber's buffer and then wakes each subscriber once for the whole pass. Each subscriber is then drained on the same threads by its own task, at most one at a
+* time, as far as the demand it requested (Flow back-pressure); a task hands the thread back after DRAIN_BATCH
+* events so one busy subscriber can't starve the others.
+* A subscriber's buffer holds at most bufferSize events. An event that only says where something is now (see
+* GameEvent.Kind.conflates) replaces an older one with the same key that is still waiting, so a spectator that
+* is slow to read sees each enemy's latest position instead of every step it took. When the buffer is still full,
+* the oldest waiting event is dropped, and the subscriber gets one DROPPED event with the number lost before
+* the next event it receives.
+* The inbox between publish() and the dispatch task is bounded too (BACKLOG_BUFFERS subscriber buffers): if the
+* game publishes faster than the delivery threads can fan out, the oldest events are dropped there for every
+* subscriber alike and reported the same way, so memory stays bounded whatever the game does.
+*/
+
+public final class GameEventStream implements Flow.Publisher<GameEvent> {
+    public static final int DEFAULT_BUFFER = 256;
+    private static final int DELIVERY_THREADS = 2;
+    private static final int DRAIN_BATCH = 64; // Events one subscriber gets before the thread moves on
+    private static final int BACKLOG_BUFFERS = 4; // The inbox holds this many subscriber buffers' worth of events
+
+    private final Executor executor;
+    private final int bufferSize;
+    private final CopyOnWriteArrayList<EventSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final ConcurrentLinkedQueue<GameEvent> published = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger backlog = new AtomicInteger();  // Events in `published`
+    private final AtomicInteger overflow = new AtomicInteger(); // Events the inbox lost, not yet reported
+    private final AtomicBoolean dispatchScheduled = new AtomicBoolean();
+    private volatile boolean closed;
+
+    /**
+     * Creates a stream with its own daemon delivery threads
+     * @param bufferSize Events each subscriber can have waiting before conflation and dropping start
+     */
+    public GameEventStream(int bufferSize) {
+        this(deliveryThreads(), bufferSize);
+    }
+
+    /**
+     * Creates a stream that delivers on the given executor
+     * @param executor Runs the dispatch and delivery tasks
+     * @param bufferSize Events each subscriber can have waiting before conflation and dropping start
+     */
+    public GameEventStream(Executor executor, int bufferSize) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("bufferSize must be positive");
+        }
+        this.executor = executor;
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Adds a subscriber. Its onSubscribe() is called on a delivery thread; a stream that is already closed
+     * completes it straight away.
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super GameEvent> subscriber) {
+        EventSubscription subscription = new EventSubscription(subscriber);
+        if (closed) {
+            subscription.complete();
+        } else {
+            subscriptions.add(subscription);
+            subscription.signal();
+        }
+    }
+
+    /**
+     * Hands an event to every subscriber. Never blocks.
+     * @param event The event
+     */
+    public void publish(GameEvent event) {
+        if (closed || subscriptions.isEmpty()) {
+            return;
+        }
+        published.offer(event);
+        if (backlog.incrementAndGet() > bufferSize * BACKLOG_BUFFERS && published.poll() != null) {
+            backlog.decrementAndGet(); // Dispatch is far behind: the oldest event is lost for everyone
+            overflow.incrementAndGet();
+        }
+        scheduleDispatch();
+    }
+
+    /**
+     * Stops taking events. Subscribers still get everything in their buffers, then onComplete().
+     */
+    public void close() {
+        closed = true;
+        scheduleDispatch();
+    }
+
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    // ===== Helper Methods =====
+
+    private void scheduleDispatch() {
+        if (dispatchScheduled.compareAndSet(false, true)) {
+            executor.execute(this::dispatch);
+        }
+    }
+
+    /**
+     * Copies every published event into every subscriber's buffer, then completes them if the stream is closed
+     */
+    private void dispatch() {
+        do {
+            GameEvent event;
+            while ((event = published.poll()) != null) {
+                backlog.decrementAndGet();
+                int lost = overflow.getAndSet(0);
+                for (EventSubscription subscription : subscriptions) {
+                    if (lost > 0) {
+                        subscription.lose(lost);
+                    }
+                    subscription.offer(event);
+                }
+            }
+            boolean closing = closed;
+            for (EventSubscription subscription : subscriptions) {
+                if (closing) {
+                    subscription.complete();
+                } else {
+                    subscription.signal(); // Once per pass, however many events it got
+                }
+            }
+            dispatchScheduled.set(false);
+        } while (!published.isEmpty() && dispatchScheduled.compareAndSet(false, true));
+    }
+
+    private static Executor deliveryThreads() {
+        AtomicInteger threads = new AtomicInteger();
+        return Executors.newFixedThreadPool(DELIVERY_THREADS, r -> {
+            Thread thread = new Thread(r, "Event-Stream-" + threads.incrementAndGet());
+            thread.setDaemon(true); // Never keeps the game from exiting
+            return thread;
+        });
+    }
+
+    /**
+     * A buffered event. Conflation replaces the event in place, so it keeps the older one's position.
+     */
+    private static final class Pending {
+        GameEvent event;
+
+        Pending(GameEvent event) {
+            this.event = event;
+        }
+    }
+
+    /**
+     * One subscriber's buffer, outstanding demand and delivery task. The buffer is guarded by this; delivery
+     * runs with `draining` set, so the subscriber is only ever called from one thread at a time.
+     */
+    private final class EventSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super GameEvent> subscriber;
+        private final ArrayDeque<Pending> buffer = new ArrayDeque<>();
+        private final Map<String, Pending> latest = new HashMap<>(); // Conflation key -> its waiting event
+        private long demand;
+        private int dropped;        // Events lost since the last DROPPED was delivered
+        private boolean completing; // The stream closed: complete once the buffer is empty
+        private boolean done;       // Cancelled or completed: nothing more is delivered
+        private boolean subscribed; // onSubscribe() has been called
+        private boolean draining;   // A delivery task is scheduled or running
+
+        EventSubscription(Flow.Subscriber<? super GameEvent> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            synchronized(this) {
+                if (done) {
+                    return;
+                }
+                if (n <= 0) {
+                    done = true; // Rule 3.9: a non-positive request is an error
+                    fail(new IllegalArgumentException("request must be positive, got " + n));
+                    return;
+                }
+                demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+            }
+            signal();
+        }
+
+        @Override
+        public void cancel() {
+            synchronized(this) {
+                done = true;
+                buffer.clear();
+                latest.clear();
+            }
+            subscriptions.remove(this);
+        }
+
+        /**
+         * Buffers one event (dispatch thread, which signals the subscription after the pass)
+         */
+        void offer(GameEvent event) {
+            synchronized(this) {
+                if (done) {
+                    return;
+                }
+                String key = event.getConflationKey();
+                Pending waiting = key != null ? latest.get(key) : null;
+                if (waiting != null) {
+                    waiting.event = event; // Only the newest one matters
+                } else {
+                    if (buffer.size() == bufferSize) {
+                        Pending oldest = buffer.poll();
+                        forget(oldest);
+                        dropped++;
+                    }
+                    Pending pending = new Pending(event);
+                    buffer.add(pending);
+                    if (key != null) {
+                        latest.put(key, pending);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Counts events this subscriber never got because the stream's inbox overflowed (dispatch thread)
+         */
+        void lose(int count) {
+            synchronized(this) {
+                dropped += count;
+            }
+        }
+
+        /**
+         * Completes the subscriber once everything buffered has been delivered
+         */
+        void complete() {
+            synchronized(this) {
+                completing = true;
+            }
+            signal();
+        }
+
+        /**
+         * Schedules a delivery task unless one is scheduled or running already
+         */
+        void signal() {
+            synchronized(this) {
+                if (draining || (subscribed && !hasWork())) {
+                    return;
+                }
+                draining = true;
+            }
+            executor.execute(this::drain);
+        }
+
+        /**
+         * Delivers up to DRAIN_BATCH events (delivery thread)
+         */
+        private void drain() {
+            boolean first;
+            synchronized(this) {
+                first = !subscribed;
+                subscribed = true;
+            }
+            if (first) {
+                subscriber.onSubscribe(this);
+            }
+            for (int delivered = 0; ; delivered++) {
+                GameEvent next;
+                boolean finish = false;
+                synchronized(this) {
+                    if (done) {
+                        draining = false;
+                        return;
+                    }
+                    if (delivered == DRAIN_BATCH) {
+                        break; // Let other subscribers have the thread, then carry on
+                    }
+                    next = demand > 0 ? take() : null;
+                    if (next == null) {
+                        if (completing && buffer.isEmpty() && dropped == 0) {
+                            done = true;
+                            finish = true;
+                        } else {
+                            draining = false;
+                            return;
+                        }
+                    } else {
+                        demand--;
+                    }
+                }
+                if (finish) {
+                    subscriptions.remove(this);
+                    subscriber.onComplete();
+                    return;
+                }
+                try {
+                    subscriber.onNext(next);
+                } catch (RuntimeException e) {
+                    cancel(); // Rule 2.13: a subscriber that throws is cancelled
+                    return;
+                }
+            }
+            executor.execute(this::drain); // Still draining: the flag stays set
+        }
+
+        /**
+         * Takes the next event to deliver: a DROPPED report first if events were lost. Called holding the lock.
+         */
+        private GameEvent take() {
+            if (dropped > 0) {
+                GameEvent report = GameEvent.dropped(dropped);
+                dropped = 0;
+                return report;
+            }
+            Pending pending = buffer.poll();
+            if (pending == null) {
+                return null;
+            }
+            forget(pending);
+            return pending.event;
+        }
+
+        private boolean hasWork() {
+            return completing || (demand > 0 && (dropped > 0 || !buffer.isEmpty()));
+        }
+
+        private void forget(Pending pending) {
+            String key = pending.event.getConflationKey();
+            if (key != null) {
+                latest.remove(key, pending);
+            }
+        }
+
+        private void fail(Throwable error) {
+            subscriptions.remove(this);
+            executor.execute(() -> subscriber.onError(error));
+        }
+    }
+}
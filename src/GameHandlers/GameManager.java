@@ -1,18 +1,25 @@
 package GameHandlers;
 
+import GameHandlers.Actors.ActorMessage;
+import GameHandlers.Actors.ActorRuntime;
+import GameHandlers.Networking.StateSync;
 import Game_Characters.CharacterEnemy;
 import Game_Characters.Player;
+import Game_Characters.PlayerInput.Autopilot;
 import Game_Characters.PlayerInput.Interaction;
 import Game_Characters.PlayerInput.PlayerInputHandler;
 import Game_Characters.Thief;
 import Game_Characters.Wizard;
-import java.util.ArrayList;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Scanner;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
 
 //Game Manager to handle overall game state and flow
 
@@ -20,77 +27,139 @@ import java.util.concurrent.atomic.AtomicInteger;
 // - initializeCharacters():  create any steppable characters here (p[layer, characterenemies, etc.)
 // - start():  
 // - startGame():
-// - startCharacterThreads():  submits all character threads to executor service
+// - startActors():  starts the actor runtime and sends every actor START
+// - startWorldClock():  with -Dworld.tickMillis=<ms>, keeps the rest of the world moving during battles
+// - worldTick():  one enemy turn for everyone who isn't in the open battle
 // - gameLoop(): main game loop handling step advancement and interactions
-// - globalStepForward():  increments global step and notifies characters
+// - globalStepForward():  increments global step and sends the characters their ticks
+// - sendPlayerTick(int step) / sendEnemyTick(int step, BattleSession battle):  mail one half of a step to the
+//   actors that need it (an enemy tick also moves the TimingWheel one turn on)
+// - advance(int steps):  advances up to the given number of steps, skipping quiet steps in bulk
+// - advanceUntilEvent():  jumps straight to the next step where something happens and plays it
+// - skipQuietSteps(int maxSteps):  moves the world past steps where nothing can happen without stepping threads
 // - checkCharacterEnemyEncounters():  checks if player encounters any CharacterEnemies
+// - findEnemyAtPlayerStep():
 // - triggerFinalWizardBattle():  triggers the final battle with the Wizard
 // - endGame():  cleans up threads and resources at game end
+// - recordRun():  with -Drun.history=<dir>, appends the finished run to the RunHistory and says which leaderboards it made
+// - closeEvents():  publishes GAME_OVER, completes the event stream and lets the event log finish
  
 //Getters:
 // - getGlobalStepCounter():  gets the global step counter
 // - getStepLock():  gets the step lock for synchronization
 // - getPlayer():  gets the player character
 // - getBattleManager():  
+// - getPhases():  gets the game phase state machine
+// - getWorld():  gets the published world state (consistent reads without the step lock)
 // - isBattleInProgress():  checks if a battle is currently in progress
 // - isGameRunning():  checks if the game is currently running
-// - shouldPlayerMove():  checks if the player should move this step
-// - getNotificationCounter():  gets the notification counter for step synchronization
+// - getActors():  gets the ActorRuntime the player, enemies and StepManager run on
+// - getExecutorService():  gets the executor StepManager events (battles) run on
+// - getInterest():  gets the InterestManager that puts far away enemies to sleep
+// - getTimers():  gets the TimingWheel of enemy turns (freezes, sleeping enemies waking up)
 // - getInputHandler():  gets the player input handler
-// - getActiveCharacterEnemies():  gets the list of active CharacterEnemies
-
-//Setters:
-// - setBattleInProgress(boolean inProgress):  sets whether a battle is in progress
-// - setPlayerHasMoved(boolean moved):  sets whether the player has moved this step
-// - setPlayerJustFled(boolean fled):  sets whether the player just fled from battle
+// - getEnemyRegistry():  gets the registry of active CharacterEnemies
+// - getEvents():  gets the GameEventStream spectators subscribe to
+// - getStateSync():  gets the StateSync that sends clients the characters' changed fields
+
+//Phase Signals:
+// - playerMoved():  called by the Player thread once it has taken its step
+// - playerFled():  called when the player flees a battle
+
+/*
+* How it works:
+* Game state that every thread needs to agree on (is a battle running, has the player moved, is the game over)
+* lives in a single GamePhaseMachine instead of separate flags. Each step goes
+* IDLE -> PLAYER_MOVING -> ANNOUNCING -> ENEMIES_MOVING -> IDLE, a battle can take over from any of them,
+* and ENDED is final. The game thread parks on the machine when it waits for a phase and is woken by the
+* transition, so nothing sleeps and re-checks a flag.
+* The player, the CharacterEnemies and the StepManager are actors: they have no threads of their own and only
+* run (on a small shared pool) when the game mails them a step tick, a freeze or a battle start/end.
+* Anything that lasts a number of enemy turns is a timer on one TimingWheel, which moves on by one turn per
+* enemy tick and by the whole jump when quiet steps are skipped. Turns where no timer is due cost nothing.
+* A battle only holds the player and the enemies fighting it (see BattleSession), and runs outside the step lock.
+* In the real-time variant (-Dworld.tickMillis=<ms>) a world clock keeps giving everyone else an enemy turn every
+* <ms> while a battle is open, so enemies keep hunting and encounters keep coming up; by default the world waits
+* for the player as it always has.
+* What happens is also published as GameEvents on a GameEventStream (-Devents.log=<file> writes them to a file).
+* Publishing only queues the event, so the step loop never waits for a spectator however many there are.
+* The characters' values are also kept in a StateSync, committed on every phase change, so a networked or
+* spectating client can be sent only the fields that changed since its last update.
+*/
 
 public class GameManager {
     //Multithreading
     private ExecutorService executorService;
     private AtomicInteger globalStepCounter;
-    
-    // Thread references for proper join() synchronization
-    private Thread playerThread;
-    private Thread stepManagerThread;
-    private List<Thread> characterEnemyThreads;
 
     private static final int MAX_GAMESTEPS = 20;
     private static final int THREAD_POOL_SIZE = 5;
+    private static final int ACTOR_WORKERS = 2;
+    private static final int DORMANCY_RADIUS = 8; // CharacterEnemies further than this from the player go dormant
+    private static final int VIEW_RADIUS = 5;     // Enemy movement further than this isn't printed
+    private static final int TIMER_SLOTS = 1024;  // Enemy turns one turn of the TimingWheel covers
+    private static final int WORLD_TICK_MILLIS = Integer.getInteger("world.tickMillis", 0); // 0: the world waits for battles
+    private static final String RUN_HISTORY = System.getProperty("run.history", ""); // Empty: runs aren't kept
+    private static final String EVENTS_LOG = System.getProperty("events.log", ""); // Empty: events aren't logged
 
     //Characters
     private Player player;
     private StepManager stepManager;
 
-    private List<CharacterEnemy> activeCharacterEnemies;
+    private final EnemyRegistry enemyRegistry = new EnemyRegistry();
     
 
     //Other
     private Scanner scanner;
     private PlayerInputHandler inputHandler;
-    private boolean gameRunning;
-    private volatile boolean battleInProgress;
-    private volatile boolean shouldPlayerMove;
-    private volatile boolean playerHasMoved;
-    private volatile boolean playerJustFled;
-    private AtomicInteger notificationCounter;
+    private final GamePhaseMachine phases = new GamePhaseMachine(GamePhase.IDLE);
+    private boolean fleeGrace; // Game thread only: a flee was picked up, skip the next encounter check
+    private int wizardKillStep = -1; // Game thread only: the global step the Wizard fell on
+    private boolean runRecorded;     // Game thread only: endGame() can run twice, the run is saved once
+    private final WorldState world;
+    private final GameEventStream events = new GameEventStream(GameEventStream.DEFAULT_BUFFER);
+    private GameEventLogger eventLog;
+    private final StateSync stateSync = new StateSync();
+    private final InterestManager interest;
+    private final TimingWheel timers = new TimingWheel(TIMER_SLOTS); // Clock = enemy turns played, under the step lock
+    private final ActorRuntime actors = new ActorRuntime(ACTOR_WORKERS, "Actor"); // Created before the characters, they spawn in setGameManager()
     private final Object stepLock = new Object();
     private BattleManager battleManager;
+    private ScheduledExecutorService worldClock; // Only in the real-time variant
 
     public GameManager() {
         this.executorService = Executors.newFixedThreadPool(THREAD_POOL_SIZE);
         this.globalStepCounter = new AtomicInteger(0);
-        this.notificationCounter = new AtomicInteger(0);
-        this.activeCharacterEnemies = new ArrayList<>();
-        this.characterEnemyThreads = new ArrayList<>();
         this.scanner = new Scanner(System.in);
         this.inputHandler = new PlayerInputHandler(scanner);
-        this.gameRunning = false;
-        this.battleInProgress = false;
-        this.shouldPlayerMove = false;
-        this.playerHasMoved = false;
-        this.playerJustFled = false;
+        this.inputHandler.setAutopilot(Autopilot.fromSystemProperties()); // -Dautopilot=<ms> plays without input
+        this.inputHandler.setEvents(events);
+        if (!EVENTS_LOG.isEmpty()) {
+            try {
+                eventLog = GameEventLogger.open(Path.of(EVENTS_LOG));
+                events.subscribe(eventLog);
+            } catch (IOException e) {
+                System.out.println(">>> The event log couldn't be opened: " + e.getMessage());
+            }
+        }
+        this.fleeGrace = false;
         
         initializeCharacters();
+
+        // Publish the world on every phase change so other threads never need the step lock to read it
+        this.world = new WorldState(player, globalStepCounter, enemyRegistry);
+        phases.addListener(world);
+        stateSync.track(player);
+        for (CharacterEnemy enemy : enemyRegistry) {
+            stateSync.track(enemy);
+        }
+        phases.addListener((from, to) -> stateSync.commit());
+
+        // Only enemies near the player are simulated every step
+        this.interest = new InterestManager(DORMANCY_RADIUS, VIEW_RADIUS, timers);
+        for (CharacterEnemy enemy : enemyRegistry) {
+            interest.track(enemy);
+        }
         
         // Initialize these AFTER player is created
         this.battleManager = new BattleManager(this);
@@ -105,11 +174,11 @@ public class GameManager {
         // Initialize CharacterEnemies (enemies that move and have custom behavior)
         Thief thief = new Thief(player);
         thief.setGameManager(this);
-        activeCharacterEnemies.add(thief);
+        enemyRegistry.register(thief);
         
         Wizard wizard = new Wizard(player);
         wizard.setGameManager(this);
-        activeCharacterEnemies.add(wizard);
+        enemyRegistry.register(wizard);
     }
 
     public AtomicInteger getGlobalStepCounter() {
@@ -128,24 +197,36 @@ public class GameManager {
         return battleManager;
     }
 
-    public void setBattleInProgress(boolean inProgress) {
-        this.battleInProgress = inProgress;
+    public GamePhaseMachine getPhases() {
+        return phases;
+    }
+
+    public WorldState getWorld() {
+        return world;
     }
 
     public boolean isBattleInProgress() {
-        return battleInProgress;
+        return phases.is(GamePhase.BATTLE);
     }
     
     public boolean isGameRunning() {
-        return gameRunning;
+        return !phases.is(GamePhase.ENDED);
     }
     
-    public boolean shouldPlayerMove() {
-        return shouldPlayerMove;
+    public ActorRuntime getActors() {
+        return actors;
     }
-    
-    public AtomicInteger getNotificationCounter() {
-        return notificationCounter;
+
+    public ExecutorService getExecutorService() {
+        return executorService;
+    }
+
+    public InterestManager getInterest() {
+        return interest;
+    }
+
+    public TimingWheel getTimers() {
+        return timers;
     }
     
     public PlayerInputHandler getInputHandler() {
@@ -157,14 +238,14 @@ public class GameManager {
     }
 
     private void startGame() {
-        gameRunning = true;
         System.out.println("\n=== The Knight's Journey Begins ===");
         System.out.println("The realm is filled with danger and adventure!");
         System.out.println("Navigate through " + MAX_GAMESTEPS + " steps to complete your quest.");
         System.out.println();
+        world.publish(phases.get());
         
-        // Start all character threads
-        startCharacterThreads();
+        // Start all actors
+        startActors();
         
         // Begin the main game loop
         gameLoop();
@@ -173,25 +254,56 @@ public class GameManager {
         endGame();
     }
 
-    private void startCharacterThreads() {
-        System.out.println("Starting character threads...");
+    private void startActors() {
+        System.out.println("Starting actors...");
 
-        // Create and start player thread
-        playerThread = new Thread(player, "Player-Thread");
-        playerThread.start();
-        
-        // Create and start step manager thread
-        stepManagerThread = new Thread(stepManager, "StepManager-Thread");
-        stepManagerThread.start();
-        
-        // Create and start all CharacterEnemy threads
-        for (CharacterEnemy enemy : activeCharacterEnemies) {
-            Thread enemyThread = new Thread(enemy, enemy.getName() + "-Thread");
-            characterEnemyThreads.add(enemyThread);
-            enemyThread.start();
+        // The player, the StepManager and every CharacterEnemy spawned themselves on the runtime when they were created
+        actors.start();
+        actors.broadcast(ActorMessage.START);
+
+        System.out.println("All " + actors.getActorCount() + " actors started on " + actors.getWorkerCount() + " worker threads.");
+        startWorldClock();
+    }
+
+    /**
+     * Starts the world clock of the real-time variant. It only does anything while a battle is open.
+     */
+    private void startWorldClock() {
+        if (WORLD_TICK_MILLIS <= 0) {
+            return;
         }
+        worldClock = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "World-Clock");
+            thread.setDaemon(true);
+            return thread;
+        });
+        worldClock.scheduleAtFixedRate(this::worldTick, WORLD_TICK_MILLIS, WORLD_TICK_MILLIS, TimeUnit.MILLISECONDS);
+        System.out.println("The world keeps moving during battles: one turn every " + WORLD_TICK_MILLIS + "ms.");
+    }
 
-        System.out.println("All character threads started.");
+    /**
+     * One turn of the world around an open battle: a new global step (so encounters keep being announced) and
+     * an enemy tick for every enemy that isn't fighting, dormant ones included. Hunters that reached the battle
+     * step on the turn before are recorded for the merge.
+     */
+    private void worldTick() {
+        synchronized(stepLock) {
+            BattleSession battle = battleManager.getSession();
+            if (battle == null || !isGameRunning()) {
+                return;
+            }
+            battle.noteArrivals(enemyRegistry); // Moves from the last tick have been taken by now
+
+            int currentStep = globalStepCounter.incrementAndGet();
+            events.publish(GameEvent.stepAdvanced(currentStep));
+            // The player stands still for these turns, which the sleepers' closed-form catch-up can't model:
+            // everyone is woken (caught up over the turns they slept, when the player did walk) and stays awake
+            // until the battle is over and the game loop's next update()
+            interest.wakeAll();
+            sendEnemyTick(currentStep, battle);
+            battle.worldTicked();
+            world.publish(phases.get()); // The fighters keep their state from before the battle
+        }
     }
 
 
@@ -199,12 +311,19 @@ public class GameManager {
     //Add new logic as a function then build it separately. 
     //This should give a clear overview to the game flow.
     private void gameLoop() {
-        while (gameRunning) {
+        while (isGameRunning()) {
             try {
                 
                 // Wait while battle is in progress
-                while (battleInProgress) {
-                    Thread.sleep(100);
+                phases.awaitNot(GamePhase.BATTLE);
+                if (!isGameRunning()) {
+                    break;
+                }
+
+                // Hunters that reached the player during a battle are met before the next step
+                if (phases.is(GamePhase.IDLE)) {
+                    checkCharacterEnemyEncounters();
+                    phases.awaitNot(GamePhase.BATTLE);
                 }
                 
                 // Check if there's an interaction at this step
@@ -217,23 +336,17 @@ public class GameManager {
                 // If no interaction and choice is 0, advance
                 if (interaction != null) {
                     // Interaction was handled, now advance the step
-                    shouldPlayerMove = true;
-                    playerHasMoved = false;
                     globalStepForward();
 
                 } else if (choice == 0) {
 
-                    shouldPlayerMove = true;
-                    playerHasMoved = false;
                     globalStepForward();
 
-                } else {
+                } else if (choice == 1) {
+
+                    // Player asked to travel straight to the next event
+                    advanceUntilEvent();
 
-                    shouldPlayerMove = false;
-                   
-                    synchronized(stepLock) {
-                        stepLock.notifyAll();
-                    }
                 }
                 
                 // Brief pause to allow threads to process the step
@@ -243,7 +356,7 @@ public class GameManager {
                 if (!player.getAlive()) {
                     System.out.println("\n>>> GAME OVER <<<");
                     System.out.println("The Knight has fallen in battle...");
-                    gameRunning = false;
+                    phases.enter(GamePhase.ENDED);
                     break;
                 }
 
@@ -255,7 +368,7 @@ public class GameManager {
 
             } catch (InterruptedException e) {
                 System.out.println("Game loop interrupted!");
-                gameRunning = false;
+                phases.enter(GamePhase.ENDED);
                 Thread.currentThread().interrupt();
                 break;
             }
@@ -268,38 +381,30 @@ public class GameManager {
     private void globalStepForward() {
         synchronized(stepLock) {
             int currentStep = globalStepCounter.incrementAndGet();
+            events.publish(GameEvent.stepAdvanced(currentStep));
             System.out.println("\n--- Game Step " + currentStep + " (Player at step " + player.getStep() + ") ---");
 
-            // First notification - only for player to move
-            notificationCounter.incrementAndGet();
-            stepLock.notifyAll();
+            // First tick - only for player to move
+            enterPlayerMoving();
+            sendPlayerTick(currentStep);
         }
         
-        // Wait for player to actually move
-        int maxWait = 50; // 50 * 10ms = 500ms timeout
-        int waited = 0;
-        while (!playerHasMoved && waited < maxWait) {
-            try {
-                Thread.sleep(10);
-                waited++;
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                break;
-            }
-        }
+        // Wait for player to actually move (or a battle to take over the step)
+        awaitPlayerMove();
         
         // Now check if player moved to any CharacterEnemy's location
+        checkCharacterEnemyEncounters();
+        
         synchronized(stepLock) {
-            checkCharacterEnemyEncounters();
-            
             // If battle started, don't send notification for enemies to move
-            if (battleInProgress) {
+            if (phases.is(GamePhase.BATTLE)) {
                 return;
             }
             
-            // Second notification - for enemies to move
-            notificationCounter.incrementAndGet();
-            stepLock.notifyAll();
+            // Second tick - for enemies to move (far away enemies sleep through it)
+            interest.update(player.getStep()); // Before the phase change, so the published world has the caught-up positions
+            phases.enter(GamePhase.ENEMIES_MOVING);
+            sendEnemyTick(globalStepCounter.get(), null);
         }
         
         // Wait briefly for enemies to finish moving
@@ -310,125 +415,275 @@ public class GameManager {
         }
         
         // Check again if any enemy moved onto player's position
+        checkCharacterEnemyEncounters();
+        phases.transition(GamePhase.ENEMIES_MOVING, GamePhase.IDLE);
+    }
+
+    /**
+     * Mails the player's half of a step to the player and the StepManager
+     */
+    private void sendPlayerTick(int step) {
+        ActorMessage.StepTick tick = new ActorMessage.StepTick(ActorMessage.StepTick.PLAYER, step);
+        player.getActorRef().tell(tick);
+        stepManager.getActorRef().tell(tick);
+    }
+
+    /**
+     * Mails the enemies' half of a step to the StepManager and every enemy that is awake.
+     * Dormant enemies get nothing, so their actors stay idle, and neither do enemies fighting the open battle.
+     * Then the TimingWheel moves on one turn: timers due after this turn (a thaw, a sleeper waking) fire
+     * now, so their messages queue up behind the tick.
+     * @param step The global step
+     * @param battle The open battle, or null
+     */
+    private void sendEnemyTick(int step, BattleSession battle) {
+        ActorMessage.StepTick tick = new ActorMessage.StepTick(ActorMessage.StepTick.ENEMY, step);
+        for (CharacterEnemy enemy : interest.getActive()) {
+            if (battle == null || !battle.isParticipant(enemy)) {
+                enemy.getActorRef().tell(tick);
+            }
+        }
+        stepManager.getActorRef().tell(tick);
+        timers.advance(1);
+    }
+
+    /**
+     * Starts the player's part of a step. A flee left over from the last battle is picked up here,
+     * so the player still gets their step of grace.
+     */
+    private void enterPlayerMoving() {
+        if (phases.enter(GamePhase.PLAYER_MOVING) == GamePhase.FLED) {
+            fleeGrace = true;
+        }
+    }
+
+    /**
+     * Parks until the Player thread has taken its step, with the same 500ms limit as before
+     */
+    private void awaitPlayerMove() {
+        try {
+            phases.awaitNot(GamePhase.PLAYER_MOVING, 500);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Advances up to the given number of steps. Runs of quiet steps are skipped in one jump,
+     * and every step where something can happen is played normally through globalStepForward().
+     * Stops early if the player falls or reaches the end of the journey.
+     * @param steps Maximum number of steps to advance
+     * @return Number of steps actually advanced
+     */
+    public int advance(int steps) throws InterruptedException {
+        int advanced = 0;
+        while (advanced < steps && isGameRunning() && player.getAlive() && player.getStep() < MAX_GAMESTEPS) {
+            advanced += skipQuietSteps(steps - advanced);
+            if (advanced >= steps) {
+                break;
+            }
+
+            // Play the eventful step normally
+            globalStepForward();
+            advanced++;
+
+            // Let the step (and any battle it started) play out
+            Thread.sleep(500);
+            phases.awaitNot(GamePhase.BATTLE);
+        }
+        return advanced;
+    }
+
+    /**
+     * Skips every quiet step and plays the first step where something happens
+     * @return Number of steps advanced
+     */
+    public int advanceUntilEvent() throws InterruptedException {
+        int skipped = skipQuietSteps(Integer.MAX_VALUE);
+        return skipped + advance(1);
+    }
+
+    /**
+     * Moves the world past steps where nothing can happen, without waking any threads.
+     * A step is quiet if no StepManager event is due and no CharacterEnemy can reach the player on it.
+     * CharacterEnemy positions are projected in closed form (their movement is deterministic), so a long
+     * quiet stretch costs the same as a short one.
+     * @param maxSteps Maximum number of steps to skip
+     * @return Number of steps skipped
+     */
+    private int skipQuietSteps(int maxSteps) {
         synchronized(stepLock) {
-            checkCharacterEnemyEncounters();
+            GamePhase phase = phases.get();
+            if (phase == GamePhase.BATTLE || phase == GamePhase.FLED || fleeGrace) {
+                return 0;
+            }
+
+            // Dormant enemies are caught up first, the projection below needs everyone's real position
+            interest.wakeAll();
+
+            int playerStep = player.getStep();
+            int globalStep = globalStepCounter.get();
+
+            // Never skip the final step - it triggers the Wizard battle
+            int quiet = Math.min(maxSteps, MAX_GAMESTEPS - 1 - playerStep);
+
+            int untilEvent = stepManager.stepsUntilNextEvent(globalStep, playerStep);
+            quiet = Math.min(quiet, untilEvent == Integer.MAX_VALUE ? quiet : untilEvent - 1);
+
+            for (CharacterEnemy enemy : enemyRegistry) {
+                if (!enemy.getAlive()) {
+                    continue;
+                }
+                if (!enemy.canProjectMovement()) {
+                    return 0; // Can't predict this one, every step has to be played
+                }
+                int untilEncounter = enemy.stepsUntilEncounter(playerStep, quiet);
+                if (untilEncounter > 0) {
+                    quiet = Math.min(quiet, untilEncounter - 1);
+                }
+            }
+
+            if (quiet <= 0) {
+                return 0;
+            }
+
+            // Apply the jump: enemies first (their projection is relative to the player's old step)
+            for (CharacterEnemy enemy : enemyRegistry) {
+                enemy.fastForward(playerStep, quiet);
+            }
+            player.setCurrentStep(playerStep + quiet);
+            events.publish(GameEvent.stepAdvanced(globalStepCounter.addAndGet(quiet)));
+            timers.advance(quiet); // Freezes that ran out during the jump thaw now
+            // No ticks are published for skipped steps, nobody needs waking for them
+            world.publish(phases.get()); // No phase change, but everyone moved
+
+            System.out.println("\n>>> The Knight travels " + quiet + " quiet steps to step " + player.getStep() + "...");
+            for (CharacterEnemy enemy : enemyRegistry) {
+                if (enemy.getAlive() && interest.isInView(enemy.getCurrentStep(), player.getStep())) {
+                    System.out.println(">>> " + enemy.getName() + " is now at step " + enemy.getCurrentStep() + ".");
+                }
+            }
+            return quiet;
         }
     }
     
     /**
      * Checks if the player is at the same step as any CharacterEnemy and triggers battle if so.
      * This prevents CharacterEnemies from moving away when the player moves to their location.
+     * The encounter is picked under the step lock, the battle runs outside it.
      */
     private void checkCharacterEnemyEncounters() {
-        // Skip encounter if player just fled (give them one turn to move)
-        if (playerJustFled) {
-            System.out.println(">>> You catch your breath after fleeing...");
-            playerJustFled = false; // Reset the flag after skipping one turn
+        CharacterEnemy enemy;
+        synchronized(stepLock) {
+            // A StepManager event already holds the battle system (and a fallen Knight meets nobody)
+            GamePhase phase = phases.get();
+            if (phase == GamePhase.BATTLE || !player.getAlive()) {
+                return;
+            }
+            
+            // Skip encounter if player just fled (give them one turn to move)
+            if (fleeGrace || phase == GamePhase.FLED) {
+                System.out.println(">>> You catch your breath after fleeing...");
+                fleeGrace = false; // Only one turn is skipped
+                phases.transition(GamePhase.FLED, GamePhase.IDLE);
+                return;
+            }
+            
+            // Only one battle per check
+            enemy = findEnemyAtPlayerStep();
+            if (enemy == null || !battleManager.reserveBattle()) {
+                return;
+            }
+            System.out.println(">>> You encounter the " + enemy.getName() + " at step " + player.getStep() + "!");
+        }
+        
+        // Trigger battle (the enemy holds back its turns until the battle has been merged)
+        System.out.println(">>> BATTLE BEGINS!");
+        battleManager.startBattle(player, enemy);
+        
+        // Check if enemy was defeated (the merge has already taken it out of the registry)
+        if (!enemy.getAlive()) {
+            System.out.println(">>> " + enemy.getName() + " has been permanently defeated!");
+            
+            // Check if defeated enemy was the Wizard (final boss)
+            if (enemy instanceof Wizard) {
+                wizardKillStep = globalStepCounter.get();
+                System.out.println("\n" + "=".repeat(60));
+                System.out.println(">>> VICTORY! The mighty Wizard has been vanquished!");
+                System.out.println(">>> The Knight has proven their valor and skill!");
+                System.out.println(">>> The realm is saved from the Wizard's tyranny!");
+                System.out.println("=".repeat(60) + "\n");
+                phases.enter(GamePhase.ENDED); // End the game
+            }
+            
+            // Brief pause after victory
+            try {
+                Thread.sleep(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            
             return;
         }
         
-        for (CharacterEnemy enemy : activeCharacterEnemies) {
-            if (enemy != null && enemy.getAlive() && 
-                player.getStep() == enemy.getCurrentStep()) {
-                System.out.println(">>> You encounter the " + enemy.getName() + " at step " + player.getStep() + "!");
-                
-                // Set battle in progress to prevent enemy from moving during battle
-                battleInProgress = true;
-                
-                // Trigger battle
-                System.out.println(">>> BATTLE BEGINS!");
-                battleManager.startBattle(player, enemy);
-                
-                battleInProgress = false;
-                
-                // Check if enemy was defeated and remove from active list
-                if (!enemy.getAlive()) {
-                    System.out.println(">>> " + enemy.getName() + " has been permanently defeated!");
-                    activeCharacterEnemies.remove(enemy);
-                    
-                    // Check if defeated enemy was the Wizard (final boss)
-                    if (enemy instanceof Wizard) {
-                        System.out.println("\n" + "=".repeat(60));
-                        System.out.println(">>> VICTORY! The mighty Wizard has been vanquished!");
-                        System.out.println(">>> The Knight has proven their valor and skill!");
-                        System.out.println(">>> The realm is saved from the Wizard's tyranny!");
-                        System.out.println("=".repeat(60) + "\n");
-                        gameRunning = false; // End the game
-                    }
-                    
-                    // Brief pause after victory
-                    try {
-                        Thread.sleep(1000);
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                    }
-                    
-                    // Exit loop since we modified the list
-                    break;
-                }
-                
-                // Check if player fled from this battle
-                if (playerJustFled) {
-                    System.out.println("\n>>> You escape and move forward!");
-                    
-                    // Freeze enemy
-                    enemy.freezeAfterFlee();
-                    
-                    // Set up for automatic movement
-                    shouldPlayerMove = true;
-                    playerHasMoved = false;
-                    
-                    // Move forward by incrementing step counter and notifying threads
-                    synchronized(stepLock) {
-                        int currentStep = globalStepCounter.incrementAndGet();
-                        System.out.println("\n--- Flee Step " + currentStep + " ---");
-                        
-                        // Notify player to move
-                        notificationCounter.incrementAndGet();
-                        stepLock.notifyAll();
-                    }
-                    
-                    // Wait for player to move
-                    int maxWait = 50;
-                    int waited = 0;
-                    while (!playerHasMoved && waited < maxWait) {
-                        try {
-                            Thread.sleep(10);
-                            waited++;
-                        } catch (InterruptedException e) {
-                            Thread.currentThread().interrupt();
-                            break;
-                        }
-                    }
-                    
-                    // Notify enemies (second notification)
-                    synchronized(stepLock) {
-                        notificationCounter.incrementAndGet();
-                        stepLock.notifyAll();
-                    }
-                    
-                    // Brief pause after flee movement
-                    try {
-                        Thread.sleep(1000);
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                    }
-                    
-                    // Return to skip normal battle pause
-                    return;
-                }
-                
-                // Brief pause after battle to let player process results
-                try {
-                    Thread.sleep(1000);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
+        // Check if player fled from this battle
+        if (phases.is(GamePhase.FLED)) {
+            System.out.println("\n>>> You escape and move forward!");
+            
+            // Freeze enemy, then move forward by incrementing step counter and notifying threads
+            synchronized(stepLock) {
+                enemy.freezeAfterFlee();
+                int currentStep = globalStepCounter.incrementAndGet();
+                events.publish(GameEvent.stepAdvanced(currentStep));
+                System.out.println("\n--- Flee Step " + currentStep + " ---");
                 
-                // Only one battle per step
-                break;
+                // Tick for the player to move
+                enterPlayerMoving();
+                sendPlayerTick(currentStep);
+            }
+            
+            // Wait for player to move
+            awaitPlayerMove();
+            
+            // Tick for the enemies (second tick)
+            synchronized(stepLock) {
+                interest.update(player.getStep());
+                phases.enter(GamePhase.ENEMIES_MOVING);
+                sendEnemyTick(globalStepCounter.get(), null);
+            }
+            
+            // Brief pause after flee movement
+            try {
+                Thread.sleep(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            
+            // Return to skip normal battle pause
+            return;
+        }
+        
+        // Brief pause after battle to let player process results
+        try {
+            Thread.sleep(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Finds a live, awake CharacterEnemy on the player's step. Must be called under the step lock.
+     * @return The first one in the registry, or null
+     */
+    private CharacterEnemy findEnemyAtPlayerStep() {
+        for (CharacterEnemy enemy : enemyRegistry) {
+            // Dormant enemies are out of range by construction, their stored step is stale
+            if (enemy != null && enemy.getAlive() && !enemy.isDormant() &&
+                player.getStep() == enemy.getCurrentStep()) {
+                return enemy;
             }
         }
+        return null;
     }
 
     /**
@@ -437,15 +692,18 @@ public class GameManager {
      */
     private void triggerFinalWizardBattle() {
         // Find the Wizard in active enemies
-        Wizard wizard = null;
-        for (CharacterEnemy enemy : activeCharacterEnemies) {
-            if (enemy instanceof Wizard && enemy.getAlive()) {
-                wizard = (Wizard) enemy;
-                break;
-            }
-        }
+        Wizard wizard = enemyRegistry.findFirstLive(Wizard.class);
         
         if (wizard != null) {
+            // Teleport wizard to player's location (waking it first, so its catch-up can't move it afterwards)
+            synchronized(stepLock) {
+                if (!battleManager.reserveBattle()) {
+                    return; // Still in another battle, the game loop tries again after it
+                }
+                interest.wake(wizard);
+                wizard.setCurrentStep(player.getStep());
+            }
+
             System.out.println("\n" + "=".repeat(60));
             System.out.println(">>> You have reached the end of your journey!");
             System.out.println(">>> Suddenly, reality warps around you...");
@@ -453,9 +711,6 @@ public class GameManager {
             System.out.println(">>> \"You dare challenge me, Knight? Face your destiny!\"");
             System.out.println("=".repeat(60) + "\n");
             
-            // Teleport wizard to player's location
-            wizard.setCurrentStep(player.getStep());
-            
             // Brief dramatic pause
             try {
                 Thread.sleep(1500);
@@ -464,32 +719,31 @@ public class GameManager {
             }
             
             // Trigger the battle
-            battleInProgress = true;
             battleManager.startBattle(player, wizard);
-            battleInProgress = false;
             
             // Check if wizard was defeated
             if (!wizard.getAlive()) {
+                wizardKillStep = globalStepCounter.get();
                 System.out.println(">>> The Wizard has been permanently defeated!");
-                activeCharacterEnemies.remove(wizard);
                 
                 System.out.println("\n" + "=".repeat(60));
                 System.out.println(">>> VICTORY! The mighty Wizard has been vanquished!");
                 System.out.println(">>> The Knight has proven their valor and skill!");
                 System.out.println(">>> The realm is saved from the Wizard's tyranny!");
                 System.out.println("=".repeat(60) + "\n");
-                gameRunning = false; // End the game
+                phases.enter(GamePhase.ENDED); // End the game
             } else if (!player.getAlive()) {
                 // Player was defeated by the Wizard
                 System.out.println("\n>>> GAME OVER <<<");
                 System.out.println("The Knight has fallen to the Wizard's power...");
-                gameRunning = false;
+                phases.enter(GamePhase.ENDED);
             } else {
                 // Player fled from the Wizard
                 System.out.println(">>> You have fled from the final battle!");
                 System.out.println(">>> The Wizard remains at step " + wizard.getCurrentStep() + ", waiting for your return...");
-                playerJustFled = true;
-                wizard.freezeAfterFlee();
+                synchronized(stepLock) {
+                    wizard.freezeAfterFlee(); // The phase is left at FLED, so the next step is a step of grace
+                }
             }
         } else {
             // Wizard was already defeated earlier in the game
@@ -498,60 +752,55 @@ public class GameManager {
             System.out.println(">>> With the Wizard already defeated, peace reigns!");
             System.out.println(">>> The Knight returns home victorious!");
             System.out.println("=".repeat(60) + "\n");
-            gameRunning = false;
+            phases.enter(GamePhase.ENDED);
         }
     }
 
     private void endGame() {
+        // Waking every parked thread is part of the transition
+        phases.enter(GamePhase.ENDED);
+        if (worldClock != null) {
+            worldClock.shutdownNow();
+        }
+
         System.out.println("\nGame Over. Thank you for playing!");
         
         System.out.println(player.getBattleStatistics());
         
         // Display most defeated enemy type using stream aggregation
         System.out.println(">>> Most Defeated Enemy: " + player.getMostDefeatedEnemyType());
+        recordRun();
+        closeEvents();
+
+        // An autopilot run doubles as a benchmark of the battle rules
+        Autopilot autopilot = inputHandler.getAutopilot();
+        if (autopilot != null) {
+            System.out.println(">>> " + autopilot.summary());
+            autopilot.shutdown();
+        }
         
-        // Use stream to filter and display CharacterEnemy status
+        // Display CharacterEnemy status from one snapshot, so enemy threads still winding down can't change it mid-print
+        synchronized(stepLock) {
+            interest.wakeAll();
+        }
+        world.publish(GamePhase.ENDED);
+        WorldSnapshot finalWorld = world.snapshot();
         System.out.println("\n>>> Character Enemy Status:");
-        activeCharacterEnemies.stream()
-            .forEach(enemy -> System.out.println("  - " + enemy.getName() + ": " + 
-                (enemy.getAlive() ? "Still Alive" : "Defeated")));
+        IntStream.range(0, finalWorld.getEnemyCount())
+            .forEach(i -> System.out.println("  - " + finalWorld.getEnemyName(i) + ": " + 
+                (finalWorld.isEnemyAlive(i) ? "Still Alive" : "Defeated")));
         
         // Stop the step manager
         stepManager.stop();
         
-        // Notify all waiting threads so they can exit
-        synchronized(stepLock) {
-            stepLock.notifyAll();
-        }
-        
-        // Use join() to ensure proper synchronization and closure
-        System.out.println("Waiting for all threads to complete...");
+        // Every actor gets STOP, its last mail is handled, then the worker threads are joined
+        System.out.println("Waiting for all actors to finish...");
         
         try {
-            // Join player thread
-            if (playerThread != null && playerThread.isAlive()) {
-                playerThread.join(2000); // Wait up to 2 seconds
-                System.out.println("Player thread completed.");
-            }
-            
-            // Join step manager thread
-            if (stepManagerThread != null && stepManagerThread.isAlive()) {
-                stepManagerThread.join(2000); // Wait up to 2 seconds
-                System.out.println("StepManager thread completed.");
-            }
-            
-            // Join all character enemy threads
-            for (Thread enemyThread : characterEnemyThreads) {
-                if (enemyThread != null && enemyThread.isAlive()) {
-                    enemyThread.join(2000); // Wait up to 2 seconds
-                    System.out.println(enemyThread.getName() + " completed.");
-                }
-            }
-            
-            System.out.println("All threads have been synchronized and closed properly.");
-            
+            actors.shutdown(2000);
+            System.out.println("All actors have finished and their worker threads are closed.");
         } catch (InterruptedException e) {
-            System.out.println("Thread synchronization interrupted!");
+            System.out.println("Actor shutdown interrupted!");
             Thread.currentThread().interrupt();
         }
         
@@ -569,15 +818,78 @@ public class GameManager {
         scanner.close();
     }
     
-    public List<CharacterEnemy> getActiveCharacterEnemies() {
-        return activeCharacterEnemies;
+    /**
+     * Appends the finished run to the RunHistory and tells the player which leaderboards it made. Only done when
+     * the game is run with -Drun.history=<directory>, so a normal game writes nothing to disk.
+     * A history that can't be written only costs the record of this run.
+     */
+    private void recordRun() {
+        if (RUN_HISTORY.isEmpty() || runRecorded) {
+            return;
+        }
+        runRecorded = true;
+        RunRecord run = RunRecord.of(player, globalStepCounter.get(), wizardKillStep);
+        try (RunHistory history = RunHistory.open(Path.of(RUN_HISTORY))) {
+            history.append(run);
+            history.flush();
+            System.out.println(">>> Run saved to the history (" + history.size() + " runs)");
+            announceRank("gold", history.topByGold(), run);
+            announceRank("level", history.topByLevel(), run);
+            announceRank("fastest Wizard kill", history.fastestWizardKills(), run);
+        } catch (IOException e) {
+            System.out.println(">>> This run couldn't be saved: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Publishes GAME_OVER and completes the event stream. The event log gets a moment to write what it still has,
+     * so the file is complete when the game exits.
+     */
+    private void closeEvents() {
+        events.publish(GameEvent.gameOver(player.getAlive(), player.getLevel(), player.getGold()));
+        events.close(); // Closing twice is harmless; the second GAME_OVER is never published
+        if (eventLog == null) {
+            return;
+        }
+        try {
+            if (!eventLog.awaitDone(2000)) {
+                System.out.println(">>> The event log is still being written, it may be cut short");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void announceRank(String board, List<RunRecord> top, RunRecord run) {
+        int rank = top.indexOf(run) + 1;
+        if (rank > 0) {
+            System.out.println(">>> #" + rank + " of the top " + RunHistory.TOP_K + " runs by " + board + "!");
+        }
+    }
+
+    public EnemyRegistry getEnemyRegistry() {
+        return enemyRegistry;
+    }
+
+    public GameEventStream getEvents() {
+        return events;
+    }
+
+    public StateSync getStateSync() {
+        return stateSync;
     }
     
-    public void setPlayerHasMoved(boolean moved) {
-        this.playerHasMoved = moved;
+    /**
+     * Called by the Player thread once it has taken its step for this turn
+     */
+    public void playerMoved() {
+        phases.transition(GamePhase.PLAYER_MOVING, GamePhase.ANNOUNCING);
     }
     
-    public void setPlayerJustFled(boolean fled) {
-        this.playerJustFled = fled;
+    /**
+     * Called when the player escapes a battle. The next encounter check is skipped to give them a turn to move.
+     */
+    public void playerFled() {
+        phases.transition(GamePhase.BATTLE, GamePhase.FLED);
     }
 }
\ No newline at end of file
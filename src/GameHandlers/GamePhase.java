@@ -0,0 +1,24 @@
+package GameHandlers;
+
+//The phases a game moves through. Exactly one phase is current at any time (see GamePhaseMachine)
+
+/*
+* How it works:
+* IDLE            - waiting for the player at the step prompt
+* PLAYER_MOVING   - a step has started and the Player thread should take its step
+* ANNOUNCING      - the player has moved; encounters and step events are being checked
+* ENEMIES_MOVING  - CharacterEnemies take their turn
+* BATTLE          - the player is in a battle; they and the enemies fighting it hold back their turns until it ends
+* FLED            - the player escaped a battle and gets one step of grace before the next encounter
+* ENDED           - the game is over (terminal, the machine never leaves this phase)
+*/
+
+public enum GamePhase {
+    IDLE,
+    PLAYER_MOVING,
+    ANNOUNCING,
+    ENEMIES_MOVING,
+    BATTLE,
+    FLED,
+    ENDED
+}
@@ -0,0 +1,165 @@
+package GameHandlers;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+//Holds the current GamePhase in one atomic reference and wakes waiting threads whenever it changes
+
+//Methods List:
+// - get():  the current phase (a single volatile read)
+// - is(GamePhase phase):
+// - transition(GamePhase from, GamePhase to):  CAS from one phase to another
+// - enter(GamePhase to):  moves to a phase from whatever phase is current (never leaves ENDED)
+// - awaitNot(GamePhase phase):  parks until the game has left the given phase
+// - awaitNot(GamePhase phase, long timeoutMillis):
+// - addListener(PhaseListener listener):
+
+//Inner Interfaces:
+// - PhaseListener:
+//   - onPhaseChange(GamePhase from, GamePhase to):
+
+/*
+* How it works:
+* Every thread used to check its own mix of volatile flags (gameRunning, battleInProgress, playerHasMoved...),
+* which could be seen in combinations that make no sense and forced threads to sleep and re-check.
+* Now there is one phase, changed only with compare-and-set, so a phase change is all-or-nothing and a thread
+* that asks "what now?" needs a single read. Threads that have to wait for a phase park on a Condition and
+* are signalled by the transition itself instead of polling.
+*/
+
+public class GamePhaseMachine {
+    private final AtomicReference<GamePhase> phase;
+    private final ReentrantLock waitLock = new ReentrantLock();
+    private final Condition phaseChanged = waitLock.newCondition();
+    private final List<PhaseListener> listeners = new CopyOnWriteArrayList<>();
+
+    public GamePhaseMachine(GamePhase initialPhase) {
+        this.phase = new AtomicReference<>(initialPhase);
+    }
+
+    /**
+     * Gets the current phase
+     */
+    public GamePhase get() {
+        return phase.get();
+    }
+
+    /**
+     * Checks if the game is currently in the given phase
+     */
+    public boolean is(GamePhase expected) {
+        return phase.get() == expected;
+    }
+
+    /**
+     * Moves from one phase to another, only if the game is still in the expected phase
+     * @param from The phase the caller expects the game to be in
+     * @param to The phase to move to
+     * @return true if the transition happened
+     */
+    public boolean transition(GamePhase from, GamePhase to) {
+        if (from == GamePhase.ENDED || !phase.compareAndSet(from, to)) {
+            return false;
+        }
+        if (from != to) {
+            publish(from, to);
+        }
+        return true;
+    }
+
+    /**
+     * Moves to a phase regardless of the current one. ENDED is terminal and is never left.
+     * @param to The phase to move to
+     * @return The phase the game was in before (ENDED if the move was refused)
+     */
+    public GamePhase enter(GamePhase to) {
+        GamePhase current;
+        do {
+            current = phase.get();
+            if (current == GamePhase.ENDED) {
+                return current;
+            }
+        } while (!phase.compareAndSet(current, to));
+
+        if (current != to) {
+            publish(current, to);
+        }
+        return current;
+    }
+
+    /**
+     * Parks the calling thread until the game leaves the given phase
+     * @param waitingPhase The phase to wait out
+     */
+    public void awaitNot(GamePhase waitingPhase) throws InterruptedException {
+        if (phase.get() != waitingPhase) {
+            return; // Fast path, no locking
+        }
+        waitLock.lock();
+        try {
+            while (phase.get() == waitingPhase) {
+                phaseChanged.await();
+            }
+        } finally {
+            waitLock.unlock();
+        }
+    }
+
+    /**
+     * Parks the calling thread until the game leaves the given phase or the timeout passes
+     * @param waitingPhase The phase to wait out
+     * @param timeoutMillis Maximum time to wait
+     * @return true if the phase was left, false on timeout
+     */
+    public boolean awaitNot(GamePhase waitingPhase, long timeoutMillis) throws InterruptedException {
+        if (phase.get() != waitingPhase) {
+            return true;
+        }
+        long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        waitLock.lock();
+        try {
+            while (phase.get() == waitingPhase) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = phaseChanged.awaitNanos(remaining);
+            }
+            return true;
+        } finally {
+            waitLock.unlock();
+        }
+    }
+
+    /**
+     * Registers a listener that is told about every phase change
+     */
+    public void addListener(PhaseListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Wakes every parked thread and tells the listeners about a transition
+     */
+    private void publish(GamePhase from, GamePhase to) {
+        waitLock.lock();
+        try {
+            phaseChanged.signalAll();
+        } finally {
+            waitLock.unlock();
+        }
+        for (PhaseListener listener : listeners) {
+            listener.onPhaseChange(from, to);
+        }
+    }
+
+    /**
+     * Callback for code that wants to react to phase changes
+     */
+    public interface PhaseListener {
+        void onPhaseChange(GamePhase from, GamePhase to);
+    }
+}
@@ -0,0 +1,171 @@
+package GameHandlers;
+
+import Game_Characters.CharacterEnemy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+//Decides which CharacterEnemies are close enough to the player to be simulated every step
+
+//Methods List:
+// - track(CharacterEnemy enemy):  starts managing an enemy (it starts out active)
+// - update(int playerStep):  wakes enemies that may have become relevant and puts far away ones to sleep
+// - getActive():  the enemies that get this step's enemy tick
+// - wake(CharacterEnemy enemy):  catches one enemy up right away, e.g. before it is teleported
+// - wakeAll():  catches every sleeping enemy up (before a fast-forward, a world tick or the end of the game)
+// - isInView(int step, int playerStep):  checks if something on a step is close enough to be shown
+
+//Getters:
+// - getRadius():
+// - getViewRadius():
+// - getActiveCount():
+// - getDormantCount():
+
+//Inner Classes:
+// - Sleeper:  when an enemy went dormant, and the timer that looks at it again
+
+/*
+* How it works:
+* Enemies within the radius of the player are active and take a turn on every enemy tick as before. An enemy
+* further away goes dormant: it simply isn't sent enemy ticks, so its actor gets no mail and uses no CPU,
+* and the game thread remembers the turn and player step it fell asleep on. Its movement is deterministic, so the
+* gap to the player can shrink by at most a fixed amount per turn; the enemy is scheduled to be looked at again
+* just before it could possibly come within the radius, with a timer on the game's TimingWheel (whose clock
+* counts enemy turns). When the timer fires the enemy is caught up in closed form with fastForward() (the same
+* projection the quiet-step skip uses) and is active again until the next update() looks at it.
+* Each step only looks at active enemies and the sleepers whose timers fire, so the work follows the number of
+* enemies near the player rather than the whole population.
+* The catch-up assumes the player walked one step before every turn slept through. World ticks during a battle
+* (-Dworld.tickMillis) are turns where the player stands still, so the game wakes every sleeper before the first
+* of them and sends no update() until the battle is over: those turns are played by every enemy for real.
+* Every method except isInView() belongs to the game thread and is called while holding the step lock.
+*/
+
+public class InterestManager {
+    private final int radius;
+    private final int viewRadius;
+
+    private final List<CharacterEnemy> active = new ArrayList<>();
+    private final List<CharacterEnemy> activeView = Collections.unmodifiableList(active);
+    private final Map<CharacterEnemy, Sleeper> sleepers = new IdentityHashMap<>();
+    private final TimingWheel turns; // Its clock is the number of enemy turns played (ticks sent plus turns fast-forwarded)
+
+    /**
+     * Creates an interest manager
+     * @param radius Enemies further than this from the player go dormant
+     * @param viewRadius Enemy movement further than this from the player isn't printed
+     * @param turns The game's timing wheel, advanced once per enemy turn
+     */
+    public InterestManager(int radius, int viewRadius, TimingWheel turns) {
+        this.radius = Math.max(1, radius);
+        this.viewRadius = viewRadius;
+        this.turns = turns;
+    }
+
+    public int getRadius() { return radius; }
+    public int getViewRadius() { return viewRadius; }
+    public int getActiveCount() { return active.size(); }
+    public int getDormantCount() { return sleepers.size(); }
+
+    /**
+     * Gets the enemies that are awake, the ones this step's enemy tick goes to. Valid until the next update().
+     */
+    public List<CharacterEnemy> getActive() {
+        return activeView;
+    }
+
+    /**
+     * Starts managing an enemy. It is active until the next update() finds it far away.
+     */
+    public void track(CharacterEnemy enemy) {
+        active.add(enemy);
+    }
+
+    /**
+     * Runs just before an enemy tick is sent: puts active enemies that are out of range to sleep for this tick.
+     * Sleepers that are due were already woken by their timers when the wheel last advanced.
+     * @param playerStep The player's step after their move this step
+     */
+    public void update(int playerStep) {
+        for (int i = active.size() - 1; i >= 0; i--) {
+            CharacterEnemy enemy = active.get(i);
+            if (!enemy.getAlive()) {
+                removeActive(i);
+                continue;
+            }
+            int distance = Math.abs(enemy.getCurrentStep() - playerStep);
+            if (distance <= radius || !enemy.canProjectMovement()) {
+                continue;
+            }
+
+            // Far away: sleep until the gap could have closed to the radius
+            int rate = Math.max(1, enemy.maxGapChangePerTurn());
+            Sleeper sleeper = new Sleeper(turns.now(), playerStep, enemy.getFrozenTurnsRemaining());
+            sleeper.timer = turns.schedule(Math.max(1, (distance - radius) / rate), () -> wake(enemy));
+            sleepers.put(enemy, sleeper);
+            enemy.setDormant(true);
+            removeActive(i);
+        }
+    }
+
+    /**
+     * Catches a sleeping enemy up to the current turn and makes it active again. Does nothing if it is awake.
+     */
+    public void wake(CharacterEnemy enemy) {
+        Sleeper sleeper = sleepers.remove(enemy);
+        if (sleeper == null) {
+            return;
+        }
+        sleeper.timer.cancel(); // Does nothing if this is the timer firing
+        // The enemy slept through the turns since it fell asleep; the player moved one step before each of them
+        enemy.fastForward(sleeper.playerStep - 1, (int) (turns.now() - sleeper.sleptAtTurn), sleeper.frozenTurns);
+        enemy.setDormant(false);
+        active.add(enemy);
+    }
+
+    /**
+     * Catches every sleeping enemy up, so their positions can be read directly
+     */
+    public void wakeAll() {
+        if (sleepers.isEmpty()) {
+            return;
+        }
+        for (CharacterEnemy enemy : new ArrayList<>(sleepers.keySet())) {
+            wake(enemy);
+        }
+    }
+
+    /**
+     * Checks if something on a step is close enough to the player to be shown. Safe from any thread.
+     */
+    public boolean isInView(int step, int playerStep) {
+        return Math.abs(step - playerStep) <= viewRadius;
+    }
+
+    // ===== Helper Methods =====
+
+    private void removeActive(int index) {
+        int last = active.size() - 1;
+        active.set(index, active.get(last));
+        active.remove(last);
+    }
+
+    /**
+     * One dormant enemy: the turn and player step it fell asleep on, how long it was still frozen for,
+     * and the timer that wakes it
+     */
+    private static final class Sleeper {
+        private final long sleptAtTurn;
+        private final int playerStep;
+        private final int frozenTurns;
+        private TimingWheel.Timer timer;
+
+        private Sleeper(long sleptAtTurn, int playerStep, int frozenTurns) {
+            this.sleptAtTurn = sleptAtTurn;
+            this.playerStep = playerStep;
+            this.frozenTurns = frozenTurns;
+        }
+    }
+}
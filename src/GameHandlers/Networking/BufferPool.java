@@ -0,0 +1,67 @@
+package GameHandlers.Networking;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+//Pool of fixed-size direct buffers reused for network reads and writes
+
+//Methods List:
+// - acquire():  takes a cleared buffer from the pool (allocates only when the pool is empty)
+// - release(ByteBuffer buffer):  returns a buffer to the pool
+// - getBufferSize():
+
+/*
+* How it works:
+* Direct buffers are expensive to allocate and are not cleaned up quickly by the garbage collector,
+* so the server keeps a pool of them and recycles buffers as soon as their bytes have been written.
+* The pool is only touched by the I/O thread, so it uses a plain ArrayDeque with no locking.
+*/
+
+public class BufferPool {
+    private final ArrayDeque<ByteBuffer> freeBuffers;
+    private final int bufferSize;
+    private final int maxPooled;
+
+    /**
+     * Creates a buffer pool
+     * @param bufferSize Size in bytes of every buffer in the pool
+     * @param initialBuffers Number of buffers to allocate up front
+     * @param maxPooled Maximum number of idle buffers kept for reuse
+     */
+    public BufferPool(int bufferSize, int initialBuffers, int maxPooled) {
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+        this.freeBuffers = new ArrayDeque<>(maxPooled);
+        for (int i = 0; i < initialBuffers; i++) {
+            freeBuffers.push(ByteBuffer.allocateDirect(bufferSize));
+        }
+    }
+
+    /**
+     * Takes a cleared buffer from the pool
+     */
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = freeBuffers.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(bufferSize);
+        }
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer to the pool so it can be reused
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer == null || buffer.capacity() != bufferSize) {
+            return;
+        }
+        buffer.clear();
+        if (freeBuffers.size() < maxPooled) {
+            freeBuffers.push(buffer);
+        }
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+}
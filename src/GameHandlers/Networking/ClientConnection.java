@@ -0,0 +1,189 @@
+package GameHandlers.Networking;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+
+//One connected client on the GameServer: its channel, its read buffer and its queue of outgoing bytes
+
+//Methods List:
+// - readFrames(RemoteSession session):  reads from the channel and hands every complete frame to the session
+// - frameBuffer(int frameSize):  returns a pooled buffer with room for a frame of the given size
+// - flush():  writes queued buffers with a single gathering write
+// - close():  closes the channel and returns all buffers to the pool
+
+//Getters:
+// - hasPendingWrites():
+// - isClosed():
+
+/*
+* How it works:
+* Outgoing frames are written straight into a pooled direct "fill" buffer. When it runs out of room (or the
+* connection is flushed) it is flipped onto the send queue, and the whole queue is handed to
+* SocketChannel.write(ByteBuffer[]) in one gathering write. Every buffer that was fully written goes back
+* to the pool. Incoming bytes are collected in one pooled buffer and parsed in place, so reading a frame
+* never allocates. Pool buffers must be larger than GameProtocol.MAX_FRAME_SIZE.
+*/
+
+public class ClientConnection {
+    private static final int MAX_GATHER = 16;
+
+    private final SocketChannel channel;
+    private final SelectionKey key;
+    private final BufferPool pool;
+    private final ByteBuffer readBuffer;
+    private final ArrayDeque<ByteBuffer> sendQueue;
+    private ByteBuffer fillBuffer;
+    private final ByteBuffer[] gatherArray;
+    private boolean closed;
+
+    public ClientConnection(SocketChannel channel, SelectionKey key, BufferPool pool) {
+        this.channel = channel;
+        this.key = key;
+        this.pool = pool;
+        this.readBuffer = pool.acquire();
+        this.sendQueue = new ArrayDeque<>();
+        this.fillBuffer = null;
+        this.gatherArray = new ByteBuffer[MAX_GATHER];
+        this.closed = false;
+    }
+
+    /**
+     * Reads available bytes and passes each complete frame to the session. The payload handed over ends
+     * where the frame ends.
+     * @return false if the client disconnected or sent a malformed frame
+     */
+    public boolean readFrames(RemoteSession session) throws IOException {
+        int read = channel.read(readBuffer);
+        if (read < 0) {
+            return false;
+        }
+
+        readBuffer.flip();
+        while (readBuffer.remaining() >= 4) {
+            int start = readBuffer.position();
+            int length = readBuffer.getInt(start);
+            if (length < 1 || length > GameProtocol.MAX_FRAME_SIZE) {
+                return false;
+            }
+            if (readBuffer.remaining() < 4 + length) {
+                break; // Wait for the rest of the frame
+            }
+
+            readBuffer.position(start + 4);
+            byte type = readBuffer.get();
+            int frameEnd = start + 4 + length;
+            int end = readBuffer.limit();
+            readBuffer.limit(frameEnd); // The session can't read past its own frame
+            boolean valid = session.onMessage(type, readBuffer);
+            readBuffer.limit(end);
+            readBuffer.position(frameEnd);
+            if (!valid) {
+                return false;
+            }
+        }
+        readBuffer.compact();
+        return true;
+    }
+
+    /**
+     * Returns a buffer with room for a frame of the given size.
+     * Frames are packed into the current fill buffer until it runs out of room.
+     */
+    public ByteBuffer frameBuffer(int frameSize) {
+        if (fillBuffer == null || fillBuffer.remaining() < frameSize) {
+            queueFillBuffer();
+            if (fillBuffer == null) {
+                fillBuffer = pool.acquire();
+            }
+        }
+        return fillBuffer;
+    }
+
+    /**
+     * Writes as much of the queue as the socket accepts, using gathering writes.
+     * Registers interest in OP_WRITE only while bytes remain queued.
+     */
+    public void flush() throws IOException {
+        if (closed) {
+            return;
+        }
+        queueFillBuffer();
+
+        while (!sendQueue.isEmpty()) {
+            int count = 0;
+            for (ByteBuffer buffer : sendQueue) {
+                if (count == MAX_GATHER) {
+                    break;
+                }
+                gatherArray[count++] = buffer;
+            }
+
+            channel.write(gatherArray, 0, count);
+            for (int i = 0; i < count; i++) {
+                gatherArray[i] = null;
+            }
+
+            // Recycle fully written buffers
+            while (!sendQueue.isEmpty() && !sendQueue.peekFirst().hasRemaining()) {
+                pool.release(sendQueue.pollFirst());
+            }
+            if (!sendQueue.isEmpty()) {
+                break; // Socket buffer is full, wait for OP_WRITE
+            }
+        }
+
+        if (key.isValid()) {
+            key.interestOps(sendQueue.isEmpty() ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        }
+    }
+
+    public boolean hasPendingWrites() {
+        return !sendQueue.isEmpty() || (fillBuffer != null && fillBuffer.position() > 0);
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Closes the channel and returns all buffers to the pool
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        key.cancel();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Already closed by the client
+        }
+        pool.release(readBuffer);
+        pool.release(fillBuffer);
+        fillBuffer = null;
+        while (!sendQueue.isEmpty()) {
+            pool.release(sendQueue.pollFirst());
+        }
+    }
+
+    // ===== Helper Methods =====
+
+    /**
+     * Moves the buffer frames are being written into onto the send queue
+     */
+    private void queueFillBuffer() {
+        if (fillBuffer == null) {
+            return;
+        }
+        if (fillBuffer.position() == 0) {
+            return; // Nothing written yet, keep filling it
+        }
+        fillBuffer.flip();
+        sendQueue.addLast(fillBuffer);
+        fillBuffer = null;
+    }
+}
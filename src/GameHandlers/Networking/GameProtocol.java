@@ -0,0 +1,199 @@
+package GameHandlers.Networking;
+
+import Game_Characters.PlayerInput.Interaction;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//Binary wire format shared by the GameServer and the LoadGeneratorClient
+
+//Methods List:
+// - writeWelcome(ByteBuffer out, int sessionId):
+// - writeStep(ByteBuffer out, int step, boolean encounter):
+// - writeBattleStart(ByteBuffer out, int enemyCount, int playerHealth):
+// - writeBattleEnd(ByteBuffer out, int result, int health, int level, int gold):
+// - writeGameOver(ByteBuffer out, int result, int step):
+// - writeMenu(ByteBuffer out, Interaction interaction):  writes the title, description and options of an interaction
+// - writeAdvance(ByteBuffer out):
+// - writeChoice(ByteBuffer out, int choice):
+// - menuSize(Interaction interaction):  number of bytes writeMenu() will use
+// - encode(String text):  returns the UTF-8 bytes for a string, cached for the most recently used ones
+// - beginFrame(ByteBuffer out, byte type) / endFrame(ByteBuffer out, int start):  frames a payload whose size
+//   isn't known up front (the state sync's keyframes and deltas)
+// - readString(ByteBuffer in) / skipString(ByteBuffer in):
+
+/*
+* How it works:
+* Every frame is length-prefixed: a 4 byte length (counting everything after the length field),
+* a 1 byte message type, then the payload. Strings are written as a 2 byte length followed by UTF-8 bytes.
+* The encoder caches the bytes of the strings it sends, so once the menus have been sent once no further
+* encoding (or allocation) happens when the same menu is sent again. The cache keeps the STRING_CACHE_SIZE most
+* recently used strings: the fixed menu text stays in it, while names with per-instance ids age out instead of
+* piling up on a long-running server.
+* An encoder instance is meant to be used by a single thread (the server's I/O thread).
+*/
+
+public class GameProtocol {
+
+    // Server -> client
+    public static final byte MSG_WELCOME = 1;       // int sessionId
+    public static final byte MSG_STEP = 2;          // int step, byte encounter
+    public static final byte MSG_MENU = 3;          // string title, string description, byte count, count x string
+    public static final byte MSG_BATTLE_START = 4;  // byte enemyCount, int playerHealth
+    public static final byte MSG_BATTLE_END = 5;    // byte result, int health, int level, int gold
+    public static final byte MSG_GAME_OVER = 6;     // byte result, int step
+    public static final byte MSG_STATE_KEYFRAME = 7; // long version, long base (-1), byte flags, short count, count x record
+    public static final byte MSG_STATE_DELTA = 8;    // long version, long base, byte flags, short count, count x record
+    // A state record is int entity, byte field mask, then the fields in the mask in bit order (see StateSync)
+
+    // Client -> server
+    public static final byte MSG_ADVANCE = 16;      // (no payload)
+    public static final byte MSG_CHOICE = 17;       // byte option index
+
+    // Battle / game results
+    public static final byte RESULT_WON = 0;
+    public static final byte RESULT_LOST = 1;
+    public static final byte RESULT_FLED = 2;
+
+    public static final int HEADER_SIZE = 5; // length + type
+    public static final int MAX_FRAME_SIZE = 4096;
+    public static final int STRING_CACHE_SIZE = 1024;
+
+    // Least recently used strings are evicted once the cache is full
+    private final Map<String, byte[]> encodedStrings = new LinkedHashMap<>(STRING_CACHE_SIZE * 4 / 3 + 1, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+            return size() > STRING_CACHE_SIZE;
+        }
+    };
+
+    /**
+     * Returns the UTF-8 bytes for a string, encoding it only if it isn't among the recently used ones
+     */
+    public byte[] encode(String text) {
+        byte[] bytes = encodedStrings.get(text);
+        if (bytes == null) {
+            bytes = text.getBytes(StandardCharsets.UTF_8);
+            encodedStrings.put(text, bytes);
+        }
+        return bytes;
+    }
+
+    public void writeWelcome(ByteBuffer out, int sessionId) {
+        writeHeader(out, MSG_WELCOME, 4);
+        out.putInt(sessionId);
+    }
+
+    public void writeStep(ByteBuffer out, int step, boolean encounter) {
+        writeHeader(out, MSG_STEP, 5);
+        out.putInt(step);
+        out.put(encounter ? (byte) 1 : (byte) 0);
+    }
+
+    public void writeBattleStart(ByteBuffer out, int enemyCount, int playerHealth) {
+        writeHeader(out, MSG_BATTLE_START, 5);
+        out.put((byte) enemyCount);
+        out.putInt(playerHealth);
+    }
+
+    public void writeBattleEnd(ByteBuffer out, int result, int health, int level, int gold) {
+        writeHeader(out, MSG_BATTLE_END, 13);
+        out.put((byte) result);
+        out.putInt(health);
+        out.putInt(level);
+        out.putInt(gold);
+    }
+
+    public void writeGameOver(ByteBuffer out, int result, int step) {
+        writeHeader(out, MSG_GAME_OVER, 5);
+        out.put((byte) result);
+        out.putInt(step);
+    }
+
+    /**
+     * Number of bytes writeMenu() will put into the buffer, including the frame header
+     */
+    public int menuSize(Interaction interaction) {
+        return HEADER_SIZE + menuPayloadSize(interaction);
+    }
+
+    /**
+     * Writes an interaction menu (title, description and every option description)
+     */
+    public void writeMenu(ByteBuffer out, Interaction interaction) {
+        writeHeader(out, MSG_MENU, menuPayloadSize(interaction));
+        putString(out, encode(interaction.getTitle()));
+        putString(out, encode(interaction.getDescription()));
+        int count = interaction.getOptionCount();
+        out.put((byte) count);
+        for (int i = 0; i < count; i++) {
+            putString(out, encode(interaction.getOption(i).getDescription()));
+        }
+    }
+
+    public static void writeAdvance(ByteBuffer out) {
+        writeHeader(out, MSG_ADVANCE, 0);
+    }
+
+    public static void writeChoice(ByteBuffer out, int choice) {
+        writeHeader(out, MSG_CHOICE, 1);
+        out.put((byte) choice);
+    }
+
+    // ===== Helper Methods =====
+
+    private int menuPayloadSize(Interaction interaction) {
+        int size = 2 + encode(interaction.getTitle()).length
+                 + 2 + encode(interaction.getDescription()).length
+                 + 1;
+        for (int i = 0; i < interaction.getOptionCount(); i++) {
+            size += 2 + encode(interaction.getOption(i).getDescription()).length;
+        }
+        return size;
+    }
+
+    /**
+     * Starts a frame whose payload size is filled in by endFrame()
+     * @return The frame's start, for endFrame()
+     */
+    public static int beginFrame(ByteBuffer out, byte type) {
+        int start = out.position();
+        writeHeader(out, type, 0);
+        return start;
+    }
+
+    /**
+     * Fills in the length of a frame started with beginFrame(), now that its payload has been written
+     */
+    public static void endFrame(ByteBuffer out, int start) {
+        out.putInt(start, out.position() - start - 4);
+    }
+
+    private static void writeHeader(ByteBuffer out, byte type, int payloadSize) {
+        out.putInt(payloadSize + 1);
+        out.put(type);
+    }
+
+    private static void putString(ByteBuffer out, byte[] bytes) {
+        out.putShort((short) bytes.length);
+        out.put(bytes);
+    }
+
+    /**
+     * Reads a string from a received frame
+     */
+    public static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort() & 0xFFFF];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Skips over a string in a received frame
+     */
+    public static void skipString(ByteBuffer in) {
+        int length = in.getShort() & 0xFFFF;
+        in.position(in.position() + length);
+    }
+}
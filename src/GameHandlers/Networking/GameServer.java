@@ -0,0 +1,220 @@
+package GameHandlers.Networking;
+
+import GameHandlers.EventHandling.EncounterScript;
+import GameHandlers.StepManager;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+
+//Non-blocking multiplayer server: one I/O thread runs every remote session
+
+//Methods List:
+// - main(String[] args):  starts a server from the command line (port, --quiet)
+// - start():  opens the selector and binds the listening socket
+// - run():  selector loop accepting clients, reading choices and flushing frames
+// - stop():  stops the selector loop and closes every connection
+// - accept():
+// - read(SelectionKey key):
+// - write(SelectionKey key):
+
+//Getters:
+// - getPort():  the bound port (useful when started on port 0)
+// - getConnectionCount():
+
+/*
+* How it works:
+* The GameServer follows the API idea from the README: every client that connects gets its own RemoteSession
+* with its own Player. A single thread waits on a java.nio Selector, so thousands of idle connections cost
+* nothing but a selection key. When a client sends a frame the session reacts immediately on the I/O thread
+* and queues its reply frames, which are then flushed with gathering writes from pooled direct buffers.
+* A client that sends a malformed frame, or whose session throws, is disconnected; the other sessions carry on.
+* Run with the LoadGeneratorClient against 127.0.0.1 to try it out.
+*/
+
+public class GameServer implements Runnable {
+    private static final int BUFFER_SIZE = 8192;
+    private static final int BACKLOG = 1024;
+
+    private final InetSocketAddress address;
+    private final BufferPool bufferPool;
+    private final GameProtocol protocol;
+    private final EncounterScript encounters; // Compiled once, played by every session
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private volatile boolean running;
+    private int nextSessionId = 1;
+    private int connectionCount = 0;
+
+    /**
+     * Creates a server for the given address (not started yet)
+     * @param address Address to listen on, e.g. 127.0.0.1:0 for any free loopback port
+     */
+    public GameServer(InetSocketAddress address) {
+        this.address = address;
+        this.bufferPool = new BufferPool(BUFFER_SIZE, 64, 4096);
+        this.protocol = new GameProtocol();
+        this.encounters = StepManager.loadEncounters();
+        this.running = false;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 7325;
+        boolean quiet = args.length > 1 && args[1].equals("--quiet");
+        if (quiet) {
+            // Battles narrate to System.out - silence it when hosting a lot of sessions
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        }
+
+        GameServer server = new GameServer(new InetSocketAddress("127.0.0.1", port));
+        server.start();
+        System.err.println("Game server listening on 127.0.0.1:" + server.getPort());
+        server.run();
+    }
+
+    /**
+     * Opens the selector and binds the listening socket
+     */
+    public void start() throws IOException {
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.configureBlocking(false);
+        serverChannel.bind(address, BACKLOG);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        running = true;
+    }
+
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    public int getConnectionCount() {
+        return connectionCount;
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                selector.select();
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    try {
+                        if (key.isAcceptable()) {
+                            accept();
+                        } else {
+                            if (key.isReadable()) {
+                                read(key);
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                write(key);
+                            }
+                        }
+                    } catch (IOException e) {
+                        // Client went away mid-read or mid-write
+                        disconnect(key);
+                    } catch (RuntimeException e) {
+                        // A bug or a bad frame in one session only costs that client its connection
+                        System.err.println("Dropping client after error: " + e);
+                        disconnect(key);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Game server stopped: " + e.getMessage());
+        } finally {
+            closeAll();
+        }
+    }
+
+    /**
+     * Stops the selector loop. Connections are closed by the I/O thread on its way out.
+     */
+    public void stop() {
+        running = false;
+        if (selector != null) {
+            selector.wakeup();
+        }
+    }
+
+    // ===== Selector Events =====
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+
+            ClientConnection connection = new ClientConnection(channel, key, bufferPool);
+            RemoteSession session = new RemoteSession(nextSessionId++, connection, protocol, encounters);
+            key.attach(session);
+            connectionCount++;
+
+            session.start();
+            connection.flush();
+        }
+    }
+
+    private void read(SelectionKey key) throws IOException {
+        RemoteSession session = (RemoteSession) key.attachment();
+        ClientConnection connection = session.getConnection();
+        if (!connection.readFrames(session)) {
+            disconnect(key);
+            return;
+        }
+        connection.flush();
+        if (session.isFinished() && !connection.hasPendingWrites()) {
+            disconnect(key);
+        }
+    }
+
+    private void write(SelectionKey key) throws IOException {
+        RemoteSession session = (RemoteSession) key.attachment();
+        ClientConnection connection = session.getConnection();
+        connection.flush();
+        if (session.isFinished() && !connection.hasPendingWrites()) {
+            disconnect(key);
+        }
+    }
+
+    private void disconnect(SelectionKey key) {
+        Object attachment = key.attachment();
+        if (attachment instanceof RemoteSession) {
+            ClientConnection connection = ((RemoteSession) attachment).getConnection();
+            if (!connection.isClosed()) {
+                connection.close();
+                connectionCount--;
+            }
+        } else {
+            key.cancel();
+        }
+    }
+
+    private void closeAll() {
+        if (selector == null) {
+            return;
+        }
+        for (SelectionKey key : selector.keys()) {
+            disconnect(key);
+        }
+        try {
+            serverChannel.close();
+            selector.close();
+        } catch (IOException e) {
+            // Shutting down anyway
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package GameHandlers.Networking;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Random;
+
+//Load generator that plays many games against a GameServer at once
+
+//Methods List:
+// - main(String[] args):  host, port, connections, seconds
+// - run(int seconds):  opens every connection and plays until the time is up
+// - connect():  opens one non-blocking connection
+// - read(SelectionKey key):  parses server frames and answers them
+// - reply(Bot bot, byte type, ByteBuffer frame):  decides what a bot sends back
+
+//Inner Classes:
+// - Bot:  per-connection read and write buffers
+
+/*
+* How it works:
+* Every connection is a simple bot: it advances whenever it is told about a step or a battle result, and picks
+* a random option whenever it receives a menu. All bots share one selector thread, just like the server.
+* When a game ends the bot reconnects, so the server keeps a steady number of sessions for the whole run.
+* At the end the client prints frames per second and completed games, which makes it a quick loopback benchmark.
+*/
+
+public class LoadGeneratorClient {
+    private final InetSocketAddress serverAddress;
+    private final int connections;
+    private final Random random = new Random();
+    private Selector selector;
+
+    private long framesReceived = 0;
+    private long framesSent = 0;
+    private long gamesCompleted = 0;
+
+    public LoadGeneratorClient(InetSocketAddress serverAddress, int connections) {
+        this.serverAddress = serverAddress;
+        this.connections = connections;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String host = args.length > 0 ? args[0] : "127.0.0.1";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 7325;
+        int connections = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+
+        LoadGeneratorClient client = new LoadGeneratorClient(new InetSocketAddress(host, port), connections);
+        client.run(seconds);
+    }
+
+    /**
+     * Opens every connection and plays until the time is up, then prints the results
+     * @param seconds How long to generate load for
+     */
+    public void run(int seconds) throws IOException {
+        selector = Selector.open();
+        for (int i = 0; i < connections; i++) {
+            connect();
+        }
+
+        long start = System.nanoTime();
+        long end = start + seconds * 1_000_000_000L;
+        while (System.nanoTime() < end) {
+            selector.select(100);
+
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                if (!key.isValid()) {
+                    continue;
+                }
+                try {
+                    if (key.isConnectable()) {
+                        ((SocketChannel) key.channel()).finishConnect();
+                        key.interestOps(SelectionKey.OP_READ);
+                    } else if (key.isReadable()) {
+                        read(key);
+                    }
+                } catch (IOException e) {
+                    // Server dropped us - replace the connection
+                    close(key);
+                    connect();
+                }
+            }
+        }
+
+        double elapsed = (System.nanoTime() - start) / 1_000_000_000.0;
+        System.out.println("=== Load Generator Results ===");
+        System.out.println("Connections: " + connections);
+        System.out.printf("Frames received: %d (%.0f/s)%n", framesReceived, framesReceived / elapsed);
+        System.out.printf("Frames sent: %d (%.0f/s)%n", framesSent, framesSent / elapsed);
+        System.out.printf("Games completed: %d (%.1f/s)%n", gamesCompleted, gamesCompleted / elapsed);
+
+        for (SelectionKey key : selector.keys()) {
+            close(key);
+        }
+        selector.close();
+    }
+
+    private void connect() throws IOException {
+        SocketChannel channel = SocketChannel.open();
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        channel.connect(serverAddress);
+        channel.register(selector, SelectionKey.OP_CONNECT, new Bot());
+    }
+
+    private void read(SelectionKey key) throws IOException {
+        SocketChannel channel = (SocketChannel) key.channel();
+        Bot bot = (Bot) key.attachment();
+
+        if (channel.read(bot.readBuffer) < 0) {
+            close(key);
+            connect();
+            return;
+        }
+
+        ByteBuffer in = bot.readBuffer;
+        in.flip();
+        boolean gameOver = false;
+        while (in.remaining() >= 4) {
+            int start = in.position();
+            int length = in.getInt(start);
+            if (in.remaining() < 4 + length) {
+                break;
+            }
+            in.position(start + 4);
+            byte type = in.get();
+            framesReceived++;
+            gameOver |= reply(bot, type, in);
+            in.position(start + 4 + length);
+        }
+        in.compact();
+
+        // Send every reply produced by this read in one write
+        bot.writeBuffer.flip();
+        while (bot.writeBuffer.hasRemaining()) {
+            channel.write(bot.writeBuffer);
+        }
+        bot.writeBuffer.clear();
+
+        if (gameOver) {
+            gamesCompleted++;
+            close(key);
+            connect();
+        }
+    }
+
+    /**
+     * Decides how the bot answers a frame
+     * @return true if the server says the game is over
+     */
+    private boolean reply(Bot bot, byte type, ByteBuffer frame) {
+        switch (type) {
+            case GameProtocol.MSG_STEP:
+                frame.getInt(); // step
+                if (frame.get() != 0) {
+                    return false; // Encounter - wait for the battle menu instead
+                }
+                GameProtocol.writeAdvance(bot.writeBuffer);
+                framesSent++;
+                return false;
+            case GameProtocol.MSG_BATTLE_END:
+                GameProtocol.writeAdvance(bot.writeBuffer);
+                framesSent++;
+                return false;
+            case GameProtocol.MSG_MENU:
+                GameProtocol.skipString(frame); // title
+                GameProtocol.skipString(frame); // description
+                int optionCount = frame.get();
+                GameProtocol.writeChoice(bot.writeBuffer, random.nextInt(optionCount));
+                framesSent++;
+                return false;
+            case GameProtocol.MSG_GAME_OVER:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private void close(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            // Already closed
+        }
+    }
+
+    /**
+     * Buffers for one bot connection
+     */
+    private static class Bot {
+        final ByteBuffer readBuffer = ByteBuffer.allocateDirect(8192);
+        final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(1024);
+    }
+}
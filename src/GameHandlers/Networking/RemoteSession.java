@@ -0,0 +1,207 @@
+package GameHandlers.Networking;
+
+import GameHandlers.EventHandling.EncounterScript;
+import GameHandlers.EventHandling.EncounterTimeline;
+import GameHandlers.EventHandling.EnemyEncounter;
+import GameHandlers.EventHandling.EnemyFactory;
+import Game_Characters.Player;
+import Game_Characters.PlayerInput.AttackInteraction;
+import Game_Characters.PlayerInput.Interaction;
+import Game_Characters.PlayerInput.PlayerInputHandler;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+//The game state of one remote player, driven by the messages their client sends
+
+//Methods List:
+// - start():  sends the welcome frame and the first step
+// - onMessage(byte type, ByteBuffer payload):  handles one frame received from the client; false if it's malformed
+// - advance():  starts the next encounter waiting on the player's step, or moves the player one step forward
+// - choose(int choice):  feeds an option index to the PlayerInputHandler
+// - finishBattle():  reports the battle result once the interaction ends
+
+//Getters:
+// - getSessionId():
+// - isFinished():
+// - getConnection():
+
+/*
+* How it works:
+* Each connection gets its own Player, EnemyFactory and PlayerInputHandler, and its own EncounterTimeline over
+* the server's compiled EncounterScript (the StepManager's journey), so remote and local games meet the same
+* encounters. With one player per session the global step is the player's step. There are no game threads for a
+* remote session - instead of waiting on the stepLock, the session advances one step every time the client
+* sends MSG_ADVANCE, and battles run one option at a time as MSG_CHOICE frames arrive. When several encounters come
+* up on one step they are fought in turn: the MSG_ADVANCE after a battle starts the next one on the same step
+* before the player may walk on. Everything runs on
+* the server's I/O thread, so a session must never block (the victory pause is turned off for this reason).
+*/
+
+public class RemoteSession {
+    public static final int MAX_STEPS = 20;
+
+    private final int sessionId;
+    private final ClientConnection connection;
+    private final GameProtocol protocol;
+    private final Player player;
+    private final EnemyFactory enemyFactory;
+    private final PlayerInputHandler inputHandler;
+    private final EncounterTimeline encounters;
+
+    private EnemyEncounter encounter;
+    private AttackInteraction battle;
+    private Interaction currentInteraction;
+    private boolean finished;
+
+    /**
+     * Creates a session for a new connection
+     * @param sessionId The id sent to the client
+     * @param connection The client's connection
+     * @param protocol The server's encoder
+     * @param script The compiled encounters the session plays through (shared, read only)
+     */
+    public RemoteSession(int sessionId, ClientConnection connection, GameProtocol protocol, EncounterScript script) {
+        this.sessionId = sessionId;
+        this.connection = connection;
+        this.protocol = protocol;
+        this.player = new Player();
+        this.enemyFactory = new EnemyFactory(player);
+        this.inputHandler = new PlayerInputHandler();
+        this.encounters = new EncounterTimeline(script, enemyFactory, new Random());
+        this.finished = false;
+    }
+
+    public int getSessionId() {
+        return sessionId;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public ClientConnection getConnection() {
+        return connection;
+    }
+
+    /**
+     * Greets the client and tells it where the player is standing
+     */
+    public void start() {
+        protocol.writeWelcome(connection.frameBuffer(GameProtocol.HEADER_SIZE + 4), sessionId);
+        protocol.writeStep(connection.frameBuffer(GameProtocol.HEADER_SIZE + 5), player.getStep(), false);
+    }
+
+    /**
+     * Handles one frame received from the client
+     * @param type The message type
+     * @param payload The frame payload, positioned just after the type byte and limited to the frame's end
+     * @return False if the frame is too short for its type and the client should be dropped
+     */
+    public boolean onMessage(byte type, ByteBuffer payload) {
+        if (finished) {
+            return true;
+        }
+        switch (type) {
+            case GameProtocol.MSG_ADVANCE:
+                advance();
+                break;
+            case GameProtocol.MSG_CHOICE:
+                if (payload.remaining() < 1) {
+                    return false; // A choice without its option index
+                }
+                choose(payload.get());
+                break;
+            default:
+                // Unknown messages are ignored so older clients keep working
+                break;
+        }
+        return true;
+    }
+
+    /**
+     * Starts the next encounter still waiting on the player's step; with none left, moves the player one step
+     * forward and starts the first encounter there
+     */
+    private void advance() {
+        // Can't walk away in the middle of a battle - show the menu again
+        if (currentInteraction != null) {
+            sendMenu(currentInteraction);
+            return;
+        }
+
+        int step = player.getStep();
+        encounter = encounters.poll(step); // Queued behind the battle just fought on this step
+        if (encounter == null) {
+            step++;
+            player.setCurrentStep(step);
+            encounter = encounters.poll(step);
+        }
+        protocol.writeStep(connection.frameBuffer(GameProtocol.HEADER_SIZE + 5), step, encounter != null);
+
+        if (encounter != null) {
+            battle = new AttackInteraction(player, encounter.getAllEnemies());
+            battle.setVictoryPause(0);
+            currentInteraction = battle;
+
+            protocol.writeBattleStart(connection.frameBuffer(GameProtocol.HEADER_SIZE + 5),
+                encounter.getAllEnemies().size(), player.getHealth());
+            sendMenu(currentInteraction);
+        } else if (step >= MAX_STEPS) {
+            endSession(GameProtocol.RESULT_WON);
+        }
+    }
+
+    /**
+     * Feeds the client's option index to the input handler
+     * @param choice The option index chosen by the client
+     */
+    private void choose(int choice) {
+        if (currentInteraction == null) {
+            return;
+        }
+
+        Interaction next = inputHandler.executeChoice(currentInteraction, choice);
+        if (next != null) {
+            currentInteraction = next;
+            sendMenu(currentInteraction);
+        } else {
+            finishBattle();
+        }
+    }
+
+    /**
+     * Reports the result of the battle that just ended
+     */
+    private void finishBattle() {
+        byte result;
+        if (!player.getAlive()) {
+            result = GameProtocol.RESULT_LOST;
+        } else if (battle.hasLivingEnemies()) {
+            result = GameProtocol.RESULT_FLED;
+        } else {
+            result = GameProtocol.RESULT_WON;
+        }
+        encounter.spawnEnemy().reset(); // A single enemy encounter reuses the factory's prefab
+        currentInteraction = null;
+        battle = null;
+        encounter = null;
+
+        protocol.writeBattleEnd(connection.frameBuffer(GameProtocol.HEADER_SIZE + 13),
+            result, player.getHealth(), player.getLevel(), player.getGold());
+
+        if (result == GameProtocol.RESULT_LOST) {
+            endSession(GameProtocol.RESULT_LOST);
+        } else if (player.getStep() >= MAX_STEPS) {
+            endSession(GameProtocol.RESULT_WON);
+        }
+    }
+
+    private void sendMenu(Interaction interaction) {
+        protocol.writeMenu(connection.frameBuffer(protocol.menuSize(interaction)), interaction);
+    }
+
+    private void endSession(byte result) {
+        protocol.writeGameOver(connection.frameBuffer(GameProtocol.HEADER_SIZE + 5), result, player.getStep());
+        finished = true;
+    }
+}
@@ -0,0 +1,110 @@
+package GameHandlers.Networking;
+
+import Game_Characters.GameCharacter.CharacterData;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+//The client side of a StateSync: rebuilds the synced characters from keyframe and delta frames
+
+//Methods List:
+// - apply(byte type, ByteBuffer payload):  applies one MSG_STATE_KEYFRAME or MSG_STATE_DELTA frame
+
+//Getters:
+// - getVersion():  the version of the last complete update, -1 before the first keyframe
+// - get(int entity):  an entity's values, or null if it isn't (or is no longer) in the world
+// - size():  the number of entities in the world
+
+/*
+* How it works:
+* A keyframe's first frame clears everything; a delta's first frame is only applied if it was made for the
+* version this mirror has. Records overwrite the fields in their mask, so frames can be applied as they arrive.
+* The mirror only takes the update's version once its LAST frame is in. A delta for another version, or a frame
+* that doesn't continue the update being received, means frames were lost: apply() returns false and the
+* client should ask for a keyframe (the server resets its StateSync.Cursor).
+*/
+
+public final class StateMirror {
+    private final List<CharacterData> entities = new ArrayList<>();
+    private long version = -1;
+    private long receiving = -1; // Version of the update whose frames are arriving, -1 between updates
+    private int size;
+
+    /**
+     * Applies one state frame
+     * @param type MSG_STATE_KEYFRAME or MSG_STATE_DELTA
+     * @param payload The frame's payload (after the type byte)
+     * @return False if the frame doesn't fit what this mirror has and a keyframe is needed
+     */
+    public boolean apply(byte type, ByteBuffer payload) {
+        long frameVersion = payload.getLong();
+        long base = payload.getLong();
+        byte flags = payload.get();
+        int count = payload.getShort() & 0xFFFF;
+
+        if ((flags & StateSync.FIRST) != 0) {
+            if (type == GameProtocol.MSG_STATE_KEYFRAME) {
+                entities.clear();
+                size = 0;
+            } else if (base != version) {
+                receiving = -1;
+                return false;
+            }
+            receiving = frameVersion;
+        } else if (frameVersion != receiving) {
+            receiving = -1;
+            return false;
+        }
+
+        for (int i = 0; i < count; i++) {
+            applyRecord(payload);
+        }
+        if ((flags & StateSync.LAST) != 0) {
+            version = frameVersion;
+            receiving = -1;
+        }
+        return true;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public CharacterData get(int entity) {
+        return entity < entities.size() ? entities.get(entity) : null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // ===== Helper Methods =====
+
+    private void applyRecord(ByteBuffer in) {
+        int entity = in.getInt();
+        int mask = in.get() & 0xFF;
+        while (entities.size() <= entity) {
+            entities.add(null);
+        }
+        CharacterData data = entities.get(entity);
+        if ((mask & StateSync.REMOVED) != 0) {
+            if (data != null) {
+                entities.set(entity, null);
+                size--;
+            }
+            return;
+        }
+        if (data == null) {
+            data = new CharacterData();
+            entities.set(entity, data);
+            size++;
+        }
+        if ((mask & CharacterData.NAME) != 0) data.name = GameProtocol.readString(in);
+        if ((mask & CharacterData.HEALTH) != 0) data.health = in.getInt();
+        if ((mask & CharacterData.MAX_HEALTH) != 0) data.maxHealth = in.getInt();
+        if ((mask & CharacterData.ATTACK) != 0) data.attack = in.getInt();
+        if ((mask & CharacterData.STEALTH) != 0) data.stealth = in.getInt();
+        if ((mask & CharacterData.STEP) != 0) data.step = in.getInt();
+        if ((mask & CharacterData.ALIVE) != 0) data.alive = in.get() != 0;
+    }
+}
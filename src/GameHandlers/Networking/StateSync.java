@@ -0,0 +1,388 @@
+package GameHandlers.Networking;
+
+import Game_Characters.GameCharacter;
+import Game_Characters.GameCharacter.CharacterData;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+//Keeps spectators and remote clients in sync with a set of characters by sending only what changed
+
+//Methods List:
+// - track(GameCharacter character):  gives a character an entity id; the next commit sends all of it
+// - untrack(GameCharacter character):  the next commit tells clients the entity is gone
+// - commit():  takes every character's dirty fields and records them as one new version
+// - encode(Cursor cursor, ByteBuffer out):  writes what a client is missing: a delta, or a keyframe when one is due
+// - maxUpdateSize():  the most bytes one encode() can write right now
+// - becameDirty(GameCharacter character):  [any thread] queues a character that has changes for the next commit
+
+//Getters:
+// - getVersion():  the last committed version (0 before the first commit)
+// - getTrackedCount():
+
+//Inner Classes:
+// - Cursor:  what one client has: the version it was last sent and when it last got a keyframe
+
+/*
+* How it works:
+* Characters set a dirty bit per field as they change (see GameCharacter.markDirty) and the first bit set on a
+* clean character queues it here, so commit() only visits the characters that changed. For each it copies the
+* changed fields into the entity's committed CharacterData in place, stamps those fields with the new version and
+* appends (entity, version) to a ring buffer change log. A character that changed ten times since the last
+* commit is visited once.
+* encode() sends a client the fields stamped after the version its Cursor has: the change log is walked back
+* from the newest entry to that version, each entity once, so a delta costs what changed since then and nothing
+* for the rest of the world. A client gets a keyframe (every live entity, every field) instead when it has
+* nothing yet, when it is so far behind that the log has forgotten changes it is missing, and every
+* keyframeInterval versions, so a client that lost a frame is never out of sync for long.
+* Updates are GameProtocol frames (MSG_STATE_KEYFRAME / MSG_STATE_DELTA) of at most MAX_FRAME_SIZE bytes; a big
+* update is split over several, the first flagged FIRST and the last LAST:
+*   long version, long base (the version the delta applies to, -1 for a keyframe), byte flags, short count,
+*   then count records of int entity, byte mask and the fields in the mask in bit order: name (string),
+*   health, maxHealth, attack, stealth, step (ints), alive (byte). REMOVED has no field.
+* StateMirror is the client side. commit(), encode(), track() and untrack() are serialized on this object.
+*/
+
+public final class StateSync implements GameCharacter.DirtyListener {
+    public static final int REMOVED = 1 << 7;  // Field bit only used on the wire: the entity left the world
+    public static final byte FIRST = 1;        // Frame flags
+    public static final byte LAST = 2;
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 64;
+    public static final int DEFAULT_HISTORY = 1 << 16; // Change log entries kept for deltas
+
+    private static final int FIELDS = 8; // The CharacterData fields and REMOVED
+    private static final int FRAME_OVERHEAD = GameProtocol.HEADER_SIZE + 8 + 8 + 1 + 2;
+    private static final int FIXED_RECORD = 4 + 1 + 5 * 4 + 1; // Entity, mask, five ints, alive
+    private static final int INTS = CharacterData.HEALTH | CharacterData.MAX_HEALTH | CharacterData.ATTACK
+        | CharacterData.STEALTH | CharacterData.STEP;
+
+    private final int keyframeInterval;
+    private final ConcurrentLinkedQueue<GameCharacter> changed = new ConcurrentLinkedQueue<>();
+
+    // Entities, by id
+    private final Map<GameCharacter, Integer> ids = new IdentityHashMap<>();
+    private final List<GameCharacter> characters = new ArrayList<>(); // null once untracked
+    private final List<CharacterData> committed = new ArrayList<>(); // null once the removal is committed
+    private final List<byte[]> names = new ArrayList<>();            // Encoded once per entity, not cached globally
+    private long[] fieldVersions = new long[64 * FIELDS]; // Version each field was last committed in, 0: never
+    private long[] lastLogged = new long[64];             // Version of the entity's newest log entry
+    private int[] forced = new int[64];                   // Bits track()/untrack() add to the next commit
+    private int[] sentStamp = new int[64];                // Marks entities already written by this encode()
+    private int[] forcedIds = new int[16];
+    private int forcedCount;
+    private int stamp;
+    private int longestName;
+
+    // Change log ring
+    private final int[] logEntity;
+    private final long[] logVersion;
+    private final int logMask;
+    private long logCount;
+    private long forgottenUpTo; // Newest version an overwritten log entry had: deltas need a base at least this
+
+    private long version;
+
+    // Frame being written
+    private int frameStart;
+    private int flagsAt;
+    private int frameRecords;
+
+    public StateSync() {
+        this(DEFAULT_KEYFRAME_INTERVAL, DEFAULT_HISTORY);
+    }
+
+    /**
+     * Creates a state sync
+     * @param keyframeInterval Versions between a client's keyframes, or 0 to only send them when needed
+     * @param history Change log entries kept for deltas, rounded up to a power of two
+     */
+    public StateSync(int keyframeInterval, int history) {
+        if (keyframeInterval < 0 || history < 1) {
+            throw new IllegalArgumentException("keyframeInterval must be >= 0 and history positive");
+        }
+        int capacity = Integer.highestOneBit(Math.max(1, history - 1)) << 1;
+        this.keyframeInterval = keyframeInterval;
+        this.logEntity = new int[capacity];
+        this.logVersion = new long[capacity];
+        this.logMask = capacity - 1;
+    }
+
+    /**
+     * Starts syncing a character. Clients learn about it (every field) with the next commit.
+     * @param character The character
+     * @return Its entity id
+     */
+    public synchronized int track(GameCharacter character) {
+        Integer known = ids.get(character);
+        if (known != null) {
+            return known;
+        }
+        int id = characters.size();
+        ensureCapacity(id + 1);
+        characters.add(character);
+        committed.add(new CharacterData());
+        byte[] name = character.getName().getBytes(StandardCharsets.UTF_8);
+        names.add(name);
+        ids.put(character, id);
+        longestName = Math.max(longestName, name.length);
+        character.setDirtyListener(this);
+        force(id, CharacterData.ALL);
+        return id;
+    }
+
+    /**
+     * Stops syncing a character. Clients are told it is gone with the next commit.
+     * @param character The character
+     */
+    public synchronized void untrack(GameCharacter character) {
+        Integer id = ids.remove(character);
+        if (id == null) {
+            return;
+        }
+        character.setDirtyListener(null);
+        characters.set(id, null);
+        force(id, REMOVED);
+    }
+
+    @Override
+    public void becameDirty(GameCharacter character) {
+        changed.offer(character);
+    }
+
+    /**
+     * Records every change made since the last commit as one new version
+     * @return The version clients can now be brought up to
+     */
+    public synchronized long commit() {
+        long next = version + 1;
+        boolean any = false;
+        for (int i = 0; i < forcedCount; i++) {
+            int id = forcedIds[i];
+            int bits = forced[id];
+            forced[id] = 0;
+            GameCharacter character = characters.get(id);
+            if ((bits & REMOVED) == 0 && character != null) {
+                bits |= character.takeDirtyFields();
+                character.updateCharacterData(committed.get(id), bits);
+            } else {
+                bits = REMOVED;
+                committed.set(id, null); // Clients only need to hear it is gone
+                names.set(id, null);
+            }
+            stampFields(id, bits, next);
+            any = true;
+        }
+        forcedCount = 0;
+
+        GameCharacter character;
+        while ((character = changed.poll()) != null) {
+            Integer id = ids.get(character);
+            if (id == null) {
+                continue; // Untracked since it was queued
+            }
+            int bits = character.takeDirtyFields();
+            if (bits == 0) {
+                continue; // Taken by a track() or an earlier entry
+            }
+            character.updateCharacterData(committed.get(id), bits);
+            stampFields(id, bits, next);
+            any = true;
+        }
+        if (any) {
+            version = next;
+        }
+        return version;
+    }
+
+    /**
+     * Writes what a client is missing and moves its cursor to the current version. Writes nothing if it is
+     * up to date and no keyframe is due.
+     * @param cursor The client's cursor
+     * @param out Where to write the frames; needs maxUpdateSize() bytes of room
+     * @return The number of bytes written
+     */
+    public synchronized int encode(Cursor cursor, ByteBuffer out) {
+        int start = out.position();
+        boolean keyframe = cursor.version < 0 || cursor.version > version || cursor.version < forgottenUpTo
+            || (keyframeInterval > 0 && version - cursor.keyframeVersion >= keyframeInterval);
+        if (keyframe) {
+            writeKeyframe(out);
+            cursor.keyframeVersion = version;
+        } else if (cursor.version < version) {
+            writeDelta(out, cursor.version);
+        }
+        cursor.version = version;
+        return out.position() - start;
+    }
+
+    /**
+     * The most bytes one encode() can write with the entities tracked so far
+     */
+    public synchronized int maxUpdateSize() {
+        int record = FIXED_RECORD + 2 + longestName;
+        int perFrame = (GameProtocol.MAX_FRAME_SIZE - FRAME_OVERHEAD) / record;
+        return (characters.size() / perFrame + 1) * GameProtocol.MAX_FRAME_SIZE;
+    }
+
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    public synchronized int getTrackedCount() {
+        return ids.size();
+    }
+
+    // ===== Helper Methods =====
+
+    private void force(int id, int bits) {
+        if (forced[id] == 0) {
+            if (forcedCount == forcedIds.length) {
+                forcedIds = Arrays.copyOf(forcedIds, forcedCount * 2);
+            }
+            forcedIds[forcedCount++] = id;
+        }
+        forced[id] |= bits;
+    }
+
+    /**
+     * Stamps an entity's changed fields with a version and logs the entity once for it
+     */
+    private void stampFields(int id, int bits, long at) {
+        for (int field = 0; field < FIELDS; field++) {
+            if ((bits & (1 << field)) != 0) {
+                fieldVersions[id * FIELDS + field] = at;
+            }
+        }
+        if (lastLogged[id] == at) {
+            return;
+        }
+        lastLogged[id] = at;
+        int slot = (int) (logCount & logMask);
+        if (logCount > logMask) {
+            forgottenUpTo = Math.max(forgottenUpTo, logVersion[slot]);
+        }
+        logEntity[slot] = id;
+        logVersion[slot] = at;
+        logCount++;
+    }
+
+    /**
+     * Every live entity with every field, as of the last commit
+     */
+    private void writeKeyframe(ByteBuffer out) {
+        openFrame(out, GameProtocol.MSG_STATE_KEYFRAME, -1, true);
+        for (int id = 0; id < committed.size(); id++) {
+            int at = id * FIELDS;
+            if (fieldVersions[at] == 0 || fieldVersions[at + 7] != 0) {
+                continue; // Not committed yet, or gone
+            }
+            writeRecord(out, GameProtocol.MSG_STATE_KEYFRAME, -1, id, CharacterData.ALL);
+        }
+        closeFrame(out, true);
+    }
+
+    /**
+     * The fields committed after a version, found by walking the change log back to it
+     */
+    private void writeDelta(ByteBuffer out, long since) {
+        openFrame(out, GameProtocol.MSG_STATE_DELTA, since, true);
+        if (++stamp == 0) {
+            Arrays.fill(sentStamp, 0);
+            stamp = 1;
+        }
+        for (long entry = logCount - 1; entry >= 0 && entry >= logCount - logEntity.length; entry--) {
+            int slot = (int) (entry & logMask);
+            if (logVersion[slot] <= since) {
+                break;
+            }
+            int id = logEntity[slot];
+            if (sentStamp[id] == stamp) {
+                continue;
+            }
+            sentStamp[id] = stamp;
+            int mask = 0;
+            for (int field = 0; field < FIELDS; field++) {
+                if (fieldVersions[id * FIELDS + field] > since) {
+                    mask |= 1 << field;
+                }
+            }
+            writeRecord(out, GameProtocol.MSG_STATE_DELTA, since, id, (mask & REMOVED) != 0 ? REMOVED : mask);
+        }
+        closeFrame(out, true);
+    }
+
+    private void writeRecord(ByteBuffer out, byte type, long base, int id, int mask) {
+        CharacterData data = committed.get(id);
+        byte[] name = (mask & CharacterData.NAME) != 0 ? names.get(id) : null;
+        int size = 5 + 4 * Integer.bitCount(mask & INTS) + ((mask & CharacterData.ALIVE) != 0 ? 1 : 0)
+            + (name != null ? 2 + name.length : 0);
+        if (out.position() - frameStart + size > GameProtocol.MAX_FRAME_SIZE || frameRecords == 0xFFFF) {
+            closeFrame(out, false);
+            openFrame(out, type, base, false);
+        }
+        out.putInt(id);
+        out.put((byte) mask);
+        if (name != null) {
+            out.putShort((short) name.length);
+            out.put(name);
+        }
+        if ((mask & CharacterData.HEALTH) != 0) out.putInt(data.health);
+        if ((mask & CharacterData.MAX_HEALTH) != 0) out.putInt(data.maxHealth);
+        if ((mask & CharacterData.ATTACK) != 0) out.putInt(data.attack);
+        if ((mask & CharacterData.STEALTH) != 0) out.putInt(data.stealth);
+        if ((mask & CharacterData.STEP) != 0) out.putInt(data.step);
+        if ((mask & CharacterData.ALIVE) != 0) out.put(data.alive ? (byte) 1 : (byte) 0);
+        frameRecords++;
+    }
+
+    private void openFrame(ByteBuffer out, byte type, long base, boolean first) {
+        frameStart = GameProtocol.beginFrame(out, type);
+        out.putLong(version);
+        out.putLong(base);
+        flagsAt = out.position();
+        out.put(first ? FIRST : 0);
+        out.putShort((short) 0); // Record count, filled in by closeFrame()
+        frameRecords = 0;
+    }
+
+    private void closeFrame(ByteBuffer out, boolean last) {
+        out.putShort(flagsAt + 1, (short) frameRecords);
+        if (last) {
+            out.put(flagsAt, (byte) (out.get(flagsAt) | LAST));
+        }
+        GameProtocol.endFrame(out, frameStart);
+    }
+
+    private void ensureCapacity(int entities) {
+        if (entities <= lastLogged.length) {
+            return;
+        }
+        int capacity = Math.max(entities, lastLogged.length * 2);
+        fieldVersions = Arrays.copyOf(fieldVersions, capacity * FIELDS);
+        lastLogged = Arrays.copyOf(lastLogged, capacity);
+        forced = Arrays.copyOf(forced, capacity);
+        sentStamp = Arrays.copyOf(sentStamp, capacity);
+    }
+
+    /**
+     * What one client has been sent. Reset it when the client reports it is out of sync (StateMirror.apply()
+     * returned false) and the next encode() sends a keyframe.
+     */
+    public static final class Cursor {
+        private long version = -1;         // -1: nothing sent yet
+        private long keyframeVersion = -1;
+
+        public long getVersion() {
+            return version;
+        }
+
+        public void reset() {
+            version = -1;
+        }
+    }
+}
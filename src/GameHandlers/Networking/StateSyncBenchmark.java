@@ -0,0 +1,169 @@
+package GameHandlers.Networking;
+
+import Game_Characters.Enemies.Slime;
+import Game_Characters.GameCharacter;
+import Game_Characters.GameCharacter.CharacterData;
+import Game_Characters.Player;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+//Compares syncing a world by sending every character each tick (a keyframe) against sending deltas from a StateSync
+
+//Methods List:
+// - main(String[] args):  ticks, changes per tick, world sizes...
+// - run(int size, int changes, int ticks):  times both ways for one world size and checks the mirrors agree
+// - pass(...):  tracks the world on one StateSync and syncs one client through every tick
+// - matches(List<Slime> world, StateMirror mirror):  checks a mirror field by field against the live characters
+// - change(List<Slime> world, int changes):  moves or hurts some random characters
+// - applyAll(StateMirror mirror, ByteBuffer frames):  feeds every frame in a buffer to a mirror
+// - report(String name, int size, long[] times, long bytes, int ticks):
+
+/*
+* How it works:
+* A world of N Slimes is tracked by one StateSync. Every tick a fixed number of them move or take damage, the
+* sync commits, and two clients are brought up to date:
+* - Full: a client that is sent a keyframe every tick, which is what rebuilding and sending every character's
+*   CharacterData costs
+* - Delta: a client with keyframes turned off after the first one, sent only what changed
+* The timed part is commit() plus encode() (the Full client pays for the commit too). Both clients decode into a
+* StateMirror, and after its pass each mirror is checked field by field against the live characters.
+* Prints the median and 99th percentile per tick in microseconds, and the average bytes sent per tick.
+*/
+
+public class StateSyncBenchmark {
+    private static final int WARMUP = 200;
+
+    private final Random random = new Random(42);
+
+    public static void main(String[] args) {
+        int ticks = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int changes = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int[] sizes = {1_000, 10_000, 100_000};
+        if (args.length > 2) {
+            sizes = new int[args.length - 2];
+            for (int i = 2; i < args.length; i++) {
+                sizes[i - 2] = Integer.parseInt(args[i]);
+            }
+        }
+
+        System.out.println("State sync per tick, " + changes + " characters changing per tick, " + ticks + " ticks, "
+            + Runtime.getRuntime().availableProcessors() + " cpu(s)");
+        for (int size : sizes) {
+            new StateSyncBenchmark().run(size, changes, ticks);
+        }
+    }
+
+    /**
+     * Times both ways for one world size and checks that both clients ended up with the live world
+     */
+    public void run(int size, int changes, int ticks) {
+        Player player = new Player();
+        List<Slime> world = new ArrayList<>(size);
+        StateSync fullSync = new StateSync(1, StateSync.DEFAULT_HISTORY);
+        StateSync deltaSync = new StateSync(0, StateSync.DEFAULT_HISTORY);
+        for (int i = 0; i < size; i++) {
+            world.add(new Slime(player, i + 1));
+        }
+
+        // Each way gets its own pass over the same changes, so neither commit takes the other's dirty bits
+        long[] fullTimes = new long[ticks];
+        long[] deltaTimes = new long[ticks];
+        StateMirror fullMirror = new StateMirror();
+        long fullBytes = pass(world, fullSync, changes, ticks, fullTimes, fullMirror);
+        boolean fullMatches = matches(world, fullMirror);
+        StateMirror deltaMirror = new StateMirror();
+        long deltaBytes = pass(world, deltaSync, changes, ticks, deltaTimes, deltaMirror);
+        boolean deltaMatches = matches(world, deltaMirror);
+
+        report("Full", size, fullTimes, fullBytes, ticks);
+        report("Delta", size, deltaTimes, deltaBytes, ticks);
+        System.out.println("    both mirrors match the world: " + (fullMatches && deltaMatches));
+    }
+
+    // ===== Helper Methods =====
+
+    private long pass(List<Slime> world, StateSync sync, int changes, int ticks, long[] times, StateMirror mirror) {
+        for (Slime slime : world) {
+            sync.track(slime);
+        }
+        sync.commit();
+        StateSync.Cursor cursor = new StateSync.Cursor();
+        ByteBuffer out = ByteBuffer.allocate(sync.maxUpdateSize());
+        sync.encode(cursor, out);
+        applyAll(mirror, out); // First keyframe, not timed
+
+        long bytes = 0;
+        for (int i = -WARMUP; i < ticks; i++) {
+            change(world, changes);
+            out.clear();
+            long start = System.nanoTime();
+            sync.commit();
+            int written = sync.encode(cursor, out);
+            long time = System.nanoTime() - start;
+            applyAll(mirror, out);
+            if (i >= 0) {
+                times[i] = time;
+                bytes += written;
+            }
+        }
+        for (Slime slime : world) {
+            sync.untrack(slime); // Detaches them before the next pass tracks them again
+        }
+        sync.commit();
+        return bytes;
+    }
+
+    /**
+     * Moves or hurts some random characters
+     */
+    private void change(List<Slime> world, int changes) {
+        for (int i = 0; i < changes; i++) {
+            Slime slime = world.get(random.nextInt(world.size()));
+            if (random.nextBoolean()) {
+                slime.setStep(slime.getStep() + 1);
+            } else {
+                slime.setHealth(slime.getHealth() - 1);
+            }
+        }
+    }
+
+    private static void applyAll(StateMirror mirror, ByteBuffer frames) {
+        ByteBuffer in = frames.duplicate().flip();
+        while (in.hasRemaining()) {
+            int length = in.getInt();
+            byte type = in.get();
+            ByteBuffer payload = in.slice(in.position(), length - 1);
+            if (!mirror.apply(type, payload)) {
+                throw new IllegalStateException("Mirror out of sync at version " + mirror.getVersion());
+            }
+            in.position(in.position() + length - 1);
+        }
+    }
+
+    private static boolean matches(List<Slime> world, StateMirror mirror) {
+        if (mirror.size() != world.size()) {
+            return false;
+        }
+        for (int i = 0; i < world.size(); i++) {
+            GameCharacter slime = world.get(i);
+            CharacterData data = mirror.get(i);
+            if (data == null || !slime.getName().equals(data.name) || slime.getHealth() != data.health
+                || slime.getStep() != data.step || slime.getAlive() != data.alive) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void report(String name, int size, long[] times, long bytes, int ticks) {
+        long[] sorted = times.clone();
+        Arrays.sort(sorted);
+        long median = sorted[sorted.length / 2];
+        long p99 = sorted[Math.min(sorted.length - 1, (int) (sorted.length * 0.99))];
+        System.out.printf("%-6s %,8d characters: median %,10.1f us   p99 %,10.1f us   %,10d bytes/tick%n",
+            name, size, median / 1000.0, p99 / 1000.0, bytes / ticks);
+    }
+}
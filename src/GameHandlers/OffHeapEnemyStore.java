@@ -0,0 +1,304 @@
+package GameHandlers;
+
+import GameHandlers.EventHandling.EnemyFactory;
+import Game_Characters.CharacterEnemy;
+import Game_Characters.Enemy;
+import Game_Characters.EnemyArchetype;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+//Stores a large population of dormant enemies outside the Java heap as fixed-size records
+
+//Methods List:
+// - spawn(EnemyArchetype archetype, int step):  adds an enemy record at full health and returns its index
+// - remove(long index):  marks a record as dead (any thread)
+// - findAt(int step, long from):  finds the next live record on a step that isn't already in a battle
+// - materialize(long index, EnemyFactory factory):  builds a real Enemy for a record that is entering a battle
+// - writeBack(long index, Enemy enemy):  stores what happened in the battle back into the record
+// - force():  writes a memory-mapped store out to its file
+// - close():
+
+//Getters (by record index):
+// - getStep() / getHealth() / getFrozenTurns() / getArchetype() / isAlive() / isInBattle()
+// - getAttack() / getStealth():  the record's archetype's stats
+// - size():  number of records (dead ones included)
+// - isMapped():  true if the store is backed by a file
+
+//Setters (by record index):
+// - setStep() / setHealth() / setFrozenTurns()
+
+/*
+* How it works:
+* Each enemy is a 16 byte record: step, health, frozen turns (4 bytes each), then the archetype id, a flags byte
+* (alive, in battle) and two bytes of padding. Attack and stealth aren't stored: like every stat they come from the
+* shared EnemyArchetype. Records live in chunks of direct ByteBuffers, 1M records per chunk, so a record index is
+* just (chunk, offset) and the store can hold far more than one buffer's 2GB limit.
+* None of this is on the Java heap, so the garbage collector never has to look at a dormant enemy.
+* When an enemy meets the player, materialize() builds a normal Enemy object from its archetype (through the
+* EnemyFactory) and the record's values; after the battle writeBack() copies the result back.
+* With a file, the chunks are memory-mapped instead: the file starts with a 16 byte header (magic, version, record
+* count) and opening the same file again picks up every record where it was left, without loading anything.
+* The store is a standalone library: the game's own enemies are few enough to stay on the heap in the
+* EnemyRegistry, so nothing in the game spawns into it.
+* spawn(), remove(), materialize() and writeBack() are serialized on the store, so every change to a record's
+* flags is made whole: an enemy removed from another thread while it is in a battle stays dead when the battle
+* writes it back. The other getters and setters belong to the thread that owns the record.
+*/
+
+public class OffHeapEnemyStore implements AutoCloseable {
+    public static final int RECORD_BYTES = 16;
+
+    // Record layout
+    private static final int STEP = 0;
+    private static final int HEALTH = 4;
+    private static final int FROZEN = 8;
+    private static final int ARCHETYPE = 12;
+    private static final int FLAGS = 13;
+
+    private static final byte ALIVE = 1;
+    private static final byte IN_BATTLE = 2;
+
+    private static final int CHUNK_BITS = 20;
+    private static final int CHUNK_RECORDS = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_RECORDS - 1;
+    private static final long CHUNK_BYTES = (long) CHUNK_RECORDS * RECORD_BYTES;
+
+    // File header
+    private static final int MAGIC = 0x454E4D59; // "ENMY"
+    private static final int VERSION = 2; // 2: 16 byte records without attack and stealth
+    private static final int HEADER_BYTES = 16;
+
+    private volatile ByteBuffer[] chunks = new ByteBuffer[0];
+    private volatile long count;
+    private final FileChannel file;      // null for an in-memory store
+    private final MappedByteBuffer header;
+
+    /**
+     * Creates an in-memory store backed by direct buffers
+     */
+    public OffHeapEnemyStore() {
+        this.file = null;
+        this.header = null;
+    }
+
+    /**
+     * Opens (or creates) a store memory-mapped to a file. Records already in the file are kept.
+     * @param path The file to map
+     */
+    public OffHeapEnemyStore(Path path) throws IOException {
+        this.file = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            boolean existing = file.size() >= HEADER_BYTES;
+            this.header = file.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            if (existing) {
+                if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                    throw new IOException(path + " is not an enemy store");
+                }
+                long stored = header.getLong(8);
+                while (stored > (long) chunks.length * CHUNK_RECORDS) {
+                    addChunk();
+                }
+                this.count = stored;
+            } else {
+                header.putInt(0, MAGIC);
+                header.putInt(4, VERSION);
+                header.putLong(8, 0);
+            }
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Adds an enemy record at its archetype's full health
+     * @param archetype What kind of enemy it is
+     * @param step The step it starts on
+     * @return The record's index
+     */
+    public synchronized long spawn(EnemyArchetype archetype, int step) {
+        long index = count;
+        if (index == (long) chunks.length * CHUNK_RECORDS) {
+            addChunk();
+        }
+        ByteBuffer chunk = chunk(index);
+        int at = offset(index);
+        chunk.putInt(at + STEP, step);
+        chunk.putInt(at + HEALTH, archetype.getMaxHealth());
+        chunk.putInt(at + FROZEN, 0);
+        chunk.put(at + ARCHETYPE, (byte) archetype.getId());
+        chunk.put(at + FLAGS, ALIVE);
+
+        count = index + 1; // Volatile write publishes the record
+        if (header != null) {
+            header.putLong(8, count);
+        }
+        return index;
+    }
+
+    /**
+     * Marks a record as dead, from any thread. Its index is not reused.
+     */
+    public synchronized void remove(long index) {
+        ByteBuffer chunk = chunk(checkIndex(index));
+        int at = offset(index);
+        chunk.put(at + FLAGS, (byte) (chunk.get(at + FLAGS) & ~ALIVE)); // Still in battle until written back
+    }
+
+    /**
+     * Finds the next live record on a step that isn't already in a battle.
+     * This is a straight scan over the records, which are laid out back to back.
+     * @param step The step to look on
+     * @param from The first index to check
+     * @return The record's index, or -1 if there is none
+     */
+    public long findAt(int step, long from) {
+        long end = count;
+        ByteBuffer[] current = chunks;
+        for (long index = Math.max(0, from); index < end; index++) {
+            ByteBuffer chunk = current[(int) (index >>> CHUNK_BITS)];
+            int at = offset(index);
+            if (chunk.get(at + FLAGS) == ALIVE && chunk.getInt(at + STEP) == step) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Builds a real Enemy for a record that is about to fight. The record is marked as in battle until writeBack().
+     * @param index The record's index
+     * @param factory Creates the enemy object for the record's archetype
+     * @return The enemy, with the record's step, health and frozen turns and its archetype's stats
+     */
+    public synchronized Enemy materialize(long index, EnemyFactory factory) {
+        ByteBuffer chunk = chunk(checkIndex(index));
+        int at = offset(index);
+        byte flags = chunk.get(at + FLAGS);
+        EnemyArchetype archetype = EnemyArchetype.byId(chunk.get(at + ARCHETYPE));
+        Enemy enemy = factory.createEnemy(archetype, (int) Math.min(index + 1, Integer.MAX_VALUE));
+        enemy.setStep(chunk.getInt(at + STEP));
+        enemy.setHealth(chunk.getInt(at + HEALTH));
+        enemy.setAlive((flags & ALIVE) != 0);
+        if (enemy instanceof CharacterEnemy) {
+            CharacterEnemy characterEnemy = (CharacterEnemy) enemy;
+            characterEnemy.setCurrentStep(chunk.getInt(at + STEP));
+            characterEnemy.setFrozenTurnsRemaining(chunk.getInt(at + FROZEN));
+        }
+        chunk.put(at + FLAGS, (byte) (flags | IN_BATTLE));
+        return enemy;
+    }
+
+    /**
+     * Copies a materialized enemy's state back into its record and clears the in-battle flag.
+     * A record removed while its enemy was in battle stays dead.
+     * @param index The record the enemy was materialized from
+     * @param enemy The enemy
+     */
+    public synchronized void writeBack(long index, Enemy enemy) {
+        ByteBuffer chunk = chunk(checkIndex(index));
+        int at = offset(index);
+        chunk.putInt(at + STEP, enemy.getStep());
+        chunk.putInt(at + HEALTH, Math.max(0, enemy.getHealth()));
+        if (enemy instanceof CharacterEnemy) {
+            chunk.putInt(at + FROZEN, ((CharacterEnemy) enemy).getFrozenTurnsRemaining());
+        }
+        boolean alive = (chunk.get(at + FLAGS) & ALIVE) != 0 && enemy.getAlive();
+        chunk.put(at + FLAGS, alive ? ALIVE : 0);
+    }
+
+    // ===== Record Access =====
+
+    public int getStep(long index) { return chunk(checkIndex(index)).getInt(offset(index) + STEP); }
+    public int getHealth(long index) { return chunk(checkIndex(index)).getInt(offset(index) + HEALTH); }
+    public int getAttack(long index) { return getArchetype(index).getAttack(); }
+    public int getStealth(long index) { return getArchetype(index).getStealth(); }
+    public int getFrozenTurns(long index) { return chunk(checkIndex(index)).getInt(offset(index) + FROZEN); }
+    public boolean isAlive(long index) { return (chunk(checkIndex(index)).get(offset(index) + FLAGS) & ALIVE) != 0; }
+    public boolean isInBattle(long index) { return (chunk(checkIndex(index)).get(offset(index) + FLAGS) & IN_BATTLE) != 0; }
+
+    public EnemyArchetype getArchetype(long index) {
+        return EnemyArchetype.byId(chunk(checkIndex(index)).get(offset(index) + ARCHETYPE));
+    }
+
+    public void setStep(long index, int step) { chunk(checkIndex(index)).putInt(offset(index) + STEP, step); }
+    public void setHealth(long index, int health) { chunk(checkIndex(index)).putInt(offset(index) + HEALTH, health); }
+    public void setFrozenTurns(long index, int turns) { chunk(checkIndex(index)).putInt(offset(index) + FROZEN, turns); }
+
+    /**
+     * Gets the number of records, dead ones included
+     */
+    public long size() {
+        return count;
+    }
+
+    public boolean isMapped() {
+        return file != null;
+    }
+
+    /**
+     * Writes every mapped chunk (and the header) out to the file. Does nothing for an in-memory store.
+     */
+    public void force() {
+        if (file == null) {
+            return;
+        }
+        for (ByteBuffer chunk : chunks) {
+            ((MappedByteBuffer) chunk).force();
+        }
+        header.force();
+    }
+
+    /**
+     * Flushes and closes the file. The mapped memory itself is released once the buffers are collected.
+     */
+    @Override
+    public void close() throws IOException {
+        if (file != null) {
+            force();
+            file.close();
+        }
+    }
+
+    // ===== Helper Methods =====
+
+    private void addChunk() {
+        ByteBuffer chunk;
+        if (file == null) {
+            chunk = ByteBuffer.allocateDirect((int) CHUNK_BYTES);
+        } else {
+            try {
+                long position = HEADER_BYTES + chunks.length * CHUNK_BYTES;
+                chunk = file.map(FileChannel.MapMode.READ_WRITE, position, CHUNK_BYTES);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not grow the enemy store", e);
+            }
+        }
+        chunk.order(file == null ? ByteOrder.nativeOrder() : ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer[] grown = Arrays.copyOf(chunks, chunks.length + 1);
+        grown[grown.length - 1] = chunk;
+        chunks = grown;
+    }
+
+    private long checkIndex(long index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("No enemy record " + index);
+        }
+        return index;
+    }
+
+    private ByteBuffer chunk(long index) {
+        return chunks[(int) (index >>> CHUNK_BITS)];
+    }
+
+    private static int offset(long index) {
+        return (int) (index & CHUNK_MASK) * RECORD_BYTES;
+    }
+}
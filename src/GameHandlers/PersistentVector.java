@@ -0,0 +1,135 @@
+package GameHandlers;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+//An immutable list where a change makes a new list that shares everything it didn't touch with the old one
+
+//Methods List:
+// - empty():  the empty vector
+// - get(int index):
+// - set(int index, E value):  a new vector with one element replaced
+// - append(E value):  a new vector with one more element
+// - size():
+// - iterator():
+
+/*
+* How it works:
+* The elements sit in the leaves of a tree where every node has 32 children, and an index is read 5 bits at a
+* time from the top to find its way down (a bit-partitioned trie). set() and append() copy only the nodes on the
+* path to the element, at most log32(size) small arrays, and the new root points at every other node of the old
+* tree. Old versions are never changed, so a vector can be shared with any thread or kept as history for free:
+* "copying" one is just keeping a reference.
+*/
+
+public final class PersistentVector<E> implements Iterable<E> {
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+    private static final PersistentVector<Object> EMPTY = new PersistentVector<>(0, 0, new Object[WIDTH]);
+
+    private final int size;
+    private final int shift;     // Bits below the root's level; 0 when the root is a leaf
+    private final Object[] root;
+
+    private PersistentVector(int size, int shift, Object[] root) {
+        this.size = size;
+        this.shift = shift;
+        this.root = root;
+    }
+
+    /**
+     * Gets the empty vector
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentVector<E> empty() {
+        return (PersistentVector<E>) EMPTY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets an element
+     * @throws IndexOutOfBoundsException If the index is not below size()
+     */
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        checkIndex(index);
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Object[]) node[(index >>> level) & MASK];
+        }
+        return (E) node[index & MASK];
+    }
+
+    /**
+     * Makes a vector with one element replaced; this vector stays as it is
+     * @return The new vector, or this one if the element is already that value
+     * @throws IndexOutOfBoundsException If the index is not below size()
+     */
+    public PersistentVector<E> set(int index, E value) {
+        checkIndex(index);
+        if (get(index) == value) {
+            return this;
+        }
+        return new PersistentVector<>(size, shift, copyPath(shift, root, index, value));
+    }
+
+    /**
+     * Makes a vector with one more element at the end; this vector stays as it is
+     */
+    public PersistentVector<E> append(E value) {
+        if (size == 1 << (shift + BITS)) {
+            // The tree is full: the old root becomes the first child of a new, taller root
+            Object[] taller = new Object[WIDTH];
+            taller[0] = root;
+            int tallerShift = shift + BITS;
+            return new PersistentVector<>(size + 1, tallerShift, copyPath(tallerShift, taller, size, value));
+        }
+        return new PersistentVector<>(size + 1, shift, copyPath(shift, root, size, value));
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public E next() {
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                return get(next++);
+            }
+        };
+    }
+
+    // ===== Helper Methods =====
+
+    /**
+     * Copies the nodes on the way down to an index (creating missing ones) and puts the value in the copied leaf
+     */
+    private static Object[] copyPath(int level, Object[] node, int index, Object value) {
+        Object[] copy = node == null ? new Object[WIDTH] : node.clone();
+        if (level == 0) {
+            copy[index & MASK] = value;
+        } else {
+            int child = (index >>> level) & MASK;
+            copy[child] = copyPath(level - BITS, (Object[]) copy[child], index, value);
+        }
+        return copy;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package GameHandlers;
+
+//One version of the game world that never changes: every "change" makes a new version sharing the rest
+
+//Methods List:
+// - empty():  a world with no player progress and no enemies
+// - withPhase(GamePhase phase) / withGlobalStep(int step) / withVersion(long version):
+// - withPlayer(int step, int health, boolean alive):
+// - withEnemy(int index, EnemyState enemy):  replaces one enemy, copying only the path to it
+// - withAddedEnemy(EnemyState enemy):
+
+//Getters:
+// - getVersion() / getPhase() / getGlobalStep():
+// - getPlayerStep() / getPlayerHealth() / isPlayerAlive():
+// - getEnemyCount() / getEnemy(int index):
+
+//Inner Classes:
+// - EnemyState:  one CharacterEnemy's name, step, health and alive flag, immutable
+
+/*
+* How it works:
+* The scalars (phase, steps, the player's health) are copied into each new version, which is a few words.
+* The enemies are a PersistentVector of immutable EnemyStates, so changing one enemy copies its EnemyState and the
+* log32(n) trie nodes above it while the new version shares every other enemy with the old one, so a publish
+* costs what changed, not how many enemies there are.
+*/
+
+public final class PersistentWorld {
+    private static final PersistentWorld EMPTY =
+        new PersistentWorld(0, GamePhase.IDLE, 0, 0, 0, true, PersistentVector.empty());
+
+    private final long version;
+    private final GamePhase phase;
+    private final int globalStep;
+    private final int playerStep;
+    private final int playerHealth;
+    private final boolean playerAlive;
+    private final PersistentVector<EnemyState> enemies;
+
+    private PersistentWorld(long version, GamePhase phase, int globalStep, int playerStep, int playerHealth,
+                            boolean playerAlive, PersistentVector<EnemyState> enemies) {
+        this.version = version;
+        this.phase = phase;
+        this.globalStep = globalStep;
+        this.playerStep = playerStep;
+        this.playerHealth = playerHealth;
+        this.playerAlive = playerAlive;
+        this.enemies = enemies;
+    }
+
+    /**
+     * Gets a world with no player progress and no enemies
+     */
+    public static PersistentWorld empty() {
+        return EMPTY;
+    }
+
+    public long getVersion() { return version; }
+    public GamePhase getPhase() { return phase; }
+    public int getGlobalStep() { return globalStep; }
+    public int getPlayerStep() { return playerStep; }
+    public int getPlayerHealth() { return playerHealth; }
+    public boolean isPlayerAlive() { return playerAlive; }
+    public int getEnemyCount() { return enemies.size(); }
+    public EnemyState getEnemy(int index) { return enemies.get(index); }
+
+    public PersistentWorld withVersion(long version) {
+        return version == this.version ? this
+            : new PersistentWorld(version, phase, globalStep, playerStep, playerHealth, playerAlive, enemies);
+    }
+
+    public PersistentWorld withPhase(GamePhase phase) {
+        return phase == this.phase ? this
+            : new PersistentWorld(version, phase, globalStep, playerStep, playerHealth, playerAlive, enemies);
+    }
+
+    public PersistentWorld withGlobalStep(int step) {
+        return step == globalStep ? this
+            : new PersistentWorld(version, phase, step, playerStep, playerHealth, playerAlive, enemies);
+    }
+
+    public PersistentWorld withPlayer(int step, int health, boolean alive) {
+        if (step == playerStep && health == playerHealth && alive == playerAlive) {
+            return this;
+        }
+        return new PersistentWorld(version, phase, globalStep, step, health, alive, enemies);
+    }
+
+    /**
+     * Makes a world with one enemy replaced
+     * @param index The enemy's index
+     * @param enemy Its new state
+     * @return The new world, or this one if nothing changed
+     */
+    public PersistentWorld withEnemy(int index, EnemyState enemy) {
+        PersistentVector<EnemyState> changed = enemies.set(index, enemy);
+        return changed == enemies ? this
+            : new PersistentWorld(version, phase, globalStep, playerStep, playerHealth, playerAlive, changed);
+    }
+
+    /**
+     * Makes a world with one more enemy at the end
+     */
+    public PersistentWorld withAddedEnemy(EnemyState enemy) {
+        return new PersistentWorld(version, phase, globalStep, playerStep, playerHealth, playerAlive,
+                                   enemies.append(enemy));
+    }
+
+    /**
+     * One CharacterEnemy as of one version of the world
+     */
+    public static final class EnemyState {
+        private final String name;
+        private final int step;
+        private final int health;
+        private final boolean alive;
+
+        public EnemyState(String name, int step, int health, boolean alive) {
+            this.name = name;
+            this.step = step;
+            this.health = health;
+            this.alive = alive;
+        }
+
+        public String getName() { return name; }
+        public int getStep() { return step; }
+        public int getHealth() { return health; }
+        public boolean isAlive() { return alive; }
+
+        /**
+         * Checks if this state already holds these values (so a publish can keep it)
+         */
+        public boolean matches(String name, int step, int health, boolean alive) {
+            return this.step == step && this.health == health && this.alive == alive && this.name.equals(name);
+        }
+    }
+}
@@ -0,0 +1,695 @@
+package GameHandlers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+//Keeps every finished run in append-only segment files and answers leaderboard queries from memory
+
+//Methods List:
+// - open(Path directory):  [static] opens (or creates) a history, loading the indexes from every segment
+// - append(RunRecord run):  adds a run; it reaches the disk on the next flush (or when the write buffer is full)
+// - flush():  writes buffered runs to this process's segment
+// - topByGold() / topByLevel() / fastestWizardKills():  the TOP_K best runs of each leaderboard, best first
+// - aggregate():  totals over every run on disk, scanned in parallel
+// - compactNow():  merges the small sealed segments into one, on the background thread
+// - close():  flushes, seals this process's segment and waits for a running compaction
+// - main(String[] args):  prints the leaderboards and totals of a history directory
+
+//Getters:
+// - size():  runs in the history
+// - getSegmentCount():  segment files in use
+
+//Inner Classes:
+// - Totals:  aggregate counts over a set of runs, merged from parallel scans
+// - TopK:  a bounded heap of the best runs by one ordering, with a cached sorted copy for queries
+// - Segment:  one segment file: the range of sequence numbers it covers and its record count
+
+/*
+* How it works:
+* The history is a directory of segment files. Each one has a 24 byte header (magic, version, and the range of
+* sequence numbers it covers) followed by fixed-size RunRecords. A process only ever appends to a segment of its
+* own, created on its first flush with the next free sequence number and held with a file lock while it is
+* written, so several games can record runs into the same directory at once. Appends are batched in a buffer
+* of BUFFER_RECORDS records and written with one call; a segment is sealed once it holds SEGMENT_RECORDS.
+* Nothing is ever rewritten in place. A game that stops mid-write leaves at most a torn last record, which fails
+* its checksum and is skipped.
+* Playing many short sessions leaves many small segments, so once COMPACT_SEGMENTS small sealed ones have piled
+* up they are merged on the Run-Compactor thread: a contiguous run of them (in sequence order, none locked by a
+* writer) is copied into a temporary file, which is moved into place as one segment covering all their sequence
+* numbers before the inputs are deleted. If the game stops in between, the next open sees that the inputs are
+* covered by the merged segment and ignores them, so no run is ever counted twice. A compaction.lock file keeps
+* two processes from compacting at the same time.
+* Leaderboards are in-memory indexes built when the history is opened and updated on every append: a bounded
+* heap of the best TOP_K runs per ordering, with a sorted copy that is cached until the next change, so a query
+* just returns that copy. aggregate() splits the segments into slices of SCAN_SLICE records, scans the slices
+* on the common fork-join pool and merges the Totals.
+*/
+
+public class RunHistory implements AutoCloseable {
+    public static final int TOP_K = 10;
+    static final int SEGMENT_RECORDS = 1 << 20;    // A segment is sealed once it holds this many runs (52MB)
+    private static final int BUFFER_RECORDS = 1024; // Appends written to the segment in batches of this many
+    private static final int COMPACT_SEGMENTS = 8;  // Small sealed segments that trigger a compaction
+    private static final int SCAN_SLICE = 1 << 16;  // Records per task in a parallel scan
+
+    // File header
+    private static final int MAGIC = 0x534E5552; // "RUNS"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 24;
+    private static final String SEGMENT_GLOB = "segment-*.log";
+
+    private static final Comparator<RunRecord> BY_GOLD = Comparator.comparingInt(RunRecord::getGold).reversed()
+        .thenComparingLong(RunRecord::getFinishedAt);
+    private static final Comparator<RunRecord> BY_LEVEL = Comparator.comparingInt(RunRecord::getLevel).reversed()
+        .thenComparing(Comparator.comparingInt(RunRecord::getExperience).reversed())
+        .thenComparingLong(RunRecord::getFinishedAt);
+    private static final Comparator<RunRecord> BY_WIZARD_KILL = Comparator.comparingInt(RunRecord::getWizardKillStep)
+        .thenComparingLong(RunRecord::getFinishedAt);
+
+    private final Path directory;
+    private final List<Segment> segments = new ArrayList<>(); // Sealed segments, guarded by this
+    private final TopK byGold = new TopK(BY_GOLD);
+    private final TopK byLevel = new TopK(BY_LEVEL);
+    private final TopK byWizardKill = new TopK(BY_WIZARD_KILL);
+    private final ByteBuffer pending = ByteBuffer.allocate(BUFFER_RECORDS * RunRecord.RECORD_BYTES)
+        .order(ByteOrder.LITTLE_ENDIAN);
+    private int pendingCount;     // Guarded by this
+    private long size;            // Guarded by this
+    private FileChannel activeFile; // This process's segment, guarded by this; null until the first flush
+    private FileLock activeLock;
+    private Segment active;
+    private boolean compacting;   // Guarded by this
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "Run-Compactor");
+        thread.setDaemon(true); // A half-done compaction is safe to abandon
+        return thread;
+    });
+
+    private RunHistory(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Opens a history, creating the directory if needed, and builds the leaderboards from every segment in it
+     * @param directory The history's directory
+     * @return The open history
+     */
+    public static RunHistory open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        RunHistory history = new RunHistory(directory);
+        for (Segment segment : liveSegments(directory)) {
+            history.load(segment);
+        }
+        history.maybeCompact();
+        return history;
+    }
+
+    /**
+     * Adds a finished run. It is in the leaderboards at once and reaches the disk on the next flush.
+     * @param run The run
+     */
+    public synchronized void append(RunRecord run) throws IOException {
+        run.writeTo(pending, pendingCount * RunRecord.RECORD_BYTES);
+        pendingCount++;
+        size++;
+        index(run);
+        if (pendingCount == BUFFER_RECORDS) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes the buffered runs to this process's segment, sealing it (and starting a new one) when it is full
+     */
+    public synchronized void flush() throws IOException {
+        int written = 0;
+        while (written < pendingCount) {
+            if (activeFile == null) {
+                startSegment();
+            }
+            int batch = (int) Math.min(pendingCount - written, SEGMENT_RECORDS - active.records);
+            ByteBuffer slice = pending.duplicate();
+            slice.limit((written + batch) * RunRecord.RECORD_BYTES).position(written * RunRecord.RECORD_BYTES);
+            long at = HEADER_BYTES + active.records * RunRecord.RECORD_BYTES;
+            while (slice.hasRemaining()) {
+                at += activeFile.write(slice, at);
+            }
+            active.records += batch;
+            written += batch;
+            if (active.records == SEGMENT_RECORDS) {
+                sealSegment();
+            }
+        }
+        if (activeFile != null) {
+            activeFile.force(false);
+        }
+        pendingCount = 0;
+    }
+
+    /**
+     * Gets the runs with the most gold, best first
+     */
+    public List<RunRecord> topByGold() {
+        return byGold.sorted();
+    }
+
+    /**
+     * Gets the runs that reached the highest level (then the most experience), best first
+     */
+    public List<RunRecord> topByLevel() {
+        return byLevel.sorted();
+    }
+
+    /**
+     * Gets the runs that slew the Wizard on the earliest step, best first
+     */
+    public List<RunRecord> fastestWizardKills() {
+        return byWizardKill.sorted();
+    }
+
+    public synchronized long size() { return size; }
+    public synchronized int getSegmentCount() { return segments.size() + (active != null ? 1 : 0); }
+
+    /**
+     * Adds up every run in the history. Buffered runs are flushed first; the segments are then scanned in
+     * slices on the common fork-join pool and the slices' totals merged.
+     * @return The totals
+     */
+    public Totals aggregate() throws IOException {
+        List<Segment> snapshot;
+        synchronized(this) {
+            flush();
+            snapshot = new ArrayList<>(segments);
+            if (active != null) {
+                snapshot.add(active.copy());
+            }
+        }
+
+        List<long[]> slices = new ArrayList<>(); // (segment index, first record, record count)
+        for (int s = 0; s < snapshot.size(); s++) {
+            for (long from = 0; from < snapshot.get(s).records; from += SCAN_SLICE) {
+                slices.add(new long[] {s, from, Math.min(SCAN_SLICE, snapshot.get(s).records - from)});
+            }
+        }
+        try {
+            return slices.parallelStream()
+                .map(slice -> scan(snapshot.get((int) slice[0]), slice[1], (int) slice[2]))
+                .reduce(new Totals(), Totals::merge);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Merges the small sealed segments into one on the background thread, if there are enough of them
+     */
+    public void compactNow() {
+        synchronized(this) {
+            if (compacting) {
+                return;
+            }
+            compacting = true;
+        }
+        compactor.execute(() -> {
+            try {
+                compact();
+            } catch (IOException e) {
+                System.out.println(">>> Run history compaction failed: " + e.getMessage());
+            } finally {
+                synchronized(this) {
+                    compacting = false;
+                }
+            }
+        });
+    }
+
+    /**
+     * Flushes, seals this process's segment and waits (a few seconds at most) for a running compaction
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized(this) {
+            flush();
+            if (activeFile != null) {
+                sealSegment();
+            }
+        }
+        maybeCompact();
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Prints the leaderboards and totals of a history
+     * @param args The history's directory (default run-history)
+     */
+    public static void main(String[] args) throws IOException {
+        Path directory = Path.of(args.length > 0 ? args[0] : "run-history");
+        try (RunHistory history = RunHistory.open(directory)) {
+            System.out.println("Run history in " + directory + ": " + history.size() + " runs in "
+                + history.getSegmentCount() + " segment(s)");
+            printBoard("Most gold", history.topByGold());
+            printBoard("Highest level", history.topByLevel());
+            printBoard("Fastest Wizard kills", history.fastestWizardKills());
+            System.out.println("\n" + history.aggregate());
+        }
+    }
+
+    // ===== Helper Methods =====
+
+    private void index(RunRecord run) {
+        byGold.offer(run);
+        byLevel.offer(run);
+        if (run.isWizardDefeated()) {
+            byWizardKill.offer(run);
+        }
+    }
+
+    /**
+     * Reads a sealed segment into the indexes
+     */
+    private void load(Segment segment) throws IOException {
+        try (FileChannel file = FileChannel.open(segment.path, StandardOpenOption.READ)) {
+            ByteBuffer records = mapRecords(file, 0, segment.records);
+            int valid = 0;
+            for (int i = 0; i < segment.records; i++) {
+                RunRecord run = RunRecord.readFrom(records, i * RunRecord.RECORD_BYTES);
+                if (run == null) {
+                    break; // A torn write: nothing after it was ever acknowledged
+                }
+                index(run);
+                valid++;
+            }
+            segment.records = valid;
+        }
+        synchronized(this) {
+            segments.add(segment);
+            size += segment.records;
+        }
+    }
+
+    /**
+     * Scans one slice of a segment
+     */
+    private static Totals scan(Segment segment, long from, int count) {
+        Totals totals = new Totals();
+        try (FileChannel file = FileChannel.open(segment.path, StandardOpenOption.READ)) {
+            ByteBuffer records = mapRecords(file, from, count);
+            for (int i = 0; i < count; i++) {
+                RunRecord run = RunRecord.readFrom(records, i * RunRecord.RECORD_BYTES);
+                if (run == null) {
+                    break;
+                }
+                totals.add(run);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return totals;
+    }
+
+    /**
+     * Creates this process's segment with the next free sequence number and locks it
+     */
+    private void startSegment() throws IOException {
+        long sequence = nextSequence(directory);
+        while (true) {
+            Path path = directory.resolve(String.format("segment-%012d-%012d.log", sequence, sequence));
+            try {
+                activeFile = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            } catch (FileAlreadyExistsException e) {
+                sequence++; // Another process took it first
+                continue;
+            }
+            activeLock = activeFile.lock();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putLong(sequence).putLong(sequence).flip();
+            activeFile.write(header, 0);
+            active = new Segment(path, sequence, sequence, 0);
+            return;
+        }
+    }
+
+    /**
+     * Closes this process's segment and hands it to the sealed ones
+     */
+    private void sealSegment() throws IOException {
+        activeFile.force(false);
+        activeLock.release();
+        activeFile.close();
+        segments.add(active);
+        activeFile = null;
+        activeLock = null;
+        active = null;
+    }
+
+    /**
+     * Starts a compaction if enough small sealed segments have piled up
+     */
+    private void maybeCompact() {
+        int small = 0;
+        synchronized(this) {
+            for (Segment segment : segments) {
+                if (segment.records < SEGMENT_RECORDS) {
+                    small++;
+                }
+            }
+        }
+        if (small >= COMPACT_SEGMENTS) {
+            compactNow();
+        }
+    }
+
+    /**
+     * Merges the longest contiguous run of small, unlocked segments into one. Runs on the Run-Compactor thread.
+     */
+    private void compact() throws IOException {
+        try (FileChannel lockFile = FileChannel.open(directory.resolve("compaction.lock"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             FileLock lock = tryLock(lockFile)) {
+            if (lock == null) {
+                return; // Another history on this directory is compacting
+            }
+            deleteLeftovers();
+
+            // The current directory, not what this process loaded: the inputs must be contiguous in sequence
+            // order with nothing left out between them, or the merged segment would cover a segment it skipped
+            List<Segment> inputs = new ArrayList<>();
+            List<Segment> best = inputs;
+            for (Segment segment : liveSegments(directory)) {
+                if (segment.records < SEGMENT_RECORDS && !isLocked(segment)) {
+                    inputs.add(segment);
+                    if (inputs.size() > best.size()) {
+                        best = inputs;
+                    }
+                } else {
+                    inputs = new ArrayList<>();
+                }
+            }
+            if (best.size() < 2) {
+                return;
+            }
+            merge(best);
+        }
+    }
+
+    /**
+     * Copies the inputs' records into one new segment covering all of their sequence numbers, then deletes them
+     */
+    private void merge(List<Segment> inputs) throws IOException {
+        long first = inputs.get(0).first;
+        long last = inputs.get(inputs.size() - 1).last;
+        Path temp = directory.resolve(String.format("compact-%012d-%012d.tmp", first, last));
+        Path target = directory.resolve(String.format("segment-%012d-%012d.log", first, last));
+        long records = 0;
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putLong(first).putLong(last).flip();
+            long at = out.write(header, 0);
+            for (Segment input : inputs) {
+                try (FileChannel in = FileChannel.open(input.path, StandardOpenOption.READ)) {
+                    int valid = validRecords(mapRecords(in, 0, input.records), input.records);
+                    ByteBuffer copy = mapRecords(in, 0, valid);
+                    while (copy.hasRemaining()) {
+                        at += out.write(copy, at);
+                    }
+                    records += valid;
+                }
+            }
+            out.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        for (Segment input : inputs) {
+            Files.deleteIfExists(input.path);
+        }
+
+        Segment merged = new Segment(target, first, last, records);
+        synchronized(this) {
+            segments.removeIf(segment -> segment.first >= first && segment.last <= last);
+            segments.add(merged);
+        }
+    }
+
+    /**
+     * Deletes temporary files of compactions that never finished and segments a finished one covers.
+     * Only called while holding the compaction lock.
+     */
+    private void deleteLeftovers() throws IOException {
+        try (DirectoryStream<Path> temps = Files.newDirectoryStream(directory, "compact-*.tmp")) {
+            for (Path temp : temps) {
+                Files.deleteIfExists(temp);
+            }
+        }
+        List<Segment> all = readSegments(directory);
+        for (Segment segment : all) {
+            if (coveredBy(segment, all) != null) {
+                Files.deleteIfExists(segment.path);
+            }
+        }
+    }
+
+    /**
+     * Lists the segments in a directory that aren't covered by a merged segment, in sequence order
+     */
+    private static List<Segment> liveSegments(Path directory) throws IOException {
+        List<Segment> all = readSegments(directory);
+        List<Segment> live = new ArrayList<>();
+        for (Segment segment : all) {
+            if (coveredBy(segment, all) == null) {
+                live.add(segment);
+            }
+        }
+        live.sort(Comparator.comparingLong(segment -> segment.first));
+        return live;
+    }
+
+    /**
+     * Reads the header of every segment in a directory. Files without a valid header (still being created, or
+     * not segments at all) are left out.
+     */
+    private static List<Segment> readSegments(Path directory) throws IOException {
+        List<Segment> found = new ArrayList<>();
+        try (DirectoryStream<Path> paths = Files.newDirectoryStream(directory, SEGMENT_GLOB)) {
+            for (Path path : paths) {
+                try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+                    ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                    while (header.hasRemaining() && file.read(header, header.position()) > 0) {
+                        // Read the whole header
+                    }
+                    if (header.hasRemaining() || header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                        continue;
+                    }
+                    long records = (file.size() - HEADER_BYTES) / RunRecord.RECORD_BYTES;
+                    found.add(new Segment(path, header.getLong(8), header.getLong(16), records));
+                } catch (IOException e) {
+                    // Deleted by a compaction while we listed it
+                }
+            }
+        }
+        return found;
+    }
+
+    private static Segment coveredBy(Segment segment, List<Segment> all) {
+        for (Segment other : all) {
+            if (other != segment && other.first <= segment.first && other.last >= segment.last
+                    && other.last - other.first > segment.last - segment.first) {
+                return other;
+            }
+        }
+        return null;
+    }
+
+    private static long nextSequence(Path directory) throws IOException {
+        long next = 0;
+        for (Segment segment : readSegments(directory)) {
+            next = Math.max(next, segment.last + 1);
+        }
+        return next;
+    }
+
+    private static FileLock tryLock(FileChannel file) throws IOException {
+        try {
+            return file.tryLock();
+        } catch (OverlappingFileLockException e) {
+            return null; // Held by another history in this process
+        }
+    }
+
+    private static boolean isLocked(Segment segment) {
+        try (FileChannel file = FileChannel.open(segment.path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+             FileLock lock = file.tryLock()) {
+            return lock == null;
+        } catch (IOException | RuntimeException e) {
+            return true; // Gone, or locked by this process: not ours to merge
+        }
+    }
+
+    private static ByteBuffer mapRecords(FileChannel file, long from, long count) throws IOException {
+        return file.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + from * RunRecord.RECORD_BYTES,
+            count * RunRecord.RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static int validRecords(ByteBuffer records, long count) {
+        int valid = 0;
+        while (valid < count && RunRecord.readFrom(records, valid * RunRecord.RECORD_BYTES) != null) {
+            valid++;
+        }
+        return valid;
+    }
+
+    private static void printBoard(String title, List<RunRecord> runs) {
+        System.out.println("\n" + title + ":");
+        if (runs.isEmpty()) {
+            System.out.println("  (none yet)");
+        }
+        for (int i = 0; i < runs.size(); i++) {
+            System.out.println(String.format("  %2d. %s", i + 1, runs.get(i)));
+        }
+    }
+
+    /**
+     * Aggregate counts over a set of runs
+     */
+    public static final class Totals {
+        private long runs;
+        private long survived;
+        private long wizardKills;
+        private long gold;
+        private long levels;
+        private long enemiesDefeated;
+        private int bestGold;
+        private int fastestWizardKill = -1;
+
+        void add(RunRecord run) {
+            runs++;
+            survived += run.isSurvived() ? 1 : 0;
+            gold += run.getGold();
+            levels += run.getLevel();
+            enemiesDefeated += run.getEnemiesDefeated();
+            bestGold = Math.max(bestGold, run.getGold());
+            if (run.isWizardDefeated()) {
+                wizardKills++;
+                if (fastestWizardKill < 0 || run.getWizardKillStep() < fastestWizardKill) {
+                    fastestWizardKill = run.getWizardKillStep();
+                }
+            }
+        }
+
+        Totals merge(Totals other) {
+            Totals merged = new Totals();
+            merged.runs = runs + other.runs;
+            merged.survived = survived + other.survived;
+            merged.wizardKills = wizardKills + other.wizardKills;
+            merged.gold = gold + other.gold;
+            merged.levels = levels + other.levels;
+            merged.enemiesDefeated = enemiesDefeated + other.enemiesDefeated;
+            merged.bestGold = Math.max(bestGold, other.bestGold);
+            merged.fastestWizardKill = fastestWizardKill < 0 ? other.fastestWizardKill
+                : other.fastestWizardKill < 0 ? fastestWizardKill : Math.min(fastestWizardKill, other.fastestWizardKill);
+            return merged;
+        }
+
+        public long getRuns() { return runs; }
+        public long getSurvived() { return survived; }
+        public long getWizardKills() { return wizardKills; }
+        public long getEnemiesDefeated() { return enemiesDefeated; }
+        public int getBestGold() { return bestGold; }
+        public int getFastestWizardKill() { return fastestWizardKill; }
+        public double getAverageGold() { return runs == 0 ? 0 : (double) gold / runs; }
+        public double getAverageLevel() { return runs == 0 ? 0 : (double) levels / runs; }
+
+        @Override
+        public String toString() {
+            return String.format("Runs: %d | Survived: %d | Wizard slain: %d%s%n"
+                    + "Average gold: %.1f (best %d) | Average level: %.2f | Enemies defeated: %d",
+                runs, survived, wizardKills, fastestWizardKill >= 0 ? " (fastest at step " + fastestWizardKill + ")" : "",
+                getAverageGold(), bestGold, getAverageLevel(), enemiesDefeated);
+        }
+    }
+
+    /**
+     * The TOP_K best runs by one ordering. Offers go into a heap with the worst kept run on top, so a run that
+     * doesn't make the board costs one comparison; queries get a sorted copy built once per change.
+     */
+    private static final class TopK {
+        private final Comparator<RunRecord> order;
+        private final PriorityQueue<RunRecord> heap; // Worst first
+        private volatile List<RunRecord> sorted = List.of();
+
+        TopK(Comparator<RunRecord> order) {
+            this.order = order;
+            this.heap = new PriorityQueue<>(TOP_K + 1, order.reversed());
+        }
+
+        synchronized void offer(RunRecord run) {
+            if (heap.size() == TOP_K) {
+                if (order.compare(run, heap.peek()) >= 0) {
+                    return; // Not better than the worst run on the board
+                }
+                heap.poll();
+            }
+            heap.add(run);
+            sorted = null;
+        }
+
+        List<RunRecord> sorted() {
+            List<RunRecord> cached = sorted;
+            if (cached != null) {
+                return cached;
+            }
+            synchronized(this) {
+                if (sorted == null) {
+                    List<RunRecord> copy = new ArrayList<>(heap);
+                    copy.sort(order);
+                    sorted = List.copyOf(copy);
+                }
+                return sorted;
+            }
+        }
+    }
+
+    /**
+     * One segment file
+     */
+    private static final class Segment {
+        final Path path;
+        final long first; // Sequence numbers covered: just its own, or every input of a merge
+        final long last;
+        long records;
+
+        Segment(Path path, long first, long last, long records) {
+            this.path = path;
+            this.first = first;
+            this.last = last;
+            this.records = records;
+        }
+
+        Segment copy() {
+            return new Segment(path, first, last, records);
+        }
+    }
+}
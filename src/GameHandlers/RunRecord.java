@@ -0,0 +1,171 @@
+package GameHandlers;
+
+import Game_Characters.Player;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32C;
+
+//The result of one finished run, as it is kept in the RunHistory
+
+//Methods List:
+// - of(Player player, int steps, int wizardKillStep):  [static] the run the player just finished
+// - writeTo(ByteBuffer buffer, int at):  encodes the record as RECORD_BYTES bytes
+// - readFrom(ByteBuffer buffer, int at):  [static] decodes a record, or null if its checksum is wrong
+// - toString():  one leaderboard line
+
+//Getters:
+// - getFinishedAt():  when the run ended (epoch millis)
+// - getSteps():  global steps played
+// - getLevel() / getExperience() / getGold():
+// - getBattlesWon() / getBattlesLost() / getBattlesFled():
+// - getEnemiesDefeated():
+// - getWizardKillStep():  the step the Wizard fell on, or -1 if it didn't
+// - isWizardDefeated():
+// - isSurvived():  the Knight was still alive at the end
+
+/*
+* How it works:
+* A record is a fixed 52 bytes, little endian: finishedAt (8), then steps, level, experience, gold, battles won,
+* lost and fled, enemies defeated and the Wizard's kill step (4 each), a flags byte (survived), 3 bytes of padding
+* and a CRC32C of everything before it. Fixed-size records let a segment be read as an array (record i is at
+* i * RECORD_BYTES) and the checksum finds a record that was only partly written when the game stopped.
+*/
+
+public final class RunRecord {
+    public static final int RECORD_BYTES = 52;
+
+    // Record layout
+    private static final int FINISHED_AT = 0;
+    private static final int STEPS = 8;
+    private static final int LEVEL = 12;
+    private static final int EXPERIENCE = 16;
+    private static final int GOLD = 20;
+    private static final int WON = 24;
+    private static final int LOST = 28;
+    private static final int FLED = 32;
+    private static final int DEFEATED = 36;
+    private static final int WIZARD_STEP = 40;
+    private static final int FLAGS = 44;
+    private static final int CHECKSUM = 48;
+
+    private static final byte SURVIVED = 1;
+
+    private final long finishedAt;
+    private final int steps;
+    private final int level;
+    private final int experience;
+    private final int gold;
+    private final int battlesWon;
+    private final int battlesLost;
+    private final int battlesFled;
+    private final int enemiesDefeated;
+    private final int wizardKillStep;
+    private final boolean survived;
+
+    /**
+     * Creates a record
+     * @param finishedAt When the run ended (epoch millis)
+     * @param steps Global steps played
+     * @param level The Knight's level at the end
+     * @param experience The Knight's experience at the end
+     * @param gold The Knight's gold at the end
+     * @param battlesWon Battles won
+     * @param battlesLost Battles lost
+     * @param battlesFled Battles fled
+     * @param enemiesDefeated Enemies defeated over the whole run
+     * @param wizardKillStep The step the Wizard fell on, or -1 if it didn't
+     * @param survived Whether the Knight was alive at the end
+     */
+    public RunRecord(long finishedAt, int steps, int level, int experience, int gold,
+                     int battlesWon, int battlesLost, int battlesFled, int enemiesDefeated,
+                     int wizardKillStep, boolean survived) {
+        this.finishedAt = finishedAt;
+        this.steps = steps;
+        this.level = level;
+        this.experience = experience;
+        this.gold = gold;
+        this.battlesWon = battlesWon;
+        this.battlesLost = battlesLost;
+        this.battlesFled = battlesFled;
+        this.enemiesDefeated = enemiesDefeated;
+        this.wizardKillStep = wizardKillStep;
+        this.survived = survived;
+    }
+
+    /**
+     * Builds the record of the run the player just finished
+     * @param player The player
+     * @param steps Global steps played
+     * @param wizardKillStep The step the Wizard fell on, or -1 if it didn't
+     */
+    public static RunRecord of(Player player, int steps, int wizardKillStep) {
+        return new RunRecord(System.currentTimeMillis(), steps, player.getLevel(), player.getExperience(),
+            player.getGold(), player.getBattlesWon(), player.getBattlesLost(), player.getBattlesFled(),
+            player.getTotalDefeated(), wizardKillStep, player.getAlive());
+    }
+
+    public long getFinishedAt() { return finishedAt; }
+    public int getSteps() { return steps; }
+    public int getLevel() { return level; }
+    public int getExperience() { return experience; }
+    public int getGold() { return gold; }
+    public int getBattlesWon() { return battlesWon; }
+    public int getBattlesLost() { return battlesLost; }
+    public int getBattlesFled() { return battlesFled; }
+    public int getEnemiesDefeated() { return enemiesDefeated; }
+    public int getWizardKillStep() { return wizardKillStep; }
+    public boolean isWizardDefeated() { return wizardKillStep >= 0; }
+    public boolean isSurvived() { return survived; }
+
+    /**
+     * Encodes the record. The buffer must be little endian.
+     * @param buffer Where to write
+     * @param at The offset of the record's first byte
+     */
+    public void writeTo(ByteBuffer buffer, int at) {
+        buffer.putLong(at + FINISHED_AT, finishedAt);
+        buffer.putInt(at + STEPS, steps);
+        buffer.putInt(at + LEVEL, level);
+        buffer.putInt(at + EXPERIENCE, experience);
+        buffer.putInt(at + GOLD, gold);
+        buffer.putInt(at + WON, battlesWon);
+        buffer.putInt(at + LOST, battlesLost);
+        buffer.putInt(at + FLED, battlesFled);
+        buffer.putInt(at + DEFEATED, enemiesDefeated);
+        buffer.putInt(at + WIZARD_STEP, wizardKillStep);
+        buffer.putInt(at + FLAGS, survived ? SURVIVED : 0); // Flags byte and padding
+        buffer.putInt(at + CHECKSUM, checksum(buffer, at));
+    }
+
+    /**
+     * Decodes a record. The buffer must be little endian.
+     * @param buffer Where to read
+     * @param at The offset of the record's first byte
+     * @return The record, or null if its checksum doesn't match (a torn or damaged write)
+     */
+    public static RunRecord readFrom(ByteBuffer buffer, int at) {
+        if (buffer.getInt(at + CHECKSUM) != checksum(buffer, at)) {
+            return null;
+        }
+        return new RunRecord(buffer.getLong(at + FINISHED_AT), buffer.getInt(at + STEPS),
+            buffer.getInt(at + LEVEL), buffer.getInt(at + EXPERIENCE), buffer.getInt(at + GOLD),
+            buffer.getInt(at + WON), buffer.getInt(at + LOST), buffer.getInt(at + FLED),
+            buffer.getInt(at + DEFEATED), buffer.getInt(at + WIZARD_STEP),
+            (buffer.get(at + FLAGS) & SURVIVED) != 0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Level %d, %d gold, %d enemies defeated, %s in %d steps (%s)",
+            level, gold, enemiesDefeated,
+            isWizardDefeated() ? "Wizard slain at step " + wizardKillStep : "Wizard still standing",
+            steps, survived ? "survived" : "fell");
+    }
+
+    // ===== Helper Methods =====
+
+    private static int checksum(ByteBuffer buffer, int at) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.duplicate().position(at).limit(at + CHECKSUM));
+        return (int) crc.getValue();
+    }
+}
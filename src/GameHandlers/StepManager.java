@@ -1,36 +1,71 @@
 package GameHandlers;
 
+import GameHandlers.Actors.Actor;
+import GameHandlers.Actors.ActorMessage;
+import GameHandlers.Actors.ActorRef;
+import GameHandlers.EventHandling.EncounterScript;
+import GameHandlers.EventHandling.EncounterTimeline;
 import GameHandlers.EventHandling.EnemyEncounter;
 import GameHandlers.EventHandling.EnemyFactory;
 import GameHandlers.EventHandling.StepEvent;
 import Game_Characters.Enemy;
 import Game_Characters.Player;
 import Game_Characters.PlayerInput.Interaction;
-import java.util.HashMap;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.List;
-import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 //Manages step-based events in the game, such as enemy encounters 
-//This class is a thread though functionally different from steppable characters
+//This class is an actor though functionally different from steppable characters
 
 //Methods List:
+// - loadEncounters():  [static] compiles the encounter script (the built-in one, or the file named by -Dencounters=<path>);
+//   remote sessions on the GameServer play the same script
 // - getInteractionForStep(int step):  gets the interaction for a specific step, if one exists
+// - stepsUntilNextEvent(int globalStep, int playerStep):  distance to the next scheduled or waiting event
 // - getEventAnnouncement(StepEvent event, int step):  creates an announcement message for an event
-// - run():  main loop to monitor steps and trigger events
-// - stop():  stops the step manager thread
+// - receive(ActorMessage message):  handles a step tick: announces events and triggers battles
+// - runEvent(StepEvent event):  runs a fired event outside the step lock, on the game's executor
+// - retryAfterBattle(ActorMessage tick):  mails a tick again once the open battle has been merged
+// - stop():  stops the step manager from handling any more ticks
+// - getActorRef():
 
 /*
 * How it works:
 * The StepManager class monitors the player's steps and triggers events when the player reaches
 * specific step counts. It maintains a list of step events, including enemy encounters, and uses
 * the BattleManager to handle combat when an encounter is triggered.
+* Encounters come from an EncounterScript that is compiled once when the StepManager is created; the
+* EncounterTimeline hands out the ones that come up on each global step without any parsing or scanning.
+* Events are only picked under the stepLock; the battle itself is handed to the game's executor, so neither
+* the lock nor an actor worker is ever stuck behind a battle that is waiting on the player's input.
+* The StepManager keeps getting ticks while a battle runs, so encounters keep coming up on schedule. An event
+* the player is standing on can't start a second battle; it stays where it is and its tick is sent again once
+* the open battle has been merged (if the player fled past it by then, it is left behind).
+* Encounters that come up on the same step queue there and are fought one after the other the same way: each
+* battle's merge sends the tick again for the next one.
 */
 
-public class StepManager implements Runnable {
+public class StepManager implements Actor {
+    // The journey's encounters. Multi-enemy encounters number their enemies by position (Slime #1, Slime #2...)
+    private static final String ENCOUNTERS = String.join("\n",
+        "2: slime",
+        "4: slime",
+        "5: tickibird",
+        "7: slime x3",
+        "10: slime, tickibird",
+        "12: slime x2, tickibird",
+        "15: tickibird x3",
+        "18: slime, tickibird");
+
     //variables
-    private Map<Integer, StepEvent> stepEvents;
-    private Map<Integer, StepEvent> activeEvents;
+    private EncounterTimeline encounters;                  // Encounters that haven't been announced yet
+    private NavigableMap<Integer, ArrayDeque<StepEvent>> activeEvents; // Announced, waiting for the player to reach their step
 
     //Thread variables
     private GameManager gameManager;
@@ -39,35 +74,46 @@ public class StepManager implements Runnable {
     private EnemyFactory enemyFactory;
     private AtomicInteger globalStepCounter;
     private Object stepLock;
-    private boolean running;
+    private ActorRef self;
+    private volatile boolean running;
+    private volatile boolean retryQueued; // A tick is waiting for the open battle to be merged
 
     //set up, similar to enemyspawner
     public StepManager(GameManager gameManager, Player player, BattleManager battleManager) {
-        this.stepEvents = new HashMap<>();
-        this.activeEvents = new HashMap<>();
+        this.activeEvents = new TreeMap<>();
 
         this.gameManager = gameManager;
         this.player = player;
         this.battleManager = battleManager;
         this.globalStepCounter = gameManager.getGlobalStepCounter();
         this.stepLock = gameManager.getStepLock();
+        this.self = gameManager.getActors().spawn(this, "StepManager", 64); // Ticks sent before the runtime starts wait in the mailbox
         this.running = true;
         
         // Initialize enemy factory
         this.enemyFactory = new EnemyFactory(player);
 
-        // Set up step events using string-based enemy types
-        // Single enemy encounters
-        stepEvents.put(2, enemyFactory.createEncounter("slime"));
-        stepEvents.put(4, enemyFactory.createEncounter("slime"));
-        stepEvents.put(5, enemyFactory.createEncounter("tickibird"));
-        
-        // Example: Multiple enemy encounter (uncomment to use)
-        stepEvents.put(7, enemyFactory.createEncounter("slime", "slime", "slime")); // 3 slimes
-        stepEvents.put(10, enemyFactory.createEncounter("slime", "tickibird")); // 2 tickibirds
-        stepEvents.put(12, enemyFactory.createEncounter("slime", "slime", "tickibird")); // 2 slimes + 1 tickibird
-        stepEvents.put(15, enemyFactory.createEncounter("tickibird", "tickibird", "tickibird")); // Wizard encounter
-        stepEvents.put(18, enemyFactory.createEncounter("slime", "tickibird")); // 2 tickibirds
+        // Compile the encounter script once; the timeline only works on the compiled program from here on
+        this.encounters = new EncounterTimeline(loadEncounters(), enemyFactory, new Random());
+    }
+
+    /**
+     * Compiles the encounter script. A designer's script file can be given with -Dencounters=<path>;
+     * if it can't be read or doesn't compile, the built-in journey is used.
+     * @return The compiled script
+     */
+    public static EncounterScript loadEncounters() {
+        String file = System.getProperty("encounters");
+        if (file != null) {
+            try {
+                EncounterScript script = EncounterScript.load(Path.of(file));
+                System.out.println("Loaded " + script.getEncounterCount() + " encounters from " + file);
+                return script;
+            } catch (IOException | IllegalArgumentException e) {
+                System.err.println("Warning: Could not load encounter script '" + file + "': " + e.getMessage());
+            }
+        }
+        return EncounterScript.compile(ENCOUNTERS);
     }
     
     /**
@@ -77,13 +123,37 @@ public class StepManager implements Runnable {
      */
     public Interaction getInteractionForStep(int step) {
         // Check if there's an active event at this step
-        StepEvent event = activeEvents.get(step);
+        ArrayDeque<StepEvent> waiting = activeEvents.get(step);
+        StepEvent event = waiting != null ? waiting.peek() : null;
         if (event != null && event.hasInteraction()) {
             return event.getInteraction();
         }
         return null;
     }
     
+    /**
+     * Finds how many steps away the next event on the timeline is.
+     * Pending events are announced when the global step reaches them, active events fire when the
+     * player reaches them, so both are measured from their own counter.
+     * Call while holding the step lock (the StepManager thread updates these maps under it).
+     * @param globalStep The current global step
+     * @param playerStep The player's current step
+     * @return Number of steps until the next event, or Integer.MAX_VALUE if nothing else is scheduled
+     */
+    public int stepsUntilNextEvent(int globalStep, int playerStep) {
+        int distance = Integer.MAX_VALUE;
+
+        int nextPending = encounters.nextStepAfter(globalStep);
+        if (nextPending != Integer.MAX_VALUE) {
+            distance = nextPending - globalStep;
+        }
+        Integer nextActive = activeEvents.higherKey(playerStep);
+        if (nextActive != null) {
+            distance = Math.min(distance, nextActive - playerStep);
+        }
+        return distance;
+    }
+    
     /**
      * Creates an announcement message for when an event appears
      * @param event The step event to announce
@@ -104,56 +174,95 @@ public class StepManager implements Runnable {
         return ">>> Something appears at step " + step + "!";
     }
 
+    public ActorRef getActorRef() {
+        return self;
+    }
+
+    /**
+     * Handles one message. Every step tick (either half of a step) announces the events due on the global step
+     * and fires the event on the player's step, if any.
+     */
     @Override
-    public void run() {
+    public void receive(ActorMessage message) {
+        if (message == ActorMessage.STOP) {
+            running = false;
+            return;
+        }
+        if (!running || !(message instanceof ActorMessage.StepTick)) {
+            return;
+        }
 
-        try {
-            while (running) {
-                synchronized(stepLock) {
-                    // Wait for the next game step
-                    stepLock.wait();
-                    
-                    int currentStep = globalStepCounter.get();
-
-                    //check game step
-                    //This way events are quicker to load once player actually gets to them
-                    if (stepEvents.containsKey(currentStep)) {
-                        StepEvent event = stepEvents.get(currentStep);
-                        
-                        // Get the enemy name(s) for proper announcement
-                        String announcement = getEventAnnouncement(event, currentStep);
-                        System.out.println(announcement);
-
-                        
-                        // Move event to active events
-                        activeEvents.put(currentStep, event);
-                        stepEvents.remove(currentStep);
-                    }
+        StepEvent fired = null;
+        synchronized(stepLock) {
+            int currentStep = globalStepCounter.get();
+
+            //check game step
+            //This way events are quicker to load once player actually gets to them
+            StepEvent appeared;
+            while ((appeared = encounters.poll(currentStep)) != null) {
+                // Encounters coming up on the same step wait there in the order they came up
+                activeEvents.computeIfAbsent(currentStep, s -> new ArrayDeque<>()).add(appeared);
+                // Get the enemy name(s) for proper announcement
+                System.out.println(getEventAnnouncement(appeared, currentStep));
+            }
 
-                    //check player step
-                    int playerStep = player.getStep();
-                    if (activeEvents.containsKey(playerStep)) {
-                        StepEvent event = activeEvents.get(playerStep);
-                        
-                        // Perform this event using BattleManager
-                        event.performEvent(battleManager);
-                        
-                        // Reset the enemy after battle for reuse
-                        if (event instanceof EnemyEncounter) {
-                            Enemy enemy = ((EnemyEncounter) event).spawnEnemy();
-                            enemy.reset();
-                        }
-                        
-                        // Remove the slime after battle
+            //check player step
+            int playerStep = player.getStep();
+            ArrayDeque<StepEvent> waiting = activeEvents.get(playerStep);
+            if (waiting != null) {
+                // Hand the event over to the battle system while still holding the lock,
+                // so the player holds back their steps before the lock is released
+                if (battleManager.reserveBattle()) {
+                    fired = waiting.poll();
+                    if (waiting.isEmpty()) {
                         activeEvents.remove(playerStep);
+                    } else {
+                        retryAfterBattle(message); // The next one on this step is fought once this battle is merged
                     }
-
+                } else {
+                    retryAfterBattle(message); // The player is in a battle already
                 }
             }
-        } catch (InterruptedException e) {
-            // Thread interrupted - exit gracefully
-            running = false;
-            Thread.currentThread().interrupt();
+        }
+
+        // Run the fired event on the executor - a battle can wait on player input for a long time,
+        // and actor workers must never block
+        if (fired != null) {
+            StepEvent event = fired;
+            gameManager.getExecutorService().execute(() -> runEvent(event));
+        }
+    }
+
+    /**
+     * Runs one fired event (normally a battle) and releases the battle system afterwards
+     * @param event The event the player reached
+     */
+    private void runEvent(StepEvent event) {
+        try {
+            // Perform this event using BattleManager
+            event.performEvent(battleManager);
+            
+            // Reset the enemy after battle for reuse
+            if (event instanceof EnemyEncounter) {
+                Enemy enemy = ((EnemyEncounter) event).spawnEnemy();
+                enemy.reset();
+            }
+        } finally {
+            battleManager.releaseBattle();
+        }
+    }
+
+    /**
+     * Sends a tick to this actor again once the open battle has been merged, at most one at a time.
+     * Offered rather than told: the merge holds the step lock, and a full mailbox has ticks in it anyway.
+     */
+    private void retryAfterBattle(ActorMessage tick) {
+        if (!retryQueued) {
+            retryQueued = true;
+            battleManager.runAfterBattle(() -> {
+                retryQueued = false;
+                self.offer(tick);
+            });
         }
     }
 
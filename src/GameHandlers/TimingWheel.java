@@ -0,0 +1,249 @@
+package GameHandlers;
+
+import java.util.PriorityQueue;
+
+//Schedules things that happen a number of turns from now (freezes wearing off, sleeping enemies waking, buffs ending...)
+
+//Methods List:
+// - schedule(long delay, Runnable action):  runs an action once the clock has advanced delay ticks
+// - advance(long ticks):  moves the clock forward, running every timer that comes due on the way
+// - nextDeadline():  the tick the next timer is due on
+
+//Getters:
+// - now():  ticks advanced so far (safe to read from any thread)
+// - size():  timers still waiting
+// - getSlotCount():
+
+//Inner Classes:
+// - Timer:  a scheduled action; can be cancelled and asked how many ticks it has left
+
+/*
+* How it works:
+* A hashed timing wheel: an array of slots, one per tick, used as a ring. A timer due within one turn of the
+* wheel goes into the slot for its deadline, a doubly linked list it can be unlinked from in O(1) when cancelled.
+* Because only timers due before (now + slots) are in the wheel, everything in a slot is due on the same tick,
+* so firing a slot runs all of it and never has to look at a timer that isn't due.
+* Timers further out wait in an overflow heap and drop into their slot once the wheel has turned close enough.
+* A bitmap of occupied slots finds the next due slot without visiting empty ones, and the next deadline is
+* cached, so advancing over ticks where nothing is due only moves the clock.
+* A wheel belongs to one thread (the game's wheel to the game thread, under the step lock). Actions run on
+* that thread, inside advance(), and may schedule or cancel other timers.
+*/
+
+public class TimingWheel {
+    private final Timer[] slots;     // Head of each slot's list
+    private final long[] occupied;   // One bit per slot with timers in it
+    private final int mask;
+    private final PriorityQueue<Timer> overflow = new PriorityQueue<>((a, b) -> Long.compare(a.deadline, b.deadline));
+    private volatile long now;
+    private long nextDue = Long.MAX_VALUE; // Never later than the real next deadline (cancelling doesn't update it)
+    private int size;
+
+    /**
+     * Creates a wheel with its clock at 0
+     * @param slotCount Ticks covered by one turn of the wheel, rounded up to a power of two
+     */
+    public TimingWheel(int slotCount) {
+        int count = Integer.highestOneBit(Math.max(64, slotCount) - 1) << 1;
+        this.slots = new Timer[count];
+        this.occupied = new long[count >>> 6];
+        this.mask = count - 1;
+    }
+
+    public long now() { return now; }
+    public int size() { return size; }
+    public int getSlotCount() { return slots.length; }
+
+    /**
+     * Schedules an action
+     * @param delay Ticks from now; anything below 1 runs on the next tick
+     * @param action Runs on the wheel's thread during the advance() that reaches the deadline
+     * @return The timer, to cancel it or ask how long it has left
+     */
+    public Timer schedule(long delay, Runnable action) {
+        Timer timer = new Timer(this, now + Math.max(1, delay), action);
+        if (timer.deadline - now < slots.length) {
+            link(timer);
+        } else {
+            overflow.add(timer);
+            timer.state = Timer.OVERFLOW;
+        }
+        size++;
+        nextDue = Math.min(nextDue, timer.deadline);
+        return timer;
+    }
+
+    /**
+     * Moves the clock forward, running the timers that come due in deadline order
+     * @param ticks Number of ticks to advance
+     * @return Number of timers that ran
+     */
+    public int advance(long ticks) {
+        long target = now + Math.max(0, ticks);
+        int fired = 0;
+        while (size > 0 && nextDue <= target) {
+            long due = nextDeadline();
+            if (due > target) {
+                nextDue = due; // Only cancelled timers were in the way
+                break;
+            }
+            now = due;
+            refill();
+            fired += fire((int) (due & mask));
+            nextDue = size == 0 ? Long.MAX_VALUE : nextDeadline();
+        }
+        now = target;
+        refill();
+        return fired;
+    }
+
+    /**
+     * Finds the tick the next timer is due on
+     * @return The deadline, or Long.MAX_VALUE if nothing is scheduled
+     */
+    public long nextDeadline() {
+        dropCancelledOverflow();
+        long best = overflow.isEmpty() ? Long.MAX_VALUE : overflow.peek().deadline;
+
+        // Scan the bitmap from the slot after now, wrapping once around the wheel
+        int start = (int) ((now + 1) & mask);
+        int word = start >>> 6;
+        long bits = occupied[word] & (-1L << (start & 63));
+        for (int i = 0; i <= occupied.length; i++) {
+            if (bits != 0) {
+                int slot = (word << 6) + Long.numberOfTrailingZeros(bits);
+                long distance = ((slot - (now & mask)) & mask);
+                return Math.min(best, now + (distance == 0 ? slots.length : distance));
+            }
+            word = (word + 1) % occupied.length;
+            bits = occupied[word];
+        }
+        return best;
+    }
+
+    // ===== Helper Methods =====
+
+    private void link(Timer timer) {
+        int slot = (int) (timer.deadline & mask);
+        Timer head = slots[slot];
+        timer.next = head;
+        timer.prev = null;
+        if (head != null) {
+            head.prev = timer;
+        }
+        slots[slot] = timer;
+        occupied[slot >>> 6] |= 1L << (slot & 63);
+        timer.state = Timer.IN_WHEEL;
+    }
+
+    private void unlink(Timer timer) {
+        int slot = (int) (timer.deadline & mask);
+        if (timer.prev != null) {
+            timer.prev.next = timer.next;
+        } else {
+            slots[slot] = timer.next;
+        }
+        if (timer.next != null) {
+            timer.next.prev = timer.prev;
+        }
+        timer.next = null;
+        timer.prev = null;
+        if (slots[slot] == null) {
+            occupied[slot >>> 6] &= ~(1L << (slot & 63));
+        }
+    }
+
+    /**
+     * Moves overflow timers that are now within one turn of the wheel into their slots
+     */
+    private void refill() {
+        Timer timer;
+        while ((timer = overflow.peek()) != null && timer.deadline - now < slots.length) {
+            overflow.poll();
+            if (timer.state == Timer.OVERFLOW) {
+                link(timer);
+            }
+        }
+    }
+
+    private void dropCancelledOverflow() {
+        while (!overflow.isEmpty() && overflow.peek().state != Timer.OVERFLOW) {
+            overflow.poll();
+        }
+    }
+
+    /**
+     * Runs every timer in a slot. The slot is detached first, so actions can schedule into the wheel freely.
+     */
+    private int fire(int slot) {
+        Timer timer = slots[slot];
+        slots[slot] = null;
+        occupied[slot >>> 6] &= ~(1L << (slot & 63));
+        int fired = 0;
+        while (timer != null) {
+            Timer next = timer.next;
+            timer.next = null;
+            timer.prev = null;
+            timer.state = Timer.DONE;
+            size--;
+            fired++;
+            timer.action.run();
+            timer = next;
+        }
+        return fired;
+    }
+
+    /**
+     * One scheduled action
+     */
+    public static final class Timer {
+        private static final byte IN_WHEEL = 0;
+        private static final byte OVERFLOW = 1;
+        private static final byte DONE = 2; // Fired or cancelled
+
+        private final TimingWheel wheel;
+        private final long deadline;
+        private final Runnable action;
+        private Timer next;
+        private Timer prev;
+        private byte state;
+
+        private Timer(TimingWheel wheel, long deadline, Runnable action) {
+            this.wheel = wheel;
+            this.deadline = deadline;
+            this.action = action;
+        }
+
+        public long getDeadline() { return deadline; }
+
+        /**
+         * Checks if this timer is still waiting to run
+         */
+        public boolean isPending() {
+            return state != DONE;
+        }
+
+        /**
+         * Gets how many ticks are left until this timer runs, 0 once it has run or been cancelled
+         */
+        public long remaining() {
+            return isPending() ? deadline - wheel.now : 0;
+        }
+
+        /**
+         * Stops this timer from running. Does nothing if it already ran.
+         * @return true if the timer was still waiting
+         */
+        public boolean cancel() {
+            if (state == DONE) {
+                return false;
+            }
+            if (state == IN_WHEEL) {
+                wheel.unlink(this);
+            } // An overflow timer is dropped from the heap when it reaches the top
+            state = DONE;
+            wheel.size--;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package GameHandlers;
+
+//An immutable copy of the game world at one moment: phase, step counter, and every tracked character's position and health
+
+//Getters:
+// - getVersion():  increases every time a new state is published
+// - getPhase():
+// - getGlobalStep():
+// - getPlayerStep():
+// - getPlayerHealth():
+// - isPlayerAlive():
+// - getEnemyCount():
+// - getEnemyName(int index):
+// - getEnemyStep(int index):
+// - getEnemyHealth(int index):
+// - isEnemyAlive(int index):
+// - getWorld():  the PersistentWorld this snapshot reads from
+
+/*
+* How it works:
+* WorldState hands one of these out for its last published PersistentWorld. The world never changes, so the
+* snapshot just reads from it instead of copying it, and can be given to any thread (AI, UI, statistics, saving)
+* and read at leisure with no locking.
+*/
+
+public final class WorldSnapshot {
+    private final PersistentWorld world;
+
+    /**
+     * Creates a snapshot of one published world
+     */
+    WorldSnapshot(PersistentWorld world) {
+        this.world = world;
+    }
+
+    public long getVersion() { return world.getVersion(); }
+    public GamePhase getPhase() { return world.getPhase(); }
+    public int getGlobalStep() { return world.getGlobalStep(); }
+    public int getPlayerStep() { return world.getPlayerStep(); }
+    public int getPlayerHealth() { return world.getPlayerHealth(); }
+    public boolean isPlayerAlive() { return world.isPlayerAlive(); }
+    public int getEnemyCount() { return world.getEnemyCount(); }
+    public String getEnemyName(int index) { return world.getEnemy(index).getName(); }
+    public int getEnemyStep(int index) { return world.getEnemy(index).getStep(); }
+    public int getEnemyHealth(int index) { return world.getEnemy(index).getHealth(); }
+    public boolean isEnemyAlive(int index) { return world.getEnemy(index).isAlive(); }
+    public PersistentWorld getWorld() { return world; }
+}
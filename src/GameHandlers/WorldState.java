@@ -0,0 +1,147 @@
+package GameHandlers;
+
+import Game_Characters.CharacterEnemy;
+import Game_Characters.Player;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//Publishes the state of the game world once per phase so any thread can read a consistent view without the step lock
+
+//Methods List:
+// - publish(GamePhase phase):  records the current world (player and every registered CharacterEnemy) as a new version
+// - onPhaseChange(GamePhase from, GamePhase to):  publishes on every phase transition
+// - snapshot():  returns an immutable WorldSnapshot of the last published state
+// - playerStep():  the player's step as of the last publish
+// - current():  the last published PersistentWorld
+// - setOpenBattle(BattleSession battle):  keeps publishing the battle's fighters as they were when it started
+
+/*
+* How it works:
+* Reading positions straight off the characters gives a mix of old and new values while threads are moving,
+* and locking the step lock to read them blocks the game. Instead the world is recorded at every phase change
+* as a new PersistentWorld, which never changes once published, and handed to readers through a volatile field:
+* a reader just reads the reference, with no lock and no retry.
+* A publish compares each enemy with its state in the previous version and only replaces the ones that moved
+* or took damage, so the new version shares every untouched enemy (and the trie nodes above them) with the last.
+* Publishes are serialized on this object. Only the last world is kept: older versions are garbage once no
+* reader holds them.
+* While a battle is open the rest of the world can keep moving, but the player and the enemies in the battle
+* keep their last published state until the battle's result is merged, so readers never see half a battle.
+*/
+
+public class WorldState implements GamePhaseMachine.PhaseListener {
+    private final Player player;
+    private final AtomicInteger globalStepCounter;
+    private final EnemyRegistry enemies;
+
+    private volatile PersistentWorld current = PersistentWorld.empty();
+    private volatile WorldSnapshot cachedSnapshot;
+    private volatile BattleSession openBattle;
+
+    public WorldState(Player player, AtomicInteger globalStepCounter, EnemyRegistry enemies) {
+        this.player = player;
+        this.globalStepCounter = globalStepCounter;
+        this.enemies = enemies;
+    }
+
+    @Override
+    public void onPhaseChange(GamePhase from, GamePhase to) {
+        publish(to);
+    }
+
+    /**
+     * Records the current state of the world as a new version. Writers are serialized on this object.
+     * @param currentPhase The phase the world is in
+     */
+    public synchronized void publish(GamePhase currentPhase) {
+        PersistentWorld last = current;
+        current = record(last, currentPhase, globalStepCounter.get()).withVersion(last.getVersion() + 1);
+    }
+
+    /**
+     * Gets an immutable view of the last published state
+     */
+    public WorldSnapshot snapshot() {
+        PersistentWorld world = current;
+        WorldSnapshot cached = cachedSnapshot;
+        if (cached != null && cached.getWorld() == world) {
+            return cached; // Nothing published since it was built
+        }
+        WorldSnapshot snapshot = new WorldSnapshot(world);
+        cachedSnapshot = snapshot;
+        return snapshot;
+    }
+
+    /**
+     * Gets the player's step as of the last publish, without locking
+     */
+    public int playerStep() {
+        return current.getPlayerStep();
+    }
+
+    /**
+     * Gets the last published world
+     */
+    public PersistentWorld current() {
+        return current;
+    }
+
+    /**
+     * Sets the battle whose fighters are left as they are by every publish until it is merged
+     * @param battle The open battle, or null once it has been merged
+     */
+    public void setOpenBattle(BattleSession battle) {
+        this.openBattle = battle;
+    }
+
+    // ===== Helper Methods =====
+
+    /**
+     * Makes the next version from the last one and the live characters
+     */
+    private PersistentWorld record(PersistentWorld last, GamePhase currentPhase, int globalStep) {
+        BattleSession battle = openBattle;
+        PersistentWorld next = last
+            .withPhase(currentPhase)
+            .withGlobalStep(globalStep);
+        if (battle == null) {
+            next = next.withPlayer(player.getStep(), player.getHealth(), player.getAlive());
+        }
+
+        // Only enemies that changed get a new state; the rest are shared with the last version
+        int count = 0;
+        for (CharacterEnemy enemy : enemies) {
+            if (battle != null && battle.isParticipant(enemy) && count < next.getEnemyCount()) {
+                count++; // Fighting: keeps its state from before the battle
+                continue;
+            }
+            String name = enemy.getName();
+            int step = enemy.getCurrentStep();
+            int health = enemy.getHealth();
+            boolean alive = enemy.getAlive();
+            if (count == next.getEnemyCount()) {
+                next = next.withAddedEnemy(new PersistentWorld.EnemyState(name, step, health, alive));
+            } else if (!next.getEnemy(count).matches(name, step, health, alive)) {
+                next = next.withEnemy(count, new PersistentWorld.EnemyState(name, step, health, alive));
+            }
+            count++;
+        }
+        if (count < next.getEnemyCount()) {
+            next = dropEnemiesFrom(next, count); // Enemies were removed from the registry
+        }
+        return next;
+    }
+
+    /**
+     * Rebuilds the enemy list without the ones from an index on (rare: the registry only shrinks on removal)
+     */
+    private static PersistentWorld dropEnemiesFrom(PersistentWorld world, int count) {
+        PersistentWorld rebuilt = PersistentWorld.empty()
+            .withPhase(world.getPhase())
+            .withGlobalStep(world.getGlobalStep())
+            .withPlayer(world.getPlayerStep(), world.getPlayerHealth(), world.isPlayerAlive());
+        for (int i = 0; i < count; i++) {
+            rebuilt = rebuilt.withAddedEnemy(world.getEnemy(i));
+        }
+        return rebuilt;
+    }
+}
@@ -1,6 +1,11 @@
 package Game_Characters;
 
+import GameHandlers.Actors.Actor;
+import GameHandlers.Actors.ActorMessage;
+import GameHandlers.Actors.ActorRef;
+import GameHandlers.GameEvent;
 import GameHandlers.GameManager;
+import GameHandlers.TimingWheel;
 import java.util.Random;
 
 //Abstract class for all enemy characters that can move/step in the game world
@@ -8,15 +13,31 @@ import java.util.Random;
 //Implements canStep for movement behavior
 
 //Methods List:
-// - setGameManager(GameManager gameManager):
+// - setGameManager(GameManager gameManager):  also spawns this enemy's actor on the game's ActorRuntime
 // - setStepRange(int min, int max):
 // - setChaseForwardSteps(int steps):
 // - setFreezeTurns(int turns):
-// - freezeAfterFlee():  ensures that the enemy is frozen for a set number of turns after the player flees
-// - run():  main thread method for the enemy character
+// - getFrozenTurnsRemaining() / setFrozenTurnsRemaining(int turns):
+// - setDormant(boolean dormant) / isDormant():  set by the InterestManager while this enemy is asleep
+// - isInView():  checks if this enemy is close enough to the player for its movement to be printed
+// - announce(String message):  prints a movement message only if this enemy is in view
+// - setRegistryHandle(int handle) / getRegistryHandle():  the handle given to this enemy by the EnemyRegistry
+// - freezeAfterFlee():  freezes this enemy for a set number of turns after the player flees (a timer on the game's TimingWheel thaws it)
+// - run():  the enemy enters the realm (runs when the START message arrives)
+// - receive(ActorMessage message):  handles this enemy's mail: a turn per enemy tick, held back during battles
+// - getActorRef():
+// - takeTurn():  one turn of movement (or recovery while frozen)
+// - freeze(int turns, boolean announce):  starts a freeze and the timer that ends it
 // - randomStep(int min, int max):
 // - isAtPlayerStep():  
 // - getIntelligentMovement():  determines movement direction based on player position
+// - usesIntelligentMovement():  true for enemies whose stepForward() follows getIntelligentMovement()
+// - canProjectMovement():  checks if this enemy's movement is deterministic enough to project
+// - stepsUntilEncounter(int playerStep, int maxSteps):  projects how many steps until this enemy meets the player
+// - fastForward(int playerStep, int steps):  jumps this enemy ahead by a number of quiet steps
+// - fastForward(int playerStep, int steps, int frozen):  the same, starting from a given number of frozen turns
+// - projectMovement(int offset, int frozen, int maxSteps):  closed-form projection used by the two methods above
+// - maxGapChangePerTurn():  the most the gap to the player can shrink in one step
 
 //Abstract Methods (Implemented):
 // - stepForward():
@@ -27,10 +48,8 @@ import java.util.Random;
 //Abstract Methods (Not Implemented):
 // - performCustomBehavior():   hook for subclasses to implement custom behavior each turn
 // - takeDamage(int damage):
-// - dealDamage():
-// - updateCharacterData():
 
-public abstract class CharacterEnemy extends Enemy implements CanStep {
+public abstract class CharacterEnemy extends Enemy implements CanStep, Actor {
     
     protected GameManager gameManager;
     protected Random random;
@@ -38,10 +57,19 @@ public abstract class CharacterEnemy extends Enemy implements CanStep {
     protected int maxStepsPerTurn;
     protected int chaseForwardSteps; // Steps to skip when chasing player forward
     protected int turnsToFreeze; // Turns to freeze after player flees
-    protected int frozenTurnsRemaining; // Counter for remaining frozen turns
+    protected int frozenTurnsRemaining; // Only for an enemy without a GameManager; in the game the thaw timer keeps the count
+    private TimingWheel.Timer thawTimer; // Game thread: ends the current freeze
+    private int registryHandle = -1; // Set by the EnemyRegistry, -1 while unregistered
+    private static final int MAILBOX_CAPACITY = 32;
+    private ActorRef self;               // This enemy's actor on the game's ActorRuntime
+    private boolean inBattle;            // Actor state, only touched in receive()
+    private int heldTurns;               // Enemy ticks that arrived during a battle
+    private boolean frozen;              // Actor state: between a Freeze and the THAW that ends it
+    private boolean thawHeld;            // A THAW arrived during a battle, after ticks that were held back
+    private volatile boolean dormant;    // Set by the InterestManager; a dormant enemy is sent no ticks
     
-    public CharacterEnemy(String name, int maxHealth, int attack, int stealth, int ExpOnDefeat, int goldValue, String checkMessage, Player targetPlayer) {
-        super(name, maxHealth, attack, stealth, ExpOnDefeat, goldValue, checkMessage, targetPlayer);
+    public CharacterEnemy(EnemyArchetype archetype, Player targetPlayer) {
+        super(archetype, 0, targetPlayer);
         this.random = new Random();
         this.minStepsPerTurn = 1;  // Default: move 1-2 steps per turn
         this.maxStepsPerTurn = 2;
@@ -50,11 +78,30 @@ public abstract class CharacterEnemy extends Enemy implements CanStep {
         this.frozenTurnsRemaining = 0;
     }
     
+    /**
+     * Stores the handle this enemy was registered under
+     */
+    public void setRegistryHandle(int handle) {
+        this.registryHandle = handle;
+    }
+
+    /**
+     * Gets the handle this enemy was registered under, or -1 if it isn't registered
+     */
+    public int getRegistryHandle() {
+        return registryHandle;
+    }
+    
     /**
      * Sets the GameManager reference so this enemy can synchronize with game steps
      */
     public void setGameManager(GameManager gameManager) {
         this.gameManager = gameManager;
+        this.self = gameManager.getActors().spawn(this, getName(), MAILBOX_CAPACITY);
+    }
+
+    public ActorRef getActorRef() {
+        return self;
     }
     
     /**
@@ -83,77 +130,182 @@ public abstract class CharacterEnemy extends Enemy implements CanStep {
         this.turnsToFreeze = turns;
     }
     
+    /**
+     * Gets how many turns this enemy is still frozen for. Read on the game thread.
+     */
+    public int getFrozenTurnsRemaining() {
+        if (gameManager == null) {
+            return frozenTurnsRemaining;
+        }
+        return thawTimer == null ? 0 : (int) thawTimer.remaining();
+    }
+
+    /**
+     * Sets how many turns this enemy is still frozen for (used when restoring a stored enemy)
+     */
+    public void setFrozenTurnsRemaining(int turns) {
+        if (gameManager == null) {
+            this.frozenTurnsRemaining = turns;
+        } else {
+            freeze(turns, false);
+        }
+    }
+    
+    /**
+     * Marks this enemy as dormant (asleep far from the player) or active. Set by the InterestManager on the game thread.
+     */
+    public void setDormant(boolean dormant) {
+        this.dormant = dormant;
+    }
+
+    public boolean isDormant() {
+        return dormant;
+    }
+
+    /**
+     * Checks if this enemy is close enough to the player for its movement to be printed
+     */
+    protected boolean isInView() {
+        if (gameManager == null) {
+            return true;
+        }
+        return gameManager.getInterest().isInView(currentStep, gameManager.getWorld().playerStep());
+    }
+
+    /**
+     * Prints a movement message, unless this enemy is too far from the player to be seen
+     */
+    protected void announce(String message) {
+        if (isInView()) {
+            System.out.println(message);
+        }
+    }
+
     /**
      * Freezes this enemy for the configured number of turns.
-     * Called when player successfully flees.
+     * Called on the game thread when player successfully flees.
      */
     public void freezeAfterFlee() {
-        this.frozenTurnsRemaining = turnsToFreeze;
-        System.out.println(">>> " + name + " is stunned and can't pursue for " + turnsToFreeze + " turns!");
+        freeze(turnsToFreeze, true);
+    }
+
+    /**
+     * Starts a freeze. The enemy's actor is told with a Freeze message, and a timer on the game's TimingWheel
+     * sends THAW once the enemy turns have passed, so nothing counts the turns down in between.
+     * Both messages come from the game thread, the same sender as the enemy ticks, so they arrive in tick order.
+     * An enemy without a GameManager only keeps the number, nothing ever moves it.
+     * @param turns Number of enemy turns to stay frozen
+     * @param announce Whether to print the stun message
+     */
+    private void freeze(int turns, boolean announce) {
+        if (announce) {
+            System.out.println(">>> " + getName() + " is stunned and can't pursue for " + turns + " turns!");
+        }
+        if (gameManager == null) {
+            this.frozenTurnsRemaining = turns;
+            return;
+        }
+        if (thawTimer != null) {
+            thawTimer.cancel(); // A new freeze replaces the old one
+        }
+        if (turns <= 0) {
+            thawTimer = null;
+            self.tell(ActorMessage.THAW);
+            return;
+        }
+        self.tell(new ActorMessage.Freeze(turns));
+        thawTimer = gameManager.getTimers().schedule(turns, () -> self.tell(ActorMessage.THAW));
     }
     
     /**
-     * Main run method for the CharacterEnemy thread.
-     * Synchronizes with game steps and moves the enemy around.
+     * The enemy enters the realm. Runs when the START message arrives; after that the enemy only acts on its mail.
      */
     @Override
     public void run() {
-        System.out.println(name + " enters the realm...");
-        try {
-            while (isAlive && gameManager != null) {
-                // Wait for the next game step - enemies wait for SECOND notification (even number)
-                synchronized(gameManager.getStepLock()) {
-                    int currentGameStep = gameManager.getGlobalStepCounter().get();
-                    int startNotificationCount = gameManager.getNotificationCounter().get();
-                    
-                    // Wait until we get an even notification number (after player has moved)
-                    while (gameManager.getNotificationCounter().get() <= startNotificationCount || 
-                           gameManager.getNotificationCounter().get() % 2 != 0) {
-                        gameManager.getStepLock().wait();
-                    }
-                    
-                    // Exit if game step hasn't advanced (game ending)
-                    if (gameManager.getGlobalStepCounter().get() <= currentGameStep) {
-                        break;
-                    }
-                }
-                
-                // Wait if a battle is in progress
-                while (gameManager.isBattleInProgress()) {
-                    Thread.sleep(100);
-                }
-                
-                // Check if frozen (stunned after player flee)
-                if (frozenTurnsRemaining > 0) {
-                    frozenTurnsRemaining--;
-                    System.out.println(name + " is still recovering... (" + frozenTurnsRemaining + " turns remaining)");
-                    // Perform custom behavior but don't move
-                    performCustomBehavior();
-                    continue;
-                }
-                
-                // Determine and take steps
-                int steps = determineSteps();
-                int absSteps = Math.abs(steps);
-                for (int i = 0; i < absSteps && isAlive; i++) {
-                    stepForward();
-                    Thread.sleep(random.nextInt(300) + 100);
-                }
-                
-                // Perform any custom behavior for this enemy type
-                performCustomBehavior();
+        System.out.println(getName() + " enters the realm...");
+    }
+
+    /**
+     * Handles one message. Runs on an ActorRuntime worker, one message at a time, and never blocks:
+     * a turn that arrives during a battle is held back and taken when the battle ends.
+     */
+    @Override
+    public void receive(ActorMessage message) {
+        if (message instanceof ActorMessage.StepTick) {
+            // Enemies act on the ENEMY tick of a step (after the player has moved)
+            if (((ActorMessage.StepTick) message).getKind() != ActorMessage.StepTick.ENEMY) {
+                return;
             }
-            
-            if (isAlive) {
-                System.out.println(name + " retreats into the shadows...");
+            if (inBattle) {
+                heldTurns++;
+            } else {
+                takeTurn();
             }
-        } catch (InterruptedException e) {
+        } else if (message instanceof ActorMessage.Freeze) {
+            frozen = true;
+            thawHeld = false;
+        } else if (message == ActorMessage.THAW) {
+            if (inBattle && heldTurns > 0) {
+                thawHeld = true; // The held turns came first and were still frozen
+            } else {
+                thaw();
+            }
+        } else if (message == ActorMessage.BATTLE_STARTED) {
+            inBattle = true;
+        } else if (message == ActorMessage.BATTLE_ENDED) {
+            inBattle = false;
+            for (; heldTurns > 0; heldTurns--) {
+                takeTurn();
+            }
+            if (thawHeld) {
+                thawHeld = false;
+                thaw();
+            }
+        } else if (message == ActorMessage.START) {
+            run();
+        } else if (message == ActorMessage.STOP) {
             if (isAlive) {
-                System.out.println(name + " vanishes mysteriously...");
+                System.out.println(getName() + " retreats into the shadows...");
             }
         }
     }
+
+    /**
+     * Takes one turn: recover if frozen, otherwise move and perform custom behavior
+     */
+    private void takeTurn() {
+        if (!isAlive || (gameManager != null && !gameManager.isGameRunning())) {
+            return;
+        }
+
+        // Check if frozen (stunned after player flee), until the thaw timer's THAW arrives
+        if (frozen) {
+            announce(getName() + " is still recovering...");
+            // Perform custom behavior but don't move
+            performCustomBehavior();
+            return;
+        }
+        
+        // Determine and take steps
+        int from = currentStep;
+        int steps = determineSteps();
+        int absSteps = Math.abs(steps);
+        for (int i = 0; i < absSteps && isAlive; i++) {
+            stepForward();
+        }
+        publishMove(from);
+        
+        // Perform any custom behavior for this enemy type
+        performCustomBehavior();
+    }
     
+    private void thaw() {
+        if (frozen) {
+            frozen = false;
+            announce(getName() + " shakes off the stun!");
+        }
+    }
+
     /**
      * Hook method for subclasses to implement custom behavior each turn
      */
@@ -165,7 +317,8 @@ public abstract class CharacterEnemy extends Enemy implements CanStep {
     public void stepForward() {
         if (isAlive) {
             currentStep++;
-            System.out.println(name + " moves to step " + currentStep + ".");
+            markDirty(CharacterData.STEP);
+            announce(getName() + " moves to step " + currentStep + ".");
         }
     }
     
@@ -183,6 +336,7 @@ public abstract class CharacterEnemy extends Enemy implements CanStep {
     @Override
     public void setCurrentStep(int step) {
         this.currentStep = step;
+        markDirty(CharacterData.STEP);
     }
     
     // ===== Helper Methods =====
@@ -217,7 +371,8 @@ public abstract class CharacterEnemy extends Enemy implements CanStep {
             return minStepsPerTurn; // Default movement
         }
         
-        int playerStep = targetPlayer.getStep();
+        // Read the published world so every enemy acts on the same player position this phase
+        int playerStep = gameManager != null ? gameManager.getWorld().playerStep() : targetPlayer.getStep();
         
         if (playerStep < currentStep) {
             // Player is behind - move backward slowly (default behavior)
@@ -230,4 +385,161 @@ public abstract class CharacterEnemy extends Enemy implements CanStep {
             return 0;
         }
     }
+
+    // ===== Fast-Forward Projection =====
+
+    /**
+     * Whether this enemy's stepForward() moves using getIntelligentMovement() one call per turn.
+     * Only these enemies can be projected ahead in closed form.
+     */
+    protected boolean usesIntelligentMovement() {
+        return false;
+    }
+
+    /**
+     * Checks if this enemy's movement can be projected without running its thread.
+     * Intelligent movement is deterministic when the backwards step range is a single value.
+     */
+    public boolean canProjectMovement() {
+        return usesIntelligentMovement() && Math.abs(minStepsPerTurn) == Math.abs(maxStepsPerTurn);
+    }
+
+    /**
+     * Projects how many steps it will take this enemy to meet the player,
+     * assuming the player walks forward one step every game step.
+     * @param playerStep The player's current step
+     * @param maxSteps How far ahead to look
+     * @return The step (1-based) on which they meet, or -1 if they don't meet within maxSteps
+     */
+    public int stepsUntilEncounter(int playerStep, int maxSteps) {
+        if (!isAlive || maxSteps <= 0) {
+            return -1;
+        }
+        long projection = projectMovement(currentStep - playerStep, getFrozenTurnsRemaining(), maxSteps);
+        int steps = (int) (projection >> 32);
+        int offset = (int) projection;
+        return offset == 0 && steps > 0 ? steps : -1;
+    }
+
+    /**
+     * Jumps this enemy ahead by a number of quiet steps (steps on which it does not meet the player).
+     * Must be called while holding the step lock, before the player's own position is moved.
+     * @param playerStep The player's step before the jump
+     * @param steps Number of steps to skip
+     */
+    public void fastForward(int playerStep, int steps) {
+        fastForward(playerStep, steps, getFrozenTurnsRemaining());
+    }
+
+    /**
+     * Jumps this enemy ahead by a number of quiet steps, starting with the given number of frozen turns
+     * (the InterestManager passes the frozen turns an enemy had when it fell asleep).
+     * The freeze itself is left to the thaw timer, which fires as the TimingWheel moves past the same turns.
+     * @param playerStep The player's step before the jump
+     * @param steps Number of steps to skip
+     * @param frozen Frozen turns remaining before the jump
+     */
+    public void fastForward(int playerStep, int steps, int frozen) {
+        if (!isAlive || steps <= 0) {
+            return;
+        }
+        int from = currentStep;
+        long projection = projectMovement(currentStep - playerStep, frozen, steps);
+        currentStep = playerStep + steps + (int) projection;
+        markDirty(CharacterData.STEP);
+        if (gameManager == null) {
+            frozenTurnsRemaining = Math.max(0, frozenTurnsRemaining - steps);
+        }
+        publishMove(from);
+    }
+
+    /**
+     * Publishes an ENEMY_MOVED if this enemy is no longer on the given step
+     */
+    private void publishMove(int from) {
+        if (gameManager != null && currentStep != from) {
+            gameManager.getEvents().publish(GameEvent.enemyMoved(getName(), currentStep));
+        }
+    }
+
+    /**
+     * Projects this enemy's offset from the player (enemy step - player step) over a number of steps.
+     * Each game step the player moves forward one step first, then this enemy moves: back towards a player
+     * that is behind it, chaseForwardSteps towards a player that is ahead of it, or not at all while frozen.
+     * Instead of replaying every step, whole runs of identical steps are skipped with one division.
+     * @param offset Enemy step minus player step before the first projected step
+     * @param frozen Frozen turns remaining
+     * @param maxSteps Maximum number of steps to project
+     * @return (steps taken << 32) | offset afterwards. An offset of 0 means they met on that step.
+     */
+    protected long projectMovement(int offset, int frozen, int maxSteps) {
+        int back = Math.abs(minStepsPerTurn);
+        int chase = chaseForwardSteps;
+        int taken = 0;
+
+        // While frozen only the player moves, closing the gap by one each step
+        if (frozen > 0) {
+            int frozenSteps = Math.min(frozen, maxSteps);
+            if (offset > 0 && offset <= frozenSteps) {
+                return pack(offset, 0);
+            }
+            offset -= frozenSteps;
+            taken = frozenSteps;
+        }
+
+        while (taken < maxSteps) {
+            int remaining = maxSteps - taken;
+
+            if (offset > 0) {
+                // Player behind: the gap shrinks by 1 (player) then by back (enemy) every step
+                int cycle = 1 + back;
+                int fullSteps = (offset - 1) / cycle;
+                int leftover = (offset - 1) % cycle;
+                if (fullSteps >= remaining) {
+                    return pack(maxSteps, offset - remaining * cycle);
+                }
+                if (leftover == 0 || leftover == back) {
+                    return pack(taken + fullSteps + 1, 0); // Meet after the player's or the enemy's move
+                }
+                // The enemy stepped over the player and is now behind them
+                offset = leftover - back;
+                taken += fullSteps + 1;
+            } else if (offset < 0) {
+                // Player ahead: the gap changes by chase - 1 every step
+                int gain = chase - 1;
+                if (gain <= 0) {
+                    return pack(maxSteps, offset + remaining * gain); // Can never catch up
+                }
+                int stepsToCatchUp = (-offset + gain - 1) / gain;
+                if (stepsToCatchUp > remaining) {
+                    return pack(maxSteps, offset + remaining * gain);
+                }
+                offset += stepsToCatchUp * gain;
+                taken += stepsToCatchUp;
+                if (offset == 0) {
+                    return pack(taken, 0);
+                }
+            } else {
+                // Standing together (encounter was skipped after fleeing): player steps off, enemy chases
+                offset = chase - 1;
+                taken++;
+                if (offset == 0) {
+                    return pack(taken, 0);
+                }
+            }
+        }
+        return pack(taken, offset);
+    }
+
+    /**
+     * Gets the most the gap between this enemy and the player can shrink in one step:
+     * the player's step plus a step back towards them, or a chase minus the player's step
+     */
+    public int maxGapChangePerTurn() {
+        return Math.max(1 + Math.abs(minStepsPerTurn), chaseForwardSteps - 1);
+    }
+
+    private static long pack(int steps, int offset) {
+        return ((long) steps << 32) | (offset & 0xFFFFFFFFL);
+    }
 }
@@ -1,27 +1,30 @@
 package Game_Characters.Enemies;
 
+import GameHandlers.TimingWheel;
 import Game_Characters.Enemy;
+import Game_Characters.EnemyArchetype;
 import Game_Characters.Player;
 //import Game_Characters.CharacterData;
 
 //Methods List:
-// - uniqueBehavior():
+// - joinBattle(TimingWheel rounds):  lights the fuse on the battle's round clock
+// - peekDamage():  the full attack once the fuse has primed the bird, nothing otherwise
+// - describeAttack(int damage):
+// - spendAttack():  an explosion uses up the priming
+// - lightFuse(TimingWheel rounds, long delay):
 
 //Abstract Methods (Implemented):
 // - run():
 // - takeDamage(int damage):
-// - dealDamage():
-// - updateCharacterData():
 
 public class TickiBird extends Enemy {
     // Implementation for TickiBird enemy
-    private int counter = 0;
+    public static final int FUSE_ROUNDS = EnemyArchetype.TICKIBIRD.getAttackPeriod(); // The archetype's attack period: KABOOM on every third attack
+    private boolean primed = false;           // Set by the fuse timer, used up by the next attack
 
     //constructor
     public TickiBird(Player targetPlayer) {
-        super("TickiBird", 10, 15, 10, 7, 10,  //stats (HP, ATK, Stealth, EXP, Gold)
-        "A strange bird that craves attention and has an EXPLOSIVE personality! three turns and you're out...", //check message
-        targetPlayer); //player
+        super(EnemyArchetype.TICKIBIRD, 0, targetPlayer);  //stats and check message live in the archetype
     }
 
     //Overrides
@@ -38,33 +41,42 @@ public class TickiBird extends Enemy {
             isAlive = false;
             System.out.println("TickiBird has been defeated!");
         }
+        markDirty(CharacterData.HEALTH | CharacterData.ALIVE);
     }
 
+
     @Override
-    public int dealDamage() {
-        int trueAttack = uniqueBehavior();
-        System.out.println("TickiBird attacks " + getTargetPlayer().getName() + " for " + trueAttack + " damage!");
-        return trueAttack;
+    public void joinBattle(TimingWheel rounds) {
+        primed = false;
+        lightFuse(rounds, FUSE_ROUNDS - 1); // Fires after the second round, so the third attack explodes
     }
 
+    //Unique behavior
     @Override
-    public CharacterData updateCharacterData() {
-        this.characterData.health = this.health;
-        this.characterData.maxHealth = this.maxHealth;
-        this.characterData.attack = this.attack;
-        this.characterData.stealth = this.stealth;
-        return this.characterData;
+    public int peekDamage() {
+        return primed ? getAttack() : 0;
     }
 
-    //Unique behavior
-    public int uniqueBehavior() {
-        counter++;
-        if (counter % 3 == 0) {
-            System.out.println("TickiBird goes KABOOM!");
-            return attack;
-        }
+    @Override
+    public String describeAttack(int damage) {
+        String behavior = primed ? "TickiBird goes KABOOM!" : "Tickibird watches closely.... Tick Tock Tick Tock.";
+        return behavior + "\nTickiBird attacks " + getTargetPlayer().getName() + " for " + damage + " damage!";
+    }
+
+    @Override
+    public void spendAttack() {
+        primed = false;
+    }
 
-        System.out.println("Tickibird watches closely.... Tick Tock Tick Tock.");
-        return 0;
+    /**
+     * Schedules the next explosion; the timer primes the bird and lights the fuse again while it lives
+     */
+    private void lightFuse(TimingWheel rounds, long delay) {
+        rounds.schedule(delay, () -> {
+            if (isAlive) {
+                primed = true;
+                lightFuse(rounds, FUSE_ROUNDS);
+            }
+        });
     }
 }
\ No newline at end of file
@@ -1,41 +1,85 @@
 package Game_Characters;
 
+import GameHandlers.TimingWheel;
+
 //Class that sets up all enemies. An enemy is any character that can battle against the player.
 
 //Methods List:
 // - reset():  resets an enemy prefab when needed
+// - joinBattle(TimingWheel rounds):  hook for enemies that schedule timed behaviour on a battle's round clock
+// - dealDamage():  attacks: prints describeAttack(), uses up spendAttack() and returns peekDamage()
+// - peekDamage():  the damage the next attack will deal, without dealing it
+// - describeAttack(int damage):  the text of an attack
+// - spendAttack():  hook for one-off effects an attack uses up
 
 //Abstract Methods (Not Implemented):
 // - run():
 // - takeDamage(int damage):
-// - dealDamage():
-// - updateCharacterData():
 
 //Getters:
+// - getArchetype():  the shared EnemyArchetype this enemy was spawned from
+// - getInstanceId():
+// - getName():  built by the archetype on first use
+// - getMaxHealth() / getAttack() / getStealth():  from the archetype
 // - getCheckMessage():  a check message is the description shown when the player inspects the enemy
 // - getTargetPlayer():
 // - getExpOnDefeat():
 // - getGoldValue():  returns the gold value of defeating this enemy
 
+/*
+* How it works:
+* Everything that is the same for every enemy of a kind (stats, rewards, check message, name) lives in its
+* EnemyArchetype. An Enemy instance only adds the archetype, the player it targets and its instance id on top of
+* the health/position/alive state from GameCharacter, so spawning many enemies stays cheap.
+* An attack is split into what it will do (peekDamage, describeAttack), which changes nothing, and what it uses up
+* (spendAttack), which happens when it is really made, so a round can be weighed without playing it.
+*/
+
 public abstract class Enemy extends GameCharacter {
-    
+
+    protected final EnemyArchetype archetype;
     protected Player targetPlayer;
-    protected int ExpOnDefeat;
-    protected int goldValue; // Gold awarded when enemy is defeated (shared resource)
-    protected String checkMessage;
+    private final int instanceId;
 
     //constructor
-    public Enemy(String name, int maxHealth, int attack, int stealth, int ExpOnDefeat, int goldValue, String _checkMessage, Player targetPlayer) {
-        super(name, maxHealth, attack, stealth);
+    public Enemy(EnemyArchetype archetype, int instanceId, Player targetPlayer) {
+        super(archetype.getMaxHealth());
+        this.archetype = archetype;
+        this.instanceId = instanceId;
         this.targetPlayer = targetPlayer;
-        this.ExpOnDefeat = ExpOnDefeat;
-        this.goldValue = goldValue;
-        this.checkMessage = _checkMessage;
     }
 
     //Getters and Setters
+    public EnemyArchetype getArchetype() {
+        return archetype;
+    }
+
+    public int getInstanceId() {
+        return instanceId;
+    }
+
+    @Override
+    public String getName() {
+        return archetype.nameFor(instanceId);
+    }
+
+    @Override
+    public int getMaxHealth() {
+        return archetype.getMaxHealth();
+    }
+
+    @Override
+    public int getAttack() {
+        return archetype.getAttack();
+    }
+
+    @Override
+    public int getStealth() {
+        return archetype.getStealth();
+    }
+
     public String getCheckMessage() {
-        return checkMessage;
+        return archetype.getCheckMessage();
     }
 
     //Overrides
@@ -46,11 +90,39 @@ public abstract class Enemy extends GameCharacter {
     @Override
     public abstract void takeDamage(int damage);
 
+    /**
+     * Attacks the target player: prints the attack and uses up anything it spends
+     * @return The damage dealt
+     */
     @Override
-    public abstract int dealDamage();
-    
-    @Override
-    public abstract CharacterData updateCharacterData();
+    public int dealDamage() {
+        int damage = peekDamage();
+        System.out.println(describeAttack(damage));
+        spendAttack();
+        return damage;
+    }
+
+    /**
+     * Gets the damage the next attack will deal, without dealing it. Changes nothing.
+     */
+    public int peekDamage() {
+        return getAttack();
+    }
+
+    /**
+     * Gets the text printed for an attack (one or more lines). Changes nothing, like peekDamage().
+     * @param damage The damage the attack deals
+     */
+    public String describeAttack(int damage) {
+        return getName() + " attacks for " + damage + " damage!";
+    }
+
+    /**
+     * Called once an attack has really been made. Enemies whose attacks use something up (a charge, a fuse)
+     * spend it here; by default nothing happens.
+     */
+    public void spendAttack() {
+    }
 
     //get target player
     public Player getTargetPlayer() {
@@ -58,24 +130,33 @@ public abstract class Enemy extends GameCharacter {
     }
 
     public int getExpOnDefeat() {
-        return ExpOnDefeat;
+        return archetype.getExpOnDefeat();
     }
-    
+
     /**
      * Gets the gold value awarded when this enemy is defeated (shared resource).
      * @return Gold value
      */
     public int getGoldValue() {
-        return goldValue;
+        return archetype.getGoldValue();
     }
-    
+
+    /**
+     * Called when a battle with this enemy starts. Enemies with timed behaviour schedule it here;
+     * by default nothing happens.
+     * @param rounds The battle's TimingWheel, moved on one tick after every round of enemy attacks
+     */
+    public void joinBattle(TimingWheel rounds) {
+    }
+
     /**
      * Resets the enemy to its initial state (full health, alive).
      * Used for non-CharacterEnemy types like Slime to reuse instances.
      */
     public void reset() {
-        this.health = this.maxHealth;
+        this.health = getMaxHealth();
         this.isAlive = true;
+        markDirty(CharacterData.HEALTH | CharacterData.ALIVE);
     }
 
 }
@@ -0,0 +1,181 @@
+package Game_Characters;
+
+//The shared, immutable description of one kind of enemy: base stats, rewards, loot table, check message and name
+
+//Methods List:
+// - byKey(String key):  looks up an archetype by its type name (e.g. "slime")
+// - byId(int id):  looks up an archetype by its id
+// - count():  number of archetypes
+// - nameFor(int instanceId):  builds (and caches) the display name for one instance
+// - attacksOnRound(long round):  whether this kind of enemy hits on a round of enemy attacks
+
+//Getters:
+// - getId():
+// - getKey():
+// - getBaseName():
+// - getMaxHealth():
+// - getAttack():
+// - getStealth():
+// - getExpOnDefeat():
+// - getGoldValue():
+// - getAttackPeriod():  rounds from one hit to the next (1 = every round)
+// - getLootTable():
+// - getCheckMessage():
+
+/*
+* How it works:
+* Every Slime used to carry its own copy of the Slime stats, check message and name String. Those never change,
+* so they now live once in an archetype, and an Enemy only keeps what actually changes in a fight (health,
+* position, alive flag) plus its archetype and instance id. Numbered names like "Slime #2" are built on first use
+* and cached in the archetype, so spawning an enemy does not build any Strings.
+* Each archetype also has its LootTable, compiled once here, so a kill rolls its drops without building anything.
+* How often an enemy hits is data too: the attack period says it hits on every N-th round of enemy attacks (the
+* TickiBird's fuse is a period of 3). Battle code that works per archetype (BattleSim, BattleKernel) reads it
+* instead of asking each enemy object.
+*/
+
+public final class EnemyArchetype {
+    private static final int CACHED_NAMES = 64;
+    private static final EnemyArchetype[] BY_ID = new EnemyArchetype[4];
+
+    public static final EnemyArchetype SLIME = new EnemyArchetype(0, "slime", "Slime", true,
+        5, 1, 0, 2, 3, 1,  //Stats (HP, ATK, Stealth, EXP, Gold, Attack period)
+        LootTable.builder(30)
+            .item("Health Potion", LootTable.COMMON, 5, 15)
+            .item("Rusty Sword", LootTable.COMMON, 5, 20)
+            .item("Ancient Coin", LootTable.UNCOMMON, 10, 30)
+            .item("Emerald Gem", LootTable.RARE, 30, 50)
+            .build(),
+        "This is a slime. Weak but persistent, would be a lovely fellow if it weren't acidic.");
+
+    public static final EnemyArchetype TICKIBIRD = new EnemyArchetype(1, "tickibird", "TickiBird", false,
+        10, 15, 10, 7, 10, 3,
+        LootTable.builder(50)
+            .item("Ancient Coin", LootTable.COMMON, 10, 25)
+            .item("Magic Scroll", LootTable.UNCOMMON, 15, 35)
+            .item("Gold Ring", LootTable.RARE, 25, 50)
+            .item("Emerald Gem", LootTable.RARE, 30, 50)
+            .build(),
+        "A strange bird that craves attention and has an EXPLOSIVE personality! three turns and you're out...");
+
+    public static final EnemyArchetype THIEF = new EnemyArchetype(2, "thief", "Thief", false,
+        60, 7, 20, 15, 25, 1,
+        LootTable.builder(100)
+            .guaranteed("Ancient Coin", 5, 15)
+            .item("Silver Dagger", LootTable.COMMON, 15, 35)
+            .item("Leather Armor", LootTable.COMMON, 10, 30)
+            .item("Gold Ring", LootTable.UNCOMMON, 25, 50)
+            .build(),
+        "A tough thief with a decent attack. With a sntealth of 20, running away might take some time.");
+
+    public static final EnemyArchetype WIZARD = new EnemyArchetype(3, "wizard", "Wizard", false,
+        100, 15, 0, 100, 100, 1,
+        LootTable.builder(100)
+            .guaranteed("Gold Ring", 40, 50)
+            .item("Magic Scroll", LootTable.COMMON, 20, 40)
+            .item("Emerald Gem", LootTable.UNCOMMON, 30, 50)
+            .build(),
+        "The wizard of the lowest realms... defeat this enemy to complete your jouney! If you are too weak, don't be afraid to flee!");
+
+    private final int id;
+    private final String key;
+    private final String baseName;
+    private final boolean numbered;
+    private final int maxHealth;
+    private final int attack;
+    private final int stealth;
+    private final int expOnDefeat;
+    private final int goldValue;
+    private final int attackPeriod;
+    private final LootTable lootTable;
+    private final String checkMessage;
+    private final String[] nameCache;
+
+    private EnemyArchetype(int id, String key, String baseName, boolean numbered,
+                           int maxHealth, int attack, int stealth, int expOnDefeat, int goldValue,
+                           int attackPeriod, LootTable lootTable, String checkMessage) {
+        this.id = id;
+        this.key = key;
+        this.baseName = baseName;
+        this.numbered = numbered;
+        this.maxHealth = maxHealth;
+        this.attack = attack;
+        this.stealth = stealth;
+        this.expOnDefeat = expOnDefeat;
+        this.goldValue = goldValue;
+        this.attackPeriod = attackPeriod;
+        this.lootTable = lootTable;
+        this.checkMessage = checkMessage;
+        this.nameCache = numbered ? new String[CACHED_NAMES] : null;
+        BY_ID[id] = this;
+    }
+
+    /**
+     * Looks up an archetype by its type name
+     * @param key The type name, any case (e.g. "slime")
+     * @return The archetype, or null if there is none with that name
+     */
+    public static EnemyArchetype byKey(String key) {
+        for (EnemyArchetype archetype : BY_ID) {
+            if (archetype.key.equalsIgnoreCase(key)) {
+                return archetype;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Looks up an archetype by its id
+     * @return The archetype, or null if the id is out of range
+     */
+    public static EnemyArchetype byId(int id) {
+        return id >= 0 && id < BY_ID.length ? BY_ID[id] : null;
+    }
+
+    /**
+     * Gets the number of archetypes (ids run from 0 to count() - 1)
+     */
+    public static int count() {
+        return BY_ID.length;
+    }
+
+    /**
+     * Gets the display name for one instance of this archetype, e.g. "Slime #2"
+     * @param instanceId The instance's id
+     */
+    public String nameFor(int instanceId) {
+        if (!numbered) {
+            return baseName;
+        }
+        if (instanceId < 0 || instanceId >= CACHED_NAMES) {
+            return baseName + " #" + instanceId;
+        }
+        // Racing threads may both build the name, which is harmless
+        String name = nameCache[instanceId];
+        if (name == null) {
+            name = baseName + " #" + instanceId;
+            nameCache[instanceId] = name;
+        }
+        return name;
+    }
+
+    /**
+     * Checks if this kind of enemy hits on a round of enemy attacks
+     * @param round The round, counting from 1 for the battle's first round of attacks
+     */
+    public boolean attacksOnRound(long round) {
+        return round % attackPeriod == 0;
+    }
+
+    public int getId() { return id; }
+    public String getKey() { return key; }
+    public String getBaseName() { return baseName; }
+    public int getMaxHealth() { return maxHealth; }
+    public int getAttack() { return attack; }
+    public int getStealth() { return stealth; }
+    public int getExpOnDefeat() { return expOnDefeat; }
+    public int getGoldValue() { return goldValue; }
+    public int getAttackPeriod() { return attackPeriod; }
+    public LootTable getLootTable() { return lootTable; }
+    public String getCheckMessage() { return checkMessage; }
+}
@@ -0,0 +1,82 @@
+package Game_Characters;
+
+//The Knight's level curve: how much experience each level takes, precomputed as running totals
+
+//Methods List:
+// - totalFor(int level):  total experience needed to reach a level from level 1
+// - levelFor(long totalExperience):  the level a total amount of experience reaches
+// - toNextLevel(int level):  experience needed to go from a level to the next one
+// - statGainFactor(int fromLevel, int toLevel):  sum of the levels left behind, used for stat growth
+
+/*
+* How it works:
+* Level 1 -> 2 takes FIRST_THRESHOLD experience and every level after takes THRESHOLD_STEP more than the one
+* before (3, 8, 13, ...). TOTALS[level] holds the experience needed to reach each level from level 1, so the level
+* for any amount of experience is a binary search instead of leveling up one level at a time.
+* Stats grow by a multiple of the level being left (+5 x level max health and so on), so gaining several levels at
+* once adds the multiple of the sum of those levels, which is a closed form.
+*/
+
+public final class ExperienceTable {
+    public static final int MAX_LEVEL = 10_000;
+    private static final int FIRST_THRESHOLD = 3; // Experience from level 1 to 2
+    private static final int THRESHOLD_STEP = 5;  // Each level takes this much more than the last
+    private static final long[] TOTALS = buildTotals();
+
+    private ExperienceTable() {
+    }
+
+    /**
+     * Gets the total experience needed to reach a level from level 1
+     */
+    public static long totalFor(int level) {
+        return TOTALS[Math.max(1, Math.min(level, MAX_LEVEL))];
+    }
+
+    /**
+     * Finds the level a total amount of experience reaches (capped at MAX_LEVEL)
+     * @param totalExperience Experience gathered since level 1
+     * @return The level
+     */
+    public static int levelFor(long totalExperience) {
+        int low = 1;
+        int high = MAX_LEVEL;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (TOTALS[mid] <= totalExperience) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Gets the experience needed to go from a level to the next one
+     */
+    public static int toNextLevel(int level) {
+        return FIRST_THRESHOLD + THRESHOLD_STEP * (Math.max(1, level) - 1);
+    }
+
+    /**
+     * Gets the sum of the levels left behind going from one level to another (fromLevel + ... + toLevel - 1)
+     */
+    public static long statGainFactor(int fromLevel, int toLevel) {
+        return triangle(toLevel - 1) - triangle(fromLevel - 1);
+    }
+
+    // ===== Helper Methods =====
+
+    private static long[] buildTotals() {
+        long[] totals = new long[MAX_LEVEL + 1];
+        for (int level = 2; level <= MAX_LEVEL; level++) {
+            totals[level] = totals[level - 1] + toNextLevel(level - 1);
+        }
+        return totals;
+    }
+
+    private static long triangle(long n) {
+        return n * (n + 1) / 2;
+    }
+}
@@ -1,54 +1,69 @@
 package Game_Characters;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.IntBinaryOperator;
+
 //Helper class CharacterData to store character information
 
 //Methods List:
 // - takeDamage(int damage): Reduces health by damage amount
-// - dealDamage(GameCharacter target): Deals damage to target character 
+// - dealDamage(GameCharacter target): Deals damage to target character
 // - heal(int healAmount): Increases health by healAmount up to maxHealth
-// - updateCharacterData(): Updates and returns CharacterData object
+// - updateCharacterData(): Builds and returns a CharacterData object
+// - updateCharacterData(CharacterData data, int fields): Rewrites only the given fields of an existing CharacterData
+// - markDirty(int fields): Records that fields (CharacterData field bits) changed since the last takeDirtyFields()
+// - takeDirtyFields(): Returns the changed fields and clears them
+// - setDirtyListener(DirtyListener listener): Told when a clean character gets its first change
 
 //Getters List:
 // - getName(): Returns character name
 // - getHealth(): Returns current health
+// - getMaxHealth(): Returns max health
 // - getStep(): Returns current step
-// - getAttack(): Returns attack value  
+// - getAttack(): Returns attack value
 // - getStealth(): Returns stealth value
 // - getAlive(): Returns alive status
-// - getDataObject(): Returns CharacterData object
+// - getDataObject(): Builds a CharacterData view of the current values
 
 //Setters List:
-// - setName(String name): Sets character name
 // - setHealth(int health): Sets current health
 // - setStep(int step): Sets current step
-// - setAttack(int attack): Sets attack value
-// - setStealth(int stealth): Sets stealth value
 // - setAlive(boolean alive): Sets alive status
-// - setDataObject(): Updates CharacterData object with current values
-// - setWithDataObject(CharacterData data): Sets character attributes from CharacterData object
+
+//Inner Classes:
+// - DirtyListener: gets a character whose dirty bits went from none to some (see GameHandlers.Networking.StateSync)
+// - CharacterData: the character's values, with a bit per field
+
+/*
+* How it works:
+* A GameCharacter only holds the state that changes during play: health, position and whether it is alive.
+* Name and stats come from the subclass through getName()/getMaxHealth()/getAttack()/getStealth(), so the Player
+* keeps its own (they grow when levelling up) while enemies read theirs from a shared EnemyArchetype.
+* CharacterData is built on demand instead of being kept on every character.
+* Every write to a field a CharacterData carries also sets that field's dirty bit. The bits are one int updated with
+* a CAS only when a new bit is set, so a character that moves ten times between two syncs pays for one. The first
+* bit set on a clean character tells the DirtyListener, which is how a sync finds the characters that changed
+* without looking at the ones that didn't. The listener is the StateSync tracking this character, set by its
+* track(), so two games in one process each hear only about their own characters.
+*/
 
 public abstract class GameCharacter implements Runnable{
     //Variables
-    protected String name;
-    protected int health;
-    protected int maxHealth;
-    protected int attack;
-    protected int stealth;
-    protected int currentStep;
-    protected Boolean isAlive;
-
-
-    protected CharacterData characterData;
-  
-
-    public GameCharacter(String name, int maxHealth, int attack, int stealth) {
-        this.name = name;
-        this.maxHealth = maxHealth;
-        this.health = maxHealth;
-        this.attack = attack;
-        this.stealth = stealth;
+    protected volatile int health;        // Read by other threads (WorldState, enemy AI), so writes must be visible
+    protected volatile int currentStep;
+    protected volatile boolean isAlive;
+
+    private static final AtomicIntegerFieldUpdater<GameCharacter> DIRTY =
+        AtomicIntegerFieldUpdater.newUpdater(GameCharacter.class, "dirtyFields");
+    private static final IntBinaryOperator SET_BITS = (bits, fields) -> bits | fields;
+    private volatile int dirtyFields = CharacterData.ALL; // A new character hasn't been sent anywhere
+    private volatile DirtyListener dirtyListener;
+
+
+    public GameCharacter(int startingHealth) {
+        this.health = startingHealth;
         this.currentStep = 0;
         this.isAlive = true;
-        this.characterData = new CharacterData(name, health, maxHealth, attack, stealth);
     }
 
     /*
@@ -67,55 +82,120 @@ public abstract class GameCharacter implements Runnable{
 
     public void heal(int healAmount) {
         if (healAmount > 0 && isAlive) {
-            health = Math.min(health + healAmount, maxHealth);
-            System.out.println(name + " heals for " + healAmount + " HP! Current health: " + health);
+            health = Math.min(health + healAmount, getMaxHealth());
+            markDirty(CharacterData.HEALTH);
+            System.out.println(getName() + " heals for " + healAmount + " HP! Current health: " + health);
         }
     }
 
     //Update Character data
-    public abstract CharacterData updateCharacterData();
+    public CharacterData updateCharacterData() {
+        return getDataObject();
+    }
+
+    /**
+     * Rewrites the given fields of an existing CharacterData with this character's current values
+     * @param data The CharacterData to update in place
+     * @param fields CharacterData field bits to copy
+     * @return The same CharacterData
+     */
+    public CharacterData updateCharacterData(CharacterData data, int fields) {
+        if ((fields & CharacterData.NAME) != 0) data.name = getName();
+        if ((fields & CharacterData.HEALTH) != 0) data.health = health;
+        if ((fields & CharacterData.MAX_HEALTH) != 0) data.maxHealth = getMaxHealth();
+        if ((fields & CharacterData.ATTACK) != 0) data.attack = getAttack();
+        if ((fields & CharacterData.STEALTH) != 0) data.stealth = getStealth();
+        if ((fields & CharacterData.STEP) != 0) data.step = currentStep;
+        if ((fields & CharacterData.ALIVE) != 0) data.alive = isAlive;
+        return data;
+    }
+
+    /**
+     * Records that fields changed. Call it after the write, so whoever takes the bits reads the new value.
+     * @param fields CharacterData field bits
+     */
+    protected void markDirty(int fields) {
+        if ((dirtyFields & fields) == fields) {
+            return; // Already waiting to be synced
+        }
+        int before = DIRTY.getAndAccumulate(this, fields, SET_BITS);
+        DirtyListener listener = dirtyListener;
+        if (before == 0 && listener != null) {
+            listener.becameDirty(this);
+        }
+    }
+
+    /**
+     * Returns the fields changed since the last call and clears them. A change made after this returns sets its
+     * bit again (and tells the listener again).
+     */
+    public int takeDirtyFields() {
+        return DIRTY.getAndSet(this, 0);
+    }
+
+    /**
+     * Sets who is told when this character, with no changes waiting, gets one
+     * @param listener The listener, or null
+     */
+    public void setDirtyListener(DirtyListener listener) {
+        this.dirtyListener = listener;
+    }
+
+    //Stats provided by the subclass
+    public abstract String getName();
+    public abstract int getMaxHealth();
+    public abstract int getAttack();
+    public abstract int getStealth();
 
     //Getters
-    public String getName() { return name; }
     public int getHealth() { return health; }
-    public int getMaxHealth() { return maxHealth; }
     public int getStep() { return currentStep; }
-    public int getAttack() { return attack; }
-    public int getStealth() { return stealth; }
     public boolean getAlive() { return isAlive; }
-    public CharacterData getDataObject() { return characterData; }
 
-    //Setters
-    public void setName(String name) { this.name = name; }
-    public void setHealth(int health) { this.health = health; }
-    public void setStep(int step) { this.currentStep = step; }
-    public void setAttack(int attack) { this.attack = attack; }
-    public void setStealth(int stealth) { this.stealth = stealth; }
-    public void setAlive(boolean alive) { isAlive = alive; }
-
-    public void setDataObject() { 
-        this.characterData = new CharacterData(name, health, maxHealth, attack, stealth); 
+    /**
+     * Builds a CharacterData view of this character's current values
+     */
+    public CharacterData getDataObject() {
+        return updateCharacterData(new CharacterData(), CharacterData.ALL);
     }
 
-    public void setWithDataObject(CharacterData data) {
-        this.name = data.name;
-        this.health = data.health;
-        this.maxHealth = data.maxHealth;
-        this.attack = data.attack;
-        this.stealth = data.stealth;
-        this.characterData = data;
+    //Setters
+    public void setHealth(int health) { this.health = health; markDirty(CharacterData.HEALTH); }
+    public void setStep(int step) { this.currentStep = step; markDirty(CharacterData.STEP); }
+    public void setAlive(boolean alive) { isAlive = alive; markDirty(CharacterData.ALIVE); }
+
+    /**
+     * Told when a character with no changes waiting gets one. Called on the thread that made the change.
+     */
+    public interface DirtyListener {
+        void becameDirty(GameCharacter character);
     }
 
     /*
     * DATAB OBJECT CLASS
     */
 
-    public class CharacterData {
+    public static class CharacterData {
+        // Field bits, used for dirty tracking and by the state sync's wire format
+        public static final int NAME = 1;
+        public static final int HEALTH = 1 << 1;
+        public static final int MAX_HEALTH = 1 << 2;
+        public static final int ATTACK = 1 << 3;
+        public static final int STEALTH = 1 << 4;
+        public static final int STEP = 1 << 5;
+        public static final int ALIVE = 1 << 6;
+        public static final int ALL = (1 << 7) - 1;
+
         public String name;
         public int health;
         public int maxHealth;
         public int attack;
         public int stealth;
+        public int step;
+        public boolean alive;
+
+        public CharacterData() {
+        }
 
         public CharacterData(String name, int health, int maxHealth, int attack, int stealth) {
             this.name = name;
@@ -123,15 +203,16 @@ public abstract class GameCharacter implements Runnable{
             this.maxHealth = maxHealth;
             this.attack = attack;
             this.stealth = stealth;
+            this.alive = health > 0;
         }
 
         public String toString() {
-            return "Name: " + name 
-            + ", Health: " + health + "/" + maxHealth 
-            + ", Attack: " + attack 
-            + ", Stealth: " + stealth;
+            return "Name: " + name
+            + ", Health: " + health + "/" + maxHealth
+            + ", Attack: " + attack
+            + ", Stealth: " + stealth
+            + ", Step: " + step
+            + (alive ? "" : " (defeated)");
         }
     }
 }
-
-
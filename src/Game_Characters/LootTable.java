@@ -0,0 +1,256 @@
+package Game_Characters;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+//What an enemy can drop when it is defeated: weighted items with gold ranges, plus guaranteed drops
+
+//Methods List:
+// - builder(int dropChance):  starts a table; each kill rolls one weighted item with this percent chance
+// - roll(RandomGenerator random, int[] buffer, int at):  rolls one kill's drops into a primitive buffer
+// - itemName(int item):  display name of an item id
+// - itemCount():  number of items in the catalog
+
+//Getters:
+// - getDropChance():
+// - getEntryCount():
+// - getGuaranteedCount():
+
+//Inner Classes:
+// - Builder:  collects entries, then compiles the alias table
+
+/*
+* How it works:
+* Items are ids into one catalog (ITEM_NAMES), so a drop is two ints: the item and its gold value.
+* The weighted entries are compiled once into a Walker alias table: every column holds its own entry up to a
+* threshold and an alias entry above it, so picking an entry is one random long split into a column and a coin,
+* no matter how many entries or how uneven the weights. Rarity tiers are just weights (COMMON, UNCOMMON, RARE).
+* roll() writes (item, gold) pairs into a caller's int array and returns the new end; nothing is allocated per
+* kill, so simulations can roll billions of drops.
+*/
+
+public final class LootTable {
+    public static final int COMMON = 60;
+    public static final int UNCOMMON = 25;
+    public static final int RARE = 10;
+    public static final int MAX_DROPS = 4; // Most drops a single kill can produce (guaranteed ones plus one roll)
+
+    private static final String[] ITEM_NAMES = {
+        "Health Potion", "Rusty Sword", "Ancient Coin", "Magic Scroll",
+        "Leather Armor", "Gold Ring", "Silver Dagger", "Emerald Gem"
+    };
+    private static final double COIN_SCALE = 1L << 31; // Coins are 31 random bits
+
+    private final int dropChance;   // Percent
+    private final int[] items;      // Per entry
+    private final int[] minGold;
+    private final int[] goldRange;  // maxGold - minGold + 1
+    private final int[] threshold;  // Per column: keep the column's entry if the coin is below this (out of 2^31)
+    private final int[] alias;      // Per column: the entry used otherwise
+    private final int[] guaranteed; // (item, minGold, goldRange) triples
+
+    private LootTable(int dropChance, int[] items, int[] weights, int[] minGold, int[] goldRange, int[] guaranteed) {
+        this.dropChance = dropChance;
+        this.items = items;
+        this.minGold = minGold;
+        this.goldRange = goldRange;
+        this.guaranteed = guaranteed;
+        this.threshold = new int[items.length];
+        this.alias = new int[items.length];
+        buildAlias(weights);
+    }
+
+    public int getDropChance() { return dropChance; }
+    public int getEntryCount() { return items.length; }
+    public int getGuaranteedCount() { return guaranteed.length / 3; }
+
+    /**
+     * Gets the display name of an item id
+     */
+    public static String itemName(int item) {
+        return ITEM_NAMES[item];
+    }
+
+    /**
+     * Gets the number of items in the catalog (item ids run from 0 to itemCount() - 1)
+     */
+    public static int itemCount() {
+        return ITEM_NAMES.length;
+    }
+
+    /**
+     * Starts a loot table
+     * @param dropChance Percent chance that a kill also drops one weighted item
+     */
+    public static Builder builder(int dropChance) {
+        return new Builder(dropChance);
+    }
+
+    /**
+     * Rolls the drops of one kill: every guaranteed drop, then maybe one weighted item.
+     * @param random The random source
+     * @param buffer Receives (item, gold) pairs; needs room for 2 * MAX_DROPS ints from at
+     * @param at Where to write the first pair
+     * @return The index after the last pair written
+     */
+    public int roll(RandomGenerator random, int[] buffer, int at) {
+        for (int g = 0; g < guaranteed.length; g += 3) {
+            buffer[at++] = guaranteed[g];
+            buffer[at++] = guaranteed[g + 1] + random.nextInt(guaranteed[g + 2]);
+        }
+        if (items.length == 0 || (dropChance < 100 && random.nextInt(100) >= dropChance)) {
+            return at;
+        }
+
+        // Alias sample: the high 32 bits pick a column, the low 31 bits are the coin
+        long bits = random.nextLong();
+        int column = (int) (((bits >>> 32) * items.length) >>> 32);
+        int coin = (int) bits & Integer.MAX_VALUE;
+        int entry = coin < threshold[column] ? column : alias[column];
+        buffer[at++] = items[entry];
+        buffer[at++] = minGold[entry] + random.nextInt(goldRange[entry]);
+        return at;
+    }
+
+    // ===== Helper Methods =====
+
+    /**
+     * Vose's alias method: scale the weights so they average 1, then repeatedly let a column that is short of 1
+     * borrow the rest from a column that is over 1
+     */
+    private void buildAlias(int[] weights) {
+        int n = weights.length;
+        if (n == 0) {
+            return;
+        }
+        long total = 0;
+        for (int weight : weights) {
+            total += weight;
+        }
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < n; i++) {
+            scaled[i] = (double) weights[i] * n / total;
+            if (scaled[i] < 1.0) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            threshold[less] = (int) Math.round(scaled[less] * COIN_SCALE);
+            alias[less] = more;
+            scaled[more] -= 1.0 - scaled[less];
+            if (scaled[more] < 1.0) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+        // Whatever is left is 1 up to rounding: always keep its own entry
+        while (largeCount > 0) {
+            int column = large[--largeCount];
+            threshold[column] = Integer.MAX_VALUE;
+            alias[column] = column;
+        }
+        while (smallCount > 0) {
+            int column = small[--smallCount];
+            threshold[column] = Integer.MAX_VALUE;
+            alias[column] = column;
+        }
+    }
+
+    private static int itemId(String name) {
+        for (int i = 0; i < ITEM_NAMES.length; i++) {
+            if (ITEM_NAMES[i].equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown loot item '" + name + "'");
+    }
+
+    /**
+     * Collects a table's entries; build() compiles them
+     */
+    public static final class Builder {
+        private final int dropChance;
+        private final List<int[]> entries = new ArrayList<>();    // (item, weight, minGold, maxGold)
+        private final List<int[]> guaranteed = new ArrayList<>(); // (item, minGold, maxGold)
+
+        private Builder(int dropChance) {
+            if (dropChance < 0 || dropChance > 100) {
+                throw new IllegalArgumentException("Drop chance must be 0-100%, got " + dropChance);
+            }
+            this.dropChance = dropChance;
+        }
+
+        /**
+         * Adds a weighted item
+         * @param name Item name from the catalog
+         * @param weight Relative weight, usually a rarity tier (COMMON, UNCOMMON, RARE)
+         * @param minGold Lowest gold value
+         * @param maxGold Highest gold value
+         */
+        public Builder item(String name, int weight, int minGold, int maxGold) {
+            checkGold(minGold, maxGold);
+            if (weight <= 0) {
+                throw new IllegalArgumentException("Weight must be positive, got " + weight);
+            }
+            entries.add(new int[] {itemId(name), weight, minGold, maxGold});
+            return this;
+        }
+
+        /**
+         * Adds an item that drops on every kill
+         * @param name Item name from the catalog
+         * @param minGold Lowest gold value
+         * @param maxGold Highest gold value
+         */
+        public Builder guaranteed(String name, int minGold, int maxGold) {
+            checkGold(minGold, maxGold);
+            if (guaranteed.size() + 1 >= MAX_DROPS) {
+                throw new IllegalArgumentException("At most " + (MAX_DROPS - 1) + " guaranteed drops");
+            }
+            guaranteed.add(new int[] {itemId(name), minGold, maxGold});
+            return this;
+        }
+
+        /**
+         * Compiles the table
+         */
+        public LootTable build() {
+            int n = entries.size();
+            int[] items = new int[n];
+            int[] weights = new int[n];
+            int[] minGold = new int[n];
+            int[] goldRange = new int[n];
+            for (int i = 0; i < n; i++) {
+                int[] entry = entries.get(i);
+                items[i] = entry[0];
+                weights[i] = entry[1];
+                minGold[i] = entry[2];
+                goldRange[i] = entry[3] - entry[2] + 1;
+            }
+            int[] always = new int[guaranteed.size() * 3];
+            for (int g = 0; g < guaranteed.size(); g++) {
+                int[] drop = guaranteed.get(g);
+                always[g * 3] = drop[0];
+                always[g * 3 + 1] = drop[1];
+                always[g * 3 + 2] = drop[2] - drop[1] + 1;
+            }
+            return new LootTable(dropChance, items, weights, minGold, goldRange, always);
+        }
+
+        private static void checkGold(int minGold, int maxGold) {
+            if (minGold < 0 || maxGold < minGold) {
+                throw new IllegalArgumentException("Bad gold range " + minGold + "-" + maxGold);
+            }
+        }
+    }
+}
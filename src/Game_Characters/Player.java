@@ -1,66 +1,90 @@
 package Game_Characters;
 
+import GameHandlers.Actors.Actor;
+import GameHandlers.Actors.ActorMessage;
+import GameHandlers.Actors.ActorRef;
+import GameHandlers.GameEvent;
 import GameHandlers.GameManager;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Random;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.TreeMap;
 
 //Methods List:
-// - setGameManager(GameManager gameManager):
+// - setGameManager(GameManager gameManager):  also spawns the player's actor on the game's ActorRuntime
 // - notifyFled():  notifeies the game manager that the player fled
-// - run():
+// - publish(GameEvent event):  publishes an event on the game's GameEventStream (nothing outside a game)
+// - run():  the Knight sets out (runs when the START message arrives)
+// - receive(ActorMessage message):  handles the player's mail: a step per player tick, held back during battles
 // - stepForward():
 // - determineSteps():
 // - heal(float percentage):  heals the player for a percentage of their max health
 // - gainExperience(int exp):  [SYNCHRONIZED] adds experience points and checks for level up
-// - checkLevelUp():  checks if the player has enough experience to level up
+// - checkLevelUp():  resolves every level the current experience reaches in one lookup (see ExperienceTable)
 // - addGold(int amount):  [SYNCHRONIZED with LOCK] adds gold to player's treasure
 // - spendGold(int amount):  [SYNCHRONIZED with LOCK] spends gold if player has enough
 // - collectLoot(String lootName, int goldValue):  thread-safe method to collect loot from battles
+// - applyRewards(RewardAccumulator rewards):  [SYNCHRONIZED with both locks] applies a whole battle's rewards as one batch
 
 //Abstract Methods (Implemented):
 // - takeDamage(int damage):
 // - dealDamage():
-// - updateCharacterData():
 // - getCurrentStep():
 // - setCurrentStep(int step):
 
 //Getters:
+// - getName() / getMaxHealth() / getAttack() / getStealth():  the Knight keeps its own stats since they grow on level up
 // - getLevel():
 // - getExperience():
 // - getExperienceToNextLevel():
 // - getGold():  [SYNCHRONIZED with LOCK] returns current gold amount
+// - getBattlesWon() / getBattlesLost() / getBattlesFled() / getTotalDefeated():  [SYNCHRONIZED]
+// - getActorRef():  the ref used to send messages to this player
 
-public class Player extends GameCharacter implements CanStep {
+public class Player extends GameCharacter implements CanStep, Actor {
 
     //Variables
+    private final String name = "Knight";
+    private int maxHealth; // Grows with each level up
+    private int attack;
+    private int stealth;
     private int level;
     private volatile int experience; // Volatile ensures visibility across threads
     private int experienceToNextLevel;
     private volatile int gold; // Shared resource: gold collected from battles and loot
     private final Object resourceLock = new Object(); // Lock for accessing shared resources
     
-    // Battle Statistics (ArrayList for tracking items/enemies)
-    private List<String> defeatedEnemies; // Track enemies defeated by name
-    private List<String> itemsCollected; // Track items/loot collected
+    // Battle Statistics (counted per type, so a swarm of kills or drops doesn't grow a list per entry)
+    private Map<String, Integer> defeatedByType; // Enemy type -> number defeated, in order of first defeat
+    private Map<String, Integer> itemsCollected; // Item -> number collected, sorted by name
+    private int totalDefeated;
+    private int totalItems;
     private int battlesWon;
     private int battlesLost;
     private int battlesFled;
     
     public GameManager gameManager;
+    private static final int MAILBOX_CAPACITY = 64;
+    private ActorRef self;        // This player's actor on the game's ActorRuntime
+    private boolean inBattle;     // Actor state, only touched in receive()
+    private int heldSteps;        // Player ticks that arrived during a battle
 
     //Constructor
     public Player() {
-        super("Knight", 15, 3, 5);
+        super(15);
+        this.maxHealth = 15;
+        this.attack = 3;
+        this.stealth = 5;
         this.level = 1;
         this.experience = 0;
-        this.experienceToNextLevel = 3;
+        this.experienceToNextLevel = ExperienceTable.toNextLevel(1);
         this.gold = 0; // Start with no gold
         
-        // Initialize ArrayLists for tracking
-        this.defeatedEnemies = new ArrayList<>();
-        this.itemsCollected = new ArrayList<>();
+        // Initialize the statistics maps
+        this.defeatedByType = new LinkedHashMap<>();
+        this.itemsCollected = new TreeMap<>();
         this.battlesWon = 0;
         this.battlesLost = 0;
         this.battlesFled = 0;
@@ -68,52 +92,84 @@ public class Player extends GameCharacter implements CanStep {
 
     public void setGameManager(GameManager gameManager) {
         this.gameManager = gameManager;
+        this.self = gameManager.getActors().spawn(this, name, MAILBOX_CAPACITY);
     }
+
+    public ActorRef getActorRef() {
+        return self;
+    }
+
+    /**
+     * Publishes an event on the game's GameEventStream. A player outside a game (a simulation, a benchmark)
+     * has nobody to tell.
+     * @param event The event
+     */
+    public void publish(GameEvent event) {
+        if (gameManager != null) {
+            gameManager.getEvents().publish(event);
+        }
+    }
+
+    //Getters
+    @Override
+    public String getName() { return name; }
+    @Override
+    public int getMaxHealth() { return maxHealth; }
+    @Override
+    public int getAttack() { return attack; }
+    @Override
+    public int getStealth() { return stealth; }
+    public int getLevel() { return level; }
+    public int getExperience() { return experience; }
+    public int getExperienceToNextLevel() { return experienceToNextLevel; }
     
     public void notifyFled() {
         if (gameManager != null) {
-            gameManager.setPlayerJustFled(true);
+            gameManager.playerFled();
         }
     }
 
     public void run() {
         System.out.println("The brave Knight sets out on a quest to slay the dragon!");
-        Random rand = new Random();
-        try {
-            while (isAlive && gameManager.isGameRunning()) {
-                // Wait for the game manager to advance to the next step
-                synchronized(gameManager.getStepLock()) {
-                    int currentGameStep = gameManager.getGlobalStepCounter().get();
-                    gameManager.getStepLock().wait();
-                    
-                    // Exit if game step hasn't advanced (game ending)
-                    if (gameManager.getGlobalStepCounter().get() <= currentGameStep) {
-                        break;
-                    }
-                }
-                
-                // Wait if a battle is in progress
-                while (gameManager.isBattleInProgress()) {
-                    Thread.sleep(100);
-                }
-                
-                // Only step forward if player chose to move
-                if (gameManager.shouldPlayerMove()) {
-                    stepForward();
-                    Thread.sleep(rand.nextInt(500) + 200);
-                }
+    }
+
+    /**
+     * Handles one message. Runs on an ActorRuntime worker, one message at a time, and never blocks:
+     * a step that arrives during a battle is held back and taken when the battle ends.
+     */
+    @Override
+    public void receive(ActorMessage message) {
+        if (message == ActorMessage.START) {
+            run();
+        } else if (message == ActorMessage.BATTLE_STARTED) {
+            inBattle = true;
+        } else if (message == ActorMessage.BATTLE_ENDED) {
+            inBattle = false;
+            for (; heldSteps > 0; heldSteps--) {
+                takeStep();
             }
-            if (isAlive) {
-                System.out.println("The Knight returns victorious!");
+        } else if (message instanceof ActorMessage.StepTick) {
+            if (((ActorMessage.StepTick) message).getKind() != ActorMessage.StepTick.PLAYER) {
+                return;
             }
-        } catch (InterruptedException e) {
-            // Thread was interrupted
-            if (isAlive && !gameManager.isBattleInProgress()) {
+            if (inBattle) {
+                heldSteps++;
+            } else {
+                takeStep();
+            }
+        } else if (message == ActorMessage.STOP) {
+            if (isAlive) {
                 System.out.println("The Knight returns victorious!");
             }
         }
     }
 
+    private void takeStep() {
+        if (isAlive && gameManager.isGameRunning()) {
+            stepForward();
+        }
+    }
+
     //Override methods
 
     //Interface methods
@@ -121,9 +177,10 @@ public class Player extends GameCharacter implements CanStep {
     public void stepForward() {
         if (isAlive) {
             currentStep++;
+            markDirty(CharacterData.STEP);
             System.out.println(name + " steps forward to step " + currentStep + ".");
             // Signal that player has moved
-            gameManager.setPlayerHasMoved(true);
+            gameManager.playerMoved();
         } else {
             System.out.println(name + " cannot move, they are defeated.");
         }
@@ -143,6 +200,7 @@ public class Player extends GameCharacter implements CanStep {
     @Override
     public void setCurrentStep(int step) {
         this.currentStep = step;
+        markDirty(CharacterData.STEP);
     }
 
     //superclass methods
@@ -151,11 +209,13 @@ public class Player extends GameCharacter implements CanStep {
         if (isAlive) {
             health -= damage;
             System.out.println(name + " takes " + damage + " damage! Current health: " + health);
+            publish(GameEvent.damage(name, damage));
             if (health <= 0) {
                 isAlive = false;
                 health = 0;
                 System.out.println(name + " has been defeated!");
             }
+            markDirty(CharacterData.HEALTH | CharacterData.ALIVE);
         }
     }
     
@@ -168,6 +228,7 @@ public class Player extends GameCharacter implements CanStep {
             int healAmount = (int)(maxHealth * percentage);
             int oldHealth = health;
             health = Math.min(health + healAmount, maxHealth);
+            markDirty(CharacterData.HEALTH);
             int actualHealing = health - oldHealth;
             System.out.println(name + " heals for " + actualHealing + " HP! Current health: " + health + "/" + maxHealth);
         }
@@ -181,15 +242,6 @@ public class Player extends GameCharacter implements CanStep {
         return attack;
     }
 
-    @Override
-    public CharacterData updateCharacterData() {
-        this.characterData.health = this.health;
-        this.characterData.maxHealth = this.maxHealth;
-        this.characterData.attack = this.attack;
-        this.characterData.stealth = this.stealth;
-        return this.characterData;
-    }
-
     /**
      * Adds experience points to the player (thread-safe).
      * Synchronized to prevent race conditions when multiple enemies are defeated simultaneously.
@@ -203,21 +255,34 @@ public class Player extends GameCharacter implements CanStep {
         }
     }
 
-    public void checkLevelUp() {
-        while (experience >= experienceToNextLevel) {
-            System.out.println(">>> Leveling up! (" + experience + " >= " + experienceToNextLevel + ")");
-            experience -= experienceToNextLevel; // Subtract threshold, keeping remainder
-            
-            maxHealth += 5 * level;
-            attack += 2 * level;
-            stealth += 3 * level;
-            level++;
-            experienceToNextLevel += 5; // Increase threshold for next level
-            health = maxHealth; // Heal to full on level up
-            System.out.println("\n>>> LEVEL UP! " + name + " is now level " + level + "!");
-            System.out.println(">>> Max Health: " + maxHealth + " | Attack: " + attack + " | Stealth: " + stealth);
-            System.out.println(">>> Experience: " + experience + "/" + experienceToNextLevel + "\n");
+    /**
+     * Levels up as far as the current experience reaches. The new level is found in the cumulative
+     * ExperienceTable with one binary search, and the stat growth of every level gained is added at once,
+     * so a huge experience gain prints one level up instead of one per level.
+     */
+    public synchronized void checkLevelUp() {
+        if (experience < experienceToNextLevel || level >= ExperienceTable.MAX_LEVEL) {
+            return;
         }
+        long total = ExperienceTable.totalFor(level) + experience;
+        int newLevel = ExperienceTable.levelFor(total);
+        System.out.println(">>> Leveling up! (" + experience + " >= " + experienceToNextLevel + ")");
+
+        // Each level left behind adds 5/2/3 x that level to max health/attack/stealth
+        long factor = ExperienceTable.statGainFactor(level, newLevel);
+        maxHealth += (int) (5 * factor);
+        attack += (int) (2 * factor);
+        stealth += (int) (3 * factor);
+        int gained = newLevel - level;
+        level = newLevel;
+        experience = (int) (total - ExperienceTable.totalFor(level)); // Keep the remainder
+        experienceToNextLevel = ExperienceTable.toNextLevel(level);
+        health = maxHealth; // Heal to full on level up
+        markDirty(CharacterData.HEALTH | CharacterData.MAX_HEALTH | CharacterData.ATTACK | CharacterData.STEALTH);
+        System.out.println("\n>>> LEVEL UP! " + name + " is now level " + level + "!" + (gained > 1 ? " (+" + gained + " levels)" : ""));
+        System.out.println(">>> Max Health: " + maxHealth + " | Attack: " + attack + " | Stealth: " + stealth);
+        System.out.println(">>> Experience: " + experience + "/" + experienceToNextLevel + "\n");
+        publish(GameEvent.levelUp(name, level));
     }
     
     // ===== SHARED RESOURCE MANAGEMENT (Thread-Safe) =====
@@ -272,12 +337,79 @@ public class Player extends GameCharacter implements CanStep {
         synchronized(resourceLock) {
             if (isAlive && goldValue > 0) {
                 gold += goldValue;
-                itemsCollected.add(lootName); // Track item in ArrayList
+                itemsCollected.merge(lootName, 1, Integer::sum); // Track item
+                totalItems++;
                 System.out.println(">>> " + name + " found " + lootName + " worth " + goldValue + " gold!");
+                publish(GameEvent.loot(lootName, 1, goldValue));
                 System.out.println(">>> Total treasure: " + gold + " gold");
             }
         }
     }
+
+    /**
+     * Applies everything a battle awarded in one batch. Both the player's lock (experience, battle records)
+     * and the resource lock (gold, loot) are held for the whole batch, so no other thread sees half of it.
+     * Kills and the battle's outcome always count; experience, gold and loot only come with a victory.
+     * @param rewards The battle's accumulated rewards
+     */
+    public void applyRewards(RewardAccumulator rewards) {
+        synchronized(this) {
+            synchronized(resourceLock) {
+                // Kill records, one map update per enemy type
+                for (int id = 0; id < EnemyArchetype.count(); id++) {
+                    int kills = rewards.getKills(id);
+                    if (kills > 0) {
+                        defeatedByType.merge(EnemyArchetype.byId(id).getBaseName(), kills, Integer::sum);
+                        totalDefeated += kills;
+                    }
+                }
+
+                int outcome = rewards.getOutcome();
+                if (outcome == RewardAccumulator.WON) {
+                    battlesWon++;
+                } else if (outcome == RewardAccumulator.LOST) {
+                    battlesLost++;
+                } else if (outcome == RewardAccumulator.FLED) {
+                    battlesFled++;
+                }
+                if (outcome != RewardAccumulator.WON || !isAlive) {
+                    return;
+                }
+
+                // Experience, with every level up resolved at once
+                if (rewards.getExperience() > 0) {
+                    int exp = (int) Math.min(Integer.MAX_VALUE - experience, rewards.getExperience());
+                    experience += exp;
+                    System.out.println(name + " gains " + exp + " experience points!");
+                    System.out.println(">>> Current EXP: " + experience + "/" + experienceToNextLevel);
+                    checkLevelUp();
+                }
+
+                // Gold from the enemies, then the loot, one line per kind of item
+                if (rewards.getGold() > 0) {
+                    int collected = (int) Math.min(Integer.MAX_VALUE - gold, rewards.getGold());
+                    gold += collected;
+                    System.out.println(">>> " + name + " collects " + collected + " gold! Total: " + gold + " gold");
+                }
+                if (rewards.getTotalLoot() > 0) {
+                    System.out.println("\n>>> Loot dropped:");
+                    for (int item = 0; item < rewards.getLootTypes(); item++) {
+                        int count = rewards.getLootCount(item);
+                        if (count > 0) {
+                            itemsCollected.merge(rewards.getLootName(item), count, Integer::sum);
+                            System.out.println(">>> " + name + " found " + (count > 1 ? count + "x " : "")
+                                + rewards.getLootName(item) + " worth " + rewards.getLootGold(item) + " gold!");
+                            publish(GameEvent.loot(rewards.getLootName(item), count,
+                                (int) Math.min(Integer.MAX_VALUE, rewards.getLootGold(item))));
+                        }
+                    }
+                    totalItems += rewards.getTotalLoot();
+                    gold += (int) Math.min(Integer.MAX_VALUE - gold, rewards.getLootGold());
+                    System.out.println(">>> Total treasure: " + gold + " gold");
+                }
+            }
+        }
+    }
     
     // ===== BATTLE STATISTICS (Lambda Expressions & Stream Operations) =====
     
@@ -286,7 +418,8 @@ public class Player extends GameCharacter implements CanStep {
      * @param enemyName Name of defeated enemy
      */
     public synchronized void recordEnemyDefeated(String enemyName) {
-        defeatedEnemies.add(enemyName);
+        defeatedByType.merge(enemyName.replaceAll(" #\\d+", ""), 1, Integer::sum); // Remove ID numbers
+        totalDefeated++;
     }
     
     /**
@@ -310,11 +443,19 @@ public class Player extends GameCharacter implements CanStep {
         battlesFled++;
     }
     
+    /**
+     * Gets the battle counts and the number of enemies defeated (thread-safe)
+     */
+    public synchronized int getBattlesWon() { return battlesWon; }
+    public synchronized int getBattlesLost() { return battlesLost; }
+    public synchronized int getBattlesFled() { return battlesFled; }
+    public synchronized int getTotalDefeated() { return totalDefeated; }
+
     /**
      * Gets battle statistics summary using lambda expressions and streams.
      */
-    public String getBattleStatistics() {
-        synchronized(resourceLock) {
+    public synchronized String getBattleStatistics() {
+        synchronized(resourceLock) { // Same lock order as applyRewards()
             StringBuilder stats = new StringBuilder();
             stats.append("\n" + "=".repeat(60) + "\n");
             stats.append(">>> KNIGHT'S BATTLE STATISTICS <<<\n");
@@ -327,35 +468,28 @@ public class Player extends GameCharacter implements CanStep {
                 level, experience, experienceToNextLevel, gold));
             
             // Count total enemies defeated
-            int totalEnemies = defeatedEnemies.size();
-            stats.append(String.format("Total Enemies Defeated: %d\n", totalEnemies));
+            stats.append(String.format("Total Enemies Defeated: %d\n", totalDefeated));
             
-            // Use Stream to count enemy types (lambda expression with grouping)
-            if (!defeatedEnemies.isEmpty()) {
+            // Enemy types (lambda over the per-type counts)
+            if (!defeatedByType.isEmpty()) {
                 stats.append("\nEnemies Defeated By Type:\n");
-                defeatedEnemies.stream()
-                    .collect(Collectors.groupingBy(
-                        name -> name.replaceAll(" #\\d+", ""), // Remove ID numbers
-                        Collectors.counting()
-                    ))
-                    .forEach((enemyType, count) -> 
-                        stats.append(String.format("  - %s: %d\n", enemyType, count))
-                    );
+                defeatedByType.forEach((enemyType, count) -> 
+                    stats.append(String.format("  - %s: %d\n", enemyType, count))
+                );
             }
             
-            // Use Stream to list items collected (lambda filtering)
+            // Items collected, already distinct and sorted by the TreeMap
             if (!itemsCollected.isEmpty()) {
-                stats.append(String.format("\nItems Collected: %d\n", itemsCollected.size()));
-                itemsCollected.stream()
-                    .distinct() // Remove duplicates
-                    .sorted() // Sort alphabetically
+                stats.append(String.format("\nItems Collected: %d\n", totalItems));
+                itemsCollected.keySet()
                     .forEach(item -> stats.append("  - " + item + "\n"));
             }
             
             // Use Stream to calculate total gold from items
-            long itemGoldTotal = itemsCollected.stream()
-                .filter(item -> item.contains("gold")) // Filter gold items
-                .count();
+            long itemGoldTotal = itemsCollected.entrySet().stream()
+                .filter(item -> item.getKey().contains("gold")) // Filter gold items
+                .mapToLong(Map.Entry::getValue)
+                .sum();
             if (itemGoldTotal > 0) {
                 stats.append(String.format("\nGold-related items found: %d\n", itemGoldTotal));
             }
@@ -369,39 +503,38 @@ public class Player extends GameCharacter implements CanStep {
      * Gets a summary of most defeated enemy type using streams.
      * @return Name of most defeated enemy type
      */
-    public String getMostDefeatedEnemyType() {
-        if (defeatedEnemies.isEmpty()) {
+    public synchronized String getMostDefeatedEnemyType() {
+        if (defeatedByType.isEmpty()) {
             return "None";
         }
         
-        return defeatedEnemies.stream()
-            .collect(Collectors.groupingBy(
-                name -> name.replaceAll(" #\\d+", ""), // Remove ID numbers
-                Collectors.counting()
-            ))
-            .entrySet().stream()
-            .max((e1, e2) -> Long.compare(e1.getValue(), e2.getValue()))
+        return defeatedByType.entrySet().stream()
+            .max((e1, e2) -> Integer.compare(e1.getValue(), e2.getValue()))
             .map(entry -> entry.getKey() + " (" + entry.getValue() + " defeated)")
             .orElse("None");
     }
     
     /**
-     * Gets list of all defeated enemies (for logging/display).
+     * Gets list of all defeated enemies by type, one entry per enemy (for logging/display).
      * @return Defensive copy of defeated enemies list
      */
-    public List<String> getDefeatedEnemies() {
-        synchronized(resourceLock) {
-            return new ArrayList<>(defeatedEnemies); // Return defensive copy
-        }
+    public synchronized List<String> getDefeatedEnemies() {
+        return expand(defeatedByType, totalDefeated);
     }
     
     /**
-     * Gets list of all collected items (for logging/display).
+     * Gets list of all collected items, one entry per item (for logging/display).
      * @return Defensive copy of items list
      */
     public List<String> getItemsCollected() {
         synchronized(resourceLock) {
-            return new ArrayList<>(itemsCollected); // Return defensive copy
+            return expand(itemsCollected, totalItems);
         }
     }
+
+    private static List<String> expand(Map<String, Integer> counts, int total) {
+        List<String> list = new ArrayList<>(total);
+        counts.forEach((entry, count) -> list.addAll(Collections.nCopies(count, entry)));
+        return list;
+    }
 }
\ No newline at end of file
@@ -1,124 +1,157 @@
 package Game_Characters.PlayerInput;
 
+import GameHandlers.GameEvent;
 import Game_Characters.Enemy;
 import Game_Characters.Player;
 import java.util.List;
 
 //Methods List:
+// - reopen():  resets the menu so it can be shown again on a later turn
 // - attackLogic(float modifier):
 // - checkAndRemoveDefeatedEnemies():
 
-//Abstract Methods (Implemented):
-// - initializeOptions():
-
 //Inner Classes:
 // - SlashAttack:
-//   - execute():
+//   - execute(AttackChosen attack):
 // - FireAttack:
-//   - execute():
+//   - execute(AttackChosen attack):
+
+/*
+* How it works:
+* AttackChosen is the attack sub-menu of a battle. Each AttackInteraction creates one AttackChosen the first
+* time the player attacks and shows that same instance on every later turn, and both attack options are
+* shared flyweights, so attacking does not build any new menu objects.
+* In a battle on a BattleKernel, Fire hits every enemy through the kernel (one loop per archetype, one line of
+* text per archetype) and the defeated are reported as one count.
+*/
 
 public class AttackChosen extends Interaction {
-    
+
+    private static final List<Option<AttackChosen>> OPTIONS = List.of(new SlashAttack(), new FireAttack());
+    static final int SLASH_INDEX = 0;         // Positions in OPTIONS
+    static final int FIRE_INDEX = 1;
+    static final float SLASH_MODIFIER = 1.0f; // Full damage to the first enemy
+    static final float FIRE_MODIFIER = 0.5f;  // Half damage to every enemy
+
     private Player player;
     private List<Enemy> enemies;
     private Enemy targetEnemy;
     private AttackInteraction parentBattle;
-    
+
     //constructor
     public AttackChosen(Player player, List<Enemy> enemies, AttackInteraction parentBattle) {
-        super("Attack Chosen", "You have chosen to attack!");
+        super("Attack Chosen", "You have chosen to attack!", OPTIONS);
         this.player = player;
         this.enemies = enemies;
         this.targetEnemy = enemies.get(0); // Default to first enemy
         this.parentBattle = parentBattle;
     }
 
-    //Overrides
-    @Override
-    protected void initializeOptions() {
-        // Implementation for AttackChosen interaction options
-        addOption(new SlashAttack());
-        addOption(new FireAttack());
+    /**
+     * Resets the menu so the same instance can be shown again on a later turn
+     * @return this interaction
+     */
+    public AttackChosen reopen() {
+        setComplete(false);
+        return this;
     }
 
-    public class SlashAttack extends Option {
+    private static class SlashAttack extends Option<AttackChosen> {
         public SlashAttack() {
             super("Perform a Slash Attack");
         }
 
         @Override
-        public Interaction execute() {
+        public Interaction execute(AttackChosen attack) {
             //option text
             System.out.println("\nYou perform a powerful slash attack!");
 
             //Unique attack logic
-            targetEnemy = enemies.get(0); // Always target the first enemy
-            attackLogic(1.0f);
+            attack.targetEnemy = attack.enemies.get(0); // Always target the first enemy
+            attack.attackLogic(SLASH_MODIFIER);
 
-            // Check all enemies for defeat and award exp
-            checkAndRemoveDefeatedEnemies();
-
-            // All enemies counter-attack (if any remain)
-            if (!enemies.isEmpty()) {
-                parentBattle.triggerEnemiesTurn();
-            }
-
-            // Return to parent battle to check status
-            return parentBattle.checkStatus();
+            return attack.finishAttack();
         }
     }
 
-    public class FireAttack extends Option {
+    private static class FireAttack extends Option<AttackChosen> {
         public FireAttack() {
             super("Perform a Fire Attack");
         }
 
         @Override
-        public Interaction execute() {
+        public Interaction execute(AttackChosen attack) {
             //Option text
             System.out.println("\nYou cast a blazing fire attack! All enemies hit!");
 
             //Unique attack logic
-            for (Enemy enemy : enemies) {
-                targetEnemy = enemy;
-                attackLogic(0.5f);
+            BattleKernel kernel = attack.parentBattle.getKernel();
+            if (kernel != null) {
+                System.out.println("\n>>> " + attack.player.getName() + " attacks all " + attack.enemies.size() + " enemies!");
+                int damage = (int)(attack.player.dealDamage() * FIRE_MODIFIER);
+                kernel.hitAll(damage);
+                attack.player.publish(GameEvent.damage(attack.enemies.size() + " enemies", damage)); // One event for the blast
+                return attack.finishAttack();
             }
-
-            // Check all enemies for defeat and award exp
-            checkAndRemoveDefeatedEnemies();
-
-            // All enemies counter-attack (if any remain)
-            if (!enemies.isEmpty()) {
-                parentBattle.triggerEnemiesTurn();
+            for (int i = 0; i < attack.enemies.size(); i++) {
+                attack.targetEnemy = attack.enemies.get(i);
+                attack.attackLogic(FIRE_MODIFIER);
             }
 
-            // Return to parent battle to check status
-            return parentBattle.checkStatus();
+            return attack.finishAttack();
         }
     }
 
+    /**
+     * Shared ending for both attacks: remove the defeated, let survivors strike back and
+     * return to the parent battle
+     */
+    private Interaction finishAttack() {
+        // Check all enemies for defeat and award exp
+        checkAndRemoveDefeatedEnemies();
+
+        // All enemies counter-attack (if any remain)
+        if (!enemies.isEmpty()) {
+            parentBattle.triggerEnemiesTurn();
+        }
+
+        // Return to parent battle to check status
+        return parentBattle.checkStatus();
+    }
+
     private void attackLogic(float modifier) {
         System.out.println("\n>>> " + player.getName() + " attacks " + targetEnemy.getName() + "!");
         int playerDamage = (int)(player.dealDamage() * modifier);
         targetEnemy.takeDamage(playerDamage);
+        player.publish(GameEvent.damage(targetEnemy.getName(), playerDamage));
     }
 
     private void checkAndRemoveDefeatedEnemies() {
-        // Use iterator to safely remove while iterating
-        enemies.removeIf(enemy -> {
+        // Compact the survivors to the front of the list, keeping their order
+        BattleKernel kernel = parentBattle.getKernel();
+        int kept = 0;
+        for (int i = 0; i < enemies.size(); i++) {
+            Enemy enemy = enemies.get(i);
             if (!enemy.getAlive()) {
-                System.out.println(">>> " + enemy.getName() + " has been defeated!");
-                // Award experience and gold (demonstrates concurrent resource access)
-                parentBattle.addExpGained(enemy.getExpOnDefeat());
-                parentBattle.addGoldGained(enemy.getGoldValue());
-                // Record enemy defeat in ArrayList (functional enhancement)
-                player.recordEnemyDefeated(enemy.getName());
-                return true; // Remove this enemy
+                if (kernel == null) {
+                    System.out.println(">>> " + enemy.getName() + " has been defeated!");
+                }
+                // Experience, gold and the kill record are added to the battle's rewards, committed when it ends
+                parentBattle.recordKill(enemy);
+            } else {
+                enemies.set(kept++, enemy);
             }
-            return false; // Keep this enemy
-        });
+        }
+        int defeated = enemies.size() - kept;
+        while (enemies.size() > kept) {
+            enemies.remove(enemies.size() - 1);
+        }
+        if (kernel != null && defeated > 0) {
+            kernel.sweep();
+            System.out.println(">>> " + defeated + " enem" + (defeated == 1 ? "y has" : "ies have") + " been defeated!");
+        }
     }
 
 
-    
+
 }
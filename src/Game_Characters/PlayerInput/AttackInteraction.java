@@ -1,63 +1,98 @@
 package Game_Characters.PlayerInput;
 
+import GameHandlers.TimingWheel;
 import Game_Characters.Enemy;
+import Game_Characters.EnemyArchetype;
+import Game_Characters.LootTable;
 import Game_Characters.Player;
+import Game_Characters.RewardAccumulator;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 
 //Methods List:
-// - addExpGained(int exp):
+// - recordKill(Enemy enemy):  adds a defeated enemy and the loot it drops to this battle's rewards
+// - setVictoryPause(long millis):
+// - hasLivingEnemies():
 // - triggerEnemiesTurn():
 // - checkStatus():
 // - allEnemiesTurn():
 // - checkBattleStatus():
+// - getAttackMenu():  returns this battle's reusable AttackChosen sub-menu
+// - getKernel():  [package] the battle's BattleKernel, or null if it runs enemy by enemy
+// - endDefense():  the defend buff's timer: the stance ends after one round of enemy attacks
+// - simulate():  [package] copies the battle's current state into a BattleSim
+// - solve():  works out the best line of play from the battle's current state (see BattleSolver)
+// - play(int action):  [package] plays one BattleSim action through the normal options
+// - optionFor(int action):  [package] the menu option a BattleSim action is picked with
 
-//Abstract Methods (Implemented):
-// - initializeOptions():
-
-//Inner Classes:
+//Inner Classes (shared flyweight options):
 // - AttackOption:
-//   - execute():
+//   - execute(AttackInteraction battle):
 // - DefendOption:
-//   - execute():
+//   - execute(AttackInteraction battle):
 // - HealOption:
-//   - execute():
+//   - execute(AttackInteraction battle):
 // - CheckEnemyOption:
-//   - execute():
+//   - execute(AttackInteraction battle):
 // - FleeOption:
-//   - execute():
+//   - execute(AttackInteraction battle):
+// - AutoResolveOption:
+//   - execute(AttackInteraction battle):  finishes a battle the BattleSolver says is a sure win
+
+/*
+* How it works:
+* The five battle options are created once and shared by every battle. An option gets the battle it was
+* picked from as an argument, so the same option objects serve every turn of every fight. The attack
+* sub-menu (AttackChosen) is created on the first attack and reopened on each later one.
+* Rewards (experience, gold, loot, kills) are collected in a RewardAccumulator while the battle runs and handed
+* to the player in one batch when it ends, instead of one locked call and print per kill and per item.
+* Each kill rolls the enemy archetype's LootTable into a small int buffer that is reused for the whole battle.
+* Each battle has a TimingWheel of rounds that moves on once all enemies have attacked. Effects that last a number
+* of rounds (the defend stance, the TickiBird's fuse) are timers on it instead of counters checked every round.
+* Battles with BattleKernel.MIN_ENEMIES enemies or more run on a BattleKernel instead: the enemies are grouped by
+* archetype, rounds of attacks and Fire attacks go one archetype at a time, and the TickiBird's fuse comes from its
+* archetype's attack period rather than a timer.
+* Auto-Resolve asks the BattleSolver for the best line of play from the current state. If that line wins, it is
+* played through the normal options (so rewards, timers and messages are exactly those of a hand-played battle)
+* without asking for input; otherwise the player is told the best result and keeps their turn.
+*/
 
 public class AttackInteraction extends Interaction {
+
+    private static final List<Option<AttackInteraction>> OPTIONS = List.of(
+        new AttackOption(), new DefendOption(), new HealOption(), new CheckEnemyOption(), new FleeOption(),
+        new AutoResolveOption());
+    private static final int ATTACK_INDEX = 0; // Positions in OPTIONS, used to play BattleSim actions for real
+    private static final int DEFEND_INDEX = 1;
+    private static final int HEAL_INDEX = 2;
+    private static final int CHECK_INDEX = 3;
+    private static final int FLEE_INDEX = 4;
+    static final float HEAL_FRACTION = 0.3f; // Share of max health restored by Heal
     
     private Player player;
+    private AttackChosen attackMenu; // Created on the first attack and reused every turn after
     private List<Enemy> enemies;
     private boolean playerDefending;
-    private int expGained = 0;
-    private int goldGained = 0; // Track gold from defeated enemies
+    private final TimingWheel rounds = new TimingWheel(64); // One tick per round of enemy attacks
+    private final RewardAccumulator rewards = new RewardAccumulator(LOOT_ITEMS); // Committed to the player when the battle ends
+    private final int[] lootDrops = new int[2 * LootTable.MAX_DROPS]; // (item, gold) pairs of the last kill
     private int failedFleeAttempts = 0;
+    private BattleKernel kernel;    // Set for battles big enough to run per archetype
+    private long victoryPauseMillis = 2000; // Pause after victory so the player can read the results
     
-    // Loot table (Array of possible loot items) - Requirement 4
-    private static final String[] LOOT_ITEMS = {
-        "Health Potion", "Rusty Sword", "Ancient Coin", "Magic Scroll",
-        "Leather Armor", "Gold Ring", "Silver Dagger", "Emerald Gem"
-    };
+    // Names of the possible loot items (Array) - Requirement 4; each archetype's LootTable picks from them by index
+    private static final String[] LOOT_ITEMS = lootItemNames();
     private static final Random random = new Random();
     
     /**
-     * Adds experience gained from defeating an enemy.
-     * Called by AttackChosen interaction when enemies are defeated.
-     */
-    public void addExpGained(int exp) {
-        this.expGained += exp;
-    }
-    
-    /**
-     * Adds gold gained from defeating an enemy (demonstrates concurrent resource access).
+     * Adds a defeated enemy (its experience, gold and kill record) and the loot it drops to this battle's rewards.
+     * The loot only reaches the player if the battle is won.
      * Called by AttackChosen interaction when enemies are defeated.
      */
-    public void addGoldGained(int gold) {
-        this.goldGained += gold;
+    public void recordKill(Enemy enemy) {
+        rewards.addKill(enemy);
+        dropLoot(enemy);
     }
     
     /**
@@ -76,17 +111,34 @@ public class AttackInteraction extends Interaction {
         return checkBattleStatus();
     }
     
+    /**
+     * Sets how long the battle pauses after a victory.
+     * Remote sessions use 0 so the network thread is never put to sleep.
+     * @param millis Pause length in milliseconds
+     */
+    public void setVictoryPause(long millis) {
+        this.victoryPauseMillis = millis;
+    }
+
+    /**
+     * Checks if any enemies are still standing (e.g. after the player fled)
+     */
+    public boolean hasLivingEnemies() {
+        return !enemies.isEmpty();
+    }
+    
     /**
      * Creates a new battle interaction with a single enemy
      * @param player The player character
      * @param enemy The enemy being fought
      */
     public AttackInteraction(Player player, Enemy enemy) {
-        super("Battle", "Choose your action:");
+        super("Battle", "Choose your action:", OPTIONS);
         this.player = player;
         this.enemies = new ArrayList<>();
         this.enemies.add(enemy);
         this.playerDefending = false;
+        enemy.joinBattle(rounds);
     }
     
     /**
@@ -95,96 +147,113 @@ public class AttackInteraction extends Interaction {
      * @param enemies The list of enemies being fought
      */
     public AttackInteraction(Player player, List<Enemy> enemies) {
-        super("Battle", "Choose your action:");
+        super("Battle", "Choose your action:", OPTIONS);
         this.player = player;
         this.enemies = new ArrayList<>(enemies);
         this.playerDefending = false;
+        if (BattleKernel.suits(this.enemies.size())) {
+            this.kernel = new BattleKernel(this.enemies); // Timed behavior comes from the archetypes, no timers
+            return;
+        }
+        for (Enemy enemy : this.enemies) {
+            enemy.joinBattle(rounds);
+        }
     }
 
-    @Override
-    protected void initializeOptions() {
-        addOption(new AttackOption());
-        addOption(new DefendOption());
-        addOption(new HealOption());
-        addOption(new CheckEnemyOption());
-        addOption(new FleeOption());
+    /**
+     * Gets the attack sub-menu for this battle, creating it on first use
+     */
+    private AttackChosen getAttackMenu() {
+        if (attackMenu == null) {
+            attackMenu = new AttackChosen(player, enemies, this);
+        }
+        return attackMenu.reopen();
+    }
+
+    /**
+     * Gets the battle's BattleKernel
+     * @return The kernel, or null if the battle runs enemy by enemy
+     */
+    BattleKernel getKernel() {
+        return kernel;
     }
 
     /**
      * Option to attack the enemy
      */
-    public class AttackOption extends Option {
+    private static class AttackOption extends Option<AttackInteraction> {
         public AttackOption() {
             super("Attack");
         }
 
         @Override
-        public Interaction execute() {
+        public Interaction execute(AttackInteraction battle) {
             // Return the AttackChosen interaction - let the interaction system handle it
-            return new AttackChosen(player, enemies, AttackInteraction.this);
+            return battle.getAttackMenu();
         }
     }
     
     /**
      * Option to defend, reducing incoming damage
      */
-    public class DefendOption extends Option {
+    private static class DefendOption extends Option<AttackInteraction> {
         public DefendOption() {
             super("Defend");
         }
 
         @Override
-        public Interaction execute() {
-            System.out.println("\n>>> " + player.getName() + " takes a defensive stance!");
-            playerDefending = true;
+        public Interaction execute(AttackInteraction battle) {
+            System.out.println("\n>>> " + battle.player.getName() + " takes a defensive stance!");
+            battle.playerDefending = true;
+            battle.rounds.schedule(1, battle::endDefense); // Lasts for the enemies' next round
             
             // All enemies attack but player defends
-            allEnemiesTurn();
+            battle.allEnemiesTurn();
             
             // Check battle status
-            return checkBattleStatus();
+            return battle.checkBattleStatus();
         }
     }
     
     /**
      * Option to heal, restoring health
      */
-    public class HealOption extends Option {
+    private static class HealOption extends Option<AttackInteraction> {
         public HealOption() {
             super("Heal");
         }
 
         @Override
-        public Interaction execute() {
-            System.out.println("\n>>> " + player.getName() + " focuses on healing!");
-            player.heal(0.3f); // Heal 30% of max health
-            playerDefending = false;
+        public Interaction execute(AttackInteraction battle) {
+            System.out.println("\n>>> " + battle.player.getName() + " focuses on healing!");
+            battle.player.heal(HEAL_FRACTION); // Heal 30% of max health
+            battle.playerDefending = false;
             
             // All enemies attack while player heals
-            allEnemiesTurn();
+            battle.allEnemiesTurn();
             
             // Check battle status
-            return checkBattleStatus();
+            return battle.checkBattleStatus();
         }
     }
     
     /**
      * Option to check enemy stats
      */
-    public class CheckEnemyOption extends Option {
+    private static class CheckEnemyOption extends Option<AttackInteraction> {
         public CheckEnemyOption() {
             super("Check Enemy");
         }
 
         @Override
-        public Interaction execute() {
+        public Interaction execute(AttackInteraction battle) {
             // Always check the first enemy (current target)
-            if (enemies.isEmpty()) {
+            if (battle.enemies.isEmpty()) {
                 System.out.println("\nNo enemies to check!");
-                return AttackInteraction.this;
+                return battle;
             }
             
-            Enemy targetEnemy = enemies.get(0);
+            Enemy targetEnemy = battle.enemies.get(0);
             
             System.out.println(targetEnemy.getCheckMessage());
             System.out.println("\n=== Enemy Stats ===");
@@ -193,75 +262,190 @@ public class AttackInteraction extends Interaction {
             System.out.println("Attack Power: " + targetEnemy.getAttack());
             System.out.println("Enemy Stealth: " + targetEnemy.getStealth());
             
-            if (enemies.size() > 1) {
-                System.out.println("\n" + (enemies.size() - 1) + " other enemy(ies) waiting...");
+            if (battle.enemies.size() > 1) {
+                System.out.println("\n" + (battle.enemies.size() - 1) + " other enemy(ies) waiting...");
             }
             System.out.println("==================\n");
             
             // Checking takes a turn - enemies attack
             System.out.println(">>> While you examine the enemy, they strike!");
-            allEnemiesTurn();
+            battle.allEnemiesTurn();
             
             // Check battle status
-            return checkBattleStatus();
+            return battle.checkBattleStatus();
         }
     }
 
     /**
      * Option to flee from battle
      */
-    public class FleeOption extends Option {
+    private static class FleeOption extends Option<AttackInteraction> {
         public FleeOption() {
             super("Flee");
         }
 
         @Override
-        public Interaction execute() {
-            int baseStealth = player.getStealth();
+        public Interaction execute(AttackInteraction battle) {
+            int baseStealth = battle.player.getStealth();
             // Effective stealth increases with each failed flee attempt
             // Formula: baseStealth * (1 + failedFleeAttempts)
-            int effectiveStealth = baseStealth * (1 + failedFleeAttempts);
+            int effectiveStealth = baseStealth * (1 + battle.failedFleeAttempts);
             
-            System.out.println("\n>>> " + player.getName() + " attempts to flee...");
-            if (failedFleeAttempts > 0) {
+            System.out.println("\n>>> " + battle.player.getName() + " attempts to flee...");
+            if (battle.failedFleeAttempts > 0) {
                 System.out.println(">>> Desperation increases flee chance! (Effective Stealth: " + effectiveStealth + ")");
             }
             
             // Need to beat all enemies' stealth to flee
             boolean canFlee = true;
-            for (Enemy e : enemies) {
-                if (effectiveStealth <= e.getStealth()) {
+            for (int i = 0; i < battle.enemies.size(); i++) {
+                if (effectiveStealth <= battle.enemies.get(i).getStealth()) {
                     canFlee = false;
                     break;
                 } 
             }
 
             if (canFlee) {
-                System.out.println(">>> SUCCESS! " + player.getName() + " flees from battle!");
-                player.notifyFled();
-                player.recordBattleFled(); // Track battle fled (functional enhancement)
-                setComplete(true);
+                System.out.println(">>> SUCCESS! " + battle.player.getName() + " flees from battle!");
+                battle.player.notifyFled();
+                battle.rewards.setOutcome(RewardAccumulator.FLED); // Track battle fled, and the kills made before fleeing
+                battle.rewards.commitTo(battle.player);
+                battle.setComplete(true);
                 return null;
             } else {
-                failedFleeAttempts++;
-                System.out.println(">>> FAILED! " + player.getName() + " couldn't escape! (Attempt #" + failedFleeAttempts + ")");
+                battle.failedFleeAttempts++;
+                System.out.println(">>> FAILED! " + battle.player.getName() + " couldn't escape! (Attempt #" + battle.failedFleeAttempts + ")");
             }
             
             // Failed flee attempt - all enemies get free attack
-            allEnemiesTurn();
+            battle.allEnemiesTurn();
             
             // Check battle status
-            return checkBattleStatus();
+            return battle.checkBattleStatus();
         }
     }
     
+    /**
+     * Option to let the BattleSolver finish a battle that can't be lost
+     */
+    private static class AutoResolveOption extends Option<AttackInteraction> {
+        public AutoResolveOption() {
+            super("Auto-Resolve");
+        }
+
+        @Override
+        public Interaction execute(AttackInteraction battle) {
+            BattleSolver.Solution solution = battle.solve();
+            if (solution == null) {
+                System.out.println("\n>>> This battle is too big to auto-resolve. Choose an action!");
+                return battle;
+            }
+            if (!solution.isWin()) {
+                // Not a sure win: say what the best play leads to and leave the turn to the player
+                System.out.println("\n>>> Auto-resolve can't promise a win here (best play: " + solution + ").");
+                return battle;
+            }
+
+            System.out.println("\n>>> Auto-resolving: " + solution + "!");
+            Interaction next = battle;
+            for (int action : solution.getPlan()) {
+                next = battle.play(action);
+                if (next == null) {
+                    break;
+                }
+            }
+            return next;
+        }
+    }
+
     //UNDERHOOD METHODS
 
     /**
-     * Executes all living enemies' turns in combat
+     * Copies the battle's current state into a BattleSim (for the Autopilot's searches)
+     */
+    BattleSim simulate() {
+        BattleSim sim = new BattleSim(player.getMaxHealth(), player.getAttack(), player.getStealth(), archetypes());
+        return sim.set(player.getHealth(), enemyHealth(), (int) rounds.now(), failedFleeAttempts);
+    }
+
+    /**
+     * Works out the best line of play from the battle's current state
+     * @return The solution, or null if the battle is too big to solve
+     */
+    private BattleSolver.Solution solve() {
+        BattleSolver solver = BattleSolver.forBattle(
+            player.getMaxHealth(), player.getAttack(), player.getStealth(), archetypes());
+        return solver.solve(player.getHealth(), enemyHealth(), (int) rounds.now(), failedFleeAttempts);
+    }
+
+    /**
+     * Plays one BattleSim action through the same options the player picks from
+     * @return The next interaction, or null if the battle ended
+     */
+    Interaction play(int action) {
+        switch (action) {
+            case BattleSim.SLASH:
+                return getAttackMenu().executeOption(AttackChosen.SLASH_INDEX);
+            case BattleSim.FIRE:
+                return getAttackMenu().executeOption(AttackChosen.FIRE_INDEX);
+            case BattleSim.DEFEND:
+                return executeOption(DEFEND_INDEX);
+            case BattleSim.HEAL:
+                return executeOption(HEAL_INDEX);
+            case BattleSim.CHECK:
+                return executeOption(CHECK_INDEX);
+            default:
+                return executeOption(FLEE_INDEX);
+        }
+    }
+
+    /**
+     * Gets the option index of a BattleSim action in this battle's menu (both attacks go through Attack)
+     */
+    static int optionFor(int action) {
+        switch (action) {
+            case BattleSim.SLASH:
+            case BattleSim.FIRE:
+                return ATTACK_INDEX;
+            case BattleSim.DEFEND:
+                return DEFEND_INDEX;
+            case BattleSim.HEAL:
+                return HEAL_INDEX;
+            case BattleSim.CHECK:
+                return CHECK_INDEX;
+            default:
+                return FLEE_INDEX;
+        }
+    }
+
+    private EnemyArchetype[] archetypes() {
+        EnemyArchetype[] archetypes = new EnemyArchetype[enemies.size()];
+        for (int i = 0; i < archetypes.length; i++) {
+            archetypes[i] = enemies.get(i).getArchetype();
+        }
+        return archetypes;
+    }
+
+    private int[] enemyHealth() {
+        int[] health = new int[enemies.size()];
+        for (int i = 0; i < health.length; i++) {
+            health[i] = enemies.get(i).getHealth();
+        }
+        return health;
+    }
+
+    /**
+     * Executes all living enemies' turns in combat. Each hit is halved if the player is defending.
+     * A battle on a kernel works its round out per archetype.
      */
     private void allEnemiesTurn() {
-        for (Enemy enemy : enemies) {
+        if (kernel != null) {
+            kernel.attackRound(player, rounds.now() + 1, playerDefending);
+            rounds.advance(1);
+            return;
+        }
+        for (int i = 0; i < enemies.size(); i++) {
+            Enemy enemy = enemies.get(i);
             if (enemy.getAlive()) {
                 System.out.println(">>> " + enemy.getName() + " attacks!");
                 int enemyDamage = enemy.dealDamage();
@@ -275,32 +459,35 @@ public class AttackInteraction extends Interaction {
             }
         }
         
-        // Show defense message once if defending
-        if (playerDefending) {
-            System.out.println(">>> " + player.getName() + "'s defense reduces all damage!");
-            playerDefending = false;
-        }
+        // The round is over: timed effects that end with it (the defend stance, the TickiBird's fuse) run out
+        rounds.advance(1);
+    }
+
+    /**
+     * Ends the defend stance after the round of attacks it was taken for
+     */
+    private void endDefense() {
+        System.out.println(">>> " + player.getName() + "'s defense reduces all damage!");
+        playerDefending = false;
     }
     
     /**
-     * Generates random loot drops using array and Random (Requirement 4)
-     * Uses lambda expression to filter and display loot
+     * Rolls a defeated enemy's loot table using array and Random (Requirement 4)
+     * Each drop goes into the battle's rewards; they are shown when the rewards are committed
      */
-    private void dropRandomLoot() {
-        // 50% chance to drop loot per defeated enemy
-        int lootCount = random.nextInt(enemies.size() + 1);
-        
-        if (lootCount > 0) {
-            System.out.println("\n>>> Loot dropped:");
-            // Use stream and lambda to generate random loot from array
-            random.ints(lootCount, 0, LOOT_ITEMS.length)
-                  .mapToObj(i -> LOOT_ITEMS[i])
-                  .forEach(item -> {
-                      // Random gold value between 5-50
-                      int goldValue = 5 + random.nextInt(46);
-                      player.collectLoot(item, goldValue);
-                  });
+    private void dropLoot(Enemy enemy) {
+        int end = enemy.getArchetype().getLootTable().roll(random, lootDrops, 0);
+        for (int i = 0; i < end; i += 2) {
+            rewards.addLoot(lootDrops[i], lootDrops[i + 1]);
+        }
+    }
+    
+    private static String[] lootItemNames() {
+        String[] names = new String[LootTable.itemCount()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = LootTable.itemName(i);
         }
+        return names;
     }
     
     /**
@@ -310,7 +497,8 @@ public class AttackInteraction extends Interaction {
     private Interaction checkBattleStatus() {
         if (!player.getAlive()) {
             System.out.println(">>> Defeat! " + player.getName() + " has fallen!");
-            player.recordBattleLost(); // Track battle loss (functional enhancement)
+            rewards.setOutcome(RewardAccumulator.LOST); // Track battle loss, and the kills made before it
+            rewards.commitTo(player);
             setComplete(true);
             return null;
         }
@@ -318,28 +506,21 @@ public class AttackInteraction extends Interaction {
         if (enemies.isEmpty()) {
             System.out.println(">>> Victory! All enemies have been defeated!");
             
-            // Award experience (synchronized method)
-            if (expGained > 0) {
-                System.out.println(">>> " + player.getName() + " gains " + expGained + " EXP!");
-                player.gainExperience(expGained);
+            if (rewards.getExperience() > 0) {
+                System.out.println(">>> " + player.getName() + " gains " + rewards.getExperience() + " EXP!");
             }
             
-            // Award gold as loot (synchronized with explicit lock)
-            if (goldGained > 0) {
-                player.addGold(goldGained);
-            }
-            
-            // Drop random loot items using array and lambdas (Requirement 4)
-            dropRandomLoot();
-            
-            // Record battle victory (functional enhancement with ArrayList tracking)
-            player.recordBattleWon();
+            // Award experience, gold, loot and the victory in one batch (both player locks held once)
+            rewards.setOutcome(RewardAccumulator.WON);
+            rewards.commitTo(player);
             
             // Brief pause to let player see level up before next battle
-            try {
-                Thread.sleep(2000);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
+            if (victoryPauseMillis > 0) {
+                try {
+                    Thread.sleep(victoryPauseMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
             }
             
             setComplete(true);
@@ -0,0 +1,313 @@
+package Game_Characters.PlayerInput;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+//Plays the game without a keyboard: picks battle options with Monte Carlo Tree Search and walks on between events
+
+//Methods List:
+// - fromSystemProperties():  the autopilot asked for with -Dautopilot=<ms per decision>, or null
+// - chooseOption(Interaction interaction):  the option to pick in a menu
+// - search(BattleSim battle):  runs one timed search and returns the best action
+// - summary():  decisions, rollouts and rollouts per second so far
+// - shutdown():  stops the search pool
+
+//Getters:
+// - getBudgetMillis():
+// - getParallelism():
+// - getDecisions():
+// - getRollouts():
+
+//Inner Classes:
+// - Node:  one state in a search tree (visits and total reward per action taken from it)
+// - SearchTask:  grows search trees until the deadline, splitting into one tree per worker
+
+/*
+* How it works:
+* Each battle decision is a search from a BattleSim copy of the battle. Every worker of a ForkJoinPool grows its
+* own tree from that state until the time budget runs out (root parallelization): pick actions by UCT
+* (average reward + exploration bonus) down the tree, add one new node, then play random actions to the end of
+* the battle on a scratch sim and add the result's reward to every node on the way back up. The trees' root
+* visit counts are added together and the most visited action is picked.
+* A rollout only copies a handful of ints back into a scratch sim (copyFrom), so the search is pure CPU work on
+* the battle rules, which also makes the autopilot a throughput benchmark for them (see summary()).
+* Slash and Fire both go through the Attack option: the attack picked in the battle menu is remembered and given
+* to the attack menu that opens next. Menus that are not battles get their first option.
+* The search trees only belong to their task, so nothing in a search is shared except the rollout counter.
+*/
+
+public class Autopilot {
+    private static final double EXPLORATION = Math.sqrt(2);
+    private static final int CHECK_CLOCK_EVERY = 32; // Rollouts between looks at the clock
+    private static final int MAX_DEPTH = BattleSim.MAX_ROUNDS + 1;
+
+    private final long budgetNanos;
+    private final int parallelism;
+    private final ForkJoinPool pool;
+    private final SplittableRandom seeds;
+    private final AtomicLong rollouts = new AtomicLong();
+    private long decisions;
+    private long searchNanos;
+    private int pendingAttack = -1; // Attack picked in the battle menu, for the attack menu that follows
+
+    /**
+     * Creates an autopilot
+     * @param budgetMillis Time each battle decision may search for
+     * @param parallelism Search trees grown at once (worker threads)
+     * @param seed Seed for the rollouts
+     */
+    public Autopilot(long budgetMillis, int parallelism, long seed) {
+        this.budgetNanos = Math.max(1, budgetMillis) * 1_000_000L;
+        this.parallelism = Math.max(1, parallelism);
+        this.pool = new ForkJoinPool(this.parallelism);
+        this.seeds = new SplittableRandom(seed);
+    }
+
+    /**
+     * Creates the autopilot asked for on the command line:
+     * -Dautopilot=<ms per decision> turns it on, -Dautopilot.threads=<n> sets the search threads
+     * @return The autopilot, or null if it was not asked for
+     */
+    public static Autopilot fromSystemProperties() {
+        Integer budget = Integer.getInteger("autopilot");
+        if (budget == null) {
+            return null;
+        }
+        int threads = Integer.getInteger("autopilot.threads", Runtime.getRuntime().availableProcessors());
+        return new Autopilot(budget, threads, System.nanoTime());
+    }
+
+    public long getBudgetMillis() { return budgetNanos / 1_000_000L; }
+    public int getParallelism() { return parallelism; }
+    public long getDecisions() { return decisions; }
+    public long getRollouts() { return rollouts.get(); }
+
+    /**
+     * Picks the option to choose in a menu
+     * @param interaction The menu being shown
+     * @return The option index
+     */
+    public int chooseOption(Interaction interaction) {
+        if (interaction instanceof AttackInteraction) {
+            int action = search(((AttackInteraction) interaction).simulate());
+            if (action == BattleSim.SLASH || action == BattleSim.FIRE) {
+                pendingAttack = action;
+            }
+            return AttackInteraction.optionFor(action);
+        }
+        if (interaction instanceof AttackChosen) {
+            int attack = pendingAttack;
+            pendingAttack = -1;
+            return attack == BattleSim.FIRE ? AttackChosen.FIRE_INDEX : AttackChosen.SLASH_INDEX;
+        }
+        return 0;
+    }
+
+    /**
+     * Searches from a battle state for the time budget
+     * @param battle The state to search from (not changed)
+     * @return The most visited action
+     */
+    public int search(BattleSim battle) {
+        if (battle.isOver()) {
+            return BattleSim.SLASH;
+        }
+        long start = System.nanoTime();
+        long[] seedsForTrees = new long[parallelism];
+        for (int i = 0; i < parallelism; i++) {
+            seedsForTrees[i] = seeds.nextLong();
+        }
+        long[] visits = pool.invoke(new SearchTask(battle, seedsForTrees, 0, parallelism, start + budgetNanos));
+
+        int best = 0;
+        for (int action = 1; action < BattleSim.ACTIONS; action++) {
+            if (visits[action] > visits[best]) {
+                best = action;
+            }
+        }
+        decisions++;
+        searchNanos += System.nanoTime() - start;
+        return best;
+    }
+
+    /**
+     * Gets decisions, rollouts and rollouts per second so far
+     */
+    public String summary() {
+        double seconds = searchNanos / 1e9;
+        long perSecond = seconds > 0 ? (long) (getRollouts() / seconds) : 0;
+        return "Autopilot: " + decisions + " decisions, " + getRollouts() + " rollouts on " + parallelism
+            + " threads (" + perSecond + " rollouts/s)";
+    }
+
+    /**
+     * Stops the search pool
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    // ===== Helper Methods =====
+
+    /**
+     * Grows one tree from the root state until the deadline
+     * @return Root visits per action
+     */
+    private long[] growTree(BattleSim root, long seed, long deadline) {
+        SplittableRandom random = new SplittableRandom(seed);
+        BattleSim sim = root.copy();
+        Node rootNode = new Node();
+        Node[] path = new Node[MAX_DEPTH + 1];
+        long played = 0;
+
+        do {
+            for (int i = 0; i < CHECK_CLOCK_EVERY; i++) {
+                sim.copyFrom(root);
+                int depth = 0;
+                Node node = rootNode;
+                path[depth++] = node;
+
+                // Selection: follow UCT while every action from here has been tried
+                while (!sim.isOver() && node.expanded == BattleSim.ACTIONS) {
+                    int action = node.select();
+                    sim.apply(action);
+                    node = node.children[action];
+                    path[depth++] = node;
+                }
+
+                // Expansion: try one new action
+                if (!sim.isOver()) {
+                    int action = node.untried(random);
+                    node = node.expand(action);
+                    sim.apply(action);
+                    path[depth++] = node;
+                }
+
+                // Rollout: random play to the end of the battle
+                while (!sim.isOver()) {
+                    sim.apply(random.nextInt(BattleSim.ACTIONS));
+                }
+
+                double reward = reward(sim);
+                for (int d = 0; d < depth; d++) {
+                    path[d].visits++;
+                    path[d].reward += reward;
+                }
+            }
+            played += CHECK_CLOCK_EVERY;
+        } while (System.nanoTime() < deadline);
+
+        rollouts.addAndGet(played);
+        long[] visits = new long[BattleSim.ACTIONS];
+        for (int action = 0; action < BattleSim.ACTIONS; action++) {
+            Node child = rootNode.children[action];
+            visits[action] = child == null ? 0 : child.visits;
+        }
+        return visits;
+    }
+
+    /**
+     * Scores a finished battle from 0 to 1: winning beats fleeing beats running out of rounds beats dying,
+     * and more health left is better
+     */
+    private static double reward(BattleSim sim) {
+        double health = (double) sim.getHealth() / Math.max(1, sim.getMaxHealth());
+        switch (sim.getOutcome()) {
+            case BattleSim.WON:
+                return 0.7 + 0.3 * health;
+            case BattleSim.FLED:
+                return 0.4 + 0.1 * health;
+            case BattleSim.UNRESOLVED:
+                return 0.2;
+            default:
+                return 0.0;
+        }
+    }
+
+    /**
+     * One state in a search tree, reached by the actions on the way down from the root
+     */
+    private static final class Node {
+        final Node[] children = new Node[BattleSim.ACTIONS];
+        int expanded;  // Actions tried from here so far
+        long visits;
+        double reward; // Total reward of every rollout through this node
+
+        /**
+         * Picks the child with the best UCT score
+         */
+        int select() {
+            double logVisits = Math.log(visits);
+            int best = 0;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (int action = 0; action < BattleSim.ACTIONS; action++) {
+                Node child = children[action];
+                double score = child.reward / child.visits + EXPLORATION * Math.sqrt(logVisits / child.visits);
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = action;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Picks a random action that has no child yet
+         */
+        int untried(SplittableRandom random) {
+            int skip = random.nextInt(BattleSim.ACTIONS - expanded);
+            for (int action = 0; action < BattleSim.ACTIONS; action++) {
+                if (children[action] == null && skip-- == 0) {
+                    return action;
+                }
+            }
+            throw new IllegalStateException("every action has been tried");
+        }
+
+        Node expand(int action) {
+            Node child = new Node();
+            children[action] = child;
+            expanded++;
+            return child;
+        }
+    }
+
+    /**
+     * Grows search trees [from, to) of the seeds, splitting in half until each task has one tree,
+     * then adds up the trees' root visits
+     */
+    private final class SearchTask extends RecursiveTask<long[]> {
+        private static final long serialVersionUID = 1L;
+        private final transient BattleSim root;
+        private final long[] seeds;
+        private final int from;
+        private final int to;
+        private final long deadline;
+
+        SearchTask(BattleSim root, long[] seeds, int from, int to, long deadline) {
+            this.root = root;
+            this.seeds = seeds;
+            this.from = from;
+            this.to = to;
+            this.deadline = deadline;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from == 1) {
+                return growTree(root, seeds[from], deadline);
+            }
+            int mid = (from + to) >>> 1;
+            SearchTask right = new SearchTask(root, seeds, mid, to, deadline);
+            right.fork();
+            long[] visits = new SearchTask(root, seeds, from, mid, deadline).compute();
+            long[] other = right.join();
+            for (int action = 0; action < visits.length; action++) {
+                visits[action] += other[action];
+            }
+            return visits;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package Game_Characters.PlayerInput;
+
+import Game_Characters.Enemy;
+import Game_Characters.EnemyArchetype;
+import Game_Characters.Player;
+import java.util.Arrays;
+import java.util.List;
+
+//Runs a big battle one archetype at a time instead of one enemy object at a time
+
+//Methods List:
+// - suits(int enemies):  [static] whether a battle is big enough to run on a kernel
+// - attackRound(Player player, long round, boolean defending):  makes a round of enemy attacks, returns the damage dealt
+// - roundDamage(long round, boolean defending):  the damage a round of attacks deals, without making it
+// - describeRound(long round, boolean defending):  the text of a round of attacks
+// - hitAll(int damage):  deals the same damage to every standing enemy, returns how many fell
+// - sweep():  drops the defeated from their groups (after a Slash)
+
+//Inner Classes:
+// - Group:  the standing enemies of one archetype, with the archetype's numbers copied out
+
+/*
+* How it works:
+* The normal battle path asks every enemy for its attack and hands every enemy its damage through Enemy's
+* abstract methods. With four enemy classes in one fight those calls can't be inlined, and a battle with hundreds
+* of enemies spends its turns on them. A kernel groups the battle's enemies by archetype once, when the battle
+* starts, and each group then runs as one plain loop or one multiplication:
+* - a round of attacks is worked out per group: every member hits for the archetype's attack on the rounds its
+*   attack period allows (this is how the TickiBird's fuse works here, no timers), so it costs one step per
+*   archetype however many enemies there are
+* - a Fire attack walks each group's members with the health getters and setters every enemy shares, so the
+*   loop never calls a method an enemy class overrides
+* The text is one line per archetype instead of one per enemy. The kernel works on the same enemy objects as the
+* battle's list, so Slash, Check Enemy, Flee and the rewards don't change; sweep() keeps the groups in step with
+* the list after a kill. Small battles keep the per-enemy path and its messages.
+*/
+
+final class BattleKernel {
+    static final int MIN_ENEMIES = Integer.getInteger("battle.kernelMin", 16); // Smaller battles run enemy by enemy
+
+    private final Group[] groups; // In order of each archetype's first enemy in the battle
+
+    /**
+     * Groups a battle's enemies by archetype
+     * @param enemies The enemies in battle order
+     */
+    BattleKernel(List<Enemy> enemies) {
+        Group[] byId = new Group[EnemyArchetype.count()];
+        int[] counts = new int[byId.length];
+        for (Enemy enemy : enemies) {
+            counts[enemy.getArchetype().getId()]++;
+        }
+
+        Group[] ordered = new Group[byId.length];
+        int used = 0;
+        for (Enemy enemy : enemies) {
+            EnemyArchetype archetype = enemy.getArchetype();
+            Group group = byId[archetype.getId()];
+            if (group == null) {
+                group = new Group(archetype, counts[archetype.getId()]);
+                byId[archetype.getId()] = group;
+                ordered[used++] = group;
+            }
+            if (enemy.getAlive()) {
+                group.members[group.living++] = enemy;
+            }
+        }
+        this.groups = Arrays.copyOf(ordered, used);
+    }
+
+    /**
+     * Checks if a battle is big enough to run on a kernel
+     * @param enemies The number of enemies in the battle
+     */
+    static boolean suits(int enemies) {
+        return enemies >= MIN_ENEMIES;
+    }
+
+    /**
+     * Makes a round of enemy attacks: prints one line per archetype and deals the damage as one blow
+     * @param player The player being attacked
+     * @param round The round, counting from 1 for the battle's first round of attacks
+     * @param defending Whether the player's defend stance halves each hit
+     * @return The damage dealt
+     */
+    int attackRound(Player player, long round, boolean defending) {
+        System.out.print(describeRound(round, defending));
+        int damage = roundDamage(round, defending);
+        player.takeDamage(damage);
+        return damage;
+    }
+
+    /**
+     * Works out the damage a round of attacks deals, without making it
+     * @param round The round, counting from 1 for the battle's first round of attacks
+     * @param defending Whether each hit is halved
+     */
+    int roundDamage(long round, boolean defending) {
+        long total = 0;
+        for (Group group : groups) {
+            total += group.damageOn(round, defending);
+        }
+        return (int) Math.min(total, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Builds the text of a round of attacks, one line per archetype with someone standing
+     * @param round The round, counting from 1 for the battle's first round of attacks
+     * @param defending Whether each hit is halved
+     */
+    String describeRound(long round, boolean defending) {
+        StringBuilder text = new StringBuilder(groups.length * 64);
+        for (Group group : groups) {
+            if (group.living == 0) {
+                continue;
+            }
+            boolean one = group.living == 1;
+            text.append(">>> ").append(counted(group.living, group.archetype));
+            if (group.archetype.attacksOnRound(round)) {
+                text.append(one ? " attacks" : " attack")
+                    .append(" for ").append(group.damageOn(round, defending)).append(" damage!\n");
+            } else {
+                text.append(one ? " bides its" : " bide their").append(" time...\n");
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * Deals the same damage to every standing enemy (a Fire attack). Each group is one loop over its members.
+     * @param damage The damage each enemy takes
+     * @return How many enemies fell
+     */
+    int hitAll(int damage) {
+        int fallen = 0;
+        for (Group group : groups) {
+            int groupFallen = group.hit(damage);
+            int hit = group.living + groupFallen;
+            if (hit > 0) {
+                System.out.println(">>> " + counted(hit, group.archetype) + (hit == 1 ? " takes " : " take ") + damage
+                    + " damage" + (groupFallen > 0 ? ", " + groupFallen + " fall" + (groupFallen == 1 ? "s" : "") + "!" : "!"));
+            }
+            fallen += groupFallen;
+        }
+        return fallen;
+    }
+
+    /**
+     * Drops defeated enemies from their groups, keeping the order of the rest
+     */
+    void sweep() {
+        for (Group group : groups) {
+            group.sweep();
+        }
+    }
+
+    // ===== Helper Methods =====
+
+    private static String counted(int count, EnemyArchetype archetype) {
+        String name = archetype.getBaseName();
+        if (count == 1) {
+            return count + " " + name;
+        }
+        return count + " " + (name.endsWith("f") ? name.substring(0, name.length() - 1) + "ves" : name + "s");
+    }
+
+    /**
+     * The standing enemies of one archetype. Only the first `living` slots of members are in use.
+     */
+    private static final class Group {
+        final EnemyArchetype archetype;
+        final int attack;
+        final Enemy[] members;
+        int living;
+
+        Group(EnemyArchetype archetype, int capacity) {
+            this.archetype = archetype;
+            this.attack = archetype.getAttack();
+            this.members = new Enemy[capacity];
+        }
+
+        /**
+         * The group's damage on a round: each hit halved on its own when defending, as in the per-enemy path
+         */
+        long damageOn(long round, boolean defending) {
+            if (!archetype.attacksOnRound(round)) {
+                return 0;
+            }
+            return (long) living * (defending ? attack / 2 : attack);
+        }
+
+        /**
+         * Deals damage to every member and drops the ones that fall
+         * @return How many fell
+         */
+        int hit(int damage) {
+            int kept = 0;
+            for (int i = 0; i < living; i++) {
+                Enemy enemy = members[i];
+                int health = enemy.getHealth() - damage;
+                enemy.setHealth(health);
+                if (health > 0) {
+                    members[kept++] = enemy;
+                } else {
+                    enemy.setAlive(false);
+                }
+            }
+            return drop(kept);
+        }
+
+        void sweep() {
+            int kept = 0;
+            for (int i = 0; i < living; i++) {
+                if (members[i].getAlive()) {
+                    members[kept++] = members[i];
+                }
+            }
+            drop(kept);
+        }
+
+        /**
+         * Clears the slots past the kept members so the fallen can be collected
+         */
+        private int drop(int kept) {
+            int fallen = living - kept;
+            Arrays.fill(members, kept, living, null);
+            living = kept;
+            return fallen;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package Game_Characters.PlayerInput;
+
+import Game_Characters.Enemies.Slime;
+import Game_Characters.Enemies.TickiBird;
+import Game_Characters.Enemy;
+import Game_Characters.Player;
+import Game_Characters.Thief;
+import Game_Characters.Wizard;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+//Compares the per-enemy battle path (a call through Enemy for every enemy) against the BattleKernel on mixed encounters
+
+//Methods List:
+// - main(String[] args):  samples, encounter sizes...
+// - run(int size, int samples):  times the three operations both ways for one encounter size
+// - timeVirtualDamage / timeVirtualRound / timeVirtualFire / timeKernel:  one timed sample of an operation
+// - encounter(Player player, int size):  Slimes, TickiBirds, Thieves and Wizards, interleaved
+// - report(String name, int size, long[] times):
+
+/*
+* How it works:
+* Each encounter has all four enemy classes in turn (Slime, TickiBird, Thief, Wizard, Slime, ...), so the calls
+* through Enemy see four receiver types the way a mixed battle does. Three operations are timed both ways:
+* - Damage: the damage of one round of enemy attacks (peekDamage() per enemy, or roundDamage() per archetype)
+* - Round: the same with the round's text, as the per-enemy round prints it (describeAttack() per enemy, or describeRound())
+* - Fire: every enemy takes the same damage (takeDamage() per enemy, or hitAll())
+* Every sample starts from full health, with a fresh kernel; resetting isn't timed. Battle text goes to a stream
+* that throws it away, so the numbers are the work and not the console. Both ways get the same untimed warmup
+* samples first, so the JIT has compiled each before it is measured.
+* Prints the median and 99th percentile per operation, in microseconds.
+*/
+
+public class BattleKernelBenchmark {
+    private static final PrintStream DISCARD = new PrintStream(OutputStream.nullOutputStream());
+    private static final int WARMUP = 2000;
+    private static final int FIRE_DAMAGE = 1;
+
+    private long sink; // Keeps the JIT from dropping work whose result isn't used
+
+    public static void main(String[] args) {
+        int samples = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int[] sizes = {16, 256, 4096};
+        if (args.length > 1) {
+            sizes = new int[args.length - 1];
+            for (int i = 1; i < args.length; i++) {
+                sizes[i - 1] = Integer.parseInt(args[i]);
+            }
+        }
+
+        System.out.println("Mixed encounters (Slime/TickiBird/Thief/Wizard), " + samples + " samples, "
+            + Runtime.getRuntime().availableProcessors() + " cpu(s)");
+        BattleKernelBenchmark benchmark = new BattleKernelBenchmark();
+        for (int size : sizes) {
+            benchmark.run(size, samples);
+        }
+    }
+
+    /**
+     * Times the three operations both ways for one encounter size
+     */
+    public void run(int size, int samples) {
+        Player player = new Player();
+        List<Enemy> enemies = encounter(player, size);
+        long[][] times = new long[6][samples];
+        PrintStream console = System.out;
+        System.setOut(DISCARD);
+        try {
+            for (int i = -WARMUP; i < samples; i++) {
+                long round = i & 7; // Cycles through the TickiBird's quiet and exploding rounds
+                int sample = Math.max(i, 0);
+
+                times[0][sample] = timeVirtualDamage(enemies, round);
+                times[1][sample] = timeKernel(enemies, kernel -> sink += kernel.roundDamage(round, false));
+                times[2][sample] = timeVirtualRound(enemies);
+                times[3][sample] = timeKernel(enemies, kernel -> sink += kernel.describeRound(round, false).length());
+                times[4][sample] = timeVirtualFire(enemies);
+                times[5][sample] = timeKernel(enemies, kernel -> sink += kernel.hitAll(FIRE_DAMAGE));
+            }
+        } finally {
+            System.setOut(console);
+        }
+
+        String[] names = {"Damage/Virtual", "Damage/Kernel", "Round/Virtual", "Round/Kernel", "Fire/Virtual", "Fire/Kernel"};
+        for (int i = 0; i < names.length; i++) {
+            report(names[i], size, times[i]);
+        }
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    // ===== Helper Methods =====
+
+    private long timeVirtualDamage(List<Enemy> enemies, long round) {
+        reset(enemies);
+        long start = System.nanoTime();
+        long total = 0;
+        for (Enemy enemy : enemies) {
+            total += enemy.peekDamage();
+        }
+        long time = System.nanoTime() - start;
+        sink += total + round;
+        return time;
+    }
+
+    private long timeVirtualRound(List<Enemy> enemies) {
+        reset(enemies);
+        long start = System.nanoTime();
+        long total = 0;
+        StringBuilder text = new StringBuilder(enemies.size() * 64);
+        for (Enemy enemy : enemies) {
+            int hit = enemy.peekDamage();
+            total += hit;
+            text.append(">>> ").append(enemy.getName()).append(" attacks!\n")
+                .append(enemy.describeAttack(hit)).append('\n');
+        }
+        String built = text.toString();
+        long time = System.nanoTime() - start;
+        sink += total + built.length();
+        return time;
+    }
+
+    private long timeVirtualFire(List<Enemy> enemies) {
+        reset(enemies);
+        long start = System.nanoTime();
+        for (Enemy enemy : enemies) {
+            enemy.takeDamage(FIRE_DAMAGE);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private long timeKernel(List<Enemy> enemies, Consumer<BattleKernel> work) {
+        reset(enemies);
+        BattleKernel kernel = new BattleKernel(enemies);
+        long start = System.nanoTime();
+        work.accept(kernel);
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Builds an encounter with the four enemy classes interleaved
+     */
+    private static List<Enemy> encounter(Player player, int size) {
+        List<Enemy> enemies = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            switch (i % 4) {
+                case 0:
+                    enemies.add(new Slime(player, i / 4 + 1));
+                    break;
+                case 1:
+                    enemies.add(new TickiBird(player));
+                    break;
+                case 2:
+                    enemies.add(new Thief(player));
+                    break;
+                default:
+                    enemies.add(new Wizard(player));
+                    break;
+            }
+        }
+        return enemies;
+    }
+
+    private static void reset(List<Enemy> enemies) {
+        for (Enemy enemy : enemies) {
+            enemy.setHealth(enemy.getMaxHealth());
+            enemy.setAlive(true);
+        }
+    }
+
+    private static void report(String name, int size, long[] times) {
+        long[] sorted = times.clone();
+        Arrays.sort(sorted);
+        long median = sorted[sorted.length / 2];
+        long p99 = sorted[Math.min(sorted.length - 1, (int) (sorted.length * 0.99))];
+        System.out.printf("%-15s %,6d enemies: median %,10.1f us   p99 %,10.1f us%n",
+            name, size, median / 1000.0, p99 / 1000.0);
+    }
+}
@@ -0,0 +1,236 @@
+package Game_Characters.PlayerInput;
+
+import Game_Characters.EnemyArchetype;
+
+//A cheap copy of a battle's state that can be played forward without touching the real characters
+
+//Methods List:
+// - set(int health, int[] enemyHealth, int round, int failedFlees):  loads a state
+// - copy():  a new sim in the same state
+// - copyFrom(BattleSim other):  loads another sim's state (same matchup) without allocating
+// - apply(int action):  plays one action and the enemies' answer, returns the outcome
+// - actionName(int action):
+
+//Getters:
+// - getHealth() / getMaxHealth():  the player's
+// - getRound():  rounds of enemy attacks so far
+// - getFailedFlees():
+// - getEnemyCount() / getEnemyHealth(int slot):
+// - getOutcome():  ONGOING until the battle ends
+// - isOver():
+
+/*
+* How it works:
+* The battle rules of AttackInteraction and AttackChosen, on plain ints: the player's health, the round, the
+* failed flee attempts and one health per enemy slot. Defeated enemies keep their slot at 0 health, so the first
+* living slot is the Slash target just like the first enemy in the real list. What an enemy does comes from its
+* archetype, including how often it hits (a TickiBird's attack period is its fuse: it hits every third round).
+* The matchup arrays are shared by every copy and only the state is copied, so a search can reset a scratch sim
+* from its root with copyFrom() as often as it likes. A battle still running after MAX_ROUNDS ends as UNRESOLVED.
+* The BattleSolver and the Autopilot both play battles through this class, so a change to battle rules needs the
+* same change here.
+*/
+
+public final class BattleSim {
+    // Actions: the battle options, with Attack split into its two attacks
+    public static final int SLASH = 0;
+    public static final int FIRE = 1;
+    public static final int DEFEND = 2;
+    public static final int HEAL = 3;
+    public static final int FLEE = 4;
+    public static final int CHECK = 5;
+    public static final int ACTIONS = 6;
+    private static final String[] ACTION_NAMES = {"Slash", "Fire", "Defend", "Heal", "Flee", "Check Enemy"};
+
+    // Outcomes, worst to best
+    public static final int ONGOING = -1;
+    public static final int DIED = 0;
+    public static final int UNRESOLVED = 1;
+    public static final int FLED = 2;
+    public static final int WON = 3;
+
+    public static final int MAX_ROUNDS = 100;
+
+    // The matchup, shared by copies
+    final int maxHealth;
+    final int attack;
+    final int stealth;
+    final int[] enemyMaxHealth;
+    final int[] enemyDamage;
+    final int[] enemyStealth;
+    final int[] enemyPeriod; // Hits on every n-th round
+
+    // The state
+    int health;
+    int round;
+    int failedFlees;
+    final int[] enemyHealth;
+    int outcome = ONGOING;
+
+    /**
+     * Creates a sim for a matchup, with everyone at full health
+     * @param maxHealth The player's max health
+     * @param attack The player's attack
+     * @param stealth The player's stealth
+     * @param enemies The enemies in battle order
+     */
+    public BattleSim(int maxHealth, int attack, int stealth, EnemyArchetype[] enemies) {
+        this.maxHealth = maxHealth;
+        this.attack = attack;
+        this.stealth = stealth;
+        int n = enemies.length;
+        this.enemyMaxHealth = new int[n];
+        this.enemyDamage = new int[n];
+        this.enemyStealth = new int[n];
+        this.enemyPeriod = new int[n];
+        this.enemyHealth = new int[n];
+        for (int i = 0; i < n; i++) {
+            enemyMaxHealth[i] = enemies[i].getMaxHealth();
+            enemyDamage[i] = enemies[i].getAttack();
+            enemyStealth[i] = enemies[i].getStealth();
+            enemyPeriod[i] = enemies[i].getAttackPeriod();
+            enemyHealth[i] = enemyMaxHealth[i];
+        }
+        this.health = maxHealth;
+    }
+
+    private BattleSim(BattleSim other) {
+        this.maxHealth = other.maxHealth;
+        this.attack = other.attack;
+        this.stealth = other.stealth;
+        this.enemyMaxHealth = other.enemyMaxHealth;
+        this.enemyDamage = other.enemyDamage;
+        this.enemyStealth = other.enemyStealth;
+        this.enemyPeriod = other.enemyPeriod;
+        this.enemyHealth = new int[other.enemyHealth.length];
+        copyFrom(other);
+    }
+
+    public int getHealth() { return health; }
+    public int getMaxHealth() { return maxHealth; }
+    public int getRound() { return round; }
+    public int getFailedFlees() { return failedFlees; }
+    public int getEnemyCount() { return enemyHealth.length; }
+    public int getEnemyHealth(int slot) { return enemyHealth[slot]; }
+    public int getOutcome() { return outcome; }
+    public boolean isOver() { return outcome != ONGOING; }
+
+    /**
+     * Loads a state
+     * @param health The player's health
+     * @param enemyHealth Each enemy's health, in battle order (0 or less for a defeated one)
+     * @param round Rounds of enemy attacks so far
+     * @param failedFlees Failed flee attempts so far
+     * @return this sim
+     */
+    public BattleSim set(int health, int[] enemyHealth, int round, int failedFlees) {
+        this.health = health;
+        this.round = round;
+        this.failedFlees = failedFlees;
+        boolean anyLeft = false;
+        for (int i = 0; i < this.enemyHealth.length; i++) {
+            this.enemyHealth[i] = Math.max(0, enemyHealth[i]);
+            anyLeft |= this.enemyHealth[i] > 0;
+        }
+        this.outcome = health <= 0 ? DIED : !anyLeft ? WON : round >= MAX_ROUNDS ? UNRESOLVED : ONGOING;
+        return this;
+    }
+
+    /**
+     * Creates a new sim in the same state
+     */
+    public BattleSim copy() {
+        return new BattleSim(this);
+    }
+
+    /**
+     * Loads another sim's state. Both must be the same matchup (one is a copy of the other).
+     */
+    public void copyFrom(BattleSim other) {
+        health = other.health;
+        round = other.round;
+        failedFlees = other.failedFlees;
+        outcome = other.outcome;
+        System.arraycopy(other.enemyHealth, 0, enemyHealth, 0, enemyHealth.length);
+    }
+
+    /**
+     * Plays one action and, if the battle goes on, the enemies' round of attacks
+     * @param action SLASH, FIRE, DEFEND, HEAL, FLEE or CHECK
+     * @return The outcome, ONGOING if the battle goes on
+     */
+    public int apply(int action) {
+        if (outcome != ONGOING) {
+            return outcome;
+        }
+        boolean defending = false;
+
+        switch (action) {
+            case SLASH:
+            case FIRE: {
+                float modifier = action == SLASH ? AttackChosen.SLASH_MODIFIER : AttackChosen.FIRE_MODIFIER;
+                int damage = (int) (attack * modifier);
+                boolean anyLeft = false;
+                boolean hitOne = false;
+                for (int i = 0; i < enemyHealth.length; i++) {
+                    if (enemyHealth[i] > 0 && (action == FIRE || !hitOne)) {
+                        hitOne = true;
+                        enemyHealth[i] = Math.max(0, enemyHealth[i] - damage);
+                    }
+                    anyLeft |= enemyHealth[i] > 0;
+                }
+                if (!anyLeft) {
+                    return outcome = WON;
+                }
+                break;
+            }
+            case DEFEND:
+                defending = true;
+                break;
+            case HEAL:
+                health = Math.min(health + (int) (maxHealth * AttackInteraction.HEAL_FRACTION), maxHealth);
+                break;
+            case FLEE: {
+                int effectiveStealth = stealth * (1 + failedFlees);
+                boolean escapes = true;
+                for (int i = 0; i < enemyHealth.length; i++) {
+                    if (enemyHealth[i] > 0 && effectiveStealth <= enemyStealth[i]) {
+                        escapes = false;
+                        break;
+                    }
+                }
+                if (escapes) {
+                    return outcome = FLED;
+                }
+                failedFlees++;
+                break;
+            }
+            default: // CHECK: looking costs the turn
+                break;
+        }
+
+        // The surviving enemies attack, in order
+        round++;
+        for (int i = 0; i < enemyHealth.length && health > 0; i++) {
+            if (enemyHealth[i] > 0) {
+                int damage = round % enemyPeriod[i] != 0 ? 0 : enemyDamage[i];
+                health -= defending ? damage / 2 : damage;
+            }
+        }
+        if (health <= 0) {
+            health = 0;
+            return outcome = DIED;
+        }
+        if (round >= MAX_ROUNDS) {
+            return outcome = UNRESOLVED;
+        }
+        return ONGOING;
+    }
+
+    /**
+     * Gets a display name for an action
+     */
+    public static String actionName(int action) {
+        return ACTION_NAMES[action];
+    }
+}
@@ -0,0 +1,268 @@
+package Game_Characters.PlayerInput;
+
+import Game_Characters.Enemy;
+import Game_Characters.EnemyArchetype;
+import Game_Characters.Player;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+//Works out the best way to play a battle, and how it ends, by searching every line of play once
+
+//Methods List:
+// - forBattle(int maxHealth, int attack, int stealth, EnemyArchetype[] enemies):  the (shared) solver for a matchup
+// - solve(Player player, List<Enemy> enemies):  solves a battle that is about to start
+// - solve(int health, int[] enemyHealth, int round, int failedFlees):  solves from any state of the matchup
+// - clearCache():  drops every memoized solver
+
+//Getters:
+// - getMemoSize():  states solved so far for this matchup
+
+//Inner Classes:
+// - Solution:  the outcome of the best line of play and the actions that get there
+
+/*
+* How it works:
+* A battle has no dice: damage, heals, flee checks and the TickiBird's fuse all follow fixed rules, so from any
+* state each action leads to exactly one next state and the best line of play can be found exactly.
+* A state (player health, enemy rounds so far, failed flee attempts, each enemy's health) is packed into one long,
+* with just enough bits per field for the matchup, and its best score and action are memoized in a
+* ConcurrentHashMap shared by every thread that solves the same matchup (same stat line and enemy list).
+* Scores rank a win above fleeing above running out of rounds above dying, then more health left, then fewer rounds.
+* Solving walks the actions depth first and takes the best; the Solution then follows the best actions from the
+* start state to read off the plan. A step unpacks the long into a scratch BattleSim, plays the action by the
+* battle rules there and packs the result again. Battles longer than BattleSim.MAX_ROUNDS enemy rounds (e.g.
+* healing forever) count as unresolved, which keeps the search finite. Check Enemy is left out: it is Defend
+* without the defense. Matchups whose state does not fit in a long are not solved.
+*/
+
+public final class BattleSolver {
+    private static final int SOLVER_ACTIONS = BattleSim.FLEE + 1; // Every action but CHECK
+    private static final int ACTION_BITS = 3;
+    private static final String[] OUTCOME_NAMES = {"defeat", "no result", "escape", "victory"};
+
+    private static final int ROUND_BITS = 7;           // Holds 0..BattleSim.MAX_ROUNDS
+    private static final int MAX_CACHED_SOLVERS = 256;
+    private static final int MAX_MEMO_SIZE = 1 << 22;  // A matchup's memo is dropped and rebuilt past this
+
+    private static final ConcurrentHashMap<String, BattleSolver> SOLVERS = new ConcurrentHashMap<>();
+
+    private final BattleSim matchup;  // Template the scratch sims are copied from
+    private final int fleeCap;        // Failed flees past this can't change anything
+    private final int healthBits;
+    private final int roundShift;
+    private final int fleeShift;
+    private final int fleeBits;
+    private final int enemyShift;     // Where the enemy fields start
+    private final int[] slotShift;
+    private final int[] slotBits;
+    private final boolean fits;
+    private final ConcurrentHashMap<Long, Long> memo = new ConcurrentHashMap<>();
+
+    private BattleSolver(int maxHealth, int attack, int stealth, EnemyArchetype[] enemies) {
+        this.matchup = new BattleSim(maxHealth, attack, stealth, enemies);
+        int n = enemies.length;
+        int mostStealth = 0;
+        for (EnemyArchetype enemy : enemies) {
+            mostStealth = Math.max(mostStealth, enemy.getStealth());
+        }
+        this.fleeCap = stealth > 0 ? mostStealth / stealth + 1 : 0;
+
+        // Bit layout, low to high: player health, rounds, failed flees, one field per enemy
+        this.healthBits = bitsFor(maxHealth);
+        this.roundShift = healthBits;
+        this.fleeShift = roundShift + ROUND_BITS;
+        this.fleeBits = bitsFor(fleeCap);
+        this.enemyShift = fleeShift + fleeBits;
+        int shift = enemyShift;
+        this.slotShift = new int[n];
+        this.slotBits = new int[n];
+        for (int i = 0; i < n; i++) {
+            slotShift[i] = shift;
+            slotBits[i] = bitsFor(enemies[i].getMaxHealth());
+            shift += slotBits[i];
+        }
+        this.fits = shift <= 63;
+    }
+
+    /**
+     * Gets the solver for a matchup, shared by every caller with the same stat line and enemies
+     * @param maxHealth The player's max health
+     * @param attack The player's attack
+     * @param stealth The player's stealth
+     * @param enemies The enemies in battle order
+     * @return The solver
+     */
+    public static BattleSolver forBattle(int maxHealth, int attack, int stealth, EnemyArchetype[] enemies) {
+        StringBuilder key = new StringBuilder().append(maxHealth).append('/').append(attack).append('/').append(stealth);
+        for (EnemyArchetype enemy : enemies) {
+            key.append('/').append(enemy.getId());
+        }
+        if (SOLVERS.size() >= MAX_CACHED_SOLVERS) {
+            SOLVERS.clear();
+        }
+        return SOLVERS.computeIfAbsent(key.toString(), k -> new BattleSolver(maxHealth, attack, stealth, enemies));
+    }
+
+    /**
+     * Solves a fresh battle: the player as they are now against enemies that have not attacked yet
+     * @param player The player
+     * @param enemies The enemies in battle order
+     * @return The best line of play, or null if the battle is too big to solve
+     */
+    public static Solution solve(Player player, List<Enemy> enemies) {
+        EnemyArchetype[] archetypes = new EnemyArchetype[enemies.size()];
+        int[] health = new int[enemies.size()];
+        for (int i = 0; i < archetypes.length; i++) {
+            archetypes[i] = enemies.get(i).getArchetype();
+            health[i] = enemies.get(i).getHealth();
+        }
+        BattleSolver solver = forBattle(player.getMaxHealth(), player.getAttack(), player.getStealth(), archetypes);
+        return solver.solve(player.getHealth(), health, 0, 0);
+    }
+
+    /**
+     * Drops every memoized solver, e.g. after battle rules or archetype stats change
+     */
+    public static void clearCache() {
+        SOLVERS.clear();
+    }
+
+    public int getMemoSize() { return memo.size(); }
+
+    /**
+     * Solves the matchup from a given state
+     * @param health The player's health
+     * @param enemyHealth Each enemy's health, in battle order (0 or less for a defeated one)
+     * @param round Rounds of enemy attacks so far (drives the TickiBird's fuse)
+     * @param failedFlees Failed flee attempts so far
+     * @return The best line of play, or null if the state does not fit in the solver's encoding
+     */
+    public Solution solve(int health, int[] enemyHealth, int round, int failedFlees) {
+        if (!fits || enemyHealth.length != slotShift.length || health <= 0 || health > matchup.maxHealth
+                || round < 0 || round >= BattleSim.MAX_ROUNDS) {
+            return null;
+        }
+        long state = (long) health | (long) round << roundShift | (long) Math.min(failedFlees, fleeCap) << fleeShift;
+        for (int i = 0; i < enemyHealth.length; i++) {
+            int hp = Math.max(0, enemyHealth[i]);
+            if (hp >= 1 << slotBits[i]) {
+                return null;
+            }
+            state |= (long) hp << slotShift[i];
+        }
+        if (memo.size() > MAX_MEMO_SIZE) {
+            memo.clear();
+        }
+
+        BattleSim scratch = matchup.copy(); // One per call, so threads sharing the memo never share a sim
+        long best = best(state, scratch);
+        int[] plan = new int[BattleSim.MAX_ROUNDS + 1];
+        int length = 0;
+        long at = state;
+        long score;
+        while (true) {
+            int action = (int) (best & ((1 << ACTION_BITS) - 1));
+            plan[length++] = action;
+            long next = step(at, action, scratch);
+            if (next < 0) {
+                score = ~next;
+                break;
+            }
+            at = next;
+            best = best(at, scratch);
+        }
+        return new Solution(score, Arrays.copyOf(plan, length));
+    }
+
+    // ===== Helper Methods =====
+
+    /**
+     * Finds the best action from a state: (score << ACTION_BITS) | action, memoized
+     */
+    private long best(long state, BattleSim scratch) {
+        Long known = memo.get(state);
+        if (known != null) {
+            return known;
+        }
+        long bestScore = -1;
+        int bestAction = 0;
+        for (int action = 0; action < SOLVER_ACTIONS; action++) {
+            long next = step(state, action, scratch);
+            long score = next < 0 ? ~next : best(next, scratch) >>> ACTION_BITS;
+            if (score > bestScore) {
+                bestScore = score;
+                bestAction = action;
+            }
+        }
+        long packed = bestScore << ACTION_BITS | bestAction;
+        memo.put(state, packed);
+        return packed;
+    }
+
+    /**
+     * Plays one action from a state on the scratch sim
+     * @return The next state, or ~score if the battle ends
+     */
+    private long step(long state, int action, BattleSim scratch) {
+        scratch.health = (int) (state & mask(healthBits));
+        scratch.round = (int) (state >>> roundShift & mask(ROUND_BITS));
+        scratch.failedFlees = (int) (state >>> fleeShift & mask(fleeBits));
+        for (int i = 0; i < slotShift.length; i++) {
+            scratch.enemyHealth[i] = (int) (state >>> slotShift[i] & mask(slotBits[i]));
+        }
+        scratch.outcome = BattleSim.ONGOING;
+
+        int outcome = scratch.apply(action);
+        if (outcome != BattleSim.ONGOING) {
+            return ~score(outcome, scratch.health, scratch.round);
+        }
+        long next = (long) scratch.health | (long) scratch.round << roundShift
+            | (long) Math.min(scratch.failedFlees, fleeCap) << fleeShift;
+        for (int i = 0; i < slotShift.length; i++) {
+            next |= (long) scratch.enemyHealth[i] << slotShift[i];
+        }
+        return next;
+    }
+
+    /**
+     * Ranks an ending: outcome, then health left, then fewer rounds
+     */
+    private static long score(int outcome, int health, int round) {
+        return (long) outcome << 40 | (long) health << ROUND_BITS | (BattleSim.MAX_ROUNDS - round);
+    }
+
+    private static long mask(int bits) {
+        return bits >= 64 ? -1L : (1L << bits) - 1;
+    }
+
+    private static int bitsFor(int value) {
+        return 32 - Integer.numberOfLeadingZeros(Math.max(0, value));
+    }
+
+    /**
+     * The outcome of the best line of play from a state, and the actions that get there
+     */
+    public static final class Solution {
+        private final long score;
+        private final int[] plan;
+
+        private Solution(long score, int[] plan) {
+            this.score = score;
+            this.plan = plan;
+        }
+
+        public int getOutcome() { return (int) (score >>> 40); }
+        public int getHealthLeft() { return (int) (score >>> ROUND_BITS & mask(40 - ROUND_BITS)); }
+        public int getRounds() { return BattleSim.MAX_ROUNDS - (int) (score & mask(ROUND_BITS)); }
+        public int getFirstAction() { return plan[0]; }
+        public int[] getPlan() { return plan.clone(); }
+        public boolean isWin() { return getOutcome() == BattleSim.WON; }
+
+        @Override
+        public String toString() {
+            return OUTCOME_NAMES[getOutcome()] + " in " + plan.length + (plan.length == 1 ? " turn" : " turns")
+                + " with " + getHealthLeft() + " HP left";
+        }
+    }
+}
@@ -1,136 +1,202 @@
 package Game_Characters.PlayerInput;
 
-import java.util.ArrayList;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 // An abstract class that streamlines all prompts for player input
 
 //Methods List:
-// - addOption(Option option):
-// - display():
+// - display():  prints the cached menu bytes
 // - getOption(int index):
 // - getOptionCount():
-
-//Abstract Methods (Not Implemented):
-// - initializeOptions():  sets up all options in the interaction
+// - executeOption(int index):  runs an option against this interaction
+// - render():  builds the menu text shown by display()
 
 //Getters:
+// - getTitle():
+// - getDescription():
+// - getRenderedMenu():  the pre-encoded menu bytes
 // - isComplete():
 
 //Setters:
+// - setTitle(String title):  also invalidates the cached menu
+// - setDescription(String description):  also invalidates the cached menu
 // - setComplete(boolean complete):
 
 //Inner Abstract Class:
 // - Option:
 //   - getDescription():  option name
-//   - execute():  executes the option logic
-//   - setNextInteraction(Interaction next):
+//   - execute(I interaction):  executes the option logic against the interaction it was chosen from
 
 //Inner class represents options unique to the interaction, and extends Option for shared behavior
 
+/*
+* How it works:
+* Options hold no state of their own, so each Interaction subclass creates its options once in a static list
+* and every instance of that interaction shares them (flyweights). The interaction the option was picked from
+* is passed into execute(), which is where the option finds the player, the enemies, etc.
+* The menu text is rendered once and kept as encoded bytes; it is only rebuilt if the title or description changes.
+*/
+
 public abstract class Interaction {
-    
+
+    private static final String DIVIDER = "=".repeat(50);
+
     protected String title;
     protected String description;
-    protected List<Option> options;
+    protected final List<? extends Option<?>> options;
     protected boolean isComplete;
-    
-    public Interaction(String title, String description) {
+    private byte[] renderedMenu; // Cached output of render(), null when it needs rebuilding
+
+    /**
+     * Creates an interaction
+     * @param title Title shown at the top of the menu
+     * @param description Text shown under the title
+     * @param options The shared (static) option list for this interaction type
+     */
+    public Interaction(String title, String description, List<? extends Option<?>> options) {
         this.title = title;
         this.description = description;
-        this.options = new ArrayList<>();
+        this.options = options;
         this.isComplete = false;
-        initializeOptions();
+        this.renderedMenu = null;
     }
-    
+
     /**
-     * Override this to set up the options for this interaction.
-     * Call addOption() for each option you want to add.
+     * Displays the interaction to the player
      */
-    protected abstract void initializeOptions();
-    
+    public void display() {
+        byte[] menu = getRenderedMenu();
+        System.out.write(menu, 0, menu.length);
+        System.out.flush();
+    }
+
     /**
-     * Adds an option to this interaction
+     * Gets the encoded menu text, rendering it first if the cache is empty
      */
-    protected void addOption(Option option) {
-        options.add(option);
+    public byte[] getRenderedMenu() {
+        if (renderedMenu == null) {
+            renderedMenu = render().getBytes(StandardCharsets.UTF_8);
+        }
+        return renderedMenu;
     }
-    
+
     /**
-     * Displays the interaction to the player
+     * Builds the menu text (title banner and numbered options)
      */
-    public void display() {
-        System.out.println("\n" + "=".repeat(50));
-        System.out.println(title);
-        System.out.println("=".repeat(50));
-        System.out.println(description);
-        System.out.println();
-        
+    protected String render() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes, false, StandardCharsets.UTF_8);
+        out.println("\n" + DIVIDER);
+        out.println(title);
+        out.println(DIVIDER);
+        out.println(description);
+        out.println();
+
         for (int i = 0; i < options.size(); i++) {
-            System.out.println(i + ": " + options.get(i).getDescription());
+            out.println(i + ": " + options.get(i).getDescription());
         }
+        out.flush();
+        return bytes.toString(StandardCharsets.UTF_8);
     }
-    
+
     /**
      * Gets the option at the specified index
      */
-    public Option getOption(int index) {
+    public Option<?> getOption(int index) {
         if (index >= 0 && index < options.size()) {
             return options.get(index);
         }
         return null;
     }
-    
+
     /**
      * Gets the number of options
      */
     public int getOptionCount() {
         return options.size();
     }
-    
+
+    /**
+     * Executes the option at the specified index against this interaction
+     * @return The next Interaction to show, or null if interaction ends
+     */
+    @SuppressWarnings("unchecked")
+    public Interaction executeOption(int index) {
+        // Options are only ever registered with the interaction type they were written for
+        Option<Interaction> option = (Option<Interaction>) getOption(index);
+        return option.execute(this);
+    }
+
+    /**
+     * Gets the title shown at the top of this interaction
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * Gets the description shown under the title
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Changes the title and invalidates the cached menu
+     */
+    public void setTitle(String title) {
+        this.title = title;
+        this.renderedMenu = null;
+    }
+
+    /**
+     * Changes the description and invalidates the cached menu
+     */
+    public void setDescription(String description) {
+        this.description = description;
+        this.renderedMenu = null;
+    }
+
     /**
      * Checks if this interaction has been completed
      */
     public boolean isComplete() {
         return isComplete;
     }
-    
+
     /**
      * Marks this interaction as complete
      */
     public void setComplete(boolean complete) {
         this.isComplete = complete;
     }
-    
+
     /**
      * Abstract nested class for options.
      * Each concrete Interaction subclass should define its own Option subclasses.
+     * Options are shared between all instances of an interaction, so they must not hold state.
+     * @param <I> The interaction type this option belongs to
      */
-    public abstract class Option {
-        protected String description;
-        protected Interaction nextInteraction;
-        
+    public abstract static class Option<I extends Interaction> {
+        protected final String description;
+
         public Option(String description) {
             this.description = description;
-            this.nextInteraction = null;
         }
-        
+
         public String getDescription() {
             return description;
         }
-        
+
         /**
          * Execute the logic for this option.
+         * @param interaction The interaction this option was chosen from
          * @return The next Interaction to show, or null if interaction ends
          */
-        public abstract Interaction execute();
-        
-        /**
-         * Sets the next interaction to show after this option is executed
-         */
-        public void setNextInteraction(Interaction next) {
-            this.nextInteraction = next;
-        }
+        public abstract Interaction execute(I interaction);
     }
 }
 
@@ -1,5 +1,7 @@
 package Game_Characters.PlayerInput;
 
+import GameHandlers.GameEvent;
+import GameHandlers.GameEventStream;
 import java.util.Scanner;
 
 // A handler for managing player input during step advancement and interactions
@@ -7,13 +9,17 @@ import java.util.Scanner;
 //Methods List:
 // - waitForStepAdvance(Interaction interaction):  waits for player to press Enter to advance or handles interaction
 // - handleInteraction(Interaction interaction):  handles a generic interaction
+// - executeChoice(Interaction interaction, int choice):  executes one option and returns the next interaction
 // - getValidChoice(int min, int max):   gets a valid integer choice from the player within the specified range
 // - handleBattleInteraction(Interaction battleInteraction):   handles a battle interaction
+// - setAutopilot(Autopilot autopilot):  lets an Autopilot make every choice instead of the console
+// - setEvents(GameEventStream events):  publishes every choice made (console, autopilot or remote) as an event
 
 //Getters:
 // - getInputLock():  gets the input lock for synchronization
 // - isWaitingForInput():  checks if the handler is waiting for input
 // - getLastChoice():  gets the last choice made by the player
+// - getAutopilot():  the Autopilot making choices, or null when the player does
 
 public class PlayerInputHandler {
     private Scanner scanner;
@@ -21,10 +27,20 @@ public class PlayerInputHandler {
     private boolean waitingForInput = false;
     private int lastChoice = -1;
     private Interaction currentInteraction = null;
+    private Autopilot autopilot = null; // Makes the choices instead of the console when set
+    private GameEventStream events = null; // Gets an OPTION_CHOSEN per choice when set
     
     public PlayerInputHandler(Scanner scanner) {
         this.scanner = scanner;
     }
+
+    /**
+     * Creates an input handler with no console attached.
+     * Choices must be fed in through executeChoice() (e.g. by a network session).
+     */
+    public PlayerInputHandler() {
+        this(null);
+    }
     
     /**
      * Gets the input lock for synchronization
@@ -40,6 +56,29 @@ public class PlayerInputHandler {
         return waitingForInput;
     }
     
+    /**
+     * Lets an Autopilot make every choice (menus and step advances) instead of reading the console
+     * @param autopilot The autopilot, or null to hand control back to the player
+     */
+    public void setAutopilot(Autopilot autopilot) {
+        this.autopilot = autopilot;
+    }
+
+    /**
+     * Publishes every choice made through this handler as an OPTION_CHOSEN event
+     * @param events The game's event stream, or null to stop publishing
+     */
+    public void setEvents(GameEventStream events) {
+        this.events = events;
+    }
+
+    /**
+     * Gets the Autopilot making choices, or null when the player makes them
+     */
+    public Autopilot getAutopilot() {
+        return autopilot;
+    }
+
     /**
      * Gets the last choice made by the player
      */
@@ -51,7 +90,8 @@ public class PlayerInputHandler {
      * Waits for the player to advance. If there's an interaction, handles it.
      * Otherwise, just continues forward.
      * @param interaction The interaction to present, or null to auto-advance
-     * @return 0 if player moved forward, -1 if interaction handled but no movement
+     * @return 0 if player moved forward, 1 if the player asked to skip ahead to the next event,
+     *         -1 if interaction handled but no movement
      */
     public int waitForStepAdvance(Interaction interaction) {
         synchronized(inputLock) {
@@ -66,10 +106,19 @@ public class PlayerInputHandler {
             } else {
                 // No interaction, player auto-advances
                 System.out.println("\nThe path ahead is clear...");
-                System.out.println("[Press ENTER to continue]");
-                scanner.nextLine();
+                System.out.println("[Press ENTER to continue, or type 'skip' to travel to the next event]");
+                if (autopilot != null) {
+                    // The autopilot walks on one step at a time
+                    waitingForInput = false;
+                    inputLock.notifyAll();
+                    return 0;
+                }
+                String input = scanner.nextLine().trim();
                 waitingForInput = false;
                 inputLock.notifyAll();
+                if (input.equalsIgnoreCase("skip")) {
+                    return 1; // Fast-forward
+                }
                 return 0; // Auto-advance
             }
         }
@@ -89,28 +138,55 @@ public class PlayerInputHandler {
             int choice = getValidChoice(0, currentInteraction.getOptionCount() - 1);
             
             // Execute the chosen option
-            Interaction.Option selectedOption = currentInteraction.getOption(choice);
-            if (selectedOption != null) {
-                Interaction nextInteraction = selectedOption.execute();
-                
-                // If option leads to another interaction, continue the loop
-                if (nextInteraction != null) {
-                    currentInteraction = nextInteraction;
-                } else {
-                    // Interaction complete
-                    currentInteraction.setComplete(true);
-                    break;
-                }
+            Interaction nextInteraction = executeChoice(currentInteraction, choice);
+
+            // If option leads to another interaction, continue the loop
+            if (nextInteraction != null) {
+                currentInteraction = nextInteraction;
+            } else {
+                // Interaction complete
+                break;
             }
         }
-        
+
         currentInteraction = null;
     }
+
+    /**
+     * Executes a single choice for an interaction.
+     * Shared by handleInteraction() and remote sessions that receive choices over the network.
+     * @param interaction The interaction the choice was made in
+     * @param choice The index of the chosen option
+     * @return The next Interaction to show, or null if the interaction has ended
+     */
+    public Interaction executeChoice(Interaction interaction, int choice) {
+        Interaction.Option<?> option = interaction.getOption(choice);
+        if (option == null) {
+            // Invalid choice - show the same interaction again
+            return interaction;
+        }
+        lastChoice = choice;
+        if (events != null) {
+            events.publish(GameEvent.optionChosen(interaction.getTitle(), choice, option.getDescription()));
+        }
+
+        Interaction nextInteraction = interaction.executeOption(choice);
+        if (nextInteraction == null) {
+            interaction.setComplete(true);
+        }
+        return nextInteraction;
+    }
     
     /**
      * Gets a valid integer choice from the player within the specified range
      */
     private int getValidChoice(int min, int max) {
+        if (autopilot != null) {
+            int choice = autopilot.chooseOption(currentInteraction);
+            System.out.println("\nAutopilot chooses " + choice + ".");
+            lastChoice = choice;
+            return choice;
+        }
         while (true) {
             try {
                 System.out.print("\nEnter your choice (" + min + "-" + max + "): ");
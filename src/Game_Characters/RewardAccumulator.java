@@ -0,0 +1,100 @@
+package Game_Characters;
+
+//Collects everything a battle awards (experience, gold, loot and kills) so it can be given to the player in one go
+
+//Methods List:
+// - addKill(Enemy enemy):  counts a defeated enemy and the experience and gold it is worth
+// - addLoot(int item, int goldValue):  counts one dropped loot item
+// - setOutcome(int outcome):  WON, LOST or FLED
+// - commitTo(Player player):  hands the whole batch to the player (see Player.applyRewards)
+
+//Getters:
+// - getExperience() / getGold():  from kills
+// - getKills(int archetypeId) / getTotalKills():
+// - getLootCount(int item) / getLootGold(int item) / getLootName(int item) / getLootTypes() / getTotalLoot() / getLootGold():
+// - getOutcome():
+
+/*
+* How it works:
+* During a battle nothing touches the player's locks: each kill or loot drop only adds to plain counters (kills per
+* archetype id, drops per loot item), so a swarm battle with thousands of kills costs the same per kill as a duel.
+* When the battle ends, commitTo() gives the player the totals, which it applies in one locked batch. A battle
+* belongs to one thread, so the accumulator needs no locking of its own.
+*/
+
+public final class RewardAccumulator {
+    public static final int NONE = 0;
+    public static final int WON = 1;
+    public static final int LOST = 2;
+    public static final int FLED = 3;
+
+    private final String[] lootNames;
+    private final int[] lootCounts;
+    private final long[] lootGoldByItem;
+    private final int[] kills = new int[EnemyArchetype.count()];
+    private long experience;
+    private long gold;
+    private long lootGold;
+    private int totalKills;
+    private int totalLoot;
+    private int outcome = NONE;
+
+    /**
+     * Creates an empty accumulator
+     * @param lootNames The loot items that can drop, addLoot() takes an index into this array
+     */
+    public RewardAccumulator(String[] lootNames) {
+        this.lootNames = lootNames;
+        this.lootCounts = new int[lootNames.length];
+        this.lootGoldByItem = new long[lootNames.length];
+    }
+
+    /**
+     * Counts a defeated enemy and the experience and gold it is worth
+     */
+    public void addKill(Enemy enemy) {
+        EnemyArchetype archetype = enemy.getArchetype();
+        kills[archetype.getId()]++;
+        totalKills++;
+        experience += enemy.getExpOnDefeat();
+        gold += enemy.getGoldValue();
+    }
+
+    /**
+     * Counts one dropped loot item
+     * @param item Index into the loot names
+     * @param goldValue What the item is worth
+     */
+    public void addLoot(int item, int goldValue) {
+        lootCounts[item]++;
+        lootGoldByItem[item] += goldValue;
+        totalLoot++;
+        lootGold += goldValue;
+    }
+
+    /**
+     * Sets how the battle ended: WON, LOST or FLED
+     */
+    public void setOutcome(int outcome) {
+        this.outcome = outcome;
+    }
+
+    /**
+     * Hands the batch to the player, who applies it atomically
+     */
+    public void commitTo(Player player) {
+        player.applyRewards(this);
+    }
+
+    public long getExperience() { return experience; }
+    public long getGold() { return gold; }
+    public int getKills(int archetypeId) { return kills[archetypeId]; }
+    public int getTotalKills() { return totalKills; }
+    public int getLootTypes() { return lootCounts.length; }
+    public int getLootCount(int item) { return lootCounts[item]; }
+    public long getLootGold(int item) { return lootGoldByItem[item]; }
+    public String getLootName(int item) { return lootNames[item]; }
+    public int getTotalLoot() { return totalLoot; }
+    public long getLootGold() { return lootGold; }
+    public int getOutcome() { return outcome; }
+}
@@ -4,18 +4,16 @@ package Game_Characters;
 // - performCustomBehavior():
 // - stepForward():
 // - takeDamage(int damage):
-// - dealDamage():
+// - describeAttack(int damage):
 // - determineSteps():
-// - updateCharacterData():
+// - usesIntelligentMovement():
 // - getCurrentStep():
 // - setCurrentStep(int step):
 
 public class Thief extends CharacterEnemy {
     
     public Thief(Player targetPlayer) {
-        super("Thief", 60, 7, 20, 15, 25, //stats (HP, ATK, Stealth, EXP, Gold)
-        "A tough thief with a decent attack. With a sntealth of 20, running away might take some time.",  //check message
-        targetPlayer);  //player
+        super(EnemyArchetype.THIEF, targetPlayer);  //stats and check message live in the archetype
 
         // Set initial position to step 25 (will move toward player from here)
         this.setCurrentStep(25);  
@@ -39,14 +37,16 @@ public class Thief extends CharacterEnemy {
             if (movement < 0) {
                 // Moving backward
                 currentStep += movement;
-                System.out.println(name + " stalks backward to step " + currentStep + ".");
+                markDirty(CharacterData.STEP);
+                announce(getName() + " stalks backward to step " + currentStep + ".");
             } else if (movement > 0) {
                 // Chasing forward
                 currentStep += movement;
-                System.out.println(name + " dashes forward to step " + currentStep + " in pursuit!");
+                markDirty(CharacterData.STEP);
+                announce(getName() + " dashes forward to step " + currentStep + " in pursuit!");
             } else {
                 // No movement (already at player position)
-                System.out.println(name + " waits at step " + currentStep + ".");
+                announce(getName() + " waits at step " + currentStep + ".");
             }
         }
     }
@@ -54,17 +54,17 @@ public class Thief extends CharacterEnemy {
     @Override
     public void takeDamage(int damage) {
         health -= damage;
-        System.out.println(name + " the Thief takes " + damage + " damage! Remaining health: " + health);
+        System.out.println(getName() + " the Thief takes " + damage + " damage! Remaining health: " + health);
         if (health <= 0) {
             isAlive = false;
-            System.out.println(name + " the Thief has been defeated!");
+            System.out.println(getName() + " the Thief has been defeated!");
         }
+        markDirty(CharacterData.HEALTH | CharacterData.ALIVE);
     }
 
     @Override
-    public int dealDamage() {
-        System.out.println(name + " the Thief attacks for " + attack + " damage!");
-        return attack;
+    public String describeAttack(int damage) {
+        return getName() + " the Thief attacks for " + damage + " damage!";
     }
 
     @Override
@@ -74,12 +74,8 @@ public class Thief extends CharacterEnemy {
     }
 
     @Override
-    public CharacterData updateCharacterData() {
-        this.characterData.health = this.health;
-        this.characterData.maxHealth = this.maxHealth;
-        this.characterData.attack = this.attack;
-        this.characterData.stealth = this.stealth;
-        return this.characterData;
+    protected boolean usesIntelligentMovement() {
+        return true;
     }
 
     //Interface methods
@@ -91,6 +87,7 @@ public class Thief extends CharacterEnemy {
     @Override
     public void setCurrentStep(int step) {
         this.currentStep = step;
+        markDirty(CharacterData.STEP);
     }
 
     // ===== Enemy Behavior Implementation =====
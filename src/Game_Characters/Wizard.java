@@ -4,18 +4,16 @@ package Game_Characters;
 // - performCustomBehavior():
 // - stepForward():
 // - takeDamage(int damage):
-// - dealDamage():
+// - describeAttack(int damage):
 // - determineSteps():
-// - updateCharacterData():
+// - usesIntelligentMovement():
 // - getCurrentStep():
 // - setCurrentStep(int step):
 
 public class Wizard extends CharacterEnemy {
     
     public Wizard(Player targetPlayer) {
-        super("Wizard", 100, 15, 0, 100, 100, //stats (HP, ATK, Stealth, EXP, Gold)
-        "The wizard of the lowest realms... defeat this enemy to complete your jouney! If you are too weak, don't be afraid to flee!",  //check message
-        targetPlayer); //player
+        super(EnemyArchetype.WIZARD, targetPlayer);  //stats and check message live in the archetype
 
         // Set initial position to step 25 (will move toward player from here)
         this.setCurrentStep(15);
@@ -37,14 +35,16 @@ public class Wizard extends CharacterEnemy {
             if (movement < 0) {
                 // Moving backward
                 currentStep += movement;
-                System.out.println(name + " floats backward to step " + currentStep + ".");
+                markDirty(CharacterData.STEP);
+                announce(getName() + " floats backward to step " + currentStep + ".");
             } else if (movement > 0) {
                 // Chasing forward
                 currentStep += movement;
-                System.out.println(name + " teleports forward to step " + currentStep + " with magic!");
+                markDirty(CharacterData.STEP);
+                announce(getName() + " teleports forward to step " + currentStep + " with magic!");
             } else {
                 // No movement (already at player position)
-                System.out.println(name + " levitates at step " + currentStep + ".");
+                announce(getName() + " levitates at step " + currentStep + ".");
             }
         }
     }
@@ -52,17 +52,17 @@ public class Wizard extends CharacterEnemy {
     @Override
     public void takeDamage(int damage) {
         health -= damage;
-        System.out.println(name + " the Wizard takes " + damage + " damage! Remaining health: " + health);
+        System.out.println(getName() + " the Wizard takes " + damage + " damage! Remaining health: " + health);
         if (health <= 0) {
             isAlive = false;
-            System.out.println(name + " the Wizard has been defeated!");
+            System.out.println(getName() + " the Wizard has been defeated!");
         }
+        markDirty(CharacterData.HEALTH | CharacterData.ALIVE);
     }
 
     @Override
-    public int dealDamage() {
-        System.out.println(name + " the Wizard casts a spell for " + attack + " damage!");
-        return attack;
+    public String describeAttack(int damage) {
+        return getName() + " the Wizard casts a spell for " + damage + " damage!";
     }
 
     @Override
@@ -72,12 +72,8 @@ public class Wizard extends CharacterEnemy {
     }
 
     @Override
-    public CharacterData updateCharacterData() {
-        this.characterData.health = this.health;
-        this.characterData.maxHealth = this.maxHealth;
-        this.characterData.attack = this.attack;
-        this.characterData.stealth = this.stealth;
-        return this.characterData;
+    protected boolean usesIntelligentMovement() {
+        return true;
     }
 
     @Override
@@ -88,5 +84,6 @@ public class Wizard extends CharacterEnemy {
     @Override
     public void setCurrentStep(int step) {
         this.currentStep = step;
+        markDirty(CharacterData.STEP);
     }
 }